@@ -0,0 +1,41 @@
+package com.villcore.benchmark;
+
+import com.villcore.ObjectFieldHelper;
+import com.villcore.TypeAdapter;
+import com.villcore.benchmark.GraphGenerator.Shape;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@code getAdapter} for the root type of each shape: cold builds the whole adapter graph
+ * in a helper that has never seen it, warm is a cache hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdapterResolutionBenchmark {
+    @Param
+    Shape shape;
+
+    private ObjectFieldHelper warmHelper;
+
+    @Setup
+    public void setUp() {
+        warmHelper = new ObjectFieldHelper();
+        warmHelper.getAdapter(shape.rootType);
+    }
+
+    @Benchmark
+    public TypeAdapter<?> cold() {
+        return warmHelper.withUnsharedPlans().getAdapter(shape.rootType);
+    }
+
+    @Benchmark
+    public TypeAdapter<?> warm() {
+        return warmHelper.getAdapter(shape.rootType);
+    }
+}
@@ -0,0 +1,33 @@
+package com.villcore.benchmark;
+
+import com.villcore.annotations.Tag;
+import com.villcore.visitor.Visitor;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Field;
+
+/**
+ * A visitor that only consumes what it is given.
+ */
+final class BlackholeVisitor implements Visitor {
+    private final Blackhole blackhole;
+
+    BlackholeVisitor(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    public void startVisit(Object target) {
+        blackhole.consume(target);
+    }
+
+    @Override
+    public void visit(Object target, Field field, Tag tag, String name, Object value) {
+        blackhole.consume(value);
+    }
+
+    @Override
+    public void completeVisit(Object target) {
+        blackhole.consume(target);
+    }
+}
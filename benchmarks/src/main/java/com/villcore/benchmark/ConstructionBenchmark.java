@@ -0,0 +1,95 @@
+package com.villcore.benchmark;
+
+import com.villcore.internal.ConstructorConstructor;
+import com.villcore.internal.ObjectConstructor;
+import com.villcore.reflect.TypeToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of creating one instance: {@code constructorConstructor} is the path used by the library,
+ * {@code reflective} is the {@code Constructor.newInstance} / {@code Method.invoke} path it
+ * replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstructionBenchmark {
+    public enum Kind {
+        /** Public no-args constructor of a public class. */
+        PUBLIC_CONSTRUCTOR(Model.Leaf.class),
+        /** Private no-args constructor. */
+        PRIVATE_CONSTRUCTOR(PrivatelyConstructed.class),
+        /** No no-args constructor, so instances are allocated without running one. */
+        NO_CONSTRUCTOR(Unconstructable.class);
+
+        final Class<?> type;
+
+        Kind(Class<?> type) {
+            this.type = type;
+        }
+    }
+
+    static final class PrivatelyConstructed {
+        String value = "value";
+
+        private PrivatelyConstructed() {
+        }
+    }
+
+    static final class Unconstructable {
+        String value;
+
+        Unconstructable(String value) {
+            this.value = value;
+        }
+    }
+
+    @Param
+    Kind kind;
+
+    private ObjectConstructor<?> constructor;
+    private Constructor<?> reflectiveConstructor;
+    private Object unsafe;
+    private Method allocateInstance;
+
+    @Setup
+    public void setUp() throws Exception {
+        ConstructorConstructor constructorConstructor
+                = new ConstructorConstructor(Collections.emptyMap());
+        constructor = constructorConstructor.get(TypeToken.get(kind.type));
+
+        if (kind == Kind.NO_CONSTRUCTOR) {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+            allocateInstance = unsafeClass.getMethod("allocateInstance", Class.class);
+        } else {
+            reflectiveConstructor = kind.type.getDeclaredConstructor();
+            reflectiveConstructor.setAccessible(true);
+        }
+    }
+
+    @Benchmark
+    public Object constructorConstructor() {
+        return constructor.construct();
+    }
+
+    @Benchmark
+    public Object reflective() throws Exception {
+        if (reflectiveConstructor != null) {
+            Object[] args = null;
+            return reflectiveConstructor.newInstance(args);
+        }
+        return allocateInstance.invoke(unsafe, kind.type);
+    }
+}
@@ -0,0 +1,76 @@
+package com.villcore.benchmark;
+
+import com.villcore.stream.JsonWriter;
+import com.villcore.stream.Utf8JsonWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing an array of telemetry-like decimals with {@link JsonWriter#value(double)}, which
+ * formats into the writer's buffer ({@code value}), and with {@link Double#toString} passed to
+ * {@link JsonWriter#jsonValue}, which is what {@code value(double)} used to do ({@code doubleToString}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DoubleFormattingBenchmark {
+    private final OutputStream sink = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+    private final byte[] buffer = new byte[8192];
+    private double[] values;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        values = new double[10000];
+        for (int i = 0; i < values.length; i++) {
+            switch (i % 3) {
+                case 0:
+                    values[i] = random.nextDouble() * 100;
+                    break;
+                case 1:
+                    values[i] = Math.round(random.nextDouble() * 1e6) / 1e3;
+                    break;
+                default:
+                    values[i] = random.nextGaussian() * 1e-3;
+                    break;
+            }
+        }
+    }
+
+    @Benchmark
+    public void value() throws IOException {
+        JsonWriter writer = new Utf8JsonWriter(sink, buffer);
+        writer.beginArray();
+        for (double value : values) {
+            writer.value(value);
+        }
+        writer.endArray();
+        writer.flush();
+    }
+
+    @Benchmark
+    public void doubleToString() throws IOException {
+        JsonWriter writer = new Utf8JsonWriter(sink, buffer);
+        writer.beginArray();
+        for (double value : values) {
+            writer.jsonValue(Double.toString(value));
+        }
+        writer.endArray();
+        writer.flush();
+    }
+}
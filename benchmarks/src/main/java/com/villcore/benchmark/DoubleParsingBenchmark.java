@@ -0,0 +1,68 @@
+package com.villcore.benchmark;
+
+import com.villcore.stream.JsonReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading an array of telemetry-like decimals with {@link JsonReader#nextDouble}, which
+ * parses in place ({@code nextDouble}), and with {@link JsonReader#nextString} followed by
+ * {@link Double#parseDouble}, which is what {@code nextDouble} used to do ({@code parseDouble}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DoubleParsingBenchmark {
+    private String json;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder out = new StringBuilder("[");
+        for (int i = 0; i < 10000; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            switch (i % 3) {
+                case 0:
+                    out.append(random.nextDouble() * 100);
+                    break;
+                case 1:
+                    out.append(Math.round(random.nextDouble() * 1e6) / 1e3);
+                    break;
+                default:
+                    out.append(random.nextGaussian() * 1e-3);
+                    break;
+            }
+        }
+        json = out.append(']').toString();
+    }
+
+    @Benchmark
+    public void nextDouble(Blackhole blackhole) throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(json));
+        reader.beginArray();
+        while (reader.hasNext()) {
+            blackhole.consume(reader.nextDouble());
+        }
+        reader.endArray();
+    }
+
+    @Benchmark
+    public void parseDouble(Blackhole blackhole) throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(json));
+        reader.beginArray();
+        while (reader.hasNext()) {
+            blackhole.consume(Double.parseDouble(reader.nextString()));
+        }
+        reader.endArray();
+    }
+}
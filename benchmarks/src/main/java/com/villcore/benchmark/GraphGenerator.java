@@ -0,0 +1,195 @@
+package com.villcore.benchmark;
+
+import com.villcore.benchmark.Model.*;
+
+import java.util.*;
+
+/**
+ * Builds object graphs of a given shape and size. Graphs depend only on the seed, so runs are
+ * reproducible.
+ */
+public final class GraphGenerator {
+    public enum Shape {
+        WIDE(Wide.class),
+        DEEP_CHAIN(Chain.class),
+        LIST_FANOUT(ListFanOut.class),
+        MAP_FANOUT(MapFanOut.class),
+        POLYMORPHIC_LIST(Polymorphic.class),
+        PRIMITIVES(PrimitiveList.class),
+        CYCLIC(CyclicNode.class);
+
+        public final Class<?> rootType;
+
+        Shape(Class<?> rootType) {
+            this.rootType = rootType;
+        }
+    }
+
+    private final Random random;
+
+    public GraphGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Returns a graph of roughly {@code size} nodes; for {@link Shape#WIDE} the size is the
+     * length of the nested list and map.
+     */
+    public Object generate(Shape shape, int size) {
+        switch (shape) {
+            case WIDE:
+                return wide(size);
+            case DEEP_CHAIN:
+                return chain(size);
+            case LIST_FANOUT:
+                ListFanOut list = new ListFanOut();
+                list.items = new ArrayList<Leaf>(size);
+                for (int i = 0; i < size; i++) {
+                    list.items.add(leaf());
+                }
+                return list;
+            case MAP_FANOUT:
+                MapFanOut map = new MapFanOut();
+                map.items = new HashMap<String, Leaf>(size * 2);
+                for (int i = 0; i < size; i++) {
+                    map.items.put("key-" + i, leaf());
+                }
+                return map;
+            case POLYMORPHIC_LIST:
+                Polymorphic polymorphic = new Polymorphic();
+                polymorphic.items = new ArrayList<Object>(size);
+                for (int i = 0; i < size; i++) {
+                    polymorphic.items.add(polymorphicElement());
+                }
+                return polymorphic;
+            case PRIMITIVES:
+                PrimitiveList primitives = new PrimitiveList();
+                primitives.items = new ArrayList<Model.Primitives>(size);
+                for (int i = 0; i < size; i++) {
+                    primitives.items.add(primitives());
+                }
+                return primitives;
+            case CYCLIC:
+                return cyclic(size);
+            default:
+                throw new AssertionError(shape);
+        }
+    }
+
+    private Wide wide(int size) {
+        Wide wide = new Wide();
+        wide.s0 = string();
+        wide.s1 = string();
+        wide.s2 = string();
+        wide.s3 = string();
+        wide.s4 = string();
+        wide.s5 = string();
+        wide.s6 = string();
+        wide.s7 = string();
+        wide.l0 = leaf();
+        wide.l1 = leaf();
+        wide.l2 = leaf();
+        wide.l3 = leaf();
+        wide.i0 = random.nextInt();
+        wide.i1 = random.nextInt();
+        wide.j0 = random.nextLong();
+        wide.j1 = random.nextLong();
+        wide.d0 = random.nextDouble();
+        wide.d1 = random.nextDouble();
+        wide.strings = new ArrayList<String>(size);
+        wide.attributes = new LinkedHashMap<String, String>(size * 2);
+        for (int i = 0; i < size; i++) {
+            wide.strings.add(string());
+            wide.attributes.put("attr-" + i, string());
+        }
+        wide.untagged0 = string();
+        wide.untagged1 = string();
+        wide.untagged2 = leaf();
+        return wide;
+    }
+
+    private Chain chain(int size) {
+        Chain head = null;
+        for (int i = size; i > 0; i--) {
+            Chain link = new Chain();
+            link.id = i;
+            link.next = head;
+            head = link;
+        }
+        return head;
+    }
+
+    private Object polymorphicElement() {
+        switch (random.nextInt(4)) {
+            case 0:
+                return leaf();
+            case 1:
+                SpecialLeaf special = new SpecialLeaf();
+                special.name = string();
+                special.code = random.nextInt();
+                special.note = string();
+                return special;
+            case 2:
+                OtherLeaf other = new OtherLeaf();
+                other.value = random.nextLong();
+                return other;
+            default:
+                return string();
+        }
+    }
+
+    private Model.Primitives primitives() {
+        Model.Primitives p = new Model.Primitives();
+        p.i0 = random.nextInt();
+        p.i1 = random.nextInt();
+        p.i2 = random.nextInt();
+        p.i3 = random.nextInt();
+        p.j0 = random.nextLong();
+        p.j1 = random.nextLong();
+        p.j2 = random.nextLong();
+        p.j3 = random.nextLong();
+        p.d0 = random.nextDouble();
+        p.d1 = random.nextDouble();
+        p.d2 = random.nextDouble();
+        p.d3 = random.nextDouble();
+        p.f0 = random.nextFloat();
+        p.f1 = random.nextFloat();
+        p.boxed0 = random.nextInt();
+        p.boxed1 = random.nextLong();
+        return p;
+    }
+
+    private CyclicNode cyclic(int size) {
+        List<CyclicNode> nodes = new ArrayList<CyclicNode>(size);
+        CyclicNode root = new CyclicNode();
+        root.children = new ArrayList<CyclicNode>();
+        nodes.add(root);
+        for (int i = 1; i < size; i++) {
+            CyclicNode node = new CyclicNode();
+            node.id = i;
+            node.children = new ArrayList<CyclicNode>();
+            node.parent = nodes.get(random.nextInt(nodes.size()));
+            node.parent.children.add(node);
+            nodes.add(node);
+        }
+        for (CyclicNode node : nodes) {
+            node.peer = nodes.get(random.nextInt(nodes.size()));
+        }
+        return root;
+    }
+
+    private Leaf leaf() {
+        Leaf leaf = new Leaf();
+        leaf.name = string();
+        leaf.code = random.nextInt();
+        return leaf;
+    }
+
+    private String string() {
+        char[] chars = new char[8 + random.nextInt(16)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,89 @@
+package com.villcore.benchmark;
+
+import com.villcore.stream.JsonPathQuery;
+import com.villcore.stream.JsonReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of pulling three fields out of a 50 KB document with a {@link JsonPathQuery}, which skips
+ * unmatched subtrees with {@link JsonReader#skipValueFast} ({@code query}), and by walking the
+ * document with {@link JsonReader#skipValue} for everything else ({@code walk}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonPathQueryBenchmark {
+    private String json;
+    private JsonPathQuery query;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder out = new StringBuilder("{\"id\":\"order-1\",\"items\":[");
+        for (int i = 0; out.length() < 50 * 1024; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append("{\"sku\":\"sku-").append(random.nextInt(100000))
+                    .append("\",\"price\":").append(random.nextInt(100000) / 100.0)
+                    .append(",\"tags\":[\"a\",\"b\"],\"dims\":{\"w\":").append(random.nextDouble())
+                    .append(",\"h\":").append(random.nextDouble()).append("}}");
+        }
+        out.append("],\"customer\":{\"name\":\"n\",\"address\":{\"city\":\"c\",\"zip\":\"z\"}},\"total\":12.5}");
+        json = out.toString();
+        query = JsonPathQuery.compile("$.id", "$.customer.address.city", "$.total");
+    }
+
+    @Benchmark
+    public void query(final Blackhole blackhole) throws IOException {
+        query.extract(new JsonReader(new StringReader(json)), new JsonPathQuery.Callback() {
+            @Override
+            public boolean onMatch(int index, JsonReader in) throws IOException {
+                blackhole.consume(in.nextString());
+                return true;
+            }
+        });
+    }
+
+    @Benchmark
+    public void walk(Blackhole blackhole) throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(json));
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("id") || name.equals("total")) {
+                blackhole.consume(reader.nextString());
+            } else if (name.equals("customer")) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (reader.nextName().equals("address")) {
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            if (reader.nextName().equals("city")) {
+                                blackhole.consume(reader.nextString());
+                            } else {
+                                reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+}
@@ -0,0 +1,125 @@
+package com.villcore.benchmark;
+
+import com.villcore.stream.JsonReader;
+import com.villcore.stream.JsonToken;
+import com.villcore.stream.Utf8JsonReader;
+import com.villcore.stream.Utf8JsonWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading every token of a log-like file through {@link JsonReader} over an
+ * {@link InputStreamReader} ({@code reader}) and through {@link Utf8JsonReader} over the mapped
+ * file ({@code mapped}). {@code text} selects mostly ASCII or mixed non-ASCII strings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonReaderBenchmark {
+    @Param({"ascii", "mixed"})
+    String text;
+
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        String base = "ascii".equals(text)
+                ? "GET /api/orders?id=%d completed with status \"ok\" for tenant acme-corp"
+                : "Bestellung %d f\u00fcr Kunde M\u00fcller \u2013 \u6ce8\u6587\u306f\u6b63\u5e38\u306b\u51e6\u7406\u3055\u308c\u307e\u3057\u305f \"ok\"";
+        file = File.createTempFile("json-reader-benchmark", ".json");
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            Utf8JsonWriter writer = new Utf8JsonWriter(out);
+            writer.beginArray();
+            for (int i = 0; i < 20000; i++) {
+                writer.beginObject();
+                writer.name("seq").value(i);
+                writer.name("timestamp").value(1700000000000L + i);
+                writer.name("latency").value(i * 0.125);
+                writer.name("message").value(String.format(base, i));
+                writer.endObject();
+            }
+            writer.endArray();
+            writer.flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public void reader(Blackhole blackhole) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+        try {
+            read(reader, blackhole);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Benchmark
+    public void mapped(Blackhole blackhole) throws IOException {
+        JsonReader reader = new Utf8JsonReader(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+        try {
+            read(reader, blackhole);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void read(JsonReader reader, Blackhole blackhole) throws IOException {
+        while (true) {
+            JsonToken token = reader.peek();
+            switch (token) {
+                case BEGIN_ARRAY:
+                    reader.beginArray();
+                    break;
+                case END_ARRAY:
+                    reader.endArray();
+                    break;
+                case BEGIN_OBJECT:
+                    reader.beginObject();
+                    break;
+                case END_OBJECT:
+                    reader.endObject();
+                    break;
+                case NAME:
+                    blackhole.consume(reader.nextName());
+                    break;
+                case STRING:
+                    blackhole.consume(reader.nextString());
+                    break;
+                case NUMBER:
+                    blackhole.consume(reader.nextDouble());
+                    break;
+                case BOOLEAN:
+                    blackhole.consume(reader.nextBoolean());
+                    break;
+                case NULL:
+                    reader.nextNull();
+                    break;
+                case END_DOCUMENT:
+                    return;
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.villcore.benchmark;
+
+import com.villcore.stream.JsonWriter;
+import com.villcore.stream.Utf8JsonWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of encoding one log-like document to an {@link OutputStream} through {@link JsonWriter}
+ * over an {@link OutputStreamWriter} ({@code writer}) and through {@link Utf8JsonWriter} with a
+ * reused buffer ({@code utf8}). {@code text} selects mostly ASCII or mixed non-ASCII strings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonWriterBenchmark {
+    @Param({"ascii", "mixed"})
+    String text;
+
+    private final OutputStream sink = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+    private final byte[] buffer = new byte[8192];
+    private String[] messages;
+
+    @Setup
+    public void setUp() {
+        String base = "ascii".equals(text)
+                ? "GET /api/orders?id=%d completed with status \"ok\" for tenant acme-corp"
+                : "Bestellung %d f\u00fcr Kunde M\u00fcller \u2013 \u6ce8\u6587\u306f\u6b63\u5e38\u306b\u51e6\u7406\u3055\u308c\u307e\u3057\u305f \"ok\"";
+        messages = new String[64];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = String.format(base, i);
+        }
+    }
+
+    @Benchmark
+    public void writer() throws IOException {
+        JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(sink, StandardCharsets.UTF_8)));
+        write(writer);
+    }
+
+    @Benchmark
+    public void utf8() throws IOException {
+        write(new Utf8JsonWriter(sink, buffer));
+    }
+
+    private void write(JsonWriter writer) throws IOException {
+        writer.beginArray();
+        for (int i = 0; i < messages.length; i++) {
+            writer.beginObject();
+            writer.name("seq").value(i);
+            writer.name("timestamp").value(1700000000000L + i);
+            writer.name("message").value(messages[i]);
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.flush();
+    }
+}
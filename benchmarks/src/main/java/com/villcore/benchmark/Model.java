@@ -0,0 +1,108 @@
+package com.villcore.benchmark;
+
+import com.villcore.annotations.Tag;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Object shapes used by the benchmarks. Only tagged fields are descended into.
+ */
+public final class Model {
+    private Model() {
+        throw new UnsupportedOperationException();
+    }
+
+    public static class Leaf {
+        @Tag(name = "leaf_name", klass = String.class) String name;
+        @Tag(name = "leaf_code", klass = Integer.class) int code;
+    }
+
+    public static class SpecialLeaf extends Leaf {
+        @Tag(name = "leaf_note", klass = String.class) String note;
+    }
+
+    public static class OtherLeaf {
+        @Tag(name = "other_value", klass = Long.class) long value;
+    }
+
+    /** Many tagged fields of mixed types on one object. */
+    public static class Wide {
+        @Tag(name = "w00", klass = String.class) String s0;
+        @Tag(name = "w01", klass = String.class) String s1;
+        @Tag(name = "w02", klass = String.class) String s2;
+        @Tag(name = "w03", klass = String.class) String s3;
+        @Tag(name = "w04", klass = String.class) String s4;
+        @Tag(name = "w05", klass = String.class) String s5;
+        @Tag(name = "w06", klass = String.class) String s6;
+        @Tag(name = "w07", klass = String.class) String s7;
+        @Tag(name = "w08", klass = Leaf.class) Leaf l0;
+        @Tag(name = "w09", klass = Leaf.class) Leaf l1;
+        @Tag(name = "w10", klass = Leaf.class) Leaf l2;
+        @Tag(name = "w11", klass = Leaf.class) Leaf l3;
+        @Tag(name = "w12", klass = Integer.class) int i0;
+        @Tag(name = "w13", klass = Integer.class) int i1;
+        @Tag(name = "w14", klass = Long.class) long j0;
+        @Tag(name = "w15", klass = Long.class) long j1;
+        @Tag(name = "w16", klass = Double.class) double d0;
+        @Tag(name = "w17", klass = Double.class) double d1;
+        @Tag(name = "w18", klass = List.class) List<String> strings;
+        @Tag(name = "w19", klass = Map.class) Map<String, String> attributes;
+        String untagged0;
+        String untagged1;
+        Leaf untagged2;
+    }
+
+    /** A linked chain, {@code size} links deep. */
+    public static class Chain {
+        @Tag(name = "chain_id", klass = Integer.class) int id;
+        @Tag(name = "chain_next", klass = Chain.class) Chain next;
+    }
+
+    public static class ListFanOut {
+        @Tag(name = "list_items", klass = List.class) List<Leaf> items;
+    }
+
+    public static class MapFanOut {
+        @Tag(name = "map_items", klass = Map.class) Map<String, Leaf> items;
+    }
+
+    /** Elements are dispatched on their runtime type. */
+    public static class Polymorphic {
+        @Tag(name = "poly_items", klass = List.class) List<Object> items;
+    }
+
+    public static class Primitives {
+        @Tag(name = "p00", klass = Integer.class) int i0;
+        @Tag(name = "p01", klass = Integer.class) int i1;
+        @Tag(name = "p02", klass = Integer.class) int i2;
+        @Tag(name = "p03", klass = Integer.class) int i3;
+        @Tag(name = "p04", klass = Long.class) long j0;
+        @Tag(name = "p05", klass = Long.class) long j1;
+        @Tag(name = "p06", klass = Long.class) long j2;
+        @Tag(name = "p07", klass = Long.class) long j3;
+        @Tag(name = "p08", klass = Double.class) double d0;
+        @Tag(name = "p09", klass = Double.class) double d1;
+        @Tag(name = "p10", klass = Double.class) double d2;
+        @Tag(name = "p11", klass = Double.class) double d3;
+        @Tag(name = "p12", klass = Float.class) float f0;
+        @Tag(name = "p13", klass = Float.class) float f1;
+        @Tag(name = "p14", klass = Integer.class) Integer boxed0;
+        @Tag(name = "p15", klass = Long.class) Long boxed1;
+    }
+
+    public static class PrimitiveList {
+        @Tag(name = "primitive_items", klass = List.class) List<Primitives> items;
+    }
+
+    /**
+     * A tree whose nodes point back at their parent and at a random peer. The back edges are not
+     * tagged, so traversal terminates while the graph itself is cyclic.
+     */
+    public static class CyclicNode {
+        @Tag(name = "node_id", klass = Integer.class) int id;
+        @Tag(name = "node_children", klass = List.class) List<CyclicNode> children;
+        CyclicNode parent;
+        CyclicNode peer;
+    }
+}
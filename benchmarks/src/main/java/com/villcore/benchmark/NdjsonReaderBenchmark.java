@@ -0,0 +1,114 @@
+package com.villcore.benchmark;
+
+import com.villcore.stream.JsonReader;
+import com.villcore.stream.JsonToken;
+import com.villcore.stream.NdjsonReader;
+import com.villcore.stream.Utf8JsonReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading 16 MB of newline-delimited records with an {@link NdjsonReader} on a pool of
+ * {@code threads} threads, in ordered and unordered mode, and with one lenient {@link
+ * Utf8JsonReader} over the whole input on the benchmark thread ({@code sequential}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NdjsonReaderBenchmark {
+    @Param({"1", "4"})
+    private int threads;
+
+    private ByteBuffer input;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; out.length() < 16 * 1024 * 1024; i++) {
+            out.append("{\"id\":").append(i)
+                    .append(",\"user\":\"user-").append(random.nextInt(100000))
+                    .append("\",\"amount\":").append(random.nextInt(100000) / 100.0)
+                    .append(",\"tags\":[\"a\",\"b\"],\"ok\":").append(random.nextBoolean()).append("}\n");
+        }
+        input = ByteBuffer.wrap(out.toString().getBytes(StandardCharsets.UTF_8));
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public long ordered(Blackhole blackhole) throws IOException {
+        NdjsonReader reader = new NdjsonReader(pool);
+        return reader.read(input, new Sum(blackhole));
+    }
+
+    @Benchmark
+    public long unordered(Blackhole blackhole) throws IOException {
+        NdjsonReader reader = new NdjsonReader(pool);
+        reader.setOrdered(false);
+        return reader.read(input, new Sum(blackhole));
+    }
+
+    @Benchmark
+    public long sequential() throws IOException {
+        JsonReader reader = new Utf8JsonReader(input);
+        reader.setLenient(true);
+        long sum = 0;
+        while (reader.peek() != JsonToken.END_DOCUMENT) {
+            sum += readAmount(reader);
+        }
+        return sum;
+    }
+
+    static long readAmount(JsonReader in) throws IOException {
+        long amount = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            if (in.nextName().equals("amount")) {
+                amount = (long) (in.nextDouble() * 100);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return amount;
+    }
+
+    private static final class Sum implements NdjsonReader.Handler<Long> {
+        private final Blackhole blackhole;
+
+        Sum(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public Long parse(JsonReader in) throws IOException {
+            return readAmount(in);
+        }
+
+        @Override
+        public void record(long lineNumber, Long record) {
+            blackhole.consume(record);
+        }
+
+        @Override
+        public void malformed(long lineNumber, Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
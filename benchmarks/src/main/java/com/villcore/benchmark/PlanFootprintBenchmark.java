@@ -0,0 +1,183 @@
+package com.villcore.benchmark;
+
+import com.villcore.ObjectFieldHelper;
+import com.villcore.TypeAdapter;
+import com.villcore.annotations.Tag;
+import com.villcore.internal.bind.ReflectiveTypeAdapterFactory;
+import com.villcore.reflect.TypeToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.reflect.Field;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap retained per type by reflective adapter plans, reported as the {@code bytesPerType}
+ * counter. Each iteration builds {@code copies} plans for every type in {@link #TYPES} and
+ * measures the used heap after a full GC before and after.
+ *
+ * <p>{@link Layout#ADAPTER_GRAPH} resolves the types in helpers with unshared plans, so it counts
+ * everything a plan keeps reachable that no other helper shares. The other two layouts copy only
+ * the bound fields of the resolved adapters. The fields, names, tags and adapters themselves are
+ * shared by every copy, so those layouts count just the plan structure. {@link Layout#COMPACT}
+ * copies the parallel arrays the adapters hold. {@link Layout#PER_FIELD} builds the name-keyed map
+ * of one bound field object per slot that adapters held before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class PlanFootprintBenchmark {
+    private static final Class<?>[] TYPES = {
+            Model.Leaf.class, Model.SpecialLeaf.class, Model.Wide.class, Model.Chain.class,
+            Model.Primitives.class, Model.CyclicNode.class
+    };
+
+    public enum Layout {
+        ADAPTER_GRAPH, COMPACT, PER_FIELD
+    }
+
+    @Param
+    Layout layout;
+
+    @Param({"1000"})
+    int copies;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private ObjectFieldHelper helper;
+    private ReflectiveTypeAdapterFactory.Adapter<?>[] adapters;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public long bytesPerType;
+    }
+
+    @Setup
+    public void setUp() {
+        helper = new ObjectFieldHelper();
+        adapters = new ReflectiveTypeAdapterFactory.Adapter<?>[TYPES.length];
+        for (int i = 0; i < TYPES.length; i++) {
+            adapters[i] = (ReflectiveTypeAdapterFactory.Adapter<?>) helper.getAdapter(TYPES[i]);
+        }
+    }
+
+    @Benchmark
+    public Object retain(Footprint footprint) {
+        Object[] retained = new Object[copies];
+        ObjectFieldHelper[] helpers = new ObjectFieldHelper[copies];
+        if (layout == Layout.ADAPTER_GRAPH) {
+            // the factory chain of each helper isn't part of any plan
+            for (int i = 0; i < copies; i++) {
+                helpers[i] = helper.withUnsharedPlans();
+            }
+        }
+
+        long before = usedHeap();
+        for (int i = 0; i < copies; i++) {
+            retained[i] = build(helpers[i]);
+        }
+        long after = usedHeap();
+
+        footprint.bytesPerType = (after - before) / ((long) copies * TYPES.length);
+        return new Object[] {retained, helpers};
+    }
+
+    private Object build(ObjectFieldHelper unshared) {
+        Object[] plans = new Object[TYPES.length];
+        for (int i = 0; i < TYPES.length; i++) {
+            switch (layout) {
+                case ADAPTER_GRAPH:
+                    plans[i] = unshared.getAdapter(TYPES[i]);
+                    break;
+                case COMPACT:
+                    plans[i] = new CompactPlan(adapters[i]);
+                    break;
+                case PER_FIELD:
+                    plans[i] = perFieldPlan(adapters[i]);
+                    break;
+                default:
+                    throw new AssertionError(layout);
+            }
+        }
+        return plans;
+    }
+
+    private long usedHeap() {
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private Map<String, PerFieldSlot> perFieldPlan(ReflectiveTypeAdapterFactory.Adapter<?> adapter) {
+        Map<String, PerFieldSlot> plan = new LinkedHashMap<String, PerFieldSlot>();
+        for (int slot = 0, size = adapter.getBoundFieldCount(); slot < size; slot++) {
+            Field field = adapter.getBoundField(slot);
+            String name = adapter.getBoundName(slot);
+            plan.put(name, new PerFieldSlot(field, name, adapter.getBoundTag(slot), helper,
+                    TypeToken.get(field.getGenericType()), adapter.getBoundAdapter(slot),
+                    adapter.isBoundWithJsonAdapter(slot)));
+        }
+        return plan;
+    }
+
+    /** The parallel arrays of a plan. */
+    static final class CompactPlan {
+        final Field[] fields;
+        final TypeAdapter<?>[] adapters;
+        final Tag[] tags;
+        final String[] names;
+        final byte[] flags;
+
+        CompactPlan(ReflectiveTypeAdapterFactory.Adapter<?> adapter) {
+            int size = adapter.getBoundFieldCount();
+            fields = new Field[size];
+            adapters = new TypeAdapter<?>[size];
+            tags = new Tag[size];
+            names = new String[size];
+            flags = new byte[size];
+            for (int slot = 0; slot < size; slot++) {
+                fields[slot] = adapter.getBoundField(slot);
+                adapters[slot] = adapter.getBoundAdapter(slot);
+                tags[slot] = adapter.getBoundTag(slot);
+                names[slot] = adapter.getBoundName(slot);
+                flags[slot] = (byte) (adapter.isBoundWithJsonAdapter(slot) ? 1 : 0);
+            }
+        }
+    }
+
+    /**
+     * One bound field as adapters held them before plans became arrays: its own state and what
+     * its anonymous subclass captured.
+     */
+    static final class PerFieldSlot {
+        final Field field;
+        final String name;
+        final Tag tag;
+        final boolean serialized;
+        final boolean deserialized;
+        final ObjectFieldHelper context;
+        final TypeToken<?> fieldType;
+        final TypeAdapter<?> typeAdapter;
+        final boolean jsonAdapterPresent;
+
+        PerFieldSlot(Field field, String name, Tag tag, ObjectFieldHelper context, TypeToken<?> fieldType,
+                     TypeAdapter<?> typeAdapter, boolean jsonAdapterPresent) {
+            this.field = field;
+            this.name = name;
+            this.tag = tag;
+            this.serialized = true;
+            this.deserialized = true;
+            this.context = context;
+            this.fieldType = fieldType;
+            this.typeAdapter = typeAdapter;
+            this.jsonAdapterPresent = jsonAdapterPresent;
+        }
+    }
+}
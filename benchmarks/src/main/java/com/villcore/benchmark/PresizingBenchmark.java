@@ -0,0 +1,72 @@
+package com.villcore.benchmark;
+
+import com.villcore.internal.ConstructorConstructor;
+import com.villcore.internal.ObjectConstructor;
+import com.villcore.reflect.TypeToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of filling a list or map with {@code size} entries when it is created with a capacity hint
+ * ({@code presized}) and without one ({@code grown}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PresizingBenchmark {
+    @Param({"16", "1024"})
+    int size;
+
+    private ObjectConstructor<List<Object>> listConstructor;
+    private ObjectConstructor<Map<Object, Object>> mapConstructor;
+    private final Object value = new Object();
+
+    @Setup
+    public void setUp() {
+        ConstructorConstructor constructorConstructor
+                = new ConstructorConstructor(Collections.emptyMap());
+        listConstructor = constructorConstructor.get(new TypeToken<List<Object>>() {});
+        mapConstructor = constructorConstructor.get(new TypeToken<Map<Object, Object>>() {});
+    }
+
+    @Benchmark
+    public List<Object> listPresized() {
+        return fill(listConstructor.construct(size));
+    }
+
+    @Benchmark
+    public List<Object> listGrown() {
+        return fill(listConstructor.construct());
+    }
+
+    @Benchmark
+    public Map<Object, Object> mapPresized() {
+        return fill(mapConstructor.construct(size));
+    }
+
+    @Benchmark
+    public Map<Object, Object> mapGrown() {
+        return fill(mapConstructor.construct());
+    }
+
+    private List<Object> fill(List<Object> list) {
+        for (int i = 0; i < size; i++) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    private Map<Object, Object> fill(Map<Object, Object> map) {
+        for (int i = 0; i < size; i++) {
+            map.put(i, value);
+        }
+        return map;
+    }
+}
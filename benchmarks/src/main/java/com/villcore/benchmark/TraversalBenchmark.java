@@ -0,0 +1,42 @@
+package com.villcore.benchmark;
+
+import com.villcore.ObjectFieldHelper;
+import com.villcore.benchmark.GraphGenerator.Shape;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to visit one graph with a warm helper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraversalBenchmark {
+    @Param
+    Shape shape;
+
+    @Param({"10", "1000"})
+    int size;
+
+    private ObjectFieldHelper helper;
+    private Object root;
+    private BlackholeVisitor visitor;
+
+    @Setup
+    public void setUp(Blackhole blackhole) throws Exception {
+        helper = new ObjectFieldHelper();
+        root = new GraphGenerator(42).generate(shape, size);
+        visitor = new BlackholeVisitor(blackhole);
+        helper.visit(root, visitor);
+    }
+
+    @Benchmark
+    public void visit() throws Exception {
+        helper.visit(root, visitor);
+    }
+}
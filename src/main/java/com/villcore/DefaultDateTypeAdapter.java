@@ -16,13 +16,13 @@
 
 package com.villcore;
 
-import com.villcore.internal.bind.util.ISO8601Utils;
+import com.villcore.internal.bind.DateTypeAdapter;
+import com.villcore.internal.bind.util.DateFormatPool;
 import com.villcore.visitor.Visitor;
 
 import java.io.IOException;
 import java.sql.Timestamp;
 import java.text.DateFormat;
-import java.text.ParseException;
 import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -40,8 +40,8 @@ final class DefaultDateTypeAdapter extends TypeAdapter<Date> {
     private static final String SIMPLE_NAME = "DefaultDateTypeAdapter";
 
     private final Class<? extends Date> dateType;
-    private final DateFormat enUsFormat;
-    private final DateFormat localFormat;
+    private final DateFormatPool enUsFormat;
+    private final DateFormatPool localFormat;
 
     DefaultDateTypeAdapter(Class<? extends Date> dateType) {
         this(dateType,
@@ -74,38 +74,36 @@ final class DefaultDateTypeAdapter extends TypeAdapter<Date> {
             throw new IllegalArgumentException("Date type must be one of " + Date.class + ", " + Timestamp.class + ", or " + java.sql.Date.class + " but was " + dateType);
         }
         this.dateType = dateType;
-        this.enUsFormat = enUsFormat;
-        this.localFormat = localFormat;
+        this.enUsFormat = new DateFormatPool(enUsFormat);
+        this.localFormat = new DateFormatPool(localFormat);
     }
 
-    // These methods need to be synchronized since JDK DateFormat classes are not thread-safe
-    // See issue 162
     @Override
     public void visit(Date value, Visitor visitor) throws IOException {
-        if (value == null) {
-            return;
-        }
-        synchronized (localFormat) {
-            String dateFormatAsString = enUsFormat.format(value);
-            // out.value(dateFormatAsString);
-        }
+        // dates are terminal values; nothing to descend into
+    }
+
+    /**
+     * Formats {@code value} with the US English format.
+     */
+    public String format(Date value) {
+        return enUsFormat.format(value);
     }
 
-    private Date deserializeToDate(String s) {
-        synchronized (localFormat) {
-            try {
-                return localFormat.parse(s);
-            } catch (ParseException ignored) {
-            }
-            try {
-                return enUsFormat.parse(s);
-            } catch (ParseException ignored) {
-            }
-            try {
-                return ISO8601Utils.parse(s, new ParsePosition(0));
-            } catch (ParseException e) {
-                throw new JsonSyntaxException(s, e);
-            }
+    /**
+     * Parses {@code s} as an ISO 8601 date or with the local or US English format, and converts
+     * it to this adapter's date type.
+     *
+     * @throws JsonSyntaxException if {@code s} matches none of them.
+     */
+    public Date parse(String s) {
+        Date date = DateTypeAdapter.parse(s, localFormat, enUsFormat);
+        if (dateType == Date.class) {
+            return date;
+        } else if (dateType == Timestamp.class) {
+            return new Timestamp(date.getTime());
+        } else {
+            return new java.sql.Date(date.getTime());
         }
     }
 
@@ -113,7 +111,7 @@ final class DefaultDateTypeAdapter extends TypeAdapter<Date> {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append(SIMPLE_NAME);
-        sb.append('(').append(localFormat.getClass().getSimpleName()).append(')');
+        sb.append('(').append(localFormat.describe()).append(')');
         return sb.toString();
     }
 }
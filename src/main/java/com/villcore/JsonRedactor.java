@@ -0,0 +1,511 @@
+package com.villcore;
+
+import com.villcore.PlanNode.FieldStatus;
+import com.villcore.PlanNode.PlanField;
+import com.villcore.internal.bind.TypeAdapterRuntimeTypeWrapper;
+import com.villcore.stream.JsonNames;
+import com.villcore.stream.JsonReader;
+import com.villcore.stream.JsonToken;
+import com.villcore.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Copies JSON from a {@link JsonReader} to a {@link JsonWriter} in one pass, handing the values of
+ * tagged properties to a {@link ValueTransformer}. Which properties are tagged comes either from the
+ * {@code @Tag} fields of a type, under their bound ({@code @SerializedName} or naming strategy)
+ * names, or from an explicit map of paths to tags.
+ *
+ * <p>Nothing is bound or buffered: property names are matched in place with {@link
+ * JsonReader#selectName}, and subtrees without tagged properties are copied token by token, so
+ * memory doesn't grow with the size of the document. A redactor is immutable and may be shared
+ * between threads.
+ */
+public final class JsonRedactor {
+    /**
+     * Rewrites the value of a tagged property.
+     */
+    public interface ValueTransformer {
+        /**
+         * Reads the next value from {@code in} and writes its replacement to {@code out}. Exactly
+         * one value must be read and one written; {@link JsonRedactor#copy} passes a value through
+         * unchanged. The property's name has already been written, and {@link JsonReader#getPath}
+         * locates the value.
+         */
+        void transform(String tag, JsonReader in, JsonWriter out) throws IOException;
+    }
+
+    private final Property root;
+    private final ValueTransformer transformer;
+
+    private JsonRedactor(Property root, ValueTransformer transformer) {
+        if (transformer == null) {
+            throw new NullPointerException("transformer == null");
+        }
+        this.root = root;
+        this.transformer = transformer;
+    }
+
+    /**
+     * Returns a redactor for JSON documents of {@code type}, built from the {@link
+     * ObjectFieldHelper#explain plans} of {@code type} and {@code subtypes}. Every bound field
+     * tagged with {@code @Tag} is transformed as a whole under its tag's name. Untagged fields
+     * are descended into through reflective types, arrays, collections and map values, so tagged
+     * fields nested under them are found too. Excluded types and fields with a {@code
+     * @JsonAdapter} are copied.
+     *
+     * <p>A JSON document doesn't say which class each of its objects came from, so values are
+     * matched by name. Where a value's adapter is chosen by its runtime class (a value declared
+     * as {@code Object}, a non-final class or a type variable), the properties of every listed
+     * subtype of the declared type are matched too, and a property tagged in any of them is
+     * transformed. Properties that only a subtype which isn't listed declares are copied, so list
+     * every subtype whose tagged fields may appear in the documents.
+     */
+    public static JsonRedactor forType(ObjectFieldHelper helper, Type type, ValueTransformer transformer,
+                                       Class<?>... subtypes) {
+        List<PlanNode> subtypePlans = new ArrayList<PlanNode>();
+        for (Class<?> subtype : subtypes) {
+            subtypePlans.add(helper.explainAllValues(subtype));
+        }
+        PlanSchema schema = new PlanSchema(subtypePlans);
+        Map<String, PlanNode> plans = new LinkedHashMap<String, PlanNode>();
+        schema.add(plans, helper.explainAllValues(type), TypeAdapterRuntimeTypeWrapper.dispatchesOnRuntimeType(type));
+        Property root = new Property();
+        root.child = schema.node(plans);
+        return new JsonRedactor(freeze(root, schema.nodes), transformer);
+    }
+
+    /**
+     * Returns a redactor that transforms the values at the given paths under their tags. Paths
+     * use the syntax of {@link JsonReader#getPath}, with {@code [*]} for any array element and
+     * {@code .*} for any property: {@code $.user.ssn}, {@code $.accounts[0].number}, {@code
+     * $.accounts[*].number} or {@code $.attributes.*.secret}. A named or indexed step takes
+     * precedence over {@code *} in the same object or array, and a tagged path's value is
+     * transformed whole, so longer paths below it have no effect.
+     *
+     * @throws IllegalArgumentException if a path is malformed.
+     */
+    public static JsonRedactor forPaths(Map<String, String> tagsByPath, ValueTransformer transformer) {
+        List<Node> nodes = new ArrayList<Node>();
+        Property root = new Property();
+        for (Map.Entry<String, String> entry : tagsByPath.entrySet()) {
+            String path = entry.getKey();
+            String tag = entry.getValue();
+            if (tag == null) {
+                throw new NullPointerException("tag of " + path + " == null");
+            }
+            parsePath(path, root, nodes).tag = tag;
+        }
+        return new JsonRedactor(freeze(root, nodes), transformer);
+    }
+
+    /**
+     * Returns a transformer that replaces every tagged value with the string {@code replacement}.
+     */
+    public static ValueTransformer mask(final String replacement) {
+        return new ValueTransformer() {
+            @Override
+            public void transform(String tag, JsonReader in, JsonWriter out) throws IOException {
+                in.skipValue();
+                out.value(replacement);
+            }
+        };
+    }
+
+    /**
+     * Reads the next value from {@code in} and writes it to {@code out}, transforming the tagged
+     * properties in it. To redact a stream of several top-level values, call this until {@code
+     * in} peeks {@link JsonToken#END_DOCUMENT}.
+     */
+    public void redact(JsonReader in, JsonWriter out) throws IOException {
+        property(root, in, out);
+    }
+
+    private void property(Property property, JsonReader in, JsonWriter out) throws IOException {
+        if (property.tag != null) {
+            transformer.transform(property.tag, in, out);
+        } else if (property.child == null) {
+            copy(in, out);
+        } else {
+            value(property.child, in, out);
+        }
+    }
+
+    private void value(Node node, JsonReader in, JsonWriter out) throws IOException {
+        switch (in.peek()) {
+            case BEGIN_OBJECT:
+                in.beginObject();
+                out.beginObject();
+                while (in.hasNext()) {
+                    int slot = in.selectName(node.names);
+                    if (slot >= 0) {
+                        out.name(node.names.get(slot));
+                        property(node.properties[slot], in, out);
+                    } else if (node.any != null) {
+                        out.name(in.nextName());
+                        property(node.any, in, out);
+                    } else {
+                        out.name(in.nextName());
+                        copy(in, out);
+                    }
+                }
+                in.endObject();
+                out.endObject();
+                break;
+            case BEGIN_ARRAY:
+                in.beginArray();
+                out.beginArray();
+                for (int index = 0; in.hasNext(); index++) {
+                    Property element = index < node.indexed.length && node.indexed[index] != null
+                            ? node.indexed[index]
+                            : node.element;
+                    if (element != null) {
+                        property(element, in, out);
+                    } else {
+                        copy(in, out);
+                    }
+                }
+                in.endArray();
+                out.endArray();
+                break;
+            default:
+                copy(in, out);
+        }
+    }
+
+    /**
+     * Copies the next value from {@code in} to {@code out} token by token. Numbers are copied as
+     * they are written in the input.
+     *
+     * @throws IllegalStateException if the next token isn't the start of a value.
+     */
+    public static void copy(JsonReader in, JsonWriter out) throws IOException {
+        int depth = 0;
+        do {
+            JsonToken token = in.peek();
+            switch (token) {
+                case BEGIN_ARRAY:
+                    in.beginArray();
+                    out.beginArray();
+                    depth++;
+                    break;
+                case END_ARRAY:
+                    in.endArray();
+                    out.endArray();
+                    depth--;
+                    break;
+                case BEGIN_OBJECT:
+                    in.beginObject();
+                    out.beginObject();
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    in.endObject();
+                    out.endObject();
+                    depth--;
+                    break;
+                case NAME:
+                    out.name(in.nextName());
+                    break;
+                case STRING:
+                    out.value(in.nextString());
+                    break;
+                case NUMBER:
+                    out.jsonValue(in.nextString());
+                    break;
+                case BOOLEAN:
+                    out.value(in.nextBoolean());
+                    break;
+                case NULL:
+                    in.nextNull();
+                    out.nullValue();
+                    break;
+                default:
+                    throw new IllegalStateException("Expected a value but was " + token + " at path " + in.getPath());
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * Walks {@code path} from {@code root}, creating the steps it names, and returns its last step.
+     */
+    private static Property parsePath(String path, Property root, List<Node> nodes) {
+        if (!path.startsWith("$")) {
+            throw new IllegalArgumentException("Path doesn't start with $: " + path);
+        }
+        Property property = root;
+        int i = 1;
+        while (i < path.length()) {
+            Node node = property.child;
+            if (node == null) {
+                node = property.child = new Node();
+                nodes.add(node);
+            }
+            if (path.startsWith("[*]", i)) {
+                if (node.element == null) {
+                    node.element = new Property();
+                }
+                property = node.element;
+                i += 3;
+            } else if (path.charAt(i) == '[') {
+                int end = path.indexOf(']', i);
+                int index = end < 0 ? -1 : parseIndex(path.substring(i + 1, end));
+                if (index < 0) {
+                    throw new IllegalArgumentException("Expected an index or '*' at " + (i + 1) + " in " + path);
+                }
+                Property indexed = node.byIndex.get(index);
+                if (indexed == null) {
+                    indexed = new Property();
+                    node.byIndex.put(index, indexed);
+                }
+                property = indexed;
+                i = end + 1;
+            } else if (path.charAt(i) == '.') {
+                int end = i + 1;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                if (end == i + 1) {
+                    throw new IllegalArgumentException("Empty property name at " + i + " in " + path);
+                }
+                String name = path.substring(i + 1, end);
+                if (name.equals("*")) {
+                    if (node.any == null) {
+                        node.any = new Property();
+                    }
+                    property = node.any;
+                } else {
+                    Property named = node.byName.get(name);
+                    if (named == null) {
+                        named = new Property();
+                        node.byName.put(name, named);
+                    }
+                    property = named;
+                }
+                i = end;
+            } else {
+                throw new IllegalArgumentException("Expected '.' or '[' at " + i + " in " + path);
+            }
+        }
+        return property;
+    }
+
+    /**
+     * Returns the array index written as {@code digits}, or -1 if it isn't one.
+     */
+    private static int parseIndex(String digits) {
+        if (digits.isEmpty() || digits.length() > 9) {
+            return -1;
+        }
+        for (int i = 0; i < digits.length(); i++) {
+            char c = digits.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+        }
+        return Integer.parseInt(digits);
+    }
+
+    /**
+     * Drops every step that can't reach a tag, so their values are copied without being walked,
+     * and builds each remaining node's name set. Nodes of recursive types may refer back to
+     * their ancestors, so reachability is found by iterating to a fixed point.
+     */
+    private static Property freeze(Property root, List<Node> nodes) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Node node : nodes) {
+                if (!node.tagged && computeTagged(node)) {
+                    node.tagged = true;
+                    changed = true;
+                }
+            }
+        }
+        for (Node node : nodes) {
+            List<String> names = new ArrayList<String>();
+            List<Property> properties = new ArrayList<Property>();
+            for (Map.Entry<String, Property> entry : node.byName.entrySet()) {
+                if (prune(entry.getValue())) {
+                    names.add(entry.getKey());
+                    properties.add(entry.getValue());
+                }
+            }
+            node.names = JsonNames.of(names.toArray(new String[0]));
+            node.properties = properties.toArray(new Property[0]);
+            node.byName = null;
+            int length = 0;
+            for (Map.Entry<Integer, Property> entry : node.byIndex.entrySet()) {
+                if (prune(entry.getValue())) {
+                    length = entry.getKey() + 1;
+                }
+            }
+            node.indexed = new Property[length];
+            for (Map.Entry<Integer, Property> entry : node.byIndex.entrySet()) {
+                if (entry.getKey() < length && prune(entry.getValue())) {
+                    node.indexed[entry.getKey()] = entry.getValue();
+                }
+            }
+            node.byIndex = null;
+            node.any = prune(node.any) ? node.any : null;
+            node.element = prune(node.element) ? node.element : null;
+        }
+        return prune(root) ? root : new Property();
+    }
+
+    private static boolean computeTagged(Node node) {
+        for (Property property : node.byName.values()) {
+            if (isTagged(property)) {
+                return true;
+            }
+        }
+        for (Property property : node.byIndex.values()) {
+            if (isTagged(property)) {
+                return true;
+            }
+        }
+        return isTagged(node.any) || isTagged(node.element);
+    }
+
+    private static boolean isTagged(Property property) {
+        return property != null && (property.tag != null || (property.child != null && property.child.tagged));
+    }
+
+    /**
+     * Detaches the child of a tagged or untracked step and returns whether the step is kept.
+     */
+    private static boolean prune(Property property) {
+        if (property == null) {
+            return false;
+        }
+        if (property.tag != null || (property.child != null && !property.child.tagged)) {
+            property.child = null;
+        }
+        return property.tag != null || property.child != null;
+    }
+
+    /** A step to a property, an array element or the document itself. */
+    private static final class Property {
+        /** The tag to transform the value under, or null to descend into it. */
+        String tag;
+        /** The node to descend into, or null to copy the value. */
+        Node child;
+    }
+
+    /** The steps out of one object or array value. */
+    private static final class Node {
+        Map<String, Property> byName = new LinkedHashMap<String, Property>();
+        JsonNames names;
+        Property[] properties;
+        Map<Integer, Property> byIndex = new TreeMap<Integer, Property>();
+        /** The steps to array elements by index; null entries fall back to {@link #element}. */
+        Property[] indexed;
+        Property any;
+        Property element;
+        boolean tagged;
+    }
+
+    /**
+     * Builds the nodes for a type from its plan. The values at one step may be described by
+     * several plans: the declared type's, those of its listed subtypes, and those of fields of the
+     * same name in different subtypes. Each distinct set of plans gets one node, so recursive
+     * types produce cycles rather than unbounded trees.
+     */
+    private static final class PlanSchema {
+        private final List<PlanNode> subtypes;
+        /** The complete plan of each type seen, for the {@link PlanNode.Kind#RECURSIVE} nodes. */
+        private final Map<String, PlanNode> byType = new HashMap<String, PlanNode>();
+        private final Map<List<String>, Node> byPlans = new HashMap<List<String>, Node>();
+        final List<Node> nodes = new ArrayList<Node>();
+
+        PlanSchema(List<PlanNode> subtypes) {
+            this.subtypes = subtypes;
+        }
+
+        /**
+         * Adds {@code plan} to {@code plans}, together with the plans of the listed subtypes
+         * if the value's adapter is chosen by its runtime class.
+         */
+        void add(Map<String, PlanNode> plans, PlanNode plan, boolean runtimeType) {
+            if (plan.getKind() == PlanNode.Kind.RECURSIVE) {
+                // a type higher up the plan, so its complete plan has been seen
+                plan = byType.get(plan.getType());
+            } else {
+                byType.put(plan.getType(), plan);
+            }
+            plans.put(plan.getType(), plan);
+            if (runtimeType) {
+                for (PlanNode subtype : subtypes) {
+                    if (subtype.getRawType() != plan.getRawType()
+                            && plan.getRawType().isAssignableFrom(subtype.getRawType())) {
+                        add(plans, subtype, false);
+                    }
+                }
+            }
+        }
+
+        Node node(Map<String, PlanNode> plans) {
+            List<String> key = new ArrayList<String>(plans.keySet());
+            Node node = byPlans.get(key);
+            if (node != null) {
+                return node;
+            }
+            node = new Node();
+            byPlans.put(key, node);
+            nodes.add(node);
+
+            Map<String, Map<String, PlanNode>> childrenByName = new LinkedHashMap<String, Map<String, PlanNode>>();
+            Map<String, PlanNode> elements = new LinkedHashMap<String, PlanNode>();
+            Map<String, PlanNode> values = new LinkedHashMap<String, PlanNode>();
+            for (PlanNode plan : plans.values()) {
+                if (plan.getKind() == PlanNode.Kind.REFLECTIVE) {
+                    for (PlanField field : plan.getFields()) {
+                        if (field.getStatus() == FieldStatus.EXCLUDED) {
+                            continue;
+                        }
+                        Property property = node.byName.get(field.getName());
+                        if (property == null) {
+                            property = new Property();
+                            node.byName.put(field.getName(), property);
+                        }
+                        if (field.getTag() != null) {
+                            if (property.tag == null) {
+                                property.tag = field.getTag();
+                            }
+                        } else if (field.getChild() != null) {
+                            Map<String, PlanNode> children = childrenByName.get(field.getName());
+                            if (children == null) {
+                                children = new LinkedHashMap<String, PlanNode>();
+                                childrenByName.put(field.getName(), children);
+                            }
+                            add(children, field.getChild(), field.isRuntimeTypeDispatch());
+                        }
+                    }
+                } else if (plan.getKind() == PlanNode.Kind.ITERATED && plan.getElement() != null) {
+                    add(Map.class.isAssignableFrom(plan.getRawType()) ? values : elements,
+                            plan.getElement(), plan.isElementRuntimeTypeDispatch());
+                }
+            }
+
+            for (Map.Entry<String, Map<String, PlanNode>> entry : childrenByName.entrySet()) {
+                node.byName.get(entry.getKey()).child = node(entry.getValue());
+            }
+            if (!elements.isEmpty()) {
+                node.element = new Property();
+                node.element.child = node(elements);
+            }
+            if (!values.isEmpty()) {
+                node.any = new Property();
+                node.any.child = node(values);
+            }
+            return node;
+        }
+    }
+}
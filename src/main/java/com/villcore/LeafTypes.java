@@ -0,0 +1,173 @@
+package com.villcore;
+
+import com.villcore.annotations.JsonAdapter;
+import com.villcore.reflect.TypeToken;
+import com.villcore.visitor.Visitor;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable set of value types that are visited as terminal values. {@link ObjectFieldHelper}
+ * checks the set of its configuration right after its user factories, so these types never get
+ * reflective plans and nothing inside them is reported or descended into. {@link #DEFAULT} holds
+ * primitives and their boxes, {@code String}, {@code BigInteger}, {@code BigDecimal}, {@code UUID},
+ * every enum and everything in {@code java.time}.
+ *
+ * <p>Extend it with {@link #withType}, {@link #withHierarchy} and {@link #withPackage}, and give
+ * the result to {@link ObjectFieldHelper#withLeafTypes}. The set is part of a helper's
+ * configuration, so only helpers created with it see the added types. A user factory, or a
+ * {@code @JsonAdapter} on the type itself, takes precedence over the set. So do the checks for NaN
+ * and infinities on {@code double} and {@code float} values, unless the helper allows those
+ * values.
+ */
+public final class LeafTypes {
+    static final TypeAdapter<Object> ADAPTER = new TypeAdapter<Object>() {
+        @Override
+        public void visit(Object value, Visitor visitor) throws IOException {
+        }
+
+        @Override
+        public String toString() {
+            return "LeafTypes.ADAPTER";
+        }
+    };
+
+    public static final LeafTypes DEFAULT = new LeafTypes(
+            new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+                    boolean.class, Boolean.class, byte.class, Byte.class, short.class, Short.class,
+                    char.class, Character.class, int.class, Integer.class, long.class, Long.class,
+                    float.class, Float.class, double.class, Double.class,
+                    String.class, BigInteger.class, BigDecimal.class, UUID.class)),
+            Collections.<Class<?>>singleton(Enum.class),
+            Collections.singleton("java.time."));
+
+    private final Set<Class<?>> types;
+    private final Set<Class<?>> hierarchies;
+    private final Set<String> packages;
+    private final int hashCode;
+
+    private LeafTypes(Set<Class<?>> types, Set<Class<?>> hierarchies, Set<String> packages) {
+        this.types = types;
+        this.hierarchies = hierarchies;
+        this.packages = packages;
+        this.hashCode = Arrays.hashCode(new Object[]{types, hierarchies, packages});
+    }
+
+    /**
+     * Returns these leaf types plus {@code type}. Its subclasses are not affected.
+     */
+    public LeafTypes withType(Class<?> type) {
+        if (types.contains(type)) {
+            return this;
+        }
+        Set<Class<?>> types = new HashSet<Class<?>>(this.types);
+        types.add(type);
+        return new LeafTypes(types, hierarchies, packages);
+    }
+
+    /**
+     * Returns these leaf types plus {@code type} and every subtype of it.
+     */
+    public LeafTypes withHierarchy(Class<?> type) {
+        if (hierarchies.contains(type)) {
+            return this;
+        }
+        Set<Class<?>> hierarchies = new HashSet<Class<?>>(this.hierarchies);
+        hierarchies.add(type);
+        return new LeafTypes(types, hierarchies, packages);
+    }
+
+    /**
+     * Returns these leaf types plus every type in the package named {@code packageName} and its
+     * subpackages.
+     */
+    public LeafTypes withPackage(String packageName) {
+        String prefix = packageName.endsWith(".") ? packageName : packageName + ".";
+        if (packages.contains(prefix)) {
+            return this;
+        }
+        Set<String> packages = new HashSet<String>(this.packages);
+        packages.add(prefix);
+        return new LeafTypes(types, hierarchies, packages);
+    }
+
+    /**
+     * Returns the factory that makes these types leaves, for a helper that checks {@code double}
+     * and {@code float} values for NaN and infinities unless {@code
+     * serializeSpecialFloatingPointValues} is set.
+     */
+    TypeAdapterFactory factory(final boolean serializeSpecialFloatingPointValues) {
+        return new TypeAdapterFactory() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public <T> TypeAdapter<T> create(ObjectFieldHelper context, TypeToken<T> type) {
+                Class<? super T> raw = type.getRawType();
+                if (!isLeaf(raw) || raw.isAnnotationPresent(JsonAdapter.class)) {
+                    return null;
+                }
+                if (!serializeSpecialFloatingPointValues && isFloatingPoint(raw)) {
+                    return null; // leave it to the adapter that rejects NaN and infinities
+                }
+                return (TypeAdapter<T>) ADAPTER;
+            }
+
+            @Override
+            public String toString() {
+                return "LeafTypes.FACTORY";
+            }
+        };
+    }
+
+    private static boolean isFloatingPoint(Class<?> type) {
+        return type == double.class || type == Double.class || type == float.class || type == Float.class;
+    }
+
+    /**
+     * Returns true if {@code adapter} is the adapter of leaf types, which visits nothing.
+     */
+    public static boolean isLeafAdapter(TypeAdapter<?> adapter) {
+        return adapter == ADAPTER;
+    }
+
+    public boolean isLeaf(Class<?> type) {
+        if (types.contains(type)) {
+            return true;
+        }
+        for (Class<?> hierarchy : hierarchies) {
+            if (hierarchy.isAssignableFrom(type)) {
+                return true;
+            }
+        }
+        String name = type.getName();
+        for (String packageName : packages) {
+            if (name.startsWith(packageName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LeafTypes)) {
+            return false;
+        }
+        LeafTypes that = (LeafTypes) o;
+        return types.equals(that.types) && hierarchies.equals(that.hierarchies) && packages.equals(that.packages);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
@@ -16,18 +16,29 @@
 
 package com.villcore;
 
+import com.villcore.annotations.Tag;
+import com.villcore.internal.$Gson$Types;
 import com.villcore.internal.ConstructorConstructor;
 import com.villcore.internal.Excluder;
 import com.villcore.reflect.TypeToken;
 import com.villcore.stream.JsonWriter;
 import com.villcore.internal.bind.*;
+import com.villcore.metrics.FlightRecorderEvents;
+import com.villcore.metrics.TraversalMetrics;
+import com.villcore.visitor.ArrayVisitor;
 import com.villcore.visitor.Visitor;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
 import java.lang.reflect.Type;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
 
@@ -38,19 +49,38 @@ public final class ObjectFieldHelper {
     static final boolean DEFAULT_ESCAPE_HTML = true;
     static final boolean DEFAULT_SERIALIZE_NULLS = false;
     static final boolean DEFAULT_COMPLEX_MAP_KEYS = false;
+    static final boolean DEFAULT_VISIT_MAP_VALUES = true;
     static final boolean DEFAULT_SPECIALIZE_FLOAT_VALUES = false;
 
     private static final TypeToken<?> NULL_KEY_SURROGATE = TypeToken.get(Object.class);
 
-    private final ThreadLocal<Map<TypeToken<?>, FutureTypeAdapter<?>>> calls = new ThreadLocal<Map<TypeToken<?>, FutureTypeAdapter<?>>>();
+    /**
+     * Adapter plans keyed by the configuration that built them. Helpers created with an equal
+     * configuration share one type token cache, so each adapter graph is built once per process.
+     * Entries are weakly held and dropped once no helper uses them.
+     */
+    private static final ConcurrentMap<ConfigFingerprint, SharedPlansReference> SHARED_PLANS
+            = new ConcurrentHashMap<ConfigFingerprint, SharedPlansReference>();
+    private static final ReferenceQueue<SharedPlans> STALE_PLANS = new ReferenceQueue<SharedPlans>();
 
-    private final Map<TypeToken<?>, TypeAdapter<?>> typeTokenCache = new ConcurrentHashMap<TypeToken<?>, TypeAdapter<?>>();
+    /**
+     * Keeps this helper's shared plans reachable.
+     */
+    private final SharedPlans plans;
+
+    private final ConcurrentMap<TypeToken<?>, TypeAdapter<?>> typeTokenCache;
 
     private final List<TypeAdapterFactory> factories;
     private final ConstructorConstructor constructorConstructor;
 
     private final boolean serializeNulls;
+    private final Excluder excluder;
+    private final ConfigFingerprint config;
+    private final boolean visitMapKeys;
+    private final boolean visitMapValues;
+    private volatile TraversalMetrics metrics;
     private final JsonAdapterAnnotationTypeAdapterFactory jsonAdapterFactory;
+    private final ReflectiveTypeAdapterFactory reflectiveFactory;
 
     public ObjectFieldHelper() {
         this(Excluder.DEFAULT, FieldNamingPolicy.IDENTITY,
@@ -66,14 +96,71 @@ public final class ObjectFieldHelper {
                       boolean prettyPrinting, boolean lenient, boolean serializeSpecialFloatingPointValues,
                       LongSerializationPolicy longSerializationPolicy,
                       List<TypeAdapterFactory> typeAdapterFactories) {
-        this.constructorConstructor = new ConstructorConstructor(instanceCreators);
-        this.serializeNulls = serializeNulls;
+        this(excluder, fieldNamingStrategy, instanceCreators, serializeNulls,
+                complexMapKeySerialization, DEFAULT_VISIT_MAP_VALUES, serializeSpecialFloatingPointValues,
+                longSerializationPolicy, typeAdapterFactories);
+    }
+
+    private ObjectFieldHelper(final Excluder excluder, final FieldNamingStrategy fieldNamingStrategy,
+                              final Map<Type, InstanceCreator<?>> instanceCreators, boolean serializeNulls,
+                              boolean visitMapKeys, boolean visitMapValues,
+                              boolean serializeSpecialFloatingPointValues,
+                              LongSerializationPolicy longSerializationPolicy,
+                              List<TypeAdapterFactory> typeAdapterFactories) {
+        this(new ConfigFingerprint(excluder, fieldNamingStrategy, instanceCreators, serializeNulls,
+                visitMapKeys, visitMapValues, serializeSpecialFloatingPointValues, longSerializationPolicy,
+                typeAdapterFactories, LeafTypes.DEFAULT));
+    }
+
+    private ObjectFieldHelper(ConfigFingerprint config) {
+        this(config, sharedPlans(config));
+    }
+
+    /**
+     * Creates a helper with {@code config} and {@code plans} that otherwise carries over the state
+     * of {@code source}, such as its metrics.
+     */
+    private ObjectFieldHelper(ObjectFieldHelper source, ConfigFingerprint config, SharedPlans plans) {
+        this(config, plans);
+        this.metrics = source.metrics;
+    }
+
+    /**
+     * Creates a helper that uses {@code plans}. The first helper created for a {@link SharedPlans}
+     * is its context: it builds the factory chain and is the only helper that creates adapters, so
+     * shared adapters never hold on to the helper that happened to ask for them first. Every other
+     * helper reuses the context's factories and hands cache misses to it.
+     */
+    private ObjectFieldHelper(ConfigFingerprint config, SharedPlans plans) {
+        this.config = config;
+        this.serializeNulls = config.serializeNulls;
+        this.excluder = config.excluder;
+        this.visitMapKeys = config.visitMapKeys;
+        this.visitMapValues = config.visitMapValues;
+        this.plans = plans;
+        this.typeTokenCache = plans.adapters;
+
+        ObjectFieldHelper context = plans.context;
+        if (context != null) {
+            this.constructorConstructor = context.constructorConstructor;
+            this.jsonAdapterFactory = context.jsonAdapterFactory;
+            this.reflectiveFactory = context.reflectiveFactory;
+            this.factories = context.factories;
+            return;
+        }
+
+        Excluder excluder = config.excluder;
+        boolean visitMapKeys = config.visitMapKeys;
+        boolean visitMapValues = config.visitMapValues;
+        boolean serializeSpecialFloatingPointValues = config.serializeSpecialFloatingPointValues;
+        this.constructorConstructor = new ConstructorConstructor(config.instanceCreators);
 
         List<TypeAdapterFactory> factories = new ArrayList<TypeAdapterFactory>();
 
         factories.add(ObjectTypeAdapter.FACTORY);
         factories.add(excluder);
-        factories.addAll(typeAdapterFactories);
+        factories.addAll(config.typeAdapterFactories);
+        factories.add(config.leafTypes.factory(serializeSpecialFloatingPointValues));
 
         // type adapters for basic platform types
         factories.add(TypeAdapters.STRING_FACTORY);
@@ -81,7 +168,7 @@ public final class ObjectFieldHelper {
         // factories.add(TypeAdapters.BOOLEAN_FACTORY);
         // factories.add(TypeAdapters.BYTE_FACTORY);
         // factories.add(TypeAdapters.SHORT_FACTORY);
-        TypeAdapter<Number> longAdapter = longAdapter(longSerializationPolicy);
+        TypeAdapter<Number> longAdapter = longAdapter(config.longSerializationPolicy);
         factories.add(TypeAdapters.newFactory(long.class, Long.class, longAdapter));
         factories.add(TypeAdapters.newFactory(double.class, Double.class, doubleAdapter(serializeSpecialFloatingPointValues)));
         factories.add(TypeAdapters.newFactory(float.class, Float.class, floatAdapter(serializeSpecialFloatingPointValues)));
@@ -108,20 +195,45 @@ public final class ObjectFieldHelper {
         // factories.add(TimeTypeAdapter.FACTORY);
         // factories.add(SqlDateTypeAdapter.FACTORY);
         // factories.add(TypeAdapters.TIMESTAMP_FACTORY);
-        // factories.add(ArrayTypeAdapter.FACTORY);
+        factories.add(ArrayTypeAdapter.FACTORY);
         // factories.add(TypeAdapters.CLASS_FACTORY);
 
         // type adapters for composite and user-defined types
         factories.add(new CollectionTypeAdapterFactory(constructorConstructor));
-        factories.add(new MapTypeAdapterFactory(constructorConstructor, complexMapKeySerialization));
+        factories.add(new MapTypeAdapterFactory(constructorConstructor, visitMapKeys, visitMapValues));
         this.jsonAdapterFactory = new JsonAdapterAnnotationTypeAdapterFactory(constructorConstructor);
         factories.add(jsonAdapterFactory);
         // factories.add(TypeAdapters.ENUM_FACTORY);
-        factories.add(new ReflectiveTypeAdapterFactory(constructorConstructor, fieldNamingStrategy, excluder, jsonAdapterFactory));
+        this.reflectiveFactory = new ReflectiveTypeAdapterFactory(constructorConstructor,
+                config.fieldNamingStrategy, excluder, jsonAdapterFactory);
+        factories.add(reflectiveFactory);
 
         this.factories = Collections.unmodifiableList(factories);
     }
 
+    private static SharedPlans sharedPlans(ConfigFingerprint fingerprint) {
+        for (Reference<? extends SharedPlans> stale; (stale = STALE_PLANS.poll()) != null; ) {
+            SharedPlansReference reference = (SharedPlansReference) stale;
+            SHARED_PLANS.remove(reference.fingerprint, reference);
+        }
+
+        while (true) {
+            SharedPlansReference reference = SHARED_PLANS.get(fingerprint);
+            SharedPlans plans = reference == null ? null : reference.get();
+            if (plans != null) {
+                return plans;
+            }
+            SharedPlans created = new SharedPlans(fingerprint);
+            SharedPlansReference createdReference = new SharedPlansReference(fingerprint, created, STALE_PLANS);
+            boolean published = reference == null
+                    ? SHARED_PLANS.putIfAbsent(fingerprint, createdReference) == null
+                    : SHARED_PLANS.replace(fingerprint, reference, createdReference);
+            if (published) {
+                return created;
+            }
+        }
+    }
+
     private TypeAdapter<Number> doubleAdapter(boolean serializeSpecialFloatingPointValues) {
         if (serializeSpecialFloatingPointValues) {
             return TypeAdapters.DOUBLE;
@@ -202,44 +314,137 @@ public final class ObjectFieldHelper {
         if (cached != null) {
             return (TypeAdapter<T>) cached;
         }
+        if (plans.context != this) {
+            return plans.context.getAdapter(type);
+        }
 
-        Map<TypeToken<?>, FutureTypeAdapter<?>> threadCalls = calls.get();
-        boolean requiresThreadLocalCleanup = false;
-        if (threadCalls == null) {
-            threadCalls = new HashMap<TypeToken<?>, FutureTypeAdapter<?>>();
-            calls.set(threadCalls);
-            requiresThreadLocalCleanup = true;
+        Thread thread = Thread.currentThread();
+        Resolution ongoing = plans.resolutions.get(thread);
+        if (ongoing != null) {
+            return resolve(type, ongoing);
         }
+        Resolution resolution = new Resolution();
+        plans.resolutions.put(thread, resolution);
+        boolean published = false;
+        try {
+            TypeAdapter<T> adapter = resolve(type, resolution);
+            if (resolution.failed) {
+                return adapter;
+            }
+            publish(resolution);
+            published = true;
+            // another thread may have published its own adapter for the type first
+            return (TypeAdapter<T>) typeTokenCache.get(type);
+        } finally {
+            plans.resolutions.remove(thread);
+            if (!published) {
+                reflectiveFactory.discardPartialPlans();
+            }
+        }
+    }
 
+    /**
+     * Creates the adapter for {@code type} as part of this thread's {@code resolution}. Adapters,
+     * and placeholders for the ones still being created, are kept in the resolution and are seen
+     * by no other thread until the outermost call publishes them. Threads resolving the same type
+     * at once each create it, and the first to publish wins; a slow or blocking factory holds up
+     * only its own thread.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> TypeAdapter<T> resolve(TypeToken<T> type, Resolution resolution) {
+        TypeAdapter<?> cached = typeTokenCache.get(type);
+        if (cached != null) {
+            // another thread published it since this resolution started
+            return (TypeAdapter<T>) cached;
+        }
         // the key and value type parameters always agree
-        FutureTypeAdapter<T> ongoingCall = (FutureTypeAdapter<T>) threadCalls.get(type);
-        if (ongoingCall != null) {
-            return ongoingCall;
+        TypeAdapter<T> ongoing = (TypeAdapter<T>) resolution.adapters.get(type);
+        if (ongoing != null) {
+            // a recursive reference to a type this thread is creating, or one it created already
+            return ongoing;
         }
 
+        type = cacheKey(type);
+        FutureTypeAdapter<T> call = new FutureTypeAdapter<T>(type);
+        resolution.adapters.put(type, call);
+        boolean created = false;
         try {
-            FutureTypeAdapter<T> call = new FutureTypeAdapter<T>();
-            threadCalls.put(type, call);
-
+            Object event = FlightRecorderEvents.beginAdapterCreation();
             for (TypeAdapterFactory factory : factories) {
                 TypeAdapter<T> candidate = factory.create(this, type);
                 if (candidate != null) {
+                    if (event != null) {
+                        FlightRecorderEvents.commitAdapterCreation(event, String.valueOf(type), String.valueOf(factory));
+                    }
                     call.setDelegate(candidate);
-                    typeTokenCache.put(type, candidate);
+                    resolution.adapters.put(type, candidate);
+                    resolution.producers.put(type, factory);
+                    created = true;
                     return candidate;
                 }
             }
             throw new IllegalArgumentException("GSON cannot handle " + type);
         } finally {
-            threadCalls.remove(type);
+            if (!created) {
+                resolution.adapters.remove(type);
+                resolution.failed = true;
+            }
+        }
+    }
 
-            if (requiresThreadLocalCleanup) {
-                calls.remove();
+    /**
+     * Caches every adapter of a resolution that succeeded, with the partial plans it built. Types
+     * another thread published first keep that thread's adapter; this thread's copies still work,
+     * and stay reachable only from its other adapters.
+     */
+    private void publish(Resolution resolution) {
+        for (Map.Entry<TypeToken<?>, TypeAdapter<?>> entry : resolution.adapters.entrySet()) {
+            TypeToken<?> type = entry.getKey();
+            if (typeTokenCache.putIfAbsent(type, entry.getValue()) == null) {
+                plans.producers.put(type, resolution.producers.get(type));
             }
         }
+        reflectiveFactory.publishPartialPlans();
+    }
+
+    /**
+     * Returns the canonical token of {@code type}, which the adapter cache is keyed by. Tokens
+     * from {@link TypeToken#get(Type)} are canonical already; this maps the anonymous subclasses
+     * callers create to them, so most cache lookups find their key by identity.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> TypeToken<T> cacheKey(TypeToken<T> type) {
+        return (TypeToken<T>) TypeToken.get(type.getType());
     }
 
     public <T> TypeAdapter<T> getDelegateAdapter(TypeAdapterFactory skipPast, TypeToken<T> type) {
+        if (plans.context != this) {
+            return plans.context.getDelegateAdapter(skipPast, type);
+        }
+        Thread thread = Thread.currentThread();
+        if (plans.resolutions.get(thread) != null) {
+            return createDelegateAdapter(skipPast, type);
+        }
+        // the delegate isn't cached, but the adapters and plans created for it are
+        Resolution resolution = new Resolution();
+        plans.resolutions.put(thread, resolution);
+        boolean published = false;
+        try {
+            TypeAdapter<T> delegate = createDelegateAdapter(skipPast, type);
+            if (!resolution.failed) {
+                publish(resolution);
+                published = true;
+            }
+            return delegate;
+        } finally {
+            plans.resolutions.remove(thread);
+            if (!published) {
+                reflectiveFactory.discardPartialPlans();
+            }
+        }
+    }
+
+    private <T> TypeAdapter<T> createDelegateAdapter(TypeAdapterFactory skipPast, TypeToken<T> type) {
         // Hack. If the skipPast factory isn't registered, assume the factory is being requested via
         // our @JsonAdapter annotation.
         if (!factories.contains(skipPast)) {
@@ -267,10 +472,110 @@ public final class ObjectFieldHelper {
         return getAdapter(TypeToken.get(type));
     }
 
+    /**
+     * Returns the factory that created the cached adapter for {@code type}, or null if none has.
+     */
+    TypeAdapterFactory getProducingFactory(TypeToken<?> type) {
+        return plans.producers.get(type);
+    }
+
+    /**
+     * Returns true if {@code factory} is one of this helper's built-in factories, rather than one
+     * it was configured with or the {@code @JsonAdapter} factory.
+     */
+    boolean isBuiltInFactory(TypeAdapterFactory factory) {
+        return factory != null && factories.contains(factory) && factory != jsonAdapterFactory
+                && !config.typeAdapterFactories.contains(factory);
+    }
+
+    /**
+     * Describes how values of {@code type} are visited: the adapter and factory for every node,
+     * bound, untagged and excluded fields with their tags, where values are read reflectively,
+     * boxed, or dispatched on their runtime type, and which subtrees are iterated with their
+     * estimated cost per element. Creates any adapters that don't exist yet.
+     */
+    public PlanNode explain(Type type) {
+        return new PlanExplainer(this, excluder, visitMapKeys, visitMapValues).explain(TypeToken.get(type));
+    }
+
+    /**
+     * Like {@link #explain}, but also explains the values of untagged fields and of maps, which
+     * is every value the JSON form of {@code type} may hold.
+     */
+    PlanNode explainAllValues(Type type) {
+        return new PlanExplainer(this, excluder, false, true, true).explain(TypeToken.get(type));
+    }
+
+    /**
+     * Returns a helper configured like this one that visits the keys and the values of maps as
+     * given. By default values are visited and keys aren't. When both are, each key is visited
+     * right before its value, entry by entry. The returned helper shares adapters with every other
+     * helper of the same configuration, and collects into the same metrics as this one.
+     */
+    public ObjectFieldHelper withMapVisiting(boolean visitKeys, boolean visitValues) {
+        if (visitKeys == visitMapKeys && visitValues == visitMapValues) {
+            return this;
+        }
+        ConfigFingerprint derived = config.withMapVisiting(visitKeys, visitValues);
+        return new ObjectFieldHelper(this, derived, sharedPlans(derived));
+    }
+
+    /**
+     * Returns a helper configured like this one that visits {@code leafTypes} as terminal values
+     * instead of {@link #getLeafTypes}. The returned helper shares adapters with every other helper
+     * of the same configuration, and collects into the same metrics as this one.
+     */
+    public ObjectFieldHelper withLeafTypes(LeafTypes leafTypes) {
+        if (leafTypes.equals(config.leafTypes)) {
+            return this;
+        }
+        ConfigFingerprint derived = config.withLeafTypes(leafTypes);
+        return new ObjectFieldHelper(this, derived, sharedPlans(derived));
+    }
+
+    /**
+     * Returns the types this helper visits as terminal values, {@link LeafTypes#DEFAULT} unless
+     * it was derived with {@link #withLeafTypes}.
+     */
+    public LeafTypes getLeafTypes() {
+        return config.leafTypes;
+    }
+
+    /**
+     * Returns a helper configured like this one that shares no adapters with any other helper:
+     * it builds every adapter itself, and helpers created later never reuse its adapters. Use it
+     * to measure adapter creation from cold. Helpers derived from it with {@link #withMapVisiting}
+     * or {@link #withLeafTypes} share adapters as usual.
+     */
+    public ObjectFieldHelper withUnsharedPlans() {
+        return new ObjectFieldHelper(this, config, new SharedPlans(config));
+    }
+
+    /**
+     * Starts collecting traversal metrics into {@code metrics}, or stops if it is null. While
+     * metrics are off, visiting costs one field read.
+     */
+    public void setMetrics(TraversalMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public TraversalMetrics getMetrics() {
+        return metrics;
+    }
+
     public void visit(Object src, Visitor visitor) throws Exception {
+        TraversalMetrics metrics = this.metrics;
+        if (metrics == null && !FlightRecorderEvents.isTraversalEnabled()) {
+            visitRoot(src, visitor);
+            return;
+        }
+        visitInstrumented(src, src == null ? Object.class : src.getClass(), true, visitor, metrics);
+    }
+
+    private void visitRoot(Object src, Visitor visitor) throws Exception {
         visitor.startVisit(src);
         if (src != null) {
-            visit(src, src.getClass(), visitor);
+            visitTyped(src, src.getClass(), visitor);
         }
         visitor.completeVisit(src);
     }
@@ -293,28 +598,275 @@ public final class ObjectFieldHelper {
     };
     private static final JsonWriter dummyJsonWriter = new JsonWriter(dummyWriter);
 
-    @SuppressWarnings("unchecked")
     public void visit(Object src, Type typeOfSrc, Visitor visitor) throws Exception {
+        TraversalMetrics metrics = this.metrics;
+        if (metrics == null && !FlightRecorderEvents.isTraversalEnabled()) {
+            visitTyped(src, typeOfSrc, visitor);
+            return;
+        }
+        visitInstrumented(src, typeOfSrc, false, visitor, metrics);
+    }
+
+    private void visitInstrumented(Object src, Type typeOfSrc, boolean root, Visitor visitor,
+                                   TraversalMetrics metrics) throws Exception {
+        InstrumentedVisitor instrumented = new InstrumentedVisitor(visitor, metrics,
+                FlightRecorderEvents.getSlowCallbackThreshold());
+        Object event = FlightRecorderEvents.beginVisit();
+        long start = System.nanoTime();
+        try {
+            if (root) {
+                visitRoot(src, instrumented);
+            } else {
+                visitTyped(src, typeOfSrc, instrumented);
+            }
+        } finally {
+            Class<?> rootType = $Gson$Types.getRawType(typeOfSrc);
+            if (metrics != null) {
+                metrics.recordVisit(rootType, System.nanoTime() - start, instrumented.nodes);
+            }
+            if (event != null) {
+                FlightRecorderEvents.commitVisit(event, rootType, instrumented.nodes);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void visitTyped(Object src, Type typeOfSrc, Visitor visitor) throws Exception {
         TypeAdapter<?> adapter = getAdapter(TypeToken.get(typeOfSrc));
         ((TypeAdapter<Object>) adapter).visit(src, visitor);
     }
 
-    static class FutureTypeAdapter<T> extends TypeAdapter<T> {
-        private TypeAdapter<T> delegate;
+    /**
+     * Counts the fields reported during one top-level visit. When metrics are on it records tag
+     * hits and the sizes of tagged collections, maps and arrays; when a slow callback threshold is
+     * set it times every callback. Arrays are passed on if the delegate is an {@link ArrayVisitor}.
+     */
+    private static final class InstrumentedVisitor implements ArrayVisitor {
+        private final Visitor delegate;
+        private final ArrayVisitor arrayDelegate;
+        private final TraversalMetrics metrics;
+        private final long slowCallbackThresholdNanos;
+        long nodes;
+
+        InstrumentedVisitor(Visitor delegate, TraversalMetrics metrics, long slowCallbackThresholdNanos) {
+            this.delegate = delegate;
+            this.arrayDelegate = delegate instanceof ArrayVisitor ? (ArrayVisitor) delegate : null;
+            this.metrics = metrics;
+            this.slowCallbackThresholdNanos = slowCallbackThresholdNanos;
+        }
+
+        @Override
+        public void startVisit(Object target) {
+            delegate.startVisit(target);
+        }
+
+        @Override
+        public void visit(Object target, Field field, Tag tag, String name, Object value) {
+            nodes++;
+            if (metrics != null) {
+                metrics.recordTag(tag);
+                if (value instanceof Collection) {
+                    metrics.recordCollectionSize(((Collection<?>) value).size());
+                } else if (value instanceof Map) {
+                    metrics.recordCollectionSize(((Map<?, ?>) value).size());
+                } else if (value != null && value.getClass().isArray()) {
+                    metrics.recordCollectionSize(Array.getLength(value));
+                }
+            }
+            if (slowCallbackThresholdNanos < 0) {
+                delegate.visit(target, field, tag, name, value);
+                return;
+            }
+            long start = System.nanoTime();
+            delegate.visit(target, field, tag, name, value);
+            long elapsed = System.nanoTime() - start;
+            if (elapsed > slowCallbackThresholdNanos) {
+                FlightRecorderEvents.commitSlowCallback(target, field, tag, elapsed);
+            }
+        }
+
+        @Override
+        public void completeVisit(Object target) {
+            delegate.completeVisit(target);
+        }
+
+        @Override
+        public void visitArray(boolean[] values, int offset, int length) {
+            if (arrayDelegate != null) {
+                arrayDelegate.visitArray(values, offset, length);
+            }
+        }
 
-        public void setDelegate(TypeAdapter<T> typeAdapter) {
-            if (delegate != null) {
-                throw new AssertionError();
+        @Override
+        public void visitArray(byte[] values, int offset, int length) {
+            if (arrayDelegate != null) {
+                arrayDelegate.visitArray(values, offset, length);
             }
-            delegate = typeAdapter;
         }
 
         @Override
-        public void visit(T value, Visitor visitor) throws IOException {
-            if (delegate == null) {
-                throw new IllegalStateException();
+        public void visitArray(short[] values, int offset, int length) {
+            if (arrayDelegate != null) {
+                arrayDelegate.visitArray(values, offset, length);
             }
-            delegate.visit(value, visitor);
+        }
+
+        @Override
+        public void visitArray(char[] values, int offset, int length) {
+            if (arrayDelegate != null) {
+                arrayDelegate.visitArray(values, offset, length);
+            }
+        }
+
+        @Override
+        public void visitArray(int[] values, int offset, int length) {
+            if (arrayDelegate != null) {
+                arrayDelegate.visitArray(values, offset, length);
+            }
+        }
+
+        @Override
+        public void visitArray(long[] values, int offset, int length) {
+            if (arrayDelegate != null) {
+                arrayDelegate.visitArray(values, offset, length);
+            }
+        }
+
+        @Override
+        public void visitArray(float[] values, int offset, int length) {
+            if (arrayDelegate != null) {
+                arrayDelegate.visitArray(values, offset, length);
+            }
+        }
+
+        @Override
+        public void visitArray(double[] values, int offset, int length) {
+            if (arrayDelegate != null) {
+                arrayDelegate.visitArray(values, offset, length);
+            }
+        }
+
+        @Override
+        public void visitArray(Object[] values, int offset, int length) {
+            if (arrayDelegate != null) {
+                arrayDelegate.visitArray(values, offset, length);
+            }
+        }
+    }
+
+    /**
+     * Adapters and in-flight resolutions shared by every helper with the same configuration.
+     */
+    private static final class SharedPlans {
+        /** The helper every shared adapter is created with and refers back to. */
+        final ObjectFieldHelper context;
+        final ConcurrentMap<TypeToken<?>, TypeAdapter<?>> adapters = new ConcurrentHashMap<TypeToken<?>, TypeAdapter<?>>();
+        /** The factory that created each cached adapter, for {@link #explain}. */
+        final Map<TypeToken<?>, TypeAdapterFactory> producers = new ConcurrentHashMap<TypeToken<?>, TypeAdapterFactory>();
+
+        /** The resolution each thread is in the middle of, if any. */
+        final ConcurrentMap<Thread, Resolution> resolutions = new ConcurrentHashMap<Thread, Resolution>();
+
+        SharedPlans(ConfigFingerprint config) {
+            this.context = new ObjectFieldHelper(config, this);
+        }
+    }
+
+    /**
+     * The adapters one thread has created, or is creating, since it first missed the cache. Only
+     * that thread uses it.
+     */
+    private static final class Resolution {
+        /** Placeholders for adapters being created, and created adapters not yet published. */
+        final Map<TypeToken<?>, TypeAdapter<?>> adapters = new HashMap<TypeToken<?>, TypeAdapter<?>>();
+        final Map<TypeToken<?>, TypeAdapterFactory> producers = new HashMap<TypeToken<?>, TypeAdapterFactory>();
+        /** Whether creating any adapter failed, even if a factory recovered from it. */
+        boolean failed;
+    }
+
+    private static final class SharedPlansReference extends WeakReference<SharedPlans> {
+        final ConfigFingerprint fingerprint;
+
+        SharedPlansReference(ConfigFingerprint fingerprint, SharedPlans plans, ReferenceQueue<SharedPlans> queue) {
+            super(plans, queue);
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * The configuration that adapter plans depend on. Two helpers whose fingerprints are equal
+     * build identical adapters for every type, so they may share them.
+     */
+    static final class ConfigFingerprint {
+        private final Excluder excluder;
+        private final FieldNamingStrategy fieldNamingStrategy;
+        private final Map<Type, InstanceCreator<?>> instanceCreators;
+        private final boolean serializeNulls;
+        private final boolean visitMapKeys;
+        private final boolean visitMapValues;
+        private final boolean serializeSpecialFloatingPointValues;
+        private final LongSerializationPolicy longSerializationPolicy;
+        private final List<TypeAdapterFactory> typeAdapterFactories;
+        private final LeafTypes leafTypes;
+        private final int hashCode;
+
+        ConfigFingerprint(Excluder excluder, FieldNamingStrategy fieldNamingStrategy,
+                          Map<Type, InstanceCreator<?>> instanceCreators, boolean serializeNulls,
+                          boolean visitMapKeys, boolean visitMapValues, boolean serializeSpecialFloatingPointValues,
+                          LongSerializationPolicy longSerializationPolicy,
+                          List<TypeAdapterFactory> typeAdapterFactories, LeafTypes leafTypes) {
+            this.excluder = excluder;
+            this.fieldNamingStrategy = fieldNamingStrategy;
+            this.instanceCreators = new HashMap<Type, InstanceCreator<?>>(instanceCreators);
+            this.serializeNulls = serializeNulls;
+            this.visitMapKeys = visitMapKeys;
+            this.visitMapValues = visitMapValues;
+            this.serializeSpecialFloatingPointValues = serializeSpecialFloatingPointValues;
+            this.longSerializationPolicy = longSerializationPolicy;
+            this.typeAdapterFactories = new ArrayList<TypeAdapterFactory>(typeAdapterFactories);
+            this.leafTypes = leafTypes;
+            this.hashCode = Arrays.hashCode(new Object[]{excluder, fieldNamingStrategy,
+                    this.instanceCreators, serializeNulls, visitMapKeys, visitMapValues,
+                    serializeSpecialFloatingPointValues, longSerializationPolicy, this.typeAdapterFactories,
+                    leafTypes});
+        }
+
+        ConfigFingerprint withMapVisiting(boolean visitKeys, boolean visitValues) {
+            return new ConfigFingerprint(excluder, fieldNamingStrategy, instanceCreators, serializeNulls,
+                    visitKeys, visitValues, serializeSpecialFloatingPointValues, longSerializationPolicy,
+                    typeAdapterFactories, leafTypes);
+        }
+
+        ConfigFingerprint withLeafTypes(LeafTypes leafTypes) {
+            return new ConfigFingerprint(excluder, fieldNamingStrategy, instanceCreators, serializeNulls,
+                    visitMapKeys, visitMapValues, serializeSpecialFloatingPointValues, longSerializationPolicy,
+                    typeAdapterFactories, leafTypes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ConfigFingerprint)) {
+                return false;
+            }
+            ConfigFingerprint that = (ConfigFingerprint) o;
+            return serializeNulls == that.serializeNulls
+                    && visitMapKeys == that.visitMapKeys
+                    && visitMapValues == that.visitMapValues
+                    && serializeSpecialFloatingPointValues == that.serializeSpecialFloatingPointValues
+                    && longSerializationPolicy == that.longSerializationPolicy
+                    && excluder.equals(that.excluder)
+                    && fieldNamingStrategy.equals(that.fieldNamingStrategy)
+                    && instanceCreators.equals(that.instanceCreators)
+                    && typeAdapterFactories.equals(that.typeAdapterFactories)
+                    && leafTypes.equals(that.leafTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
         }
     }
 
@@ -0,0 +1,168 @@
+package com.villcore;
+
+import com.villcore.PlanNode.FieldStatus;
+import com.villcore.PlanNode.Kind;
+import com.villcore.PlanNode.PlanField;
+import com.villcore.annotations.Tag;
+import com.villcore.internal.$Gson$Types;
+import com.villcore.internal.Excluder;
+import com.villcore.internal.bind.ArrayTypeAdapter;
+import com.villcore.internal.bind.CollectionTypeAdapterFactory;
+import com.villcore.internal.bind.MapTypeAdapterFactory;
+import com.villcore.internal.bind.ObjectTypeAdapter;
+import com.villcore.internal.bind.ReflectiveTypeAdapterFactory;
+import com.villcore.internal.bind.TypeAdapterRuntimeTypeWrapper;
+import com.villcore.reflect.TypeToken;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.util.*;
+
+/**
+ * Builds the {@link PlanNode} tree for a type from the adapters a helper has created for it.
+ */
+final class PlanExplainer {
+    private final ObjectFieldHelper context;
+    private final Excluder excluder;
+    private final boolean visitMapKeys;
+    private final boolean visitMapValues;
+    private final boolean explainUntagged;
+    private final Set<TypeToken<?>> inProgress = new HashSet<TypeToken<?>>();
+
+    PlanExplainer(ObjectFieldHelper context, Excluder excluder, boolean visitMapKeys, boolean visitMapValues) {
+        this(context, excluder, visitMapKeys, visitMapValues, false);
+    }
+
+    /**
+     * @param explainUntagged whether to explain the values of untagged fields too, although
+     *     visiting never descends into them.
+     */
+    PlanExplainer(ObjectFieldHelper context, Excluder excluder, boolean visitMapKeys, boolean visitMapValues,
+                  boolean explainUntagged) {
+        this.context = context;
+        this.excluder = excluder;
+        this.visitMapKeys = visitMapKeys;
+        this.visitMapValues = visitMapValues;
+        this.explainUntagged = explainUntagged;
+    }
+
+    PlanNode explain(TypeToken<?> type) {
+        TypeAdapter<?> adapter = context.getAdapter(type);
+        TypeAdapterFactory factory = context.getProducingFactory(type);
+        String typeName = type.toString();
+        Class<?> rawType = type.getRawType();
+        String adapterName = adapter.getClass().getName();
+        String factoryName = describe(factory);
+        List<PlanField> noFields = Collections.emptyList();
+
+        if (!inProgress.add(type)) {
+            return new PlanNode(typeName, rawType, Kind.RECURSIVE, adapterName, factoryName, noFields, null, null, false);
+        }
+        try {
+            if (factory instanceof Excluder) {
+                return new PlanNode(typeName, rawType, Kind.EXCLUDED, adapterName, factoryName, noFields, null, null, false);
+            }
+            if (factory == ObjectTypeAdapter.FACTORY) {
+                return new PlanNode(typeName, rawType, Kind.DYNAMIC, adapterName, factoryName, noFields, null, null, false);
+            }
+            if (adapter instanceof ReflectiveTypeAdapterFactory.Adapter) {
+                List<PlanField> fields = explainFields(type, (ReflectiveTypeAdapterFactory.Adapter<?>) adapter);
+                return new PlanNode(typeName, rawType, Kind.REFLECTIVE, adapterName, factoryName, fields, null, null, false);
+            }
+            if (factory instanceof CollectionTypeAdapterFactory) {
+                Type elementType = $Gson$Types.getCollectionElementType(type.getType(), type.getRawType());
+                return new PlanNode(typeName, rawType, Kind.ITERATED, adapterName, factoryName, noFields,
+                        null, explain(TypeToken.get(elementType)), TypeAdapterRuntimeTypeWrapper.dispatchesOnRuntimeType(elementType));
+            }
+            if (adapter instanceof ArrayTypeAdapter) {
+                Type componentType = $Gson$Types.getArrayComponentType(type.getType());
+                return new PlanNode(typeName, rawType, Kind.ITERATED, adapterName, factoryName, noFields,
+                        null, explain(TypeToken.get(componentType)), TypeAdapterRuntimeTypeWrapper.dispatchesOnRuntimeType(componentType));
+            }
+            if (factory instanceof MapTypeAdapterFactory) {
+                Type[] keyAndValueTypes = $Gson$Types.getMapKeyAndValueTypes(type.getType(), type.getRawType());
+                PlanNode key = visitMapKeys ? explain(TypeToken.get(keyAndValueTypes[0])) : null;
+                PlanNode value = visitMapValues ? explain(TypeToken.get(keyAndValueTypes[1])) : null;
+                return new PlanNode(typeName, rawType, Kind.ITERATED, adapterName, factoryName, noFields,
+                        key, value, visitMapValues && TypeAdapterRuntimeTypeWrapper.dispatchesOnRuntimeType(keyAndValueTypes[1]));
+            }
+            Kind kind = context.isBuiltInFactory(factory) ? Kind.LEAF : Kind.CUSTOM;
+            return new PlanNode(typeName, rawType, kind, adapterName, factoryName, noFields, null, null, false);
+        } finally {
+            inProgress.remove(type);
+        }
+    }
+
+    private List<PlanField> explainFields(TypeToken<?> type, ReflectiveTypeAdapterFactory.Adapter<?> adapter) {
+        Map<Field, List<Integer>> slots = new HashMap<Field, List<Integer>>();
+        for (int slot = 0, count = adapter.getBoundFieldCount(); slot < count; slot++) {
+            Field field = adapter.getBoundField(slot);
+            List<Integer> fieldSlots = slots.get(field);
+            if (fieldSlots == null) {
+                fieldSlots = new ArrayList<Integer>(1);
+                slots.put(field, fieldSlots);
+            }
+            fieldSlots.add(slot);
+        }
+
+        List<PlanField> result = new ArrayList<PlanField>();
+        Class<?> raw = type.getRawType();
+        if (raw.isInterface()) {
+            return result;
+        }
+        while (raw != Object.class) {
+            for (Field field : raw.getDeclaredFields()) {
+                Type fieldType = $Gson$Types.resolve(type.getType(), raw, field.getGenericType());
+                String typeName = $Gson$Types.typeToString(fieldType);
+                List<Integer> fieldSlots = slots.get(field);
+                if (fieldSlots == null) {
+                    result.add(new PlanField(field.getName(), raw.getName(), field.getName(), typeName,
+                            FieldStatus.EXCLUDED, null, false, false, false, null));
+                    continue;
+                }
+                for (int slot : fieldSlots) {
+                    Tag tag = adapter.getBoundTag(slot);
+                    boolean jsonAdapter = adapter.isBoundWithJsonAdapter(slot);
+                    boolean boxing = field.getType().isPrimitive();
+                    if (tag == null) {
+                        boolean explained = explainUntagged && !jsonAdapter;
+                        result.add(new PlanField(adapter.getBoundName(slot), raw.getName(), field.getName(), typeName,
+                                FieldStatus.UNTAGGED, null, boxing,
+                                explained && TypeAdapterRuntimeTypeWrapper.dispatchesOnRuntimeType(fieldType), jsonAdapter,
+                                explained ? explain(TypeToken.get(fieldType)) : null));
+                        continue;
+                    }
+                    PlanNode child = jsonAdapter
+                            ? new PlanNode(typeName, $Gson$Types.getRawType(fieldType), Kind.CUSTOM,
+                                    adapter.getBoundAdapter(slot).getClass().getName(), null,
+                                    Collections.<PlanField>emptyList(), null, null, false)
+                            : explain(TypeToken.get(fieldType));
+                    result.add(new PlanField(adapter.getBoundName(slot), raw.getName(), field.getName(), typeName,
+                            FieldStatus.VISITED, tag.name(), boxing, !jsonAdapter && TypeAdapterRuntimeTypeWrapper.dispatchesOnRuntimeType(fieldType),
+                            jsonAdapter, child));
+                }
+            }
+            type = TypeToken.get($Gson$Types.resolve(type.getType(), raw, raw.getGenericSuperclass()));
+            raw = type.getRawType();
+        }
+        return result;
+    }
+
+    /**
+     * Names a factory by its {@code toString} if it has one, otherwise by its class, so plans
+     * don't carry identity hash codes.
+     */
+    private static String describe(TypeAdapterFactory factory) {
+        if (factory == null) {
+            return null;
+        }
+        try {
+            if (factory.getClass().getMethod("toString").getDeclaringClass() != Object.class) {
+                return factory.toString();
+            }
+        } catch (NoSuchMethodException ignored) {
+            // every class has toString
+        }
+        return factory.getClass().getName();
+    }
+}
@@ -0,0 +1,334 @@
+package com.villcore;
+
+import com.villcore.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One node of the plan returned by {@link ObjectFieldHelper#explain}: how values of one type are
+ * visited. Reflective nodes list their fields; iterated nodes (arrays, collections and maps) have an
+ * element node, and optionally a key node, visited once per entry.
+ *
+ * <p>Costs are estimates in visitor callbacks. {@link #getCost()} counts one visit of this node
+ * without the entries of iterated subtrees; {@link #getCostPerElement()} counts one entry of an
+ * iterated node.
+ */
+public final class PlanNode {
+    public enum Kind {
+        /** Fields are read reflectively and tagged fields are reported and descended into. */
+        REFLECTIVE,
+        /** Each element (and for complex map keys, each key) is visited. */
+        ITERATED,
+        /** The adapter is chosen from each value's runtime class while visiting. */
+        DYNAMIC,
+        /** A terminal value; nothing below it is visited. */
+        LEAF,
+        /** The type is excluded and never visited. */
+        EXCLUDED,
+        /** An adapter from a user factory or {@code @JsonAdapter}; its behaviour is opaque. */
+        CUSTOM,
+        /** A type already being explained higher up the tree. */
+        RECURSIVE
+    }
+
+    public enum FieldStatus {
+        /** Tagged: reported to the visitor and descended into. */
+        VISITED,
+        /** Bound but untagged, so skipped while visiting. */
+        UNTAGGED,
+        /** Rejected by the excluder. */
+        EXCLUDED
+    }
+
+    private final String type;
+    private final Class<?> rawType;
+    private final Kind kind;
+    private final String adapter;
+    private final String factory;
+    private final List<PlanField> fields;
+    private final PlanNode key;
+    private final PlanNode element;
+    private final boolean elementRuntimeTypeDispatch;
+    private final int cost;
+    private final int costPerElement;
+
+    PlanNode(String type, Class<?> rawType, Kind kind, String adapter, String factory, List<PlanField> fields,
+             PlanNode key, PlanNode element, boolean elementRuntimeTypeDispatch) {
+        this.type = type;
+        this.rawType = rawType;
+        this.kind = kind;
+        this.adapter = adapter;
+        this.factory = factory;
+        this.fields = Collections.unmodifiableList(fields);
+        this.key = key;
+        this.element = element;
+        this.elementRuntimeTypeDispatch = elementRuntimeTypeDispatch;
+
+        int cost = 0;
+        for (PlanField field : fields) {
+            if (field.status == FieldStatus.VISITED) {
+                cost += 1 + (field.child == null ? 0 : field.child.cost);
+            }
+        }
+        this.cost = cost;
+        this.costPerElement = kind == Kind.ITERATED
+                ? (element == null ? 0 : element.cost) + (key == null ? 0 : key.cost)
+                : 0;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    Class<?> getRawType() {
+        return rawType;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /** The class of the adapter that visits this type. */
+    public String getAdapter() {
+        return adapter;
+    }
+
+    /** The factory that created the adapter, or null if it wasn't created by a registered factory. */
+    public String getFactory() {
+        return factory;
+    }
+
+    public List<PlanField> getFields() {
+        return fields;
+    }
+
+    /** The node visited for each map key, or null if keys aren't visited. */
+    public PlanNode getKey() {
+        return key;
+    }
+
+    /**
+     * The node visited for each element or map value of an iterated node, or null if map values
+     * aren't visited.
+     */
+    public PlanNode getElement() {
+        return element;
+    }
+
+    /** True if each element's adapter is looked up from its runtime class. */
+    public boolean isElementRuntimeTypeDispatch() {
+        return elementRuntimeTypeDispatch;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public int getCostPerElement() {
+        return costPerElement;
+    }
+
+    /**
+     * One field of a reflective node. Every field is read with {@link java.lang.reflect.Field#get},
+     * which boxes primitives.
+     */
+    public static final class PlanField {
+        private final String name;
+        private final String declaringClass;
+        private final String fieldName;
+        private final String type;
+        private final FieldStatus status;
+        private final String tag;
+        private final boolean boxing;
+        private final boolean runtimeTypeDispatch;
+        private final boolean jsonAdapter;
+        private final PlanNode child;
+
+        PlanField(String name, String declaringClass, String fieldName, String type, FieldStatus status,
+                  String tag, boolean boxing, boolean runtimeTypeDispatch, boolean jsonAdapter, PlanNode child) {
+            this.name = name;
+            this.declaringClass = declaringClass;
+            this.fieldName = fieldName;
+            this.type = type;
+            this.status = status;
+            this.tag = tag;
+            this.boxing = boxing;
+            this.runtimeTypeDispatch = runtimeTypeDispatch;
+            this.jsonAdapter = jsonAdapter;
+            this.child = child;
+        }
+
+        /** The bound name, or the Java field name if the field is excluded. */
+        public String getName() {
+            return name;
+        }
+
+        public String getDeclaringClass() {
+            return declaringClass;
+        }
+
+        public String getFieldName() {
+            return fieldName;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public FieldStatus getStatus() {
+            return status;
+        }
+
+        /** The tag name, or null if the field is untagged. */
+        public String getTag() {
+            return tag;
+        }
+
+        /** True if reading the field boxes a primitive value. */
+        public boolean isBoxing() {
+            return boxing;
+        }
+
+        /** True if the value's adapter is looked up from its runtime class while visiting. */
+        public boolean isRuntimeTypeDispatch() {
+            return runtimeTypeDispatch;
+        }
+
+        public boolean isJsonAdapter() {
+            return jsonAdapter;
+        }
+
+        /** The plan for the field's value, or null if the field isn't descended into. */
+        public PlanNode getChild() {
+            return child;
+        }
+    }
+
+    /**
+     * Renders this plan as an indented tree.
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        appendText(out, "", "");
+        return out.toString();
+    }
+
+    private void appendText(StringBuilder out, String indent, String label) {
+        out.append(indent).append(label).append(type).append(" [").append(kind).append(']');
+        if (factory != null) {
+            out.append(" via ").append(factory);
+        }
+        if (kind == Kind.ITERATED) {
+            out.append(" cost/element=").append(costPerElement);
+            if (elementRuntimeTypeDispatch) {
+                out.append(" runtime-type");
+            }
+        } else if (cost > 0) {
+            out.append(" cost=").append(cost);
+        }
+        out.append('\n');
+
+        String childIndent = indent + "  ";
+        for (PlanField field : fields) {
+            out.append(childIndent).append(field.name).append(": ").append(field.type)
+                    .append(' ').append(field.status);
+            if (field.tag != null) {
+                out.append(" tag=").append(field.tag);
+            }
+            if (field.status != FieldStatus.EXCLUDED) {
+                out.append(" reflective-get");
+            }
+            if (field.boxing) {
+                out.append(" boxing");
+            }
+            if (field.runtimeTypeDispatch) {
+                out.append(" runtime-type");
+            }
+            if (field.jsonAdapter) {
+                out.append(" @JsonAdapter");
+            }
+            out.append('\n');
+            if (field.child != null) {
+                field.child.appendText(out, childIndent + "  ", "");
+            }
+        }
+        if (key != null) {
+            key.appendText(out, childIndent, "key: ");
+        }
+        if (element != null) {
+            element.appendText(out, childIndent, "element: ");
+        }
+    }
+
+    /**
+     * Renders this plan as indented JSON.
+     */
+    public String toJson() {
+        StringWriter out = new StringWriter();
+        try {
+            toJson(out);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+        return out.toString();
+    }
+
+    public void toJson(Writer out) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+        writer.setIndent("  ");
+        write(writer);
+        writer.flush();
+    }
+
+    public void write(JsonWriter out) throws IOException {
+        out.beginObject();
+        out.name("type").value(type);
+        out.name("kind").value(kind.name());
+        out.name("adapter").value(adapter);
+        if (factory != null) {
+            out.name("factory").value(factory);
+        }
+        out.name("cost").value(cost);
+        if (kind == Kind.ITERATED) {
+            out.name("costPerElement").value(costPerElement);
+            out.name("elementRuntimeTypeDispatch").value(elementRuntimeTypeDispatch);
+        }
+        if (!fields.isEmpty()) {
+            out.name("fields").beginArray();
+            for (PlanField field : fields) {
+                out.beginObject();
+                out.name("name").value(field.name);
+                out.name("declaringClass").value(field.declaringClass);
+                out.name("field").value(field.fieldName);
+                out.name("type").value(field.type);
+                out.name("status").value(field.status.name());
+                if (field.tag != null) {
+                    out.name("tag").value(field.tag);
+                }
+                out.name("boxing").value(field.boxing);
+                out.name("runtimeTypeDispatch").value(field.runtimeTypeDispatch);
+                out.name("jsonAdapter").value(field.jsonAdapter);
+                if (field.child != null) {
+                    out.name("value");
+                    field.child.write(out);
+                }
+                out.endObject();
+            }
+            out.endArray();
+        }
+        if (key != null) {
+            out.name("key");
+            key.write(out);
+        }
+        if (element != null) {
+            out.name("element");
+            element.write(out);
+        }
+        out.endObject();
+    }
+}
@@ -32,6 +32,8 @@ import static com.villcore.internal.$Gson$Preconditions.checkNotNull;
 public final class $Gson$Types {
   static final Type[] EMPTY_TYPE_ARRAY = new Type[] {};
 
+  private static final WeakInterner<Type> INTERNED = new WeakInterner<Type>();
+
   private $Gson$Types() {
     throw new UnsupportedOperationException();
   }
@@ -94,7 +96,13 @@ public final class $Gson$Types {
    * type is {@link Serializable}.
    */
   public static Type canonicalize(Type type) {
-    if (type instanceof Class) {
+    if (type instanceof ParameterizedTypeImpl
+        || type instanceof GenericArrayTypeImpl
+        || type instanceof WildcardTypeImpl) {
+      // already canonical, and immutable
+      return type;
+
+    } else if (type instanceof Class) {
       Class<?> c = (Class<?>) type;
       return c.isArray() ? new GenericArrayTypeImpl(canonicalize(c.getComponentType())) : c;
 
@@ -117,6 +125,19 @@ public final class $Gson$Types {
     }
   }
 
+  /**
+   * Returns the canonical instance of {@code type}: equal types, canonicalized or not, are
+   * interned to one identical object, so comparing interned types is mostly an identity check.
+   * Interned types are held weakly.
+   */
+  public static Type intern(Type type) {
+    if (type instanceof Class && !((Class<?>) type).isArray()) {
+      // classes are unique already
+      return type;
+    }
+    return INTERNED.intern(canonicalize(type));
+  }
+
   public static Class<?> getRawType(Type type) {
     if (type instanceof Class<?>) {
       // type is a normal class.
@@ -172,7 +193,15 @@ public final class $Gson$Types {
         return false;
       }
 
-      // TODO: save a .clone() call
+      if (a instanceof ParameterizedTypeImpl && b instanceof ParameterizedTypeImpl) {
+        ParameterizedTypeImpl pa = (ParameterizedTypeImpl) a;
+        ParameterizedTypeImpl pb = (ParameterizedTypeImpl) b;
+        return pa.hashCode == pb.hashCode
+            && equal(pa.ownerType, pb.ownerType)
+            && pa.rawType.equals(pb.rawType)
+            && Arrays.equals(pa.typeArguments, pb.typeArguments);
+      }
+
       ParameterizedType pa = (ParameterizedType) a;
       ParameterizedType pb = (ParameterizedType) b;
       return equal(pa.getOwnerType(), pb.getOwnerType())
@@ -322,16 +351,27 @@ public final class $Gson$Types {
     return new Type[] { Object.class, Object.class };
   }
 
+  /**
+   * Resolves the type variables in {@code toResolve} against {@code context}. See {@link
+   * TypeResolver} for a memoizing version that returns interned types.
+   */
   public static Type resolve(Type context, Class<?> contextRawType, Type toResolve) {
-    return resolve(context, contextRawType, toResolve, new HashSet<TypeVariable>());
+    return resolve(context, contextRawType, toResolve, null);
   }
 
+  /**
+   * @param visitedTypeVariables type variables seen so far, or null if there are none yet; types
+   *     without type variables are resolved without allocating it.
+   */
   private static Type resolve(Type context, Class<?> contextRawType, Type toResolve,
                               Collection<TypeVariable> visitedTypeVariables) {
     // this implementation is made a little more complicated in an attempt to avoid object-creation
     while (true) {
       if (toResolve instanceof TypeVariable) {
         TypeVariable<?> typeVariable = (TypeVariable<?>) toResolve;
+        if (visitedTypeVariables == null) {
+          visitedTypeVariables = new HashSet<TypeVariable>();
+        }
         if (visitedTypeVariables.contains(typeVariable)) {
           // cannot reduce due to infinite recursion
           return toResolve;
@@ -450,6 +490,7 @@ public final class $Gson$Types {
     private final Type ownerType;
     private final Type rawType;
     private final Type[] typeArguments;
+    private final int hashCode;
 
     public ParameterizedTypeImpl(Type ownerType, Type rawType, Type... typeArguments) {
       // require an owner type if the raw type needs it
@@ -468,6 +509,9 @@ public final class $Gson$Types {
         checkNotPrimitive(this.typeArguments[t]);
         this.typeArguments[t] = canonicalize(this.typeArguments[t]);
       }
+      this.hashCode = Arrays.hashCode(this.typeArguments)
+          ^ this.rawType.hashCode()
+          ^ hashCodeOrZero(this.ownerType);
     }
 
     public Type[] getActualTypeArguments() {
@@ -488,9 +532,7 @@ public final class $Gson$Types {
     }
 
     @Override public int hashCode() {
-      return Arrays.hashCode(typeArguments)
-          ^ rawType.hashCode()
-          ^ hashCodeOrZero(ownerType);
+      return hashCode;
     }
 
     @Override public String toString() {
@@ -20,8 +20,14 @@ import com.villcore.InstanceCreator;
 import com.villcore.JsonIOException;
 import com.villcore.reflect.TypeToken;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.*;
@@ -34,8 +40,28 @@ import java.util.concurrent.ConcurrentSkipListMap;
  * Returns a function that can construct an instance of a requested type.
  */
 public final class ConstructorConstructor {
+  private static final MethodType CONSTRUCT_TYPE = MethodType.methodType(Object.class);
+
   private final Map<Type, InstanceCreator<?>> instanceCreators;
 
+  /** Stands for "no no-args constructor" in {@link #defaultConstructors}. */
+  private static final ObjectConstructor<Object> NO_DEFAULT_CONSTRUCTOR = new ObjectConstructor<Object>() {
+    @Override public Object construct() {
+      throw new AssertionError();
+    }
+  };
+
+  /**
+   * No-args constructor functions, generated once per class. A ClassValue keeps them with the
+   * class itself, so they don't keep classes from being unloaded.
+   */
+  private final ClassValue<ObjectConstructor<?>> defaultConstructors = new ClassValue<ObjectConstructor<?>>() {
+    @Override protected ObjectConstructor<?> computeValue(Class<?> rawType) {
+      ObjectConstructor<?> constructor = newDefaultConstructor(rawType);
+      return constructor != null ? constructor : NO_DEFAULT_CONSTRUCTOR;
+    }
+  };
+
   public ConstructorConstructor(Map<Type, InstanceCreator<?>> instanceCreators) {
     this.instanceCreators = instanceCreators;
   }
@@ -68,8 +94,14 @@ public final class ConstructorConstructor {
       };
     }
 
-    ObjectConstructor<T> defaultConstructor = newDefaultConstructor(rawType);
-    if (defaultConstructor != null) {
+    ObjectConstructor<T> presizing = newPresizingConstructor(rawType);
+    if (presizing != null) {
+      return presizing;
+    }
+
+    @SuppressWarnings("unchecked") // the constructor builds instances of rawType
+    ObjectConstructor<T> defaultConstructor = (ObjectConstructor<T>) defaultConstructors.get(rawType);
+    if (defaultConstructor != NO_DEFAULT_CONSTRUCTOR) {
       return defaultConstructor;
     }
 
@@ -83,35 +115,196 @@ public final class ConstructorConstructor {
   }
 
   private <T> ObjectConstructor<T> newDefaultConstructor(Class<? super T> rawType) {
+    final Constructor<? super T> constructor;
     try {
-      final Constructor<? super T> constructor = rawType.getDeclaredConstructor();
-      if (!constructor.isAccessible()) {
-        constructor.setAccessible(true);
-      }
+      constructor = rawType.getDeclaredConstructor();
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+    if (Modifier.isAbstract(rawType.getModifiers())) {
+      // can't be instantiated through its constructor; fail when an instance is requested
+      return newReflectiveConstructor(constructor);
+    }
+    constructor.setAccessible(true);
+
+    final ObjectConstructor<T> direct = newGeneratedConstructor(rawType, constructor);
+    if (direct != null) {
       return new ObjectConstructor<T>() {
-        @SuppressWarnings("unchecked") // T is the same raw type as is requested
         @Override public T construct() {
           try {
-            Object[] args = null;
-            return (T) constructor.newInstance(args);
-          } catch (InstantiationException e) {
-            // TODO: JsonParseException ?
+            return direct.construct();
+          } catch (RuntimeException e) {
             throw new RuntimeException("Failed to invoke " + constructor + " with no args", e);
-          } catch (InvocationTargetException e) {
-            // TODO: don't wrap if cause is unchecked!
-            // TODO: JsonParseException ?
-            throw new RuntimeException("Failed to invoke " + constructor + " with no args",
-                e.getTargetException());
-          } catch (IllegalAccessException e) {
-            throw new AssertionError(e);
           }
         }
       };
-    } catch (NoSuchMethodException e) {
+    }
+
+    final MethodHandle handle;
+    try {
+      handle = MethodHandles.lookup().unreflectConstructor(constructor).asType(CONSTRUCT_TYPE);
+    } catch (IllegalAccessException e) {
+      return newReflectiveConstructor(constructor);
+    }
+    return new ObjectConstructor<T>() {
+      @SuppressWarnings("unchecked") // T is the same raw type as is requested
+      @Override public T construct() {
+        try {
+          return (T) (Object) handle.invokeExact();
+        } catch (Error e) {
+          throw e;
+        } catch (Throwable e) {
+          // invokeExact declares Throwable; anything but an Error was thrown by the constructor
+          throw new RuntimeException("Failed to invoke " + constructor + " with no args", e);
+        }
+      }
+    };
+  }
+
+  /**
+   * Spins a class implementing {@link ObjectConstructor} that calls {@code constructor} directly,
+   * so construction is an ordinary allocation the JIT can inline. Only possible for public
+   * constructors of public classes visible from this class's loader; returns null otherwise.
+   */
+  @SuppressWarnings("unchecked")
+  private static <T> ObjectConstructor<T> newGeneratedConstructor(
+      Class<? super T> rawType, Constructor<? super T> constructor) {
+    if (!Modifier.isPublic(rawType.getModifiers()) || !Modifier.isPublic(constructor.getModifiers())
+        || (rawType.isMemberClass() && !Modifier.isPublic(rawType.getDeclaringClass().getModifiers()))
+        || !isVisible(rawType)) {
+      return null;
+    }
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      MethodHandle handle = lookup.unreflectConstructor(constructor);
+      CallSite site = LambdaMetafactory.metafactory(lookup, "construct",
+          MethodType.methodType(ObjectConstructor.class), CONSTRUCT_TYPE, handle,
+          MethodType.methodType(rawType));
+      return (ObjectConstructor<T>) site.getTarget().invoke();
+    } catch (LambdaConversionException e) {
+      // not every JVM can spin a class for every constructor; use a method handle instead
+      return null;
+    } catch (IllegalAccessException e) {
+      return null;
+    } catch (LinkageError e) {
+      return null;
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable e) {
+      // only the factory call declares Throwable, and it throws nothing but the above
       return null;
     }
   }
 
+  private static boolean isVisible(Class<?> type) {
+    try {
+      return Class.forName(type.getName(), false, ConstructorConstructor.class.getClassLoader()) == type;
+    } catch (ClassNotFoundException e) {
+      return false;
+    } catch (LinkageError e) {
+      return false;
+    }
+  }
+
+  private static <T> ObjectConstructor<T> newReflectiveConstructor(final Constructor<? super T> constructor) {
+    return new ObjectConstructor<T>() {
+      @SuppressWarnings("unchecked") // T is the same raw type as is requested
+      @Override public T construct() {
+        try {
+          Object[] args = null;
+          return (T) constructor.newInstance(args);
+        } catch (ReflectiveOperationException e) {
+          // TODO: JsonParseException ?
+          throw new RuntimeException("Failed to invoke " + constructor + " with no args", e);
+        }
+      }
+    };
+  }
+
+  /**
+   * Returns the initial capacity of a hash table that holds {@code expectedSize} entries without
+   * rehashing at the default load factor.
+   */
+  static int hashCapacity(int expectedSize) {
+    if (expectedSize < 3) {
+      return Math.max(expectedSize, 0) + 1;
+    }
+    return expectedSize < (1 << 30) ? (int) (expectedSize / 0.75f + 1.0f) : Integer.MAX_VALUE;
+  }
+
+  /**
+   * Constructors for fields declared as one of the common JDK collection and map classes, which
+   * would otherwise get their no-args constructor and ignore the capacity hint.
+   */
+  @SuppressWarnings("unchecked") // rawType is exactly the class constructed
+  private static <T> ObjectConstructor<T> newPresizingConstructor(Class<? super T> rawType) {
+    if (rawType == ArrayList.class) {
+      return new ObjectConstructor<T>() {
+        @Override public T construct() {
+          return (T) new ArrayList<Object>();
+        }
+        @Override public T construct(int expectedSize) {
+          return (T) new ArrayList<Object>(Math.max(expectedSize, 0));
+        }
+      };
+    } else if (rawType == HashSet.class) {
+      return new ObjectConstructor<T>() {
+        @Override public T construct() {
+          return (T) new HashSet<Object>();
+        }
+        @Override public T construct(int expectedSize) {
+          return (T) new HashSet<Object>(hashCapacity(expectedSize));
+        }
+      };
+    } else if (rawType == LinkedHashSet.class) {
+      return new ObjectConstructor<T>() {
+        @Override public T construct() {
+          return (T) new LinkedHashSet<Object>();
+        }
+        @Override public T construct(int expectedSize) {
+          return (T) new LinkedHashSet<Object>(hashCapacity(expectedSize));
+        }
+      };
+    } else if (rawType == ArrayDeque.class) {
+      return new ObjectConstructor<T>() {
+        @Override public T construct() {
+          return (T) new ArrayDeque<Object>();
+        }
+        @Override public T construct(int expectedSize) {
+          return (T) new ArrayDeque<Object>(Math.max(expectedSize, 0));
+        }
+      };
+    } else if (rawType == HashMap.class) {
+      return new ObjectConstructor<T>() {
+        @Override public T construct() {
+          return (T) new HashMap<Object, Object>();
+        }
+        @Override public T construct(int expectedSize) {
+          return (T) new HashMap<Object, Object>(hashCapacity(expectedSize));
+        }
+      };
+    } else if (rawType == LinkedHashMap.class) {
+      return new ObjectConstructor<T>() {
+        @Override public T construct() {
+          return (T) new LinkedHashMap<Object, Object>();
+        }
+        @Override public T construct(int expectedSize) {
+          return (T) new LinkedHashMap<Object, Object>(hashCapacity(expectedSize));
+        }
+      };
+    } else if (rawType == ConcurrentHashMap.class) {
+      return new ObjectConstructor<T>() {
+        @Override public T construct() {
+          return (T) new ConcurrentHashMap<Object, Object>();
+        }
+        @Override public T construct(int expectedSize) {
+          return (T) new ConcurrentHashMap<Object, Object>(Math.max(expectedSize, 0));
+        }
+      };
+    }
+    return null;
+  }
+
   /**
    * Constructors for common interface types like Map and List and their
    * subtypes.
@@ -147,18 +340,27 @@ public final class ConstructorConstructor {
           @Override public T construct() {
             return (T) new LinkedHashSet<Object>();
           }
+          @Override public T construct(int expectedSize) {
+            return (T) new LinkedHashSet<Object>(hashCapacity(expectedSize));
+          }
         };
       } else if (Queue.class.isAssignableFrom(rawType)) {
         return new ObjectConstructor<T>() {
           @Override public T construct() {
             return (T) new ArrayDeque<Object>();
           }
+          @Override public T construct(int expectedSize) {
+            return (T) new ArrayDeque<Object>(Math.max(expectedSize, 0));
+          }
         };
       } else {
         return new ObjectConstructor<T>() {
           @Override public T construct() {
             return (T) new ArrayList<Object>();
           }
+          @Override public T construct(int expectedSize) {
+            return (T) new ArrayList<Object>(Math.max(expectedSize, 0));
+          }
         };
       }
     }
@@ -175,6 +377,9 @@ public final class ConstructorConstructor {
           @Override public T construct() {
             return (T) new ConcurrentHashMap<Object, Object>();
           }
+          @Override public T construct(int expectedSize) {
+            return (T) new ConcurrentHashMap<Object, Object>(Math.max(expectedSize, 0));
+          }
         };
       } else if (SortedMap.class.isAssignableFrom(rawType)) {
         return new ObjectConstructor<T>() {
@@ -188,6 +393,9 @@ public final class ConstructorConstructor {
           @Override public T construct() {
             return (T) new LinkedHashMap<Object, Object>();
           }
+          @Override public T construct(int expectedSize) {
+            return (T) new LinkedHashMap<Object, Object>(hashCapacity(expectedSize));
+          }
         };
       } else {
         return new ObjectConstructor<T>() {
@@ -204,11 +412,10 @@ public final class ConstructorConstructor {
   private <T> ObjectConstructor<T> newUnsafeAllocator(
       final Type type, final Class<? super T> rawType) {
     return new ObjectConstructor<T>() {
-      private final UnsafeAllocator unsafeAllocator = UnsafeAllocator.create();
       @SuppressWarnings("unchecked")
       @Override public T construct() {
         try {
-          Object newInstance = unsafeAllocator.newInstance(rawType);
+          Object newInstance = UnsafeAllocator.INSTANCE.newInstance(rawType);
           return (T) newInstance;
         } catch (Exception e) {
           throw new RuntimeException(("Unable to invoke no-args constructor for " + type + ". "
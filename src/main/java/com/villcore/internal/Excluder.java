@@ -29,6 +29,8 @@ import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public final class Excluder implements TypeAdapterFactory, Cloneable {
     private static final double IGNORE_VERSIONS = -1.0d;
@@ -41,15 +43,37 @@ public final class Excluder implements TypeAdapterFactory, Cloneable {
     private List<ExclusionStrategy> serializationStrategies = Collections.emptyList();
     private List<ExclusionStrategy> deserializationStrategies = Collections.emptyList();
 
+    /** Set in a decision if the class or field is skipped when serializing. */
+    public static final int EXCLUDE_SERIALIZATION = 1;
+    /** Set in a decision if the class or field is skipped when deserializing. */
+    public static final int EXCLUDE_DESERIALIZATION = 2;
+
+    /**
+     * Decisions for each class and its declared fields, computed once per configuration. Not
+     * part of the configuration; every copy starts with its own.
+     */
+    private ClassValue<Decisions> decisions = newDecisions();
+
     @Override
     protected Excluder clone() {
         try {
-            return (Excluder) super.clone();
+            Excluder result = (Excluder) super.clone();
+            result.decisions = result.newDecisions();
+            return result;
         } catch (CloneNotSupportedException e) {
             throw new AssertionError(e);
         }
     }
 
+    private ClassValue<Decisions> newDecisions() {
+        return new ClassValue<Decisions>() {
+            @Override
+            protected Decisions computeValue(Class<?> type) {
+                return new Decisions(computeClassExclusions(type));
+            }
+        };
+    }
+
     public Excluder withVersion(double ignoreVersionsAfter) {
         Excluder result = clone();
         result.version = ignoreVersionsAfter;
@@ -93,9 +117,9 @@ public final class Excluder implements TypeAdapterFactory, Cloneable {
     }
 
     public <T> TypeAdapter<T> create(final ObjectFieldHelper objectFieldHelper, final TypeToken<T> type) {
-        Class<?> rawType = type.getRawType();
-        final boolean skipSerialize = excludeClass(rawType, true);
-        final boolean skipDeserialize = excludeClass(rawType, false);
+        int exclusions = classExclusions(type.getRawType());
+        final boolean skipSerialize = (exclusions & EXCLUDE_SERIALIZATION) != 0;
+        final boolean skipDeserialize = (exclusions & EXCLUDE_DESERIALIZATION) != 0;
 
         if (!skipSerialize && !skipDeserialize) {
             return null;
@@ -123,69 +147,161 @@ public final class Excluder implements TypeAdapterFactory, Cloneable {
     }
 
     public boolean excludeField(Field field, boolean serialize) {
+        return (fieldExclusions(field) & (serialize ? EXCLUDE_SERIALIZATION : EXCLUDE_DESERIALIZATION)) != 0;
+    }
+
+    public boolean excludeClass(Class<?> clazz, boolean serialize) {
+        return (classExclusions(clazz) & (serialize ? EXCLUDE_SERIALIZATION : EXCLUDE_DESERIALIZATION)) != 0;
+    }
+
+    /**
+     * Returns the {@link #EXCLUDE_SERIALIZATION} and {@link #EXCLUDE_DESERIALIZATION} bits for
+     * {@code clazz}. Computed on first use and cached, so strategies see each class once.
+     */
+    public int classExclusions(Class<?> clazz) {
+        return decisions.get(clazz).classExclusions;
+    }
+
+    /**
+     * Returns the {@link #EXCLUDE_SERIALIZATION} and {@link #EXCLUDE_DESERIALIZATION} bits for
+     * {@code field}, not counting its type. Computed on first use and cached, so strategies see
+     * each field once.
+     */
+    public int fieldExclusions(Field field) {
+        ConcurrentMap<String, Integer> fields = decisions.get(field.getDeclaringClass()).fieldExclusions;
+        Integer exclusions = fields.get(field.getName());
+        if (exclusions == null) {
+            exclusions = computeFieldExclusions(field);
+            fields.putIfAbsent(field.getName(), exclusions);
+        }
+        return exclusions;
+    }
+
+    private int computeFieldExclusions(Field field) {
         if ((modifiers & field.getModifiers()) != 0) {
-            return true;
+            return EXCLUDE_SERIALIZATION | EXCLUDE_DESERIALIZATION;
         }
 
         if (version != Excluder.IGNORE_VERSIONS
                 && !isValidVersion(field.getAnnotation(Since.class), field.getAnnotation(Until.class))) {
-            return true;
+            return EXCLUDE_SERIALIZATION | EXCLUDE_DESERIALIZATION;
         }
 
         if (field.isSynthetic()) {
-            return true;
+            return EXCLUDE_SERIALIZATION | EXCLUDE_DESERIALIZATION;
         }
 
+        int exclusions = 0;
         if (requireExpose) {
             Expose annotation = field.getAnnotation(Expose.class);
-            if (annotation == null || (serialize ? !annotation.serialize() : !annotation.deserialize())) {
-                return true;
+            if (annotation == null) {
+                return EXCLUDE_SERIALIZATION | EXCLUDE_DESERIALIZATION;
+            }
+            if (!annotation.serialize()) {
+                exclusions |= EXCLUDE_SERIALIZATION;
+            }
+            if (!annotation.deserialize()) {
+                exclusions |= EXCLUDE_DESERIALIZATION;
             }
         }
 
         if (!serializeInnerClasses && isInnerClass(field.getType())) {
-            return true;
+            return EXCLUDE_SERIALIZATION | EXCLUDE_DESERIALIZATION;
         }
 
         if (isAnonymousOrLocal(field.getType())) {
-            return true;
+            return EXCLUDE_SERIALIZATION | EXCLUDE_DESERIALIZATION;
         }
 
-        List<ExclusionStrategy> list = serialize ? serializationStrategies : deserializationStrategies;
-        if (!list.isEmpty()) {
+        if (!serializationStrategies.isEmpty() || !deserializationStrategies.isEmpty()) {
+            // one FieldAttributes for every strategy, and strategies in both lists asked once
             FieldAttributes fieldAttributes = new FieldAttributes(field);
-            for (ExclusionStrategy exclusionStrategy : list) {
-                if (exclusionStrategy.shouldSkipField(fieldAttributes)) {
-                    return true;
+            boolean[] skipSerialization = new boolean[serializationStrategies.size()];
+            for (int i = 0; i < skipSerialization.length; i++) {
+                skipSerialization[i] = serializationStrategies.get(i).shouldSkipField(fieldAttributes);
+                if (skipSerialization[i]) {
+                    exclusions |= EXCLUDE_SERIALIZATION;
+                }
+            }
+            for (ExclusionStrategy exclusionStrategy : deserializationStrategies) {
+                int shared = indexOf(serializationStrategies, exclusionStrategy);
+                if (shared >= 0 ? skipSerialization[shared] : exclusionStrategy.shouldSkipField(fieldAttributes)) {
+                    exclusions |= EXCLUDE_DESERIALIZATION;
                 }
             }
         }
 
-        return false;
+        return exclusions;
     }
 
-    public boolean excludeClass(Class<?> clazz, boolean serialize) {
+    private int computeClassExclusions(Class<?> clazz) {
         if (version != Excluder.IGNORE_VERSIONS
                 && !isValidVersion(clazz.getAnnotation(Since.class), clazz.getAnnotation(Until.class))) {
-            return true;
+            return EXCLUDE_SERIALIZATION | EXCLUDE_DESERIALIZATION;
         }
 
         if (!serializeInnerClasses && isInnerClass(clazz)) {
-            return true;
+            return EXCLUDE_SERIALIZATION | EXCLUDE_DESERIALIZATION;
         }
 
         if (isAnonymousOrLocal(clazz)) {
-            return true;
+            return EXCLUDE_SERIALIZATION | EXCLUDE_DESERIALIZATION;
         }
 
-        List<ExclusionStrategy> list = serialize ? serializationStrategies : deserializationStrategies;
-        for (ExclusionStrategy exclusionStrategy : list) {
-            if (exclusionStrategy.shouldSkipClass(clazz)) {
-                return true;
+        int exclusions = 0;
+        boolean[] skipSerialization = new boolean[serializationStrategies.size()];
+        for (int i = 0; i < skipSerialization.length; i++) {
+            skipSerialization[i] = serializationStrategies.get(i).shouldSkipClass(clazz);
+            if (skipSerialization[i]) {
+                exclusions |= EXCLUDE_SERIALIZATION;
+            }
+        }
+        for (ExclusionStrategy exclusionStrategy : deserializationStrategies) {
+            int shared = indexOf(serializationStrategies, exclusionStrategy);
+            if (shared >= 0 ? skipSerialization[shared] : exclusionStrategy.shouldSkipClass(clazz)) {
+                exclusions |= EXCLUDE_DESERIALIZATION;
             }
         }
 
-        return false;
+        return exclusions;
+    }
+
+    private static int indexOf(List<ExclusionStrategy> strategies, ExclusionStrategy strategy) {
+        for (int i = 0, size = strategies.size(); i < size; i++) {
+            if (strategies.get(i) == strategy) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Excluder)) {
+            return false;
+        }
+        Excluder that = (Excluder) o;
+        return Double.compare(version, that.version) == 0
+                && modifiers == that.modifiers
+                && serializeInnerClasses == that.serializeInnerClasses
+                && requireExpose == that.requireExpose
+                && serializationStrategies.equals(that.serializationStrategies)
+                && deserializationStrategies.equals(that.deserializationStrategies);
+    }
+
+    @Override
+    public int hashCode() {
+        long versionBits = Double.doubleToLongBits(version);
+        int result = (int) (versionBits ^ (versionBits >>> 32));
+        result = 31 * result + modifiers;
+        result = 31 * result + (serializeInnerClasses ? 1 : 0);
+        result = 31 * result + (requireExpose ? 1 : 0);
+        result = 31 * result + serializationStrategies.hashCode();
+        result = 31 * result + deserializationStrategies.hashCode();
+        return result;
     }
 
     private boolean isAnonymousOrLocal(Class<?> clazz) {
@@ -224,4 +340,14 @@ public final class Excluder implements TypeAdapterFactory, Cloneable {
         }
         return true;
     }
+
+    private static final class Decisions {
+        final int classExclusions;
+        /** Exclusions of the class's declared fields by name, filled in as fields are bound. */
+        final ConcurrentMap<String, Integer> fieldExclusions = new ConcurrentHashMap<String, Integer>();
+
+        Decisions(int classExclusions) {
+            this.classExclusions = classExclusions;
+        }
+    }
 }
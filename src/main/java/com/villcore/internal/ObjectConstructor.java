@@ -30,4 +30,12 @@ public interface ObjectConstructor<T> {
    * Returns a new instance.
    */
   public T construct();
+
+  /**
+   * Returns a new instance with room for {@code expectedSize} elements or entries. Constructors
+   * of collections and maps presize; others ignore the hint.
+   */
+  default T construct(int expectedSize) {
+    return construct();
+  }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.villcore.internal;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A memoizing {@link $Gson$Types#resolve}. Results are cached per (context type, declaring class,
+ * type to resolve) and {@link $Gson$Types#intern interned}, so a generic field type is resolved
+ * once per context and equal resolved types are the same object.
+ *
+ * <p>The cache holds its types strongly; keep a resolver only as long as the adapters it
+ * resolves types for.
+ */
+public final class TypeResolver {
+  private final ConcurrentMap<Key, Type> resolved = new ConcurrentHashMap<Key, Type>();
+
+  public Type resolve(Type context, Class<?> contextRawType, Type toResolve) {
+    if (toResolve instanceof Class && !((Class<?>) toResolve).isArray()) {
+      // nothing to resolve
+      return toResolve;
+    }
+    Key key = new Key(context, contextRawType, toResolve);
+    Type result = resolved.get(key);
+    if (result == null) {
+      result = $Gson$Types.intern($Gson$Types.resolve(context, contextRawType, toResolve));
+      Type existing = resolved.putIfAbsent(key, result);
+      if (existing != null) {
+        result = existing;
+      }
+    }
+    return result;
+  }
+
+  private static final class Key {
+    final Type context;
+    final Class<?> contextRawType;
+    final Type toResolve;
+    final int hashCode;
+
+    Key(Type context, Class<?> contextRawType, Type toResolve) {
+      this.context = context;
+      this.contextRawType = contextRawType;
+      this.toResolve = toResolve;
+      this.hashCode = (context.hashCode() * 31 + contextRawType.hashCode()) * 31 + toResolve.hashCode();
+    }
+
+    @Override public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return hashCode == that.hashCode
+          && contextRawType == that.contextRawType
+          && $Gson$Types.equals(context, that.context)
+          && $Gson$Types.equals(toResolve, that.toResolve);
+    }
+
+    @Override public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -18,7 +18,11 @@ package com.villcore.internal;
 
 import java.io.ObjectInputStream;
 import java.io.ObjectStreamClass;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 
@@ -29,6 +33,9 @@ import java.lang.reflect.Modifier;
  * @author Jesse Wilson
  */
 public abstract class UnsafeAllocator {
+  /** The allocator for this JVM, looked up once. */
+  static final UnsafeAllocator INSTANCE = create();
+
   public abstract <T> T newInstance(Class<T> c) throws Exception;
 
   public static UnsafeAllocator create() {
@@ -41,13 +48,22 @@ public abstract class UnsafeAllocator {
       Field f = unsafeClass.getDeclaredField("theUnsafe");
       f.setAccessible(true);
       final Object unsafe = f.get(null);
-      final Method allocateInstance = unsafeClass.getMethod("allocateInstance", Class.class);
+      Method allocateInstance = unsafeClass.getMethod("allocateInstance", Class.class);
+      // a bound method handle skips the argument array and access checks of Method.invoke
+      final MethodHandle allocate = MethodHandles.lookup().unreflect(allocateInstance).bindTo(unsafe)
+          .asType(MethodType.methodType(Object.class, Class.class));
       return new UnsafeAllocator() {
         @Override
         @SuppressWarnings("unchecked")
         public <T> T newInstance(Class<T> c) throws Exception {
           assertInstantiable(c);
-          return (T) allocateInstance.invoke(unsafe, c);
+          try {
+            return (T) (Object) allocate.invokeExact((Class<?>) c);
+          } catch (Exception e) {
+            throw e;
+          } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+          }
         }
       };
     } catch (Exception ignored) {
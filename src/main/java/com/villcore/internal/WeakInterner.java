@@ -0,0 +1,101 @@
+package com.villcore.internal;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A concurrent intern table that holds its instances weakly, so interning types doesn't keep their
+ * classes, or the class loaders behind them, from being unloaded.
+ */
+public final class WeakInterner<T> {
+  private final ConcurrentMap<Object, Entry<T>> table = new ConcurrentHashMap<Object, Entry<T>>();
+  private final ReferenceQueue<T> cleared = new ReferenceQueue<T>();
+
+  /**
+   * Returns the interned instance equal to {@code value}, interning {@code value} if there is none.
+   */
+  public T intern(T value) {
+    expungeCleared();
+    Probe probe = new Probe(value);
+    while (true) {
+      Entry<T> entry = table.get(probe);
+      if (entry == null) {
+        Entry<T> created = new Entry<T>(value, probe.hash, cleared);
+        entry = table.putIfAbsent(created, created);
+        if (entry == null) {
+          return value;
+        }
+      }
+      T interned = entry.get();
+      if (interned != null) {
+        return interned;
+      }
+      // cleared but not yet expunged
+      table.remove(entry, entry);
+    }
+  }
+
+  public int size() {
+    expungeCleared();
+    return table.size();
+  }
+
+  private void expungeCleared() {
+    for (Reference<? extends T> reference; (reference = cleared.poll()) != null; ) {
+      table.remove(reference, reference);
+    }
+  }
+
+  private static final class Entry<T> extends WeakReference<T> {
+    final int hash;
+
+    Entry(T referent, int hash, ReferenceQueue<T> queue) {
+      super(referent, queue);
+      this.hash = hash;
+    }
+
+    @Override public boolean equals(Object o) {
+      if (o == this) {
+        return true;
+      }
+      Object referent = get();
+      if (referent == null) {
+        return false;
+      }
+      if (o instanceof Entry) {
+        return referent.equals(((Entry<?>) o).get());
+      }
+      return o instanceof Probe && referent.equals(((Probe) o).value);
+    }
+
+    @Override public int hashCode() {
+      return hash;
+    }
+  }
+
+  /** A lookup key compared against entries by value. */
+  private static final class Probe {
+    final Object value;
+    final int hash;
+
+    Probe(Object value) {
+      this.value = value;
+      this.hash = value.hashCode();
+    }
+
+    @Override public boolean equals(Object o) {
+      if (o instanceof Entry) {
+        Object referent = ((Entry<?>) o).get();
+        return referent != null && value.equals(referent);
+      }
+      return false;
+    }
+
+    @Override public int hashCode() {
+      return hash;
+    }
+  }
+}
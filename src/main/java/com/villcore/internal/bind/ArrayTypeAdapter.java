@@ -21,15 +21,17 @@ import com.villcore.TypeAdapter;
 import com.villcore.TypeAdapterFactory;
 import com.villcore.internal.$Gson$Types;
 import com.villcore.reflect.TypeToken;
+import com.villcore.visitor.ArrayVisitor;
 import com.villcore.visitor.Visitor;
 
 import java.io.IOException;
-import java.lang.reflect.Array;
 import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.Type;
 
 /**
- * Adapt an array of objects.
+ * Adapt an array of objects. Arrays of primitives get one adapter per component type that hands
+ * the array to an {@link ArrayVisitor} without boxing its elements; there is nothing inside them
+ * to descend into.
  */
 public final class ArrayTypeAdapter<E> extends TypeAdapter<Object> {
     public static final TypeAdapterFactory FACTORY = new TypeAdapterFactory() {
@@ -42,6 +44,9 @@ public final class ArrayTypeAdapter<E> extends TypeAdapter<Object> {
             }
 
             Type componentType = $Gson$Types.getArrayComponentType(type);
+            if (componentType instanceof Class && ((Class<?>) componentType).isPrimitive()) {
+                return (TypeAdapter<T>) primitiveArrayAdapter((Class<?>) componentType);
+            }
             TypeAdapter<?> componentTypeAdapter = objectFieldHelper.getAdapter(TypeToken.get(componentType));
             return new ArrayTypeAdapter(
                     objectFieldHelper, componentTypeAdapter, $Gson$Types.getRawType(componentType));
@@ -50,11 +55,12 @@ public final class ArrayTypeAdapter<E> extends TypeAdapter<Object> {
 
     private final Class<E> componentType;
     private final TypeAdapter<E> componentTypeAdapter;
+    private final boolean visitElements;
 
     public ArrayTypeAdapter(ObjectFieldHelper context, TypeAdapter<E> componentTypeAdapter, Class<E> componentType) {
-        this.componentTypeAdapter =
-                new TypeAdapterRuntimeTypeWrapper<E>(context, componentTypeAdapter, componentType);
+        this.componentTypeAdapter = TypeAdapterRuntimeTypeWrapper.wrap(context, componentTypeAdapter, componentType);
         this.componentType = componentType;
+        this.visitElements = !CollectionTypeAdapterFactory.hasLeafElements(componentType, componentTypeAdapter);
     }
 
     @SuppressWarnings("unchecked")
@@ -64,9 +70,110 @@ public final class ArrayTypeAdapter<E> extends TypeAdapter<Object> {
             return;
         }
 
-        for (int i = 0, length = Array.getLength(array); i < length; i++) {
-            E value = (E) Array.get(array, i);
-            componentTypeAdapter.visit(value,visitor);
+        // every array with a non-primitive component type is an Object[]
+        Object[] elements = (Object[]) array;
+        if (visitor instanceof ArrayVisitor) {
+            ((ArrayVisitor) visitor).visitArray(elements, 0, elements.length);
+        }
+        if (!visitElements) {
+            return;
+        }
+        TypeAdapter<E> componentTypeAdapter = this.componentTypeAdapter;
+        for (Object element : elements) {
+            componentTypeAdapter.visit((E) element, visitor);
+        }
+    }
+
+    private static TypeAdapter<?> primitiveArrayAdapter(Class<?> componentType) {
+        if (componentType == int.class) {
+            return INT_ARRAY;
+        } else if (componentType == long.class) {
+            return LONG_ARRAY;
+        } else if (componentType == double.class) {
+            return DOUBLE_ARRAY;
+        } else if (componentType == byte.class) {
+            return BYTE_ARRAY;
+        } else if (componentType == float.class) {
+            return FLOAT_ARRAY;
+        } else if (componentType == char.class) {
+            return CHAR_ARRAY;
+        } else if (componentType == short.class) {
+            return SHORT_ARRAY;
+        } else if (componentType == boolean.class) {
+            return BOOLEAN_ARRAY;
         }
+        throw new IllegalArgumentException(componentType.getName());
     }
+
+    private static final TypeAdapter<boolean[]> BOOLEAN_ARRAY = new TypeAdapter<boolean[]>() {
+        @Override
+        public void visit(boolean[] array, Visitor visitor) {
+            if (array != null && visitor instanceof ArrayVisitor) {
+                ((ArrayVisitor) visitor).visitArray(array, 0, array.length);
+            }
+        }
+    };
+
+    private static final TypeAdapter<byte[]> BYTE_ARRAY = new TypeAdapter<byte[]>() {
+        @Override
+        public void visit(byte[] array, Visitor visitor) {
+            if (array != null && visitor instanceof ArrayVisitor) {
+                ((ArrayVisitor) visitor).visitArray(array, 0, array.length);
+            }
+        }
+    };
+
+    private static final TypeAdapter<short[]> SHORT_ARRAY = new TypeAdapter<short[]>() {
+        @Override
+        public void visit(short[] array, Visitor visitor) {
+            if (array != null && visitor instanceof ArrayVisitor) {
+                ((ArrayVisitor) visitor).visitArray(array, 0, array.length);
+            }
+        }
+    };
+
+    private static final TypeAdapter<char[]> CHAR_ARRAY = new TypeAdapter<char[]>() {
+        @Override
+        public void visit(char[] array, Visitor visitor) {
+            if (array != null && visitor instanceof ArrayVisitor) {
+                ((ArrayVisitor) visitor).visitArray(array, 0, array.length);
+            }
+        }
+    };
+
+    private static final TypeAdapter<int[]> INT_ARRAY = new TypeAdapter<int[]>() {
+        @Override
+        public void visit(int[] array, Visitor visitor) {
+            if (array != null && visitor instanceof ArrayVisitor) {
+                ((ArrayVisitor) visitor).visitArray(array, 0, array.length);
+            }
+        }
+    };
+
+    private static final TypeAdapter<long[]> LONG_ARRAY = new TypeAdapter<long[]>() {
+        @Override
+        public void visit(long[] array, Visitor visitor) {
+            if (array != null && visitor instanceof ArrayVisitor) {
+                ((ArrayVisitor) visitor).visitArray(array, 0, array.length);
+            }
+        }
+    };
+
+    private static final TypeAdapter<float[]> FLOAT_ARRAY = new TypeAdapter<float[]>() {
+        @Override
+        public void visit(float[] array, Visitor visitor) {
+            if (array != null && visitor instanceof ArrayVisitor) {
+                ((ArrayVisitor) visitor).visitArray(array, 0, array.length);
+            }
+        }
+    };
+
+    private static final TypeAdapter<double[]> DOUBLE_ARRAY = new TypeAdapter<double[]>() {
+        @Override
+        public void visit(double[] array, Visitor visitor) {
+            if (array != null && visitor instanceof ArrayVisitor) {
+                ((ArrayVisitor) visitor).visitArray(array, 0, array.length);
+            }
+        }
+    };
 }
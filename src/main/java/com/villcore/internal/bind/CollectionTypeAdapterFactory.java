@@ -16,6 +16,7 @@
 
 package com.villcore.internal.bind;
 
+import com.villcore.LeafTypes;
 import com.villcore.ObjectFieldHelper;
 import com.villcore.TypeAdapter;
 import com.villcore.TypeAdapterFactory;
@@ -28,9 +29,13 @@ import com.villcore.visitor.Visitor;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
 
 /**
- * Adapt a homogeneous collection of objects.
+ * Adapt a homogeneous collection of objects. {@code RandomAccess} lists are walked by index
+ * without an iterator, elements of a final type skip runtime type dispatch, and collections whose
+ * elements are final leaf types, like {@code List<String>}, aren't iterated at all.
  */
 public final class CollectionTypeAdapterFactory implements TypeAdapterFactory {
     private final ConstructorConstructor constructorConstructor;
@@ -53,27 +58,48 @@ public final class CollectionTypeAdapterFactory implements TypeAdapterFactory {
         ObjectConstructor<T> constructor = constructorConstructor.get(typeToken);
 
         @SuppressWarnings({"unchecked", "rawtypes"}) // create() doesn't define a type parameter
-        TypeAdapter<T> result = new Adapter(objectFieldHelper, elementType, elementTypeAdapter, constructor);
+        TypeAdapter<T> result = new Adapter(objectFieldHelper, elementType, elementTypeAdapter, constructor,
+                !hasLeafElements(elementType, elementTypeAdapter));
         return result;
     }
 
+    /**
+     * Returns true if every element is a leaf, so visiting one never reports, checks or descends
+     * into anything. Elements of a leaf type handled by a user factory, or by the NaN check for
+     * floating-point values, are still visited.
+     */
+    static boolean hasLeafElements(Type elementType, TypeAdapter<?> elementTypeAdapter) {
+        return TypeAdapterRuntimeTypeWrapper.isExactType(elementType) && LeafTypes.isLeafAdapter(elementTypeAdapter);
+    }
+
     private static final class Adapter<E> extends TypeAdapter<Collection<E>> {
         private final TypeAdapter<E> elementTypeAdapter;
         private final ObjectConstructor<? extends Collection<E>> constructor;
+        private final boolean visitElements;
 
         public Adapter(ObjectFieldHelper context, Type elementType,
                        TypeAdapter<E> elementTypeAdapter,
-                       ObjectConstructor<? extends Collection<E>> constructor) {
-            this.elementTypeAdapter = new TypeAdapterRuntimeTypeWrapper<E>(context, elementTypeAdapter, elementType);
+                       ObjectConstructor<? extends Collection<E>> constructor,
+                       boolean visitElements) {
+            this.elementTypeAdapter = TypeAdapterRuntimeTypeWrapper.wrap(context, elementTypeAdapter, elementType);
             this.constructor = constructor;
+            this.visitElements = visitElements;
         }
 
         @Override
         public void visit(Collection<E> collection, Visitor visitor) throws IOException {
-            if (collection == null) {
+            if (collection == null || !visitElements) {
                 return;
             }
 
+            TypeAdapter<E> elementTypeAdapter = this.elementTypeAdapter;
+            if (collection instanceof RandomAccess && collection instanceof List) {
+                List<E> list = (List<E>) collection;
+                for (int i = 0, size = list.size(); i < size; i++) {
+                    elementTypeAdapter.visit(list.get(i), visitor);
+                }
+                return;
+            }
             for (E element : collection) {
                 elementTypeAdapter.visit(element, visitor);
             }
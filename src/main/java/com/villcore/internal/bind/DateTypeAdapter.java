@@ -20,6 +20,7 @@ import com.villcore.ObjectFieldHelper;
 import com.villcore.JsonSyntaxException;
 import com.villcore.TypeAdapter;
 import com.villcore.TypeAdapterFactory;
+import com.villcore.internal.bind.util.DateFormatPool;
 import com.villcore.internal.bind.util.ISO8601Utils;
 import com.villcore.reflect.TypeToken;
 import com.villcore.visitor.Visitor;
@@ -32,10 +33,9 @@ import java.util.Date;
 import java.util.Locale;
 
 /**
- * Adapter for Date. Although this class appears stateless, it is not.
- * DateFormat captures its time zone and locale when it is created, which gives
- * this class state. DateFormat isn't thread safe either, so this class has
- * to synchronize its read and write methods.
+ * Adapter for Date. Visiting a date doesn't format it; {@link #format} and {@link #parse} are
+ * there for consumers that need the text. DateFormat captures its time zone and locale when it
+ * is created and isn't thread safe, so each adapter keeps lock-free pools of its formats.
  */
 public final class DateTypeAdapter extends TypeAdapter<Date> {
     public static final TypeAdapterFactory FACTORY = new TypeAdapterFactory() {
@@ -46,19 +46,45 @@ public final class DateTypeAdapter extends TypeAdapter<Date> {
         }
     };
 
-    private final DateFormat enUsFormat
-            = DateFormat.getDateTimeInstance(DateFormat.DEFAULT, DateFormat.DEFAULT, Locale.US);
-    private final DateFormat localFormat
-            = DateFormat.getDateTimeInstance(DateFormat.DEFAULT, DateFormat.DEFAULT);
+    private final DateFormatPool enUsFormat
+            = new DateFormatPool(DateFormat.getDateTimeInstance(DateFormat.DEFAULT, DateFormat.DEFAULT, Locale.US));
+    private final DateFormatPool localFormat
+            = new DateFormatPool(DateFormat.getDateTimeInstance(DateFormat.DEFAULT, DateFormat.DEFAULT));
 
-    private synchronized Date deserializeToDate(String json) {
-        try {
-            return localFormat.parse(json);
-        } catch (ParseException ignored) {
+    /**
+     * Formats {@code value} in the US English default date-time style.
+     */
+    public String format(Date value) {
+        return enUsFormat.format(value);
+    }
+
+    /**
+     * Parses {@code json} as an ISO 8601 date, or in the default date-time style of the default or
+     * US English locale.
+     *
+     * @throws JsonSyntaxException if {@code json} matches none of them.
+     */
+    public Date parse(String json) {
+        return parse(json, localFormat, enUsFormat);
+    }
+
+    /**
+     * Parses {@code json} as an ISO 8601 date, or with {@code localFormat} or {@code enUsFormat},
+     * without throwing until all three have failed.
+     */
+    public static Date parse(String json, DateFormatPool localFormat, DateFormatPool enUsFormat) {
+        // ISO 8601 dates match neither localized style, so trying them first is safe and cheap
+        Date date = ISO8601Utils.tryParse(json, new ParsePosition(0));
+        if (date != null) {
+            return date;
         }
-        try {
-            return enUsFormat.parse(json);
-        } catch (ParseException ignored) {
+        date = localFormat.parse(json, new ParsePosition(0));
+        if (date != null) {
+            return date;
+        }
+        date = enUsFormat.parse(json, new ParsePosition(0));
+        if (date != null) {
+            return date;
         }
         try {
             return ISO8601Utils.parse(json, new ParsePosition(0));
@@ -68,11 +94,7 @@ public final class DateTypeAdapter extends TypeAdapter<Date> {
     }
 
     @Override
-    public synchronized void visit(Date value, Visitor visitor) throws IOException {
-        if (value == null) {
-            return;
-        }
-        String dateFormatAsString = enUsFormat.format(value);
-        // out.value(dateFormatAsString);
+    public void visit(Date value, Visitor visitor) throws IOException {
+        // dates are terminal values; nothing to descend into
     }
 }
@@ -0,0 +1,44 @@
+package com.villcore.internal.bind;
+
+import com.villcore.TypeAdapter;
+import com.villcore.reflect.TypeToken;
+import com.villcore.visitor.Visitor;
+
+import java.io.IOException;
+
+/**
+ * Stands in for an adapter while it is being created, so that adapters of cyclic types can refer
+ * to it. It delegates to the real adapter once that is set; if creation fails it never is, and
+ * visiting through it throws.
+ */
+public final class FutureTypeAdapter<T> extends TypeAdapter<T> {
+    private final TypeToken<T> type;
+    private volatile TypeAdapter<T> delegate;
+
+    public FutureTypeAdapter(TypeToken<T> type) {
+        this.type = type;
+    }
+
+    public void setDelegate(TypeAdapter<T> typeAdapter) {
+        if (delegate != null) {
+            throw new AssertionError();
+        }
+        delegate = typeAdapter;
+    }
+
+    /**
+     * Returns true if the adapter this stands in for has been created.
+     */
+    public boolean isResolved() {
+        return delegate != null;
+    }
+
+    @Override
+    public void visit(T value, Visitor visitor) throws IOException {
+        TypeAdapter<T> d = delegate;
+        if (d == null) {
+            throw new IllegalStateException("No type adapter was created for " + type);
+        }
+        d.visit(value, visitor);
+    }
+}
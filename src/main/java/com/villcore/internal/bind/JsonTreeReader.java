@@ -17,6 +17,7 @@
 package com.villcore.internal.bind;
 
 import com.villcore.*;
+import com.villcore.stream.JsonNames;
 import com.villcore.stream.JsonReader;
 import com.villcore.stream.JsonToken;
 
@@ -59,6 +60,9 @@ public final class JsonTreeReader extends JsonReader {
   private String[] pathNames = new String[32];
   private int[] pathIndices = new int[32];
 
+  /** A name read by selectName() that didn't match; its value is already on the stack. */
+  private String bufferedName;
+
   public JsonTreeReader(JsonElement element) {
     super(UNREADABLE_READER);
     push(element);
@@ -101,6 +105,9 @@ public final class JsonTreeReader extends JsonReader {
   }
 
   @Override public JsonToken peek() throws IOException {
+    if (bufferedName != null) {
+      return JsonToken.NAME;
+    }
     if (stackSize == 0) {
       return JsonToken.END_DOCUMENT;
     }
@@ -162,6 +169,11 @@ public final class JsonTreeReader extends JsonReader {
 
   @Override public String nextName() throws IOException {
     expect(JsonToken.NAME);
+    if (bufferedName != null) {
+      String result = bufferedName;
+      bufferedName = null;
+      return result;
+    }
     Iterator<?> i = (Iterator<?>) peekStack();
     Map.Entry<?, ?> entry = (Map.Entry<?, ?>) i.next();
     String result = (String) entry.getKey();
@@ -170,6 +182,15 @@ public final class JsonTreeReader extends JsonReader {
     return result;
   }
 
+  @Override public int selectName(JsonNames names) throws IOException {
+    String name = nextName();
+    int slot = names.find(name);
+    if (slot == -1) {
+      bufferedName = name;
+    }
+    return slot;
+  }
+
   @Override public String nextString() throws IOException {
     JsonToken token = peek();
     if (token != JsonToken.STRING && token != JsonToken.NUMBER) {
@@ -246,6 +267,7 @@ public final class JsonTreeReader extends JsonReader {
   }
 
   @Override public void close() throws IOException {
+    bufferedName = null;
     stack = new Object[] { SENTINEL_CLOSED };
     stackSize = 1;
   }
@@ -265,12 +287,24 @@ public final class JsonTreeReader extends JsonReader {
     }
   }
 
+  /**
+   * Skipping a tree is already a single pop, so this is {@link #skipValue}.
+   */
+  @Override public void skipValueFast() throws IOException {
+    skipValue();
+  }
+
   @Override public String toString() {
     return getClass().getSimpleName();
   }
 
   public void promoteNameToValue() throws IOException {
     expect(JsonToken.NAME);
+    if (bufferedName != null) {
+      push(new JsonPrimitive(bufferedName));
+      bufferedName = null;
+      return;
+    }
     Iterator<?> i = (Iterator<?>) peekStack();
     Map.Entry<?, ?> entry = (Map.Entry<?, ?>) i.next();
     push(entry.getValue());
@@ -16,7 +16,6 @@
 
 package com.villcore.internal.bind;
 
-import com.villcore.JsonElement;
 import com.villcore.ObjectFieldHelper;
 import com.villcore.TypeAdapter;
 import com.villcore.TypeAdapterFactory;
@@ -28,18 +27,27 @@ import com.villcore.visitor.Visitor;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 
+/**
+ * Adapt a map. Entries are streamed once, visiting each key and value through its adapter; keys
+ * and values can each be left unvisited. Keys or values of a final leaf type are never visited,
+ * since nothing inside them could be reported.
+ *
+ * <p>When both are visited they are interleaved per entry, in the map's iteration order: the first
+ * key, then its value, then the second key. Complex keys used to be visited all together before
+ * any value.
+ */
 public final class MapTypeAdapterFactory implements TypeAdapterFactory {
 
     private final ConstructorConstructor constructorConstructor;
-    final boolean complexMapKeySerialization;
+    private final boolean visitKeys;
+    private final boolean visitValues;
 
-    public MapTypeAdapterFactory(ConstructorConstructor constructorConstructor, boolean complexMapKeySerialization) {
+    public MapTypeAdapterFactory(ConstructorConstructor constructorConstructor, boolean visitKeys, boolean visitValues) {
         this.constructorConstructor = constructorConstructor;
-        this.complexMapKeySerialization = complexMapKeySerialization;
+        this.visitKeys = visitKeys;
+        this.visitValues = visitValues;
     }
 
     @Override
@@ -53,39 +61,35 @@ public final class MapTypeAdapterFactory implements TypeAdapterFactory {
 
         Class<?> rawTypeOfSrc = $Gson$Types.getRawType(type);
         Type[] keyAndValueTypes = $Gson$Types.getMapKeyAndValueTypes(type, rawTypeOfSrc);
-        TypeAdapter<?> keyAdapter = getKeyAdapter(objectFieldHelper, keyAndValueTypes[0]);
+        TypeAdapter<?> keyAdapter = objectFieldHelper.getAdapter(TypeToken.get(keyAndValueTypes[0]));
         TypeAdapter<?> valueAdapter = objectFieldHelper.getAdapter(TypeToken.get(keyAndValueTypes[1]));
         ObjectConstructor<T> constructor = constructorConstructor.get(typeToken);
 
         @SuppressWarnings({"unchecked", "rawtypes"})
         // we don't define a type parameter for the key or value types
         TypeAdapter<T> result = new Adapter(objectFieldHelper, keyAndValueTypes[0], keyAdapter,
-                keyAndValueTypes[1], valueAdapter, constructor);
+                keyAndValueTypes[1], valueAdapter, constructor,
+                visitKeys && !CollectionTypeAdapterFactory.hasLeafElements(keyAndValueTypes[0], keyAdapter),
+                visitValues && !CollectionTypeAdapterFactory.hasLeafElements(keyAndValueTypes[1], valueAdapter));
         return result;
     }
 
-    /**
-     * Returns a type adapter that writes the value as a string.
-     */
-    private TypeAdapter<?> getKeyAdapter(ObjectFieldHelper context, Type keyType) {
-        return (keyType == boolean.class || keyType == Boolean.class)
-                ? TypeAdapters.BOOLEAN_AS_STRING
-                : context.getAdapter(TypeToken.get(keyType));
-    }
-
-    private final class Adapter<K, V> extends TypeAdapter<Map<K, V>> {
+    private static final class Adapter<K, V> extends TypeAdapter<Map<K, V>> {
         private final TypeAdapter<K> keyTypeAdapter;
         private final TypeAdapter<V> valueTypeAdapter;
         private final ObjectConstructor<? extends Map<K, V>> constructor;
+        private final boolean visitKeys;
+        private final boolean visitValues;
 
         public Adapter(ObjectFieldHelper context, Type keyType, TypeAdapter<K> keyTypeAdapter,
                        Type valueType, TypeAdapter<V> valueTypeAdapter,
-                       ObjectConstructor<? extends Map<K, V>> constructor) {
-            this.keyTypeAdapter =
-                    new TypeAdapterRuntimeTypeWrapper<K>(context, keyTypeAdapter, keyType);
-            this.valueTypeAdapter =
-                    new TypeAdapterRuntimeTypeWrapper<V>(context, valueTypeAdapter, valueType);
+                       ObjectConstructor<? extends Map<K, V>> constructor,
+                       boolean visitKeys, boolean visitValues) {
+            this.keyTypeAdapter = TypeAdapterRuntimeTypeWrapper.wrap(context, keyTypeAdapter, keyType);
+            this.valueTypeAdapter = TypeAdapterRuntimeTypeWrapper.wrap(context, valueTypeAdapter, valueType);
             this.constructor = constructor;
+            this.visitKeys = visitKeys;
+            this.visitValues = visitValues;
         }
 
         @Override
@@ -94,31 +98,20 @@ public final class MapTypeAdapterFactory implements TypeAdapterFactory {
                 return;
             }
 
-            if (!complexMapKeySerialization) {
+            TypeAdapter<K> keyTypeAdapter = this.keyTypeAdapter;
+            TypeAdapter<V> valueTypeAdapter = this.valueTypeAdapter;
+            if (visitKeys && visitValues) {
                 for (Map.Entry<K, V> entry : map.entrySet()) {
+                    keyTypeAdapter.visit(entry.getKey(), visitor);
                     valueTypeAdapter.visit(entry.getValue(), visitor);
                 }
-                return;
-            }
-
-            boolean hasComplexKeys = false;
-            List<JsonElement> keys = new ArrayList<JsonElement>(map.size());
-
-            List<V> values = new ArrayList<V>(map.size());
-            for (Map.Entry<K, V> entry : map.entrySet()) {
-                JsonElement keyElement = keyTypeAdapter.toJsonTree(entry.getKey(), visitor);
-                keys.add(keyElement);
-                values.add(entry.getValue());
-                hasComplexKeys |= keyElement.isJsonArray() || keyElement.isJsonObject();
-            }
-
-            if (hasComplexKeys) {
-                for (int i = 0, size = keys.size(); i < size; i++) {
-                    valueTypeAdapter.visit(values.get(i), visitor);
+            } else if (visitValues) {
+                for (V value : map.values()) {
+                    valueTypeAdapter.visit(value, visitor);
                 }
-            } else {
-                for (int i = 0, size = keys.size(); i < size; i++) {
-                    valueTypeAdapter.visit(values.get(i), visitor);
+            } else if (visitKeys) {
+                for (K key : map.keySet()) {
+                    keyTypeAdapter.visit(key, visitor);
                 }
             }
         }
@@ -31,6 +31,8 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Type adapter that reflects over the fields and methods of a class.
@@ -40,6 +42,15 @@ public final class ReflectiveTypeAdapterFactory implements TypeAdapterFactory {
     private final FieldNamingStrategy fieldNamingPolicy;
     private final Excluder excluder;
     private final JsonAdapterAnnotationTypeAdapterFactory jsonAdapterFactory;
+    private final Map<TypeToken<?>, BoundFields> partialPlans
+            = new ConcurrentHashMap<TypeToken<?>, BoundFields>();
+    /**
+     * Plans built by each thread's ongoing resolution. They may hold that thread's placeholders,
+     * so no other thread sees them until the resolution succeeds.
+     */
+    private final ConcurrentMap<Thread, Map<TypeToken<?>, BoundFields>> pendingPlans
+            = new ConcurrentHashMap<Thread, Map<TypeToken<?>, BoundFields>>();
+    private final TypeResolver typeResolver = new TypeResolver();
 
     public ReflectiveTypeAdapterFactory(ConstructorConstructor constructorConstructor,
                                         FieldNamingStrategy fieldNamingPolicy, Excluder excluder,
@@ -50,12 +61,34 @@ public final class ReflectiveTypeAdapterFactory implements TypeAdapterFactory {
         this.jsonAdapterFactory = jsonAdapterFactory;
     }
 
-    public boolean excludeField(Field f, boolean serialize) {
-        return excludeField(f, serialize, excluder);
+    /**
+     * Shares the partial plans the calling thread built with every thread. Called when the
+     * thread's resolution succeeds, so every placeholder in them is resolved.
+     */
+    public void publishPartialPlans() {
+        Map<TypeToken<?>, BoundFields> pending = pendingPlans.remove(Thread.currentThread());
+        if (pending != null) {
+            for (Map.Entry<TypeToken<?>, BoundFields> entry : pending.entrySet()) {
+                partialPlans.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Forgets the partial plans the calling thread built. Called when creating an adapter fails:
+     * plans built during that resolution may hold placeholders, or adapters holding placeholders,
+     * that will never be resolved.
+     */
+    public void discardPartialPlans() {
+        pendingPlans.remove(Thread.currentThread());
     }
 
-    static boolean excludeField(Field f, boolean serialize, Excluder excluder) {
-        return !excluder.excludeClass(f.getType(), serialize) && !excluder.excludeField(f, serialize);
+    /**
+     * Returns the {@code Excluder.EXCLUDE_*} bits that apply to {@code f}, from its own
+     * declaration and from its type.
+     */
+    private int exclusions(Field f) {
+        return excluder.classExclusions(f.getType()) | excluder.fieldExclusions(f);
     }
 
     /**
@@ -94,124 +127,213 @@ public final class ReflectiveTypeAdapterFactory implements TypeAdapterFactory {
         return new Adapter<T>(constructor, getBoundFields(objectFieldHelper, type, raw));
     }
 
-    private BoundField createBoundField(
-            final ObjectFieldHelper context, final Field field, final String name,
-            final TypeToken<?> fieldType, boolean serialize, boolean deserialize) {
-
-        final boolean isPrimitive = Primitives.isPrimitive(fieldType.getRawType());
-        // special casing primitives here saves ~5% on Android...
-        Tag tagAnnotation = field.getAnnotation(Tag.class);
-        JsonAdapter annotation = field.getAnnotation(JsonAdapter.class);
-        TypeAdapter<?> mapped = null;
-        if (annotation != null) {
-            mapped = jsonAdapterFactory.getTypeAdapter(constructorConstructor, context, fieldType, annotation);
-        }
-        final boolean jsonAdapterPresent = mapped != null;
-        if (mapped == null) mapped = context.getAdapter(fieldType);
-
-        final TypeAdapter<?> typeAdapter = mapped;
-
-        return new BoundField(field, name, tagAnnotation, serialize, deserialize) {
-
-            @SuppressWarnings({"unchecked", "rawtypes"}) // the type adapter and field type always agree
-            @Override
-            void write(Object value, Visitor visitor) throws IOException, IllegalAccessException {
-                 Object fieldValue = field.get(value);
-                 TypeAdapter t = jsonAdapterPresent ? typeAdapter : new TypeAdapterRuntimeTypeWrapper(context, typeAdapter, fieldType.getType());
-                 if (fieldValue != null) {
-                     t.visit(fieldValue, visitor);
-                 }
-                 visitor.visit(value, this.field, this.tag, this.name, fieldValue);
-            }
-
-            @Override
-            public boolean writeField(Object value) throws IOException, IllegalAccessException {
-                // TODO: check need visit
-                return Objects.nonNull(tag);
-//                if (!serialized) return false;
-//                Object fieldValue = field.get(value);
-//                return fieldValue != value; // avoid recursion for example for Throwable.cause
-            }
-        };
+    private BoundFields getBoundFields(ObjectFieldHelper context, TypeToken<?> type, Class<?> raw) {
+        if (raw.isInterface()) {
+            return BoundFields.EMPTY;
+        }
+        return getPartialPlan(context, type, raw);
     }
 
-    private Map<String, BoundField> getBoundFields(ObjectFieldHelper context, TypeToken<?> type, Class<?> raw) {
-        Map<String, BoundField> result = new LinkedHashMap<String, BoundField>();
-        if (raw.isInterface()) {
-            return result;
+    /**
+     * Returns the bound fields declared by {@code raw} and all of its superclasses, as seen from
+     * {@code type}. Plans are cached per resolved type, so subclasses sharing a parameterization of
+     * a base class reuse the base class's bound fields instead of binding them again.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"}) // the type adapter and field type always agree
+    private BoundFields getPartialPlan(ObjectFieldHelper context, TypeToken<?> type, Class<?> raw) {
+        if (raw == Object.class) {
+            return BoundFields.EMPTY;
+        }
+        BoundFields cached = partialPlans.get(type);
+        if (cached != null) {
+            return cached;
+        }
+        Map<TypeToken<?>, BoundFields> pending = pendingPlans.get(Thread.currentThread());
+        if (pending == null) {
+            pending = new HashMap<TypeToken<?>, BoundFields>();
+            pendingPlans.put(Thread.currentThread(), pending);
+        } else if ((cached = pending.get(type)) != null) {
+            return cached;
         }
 
         Type declaredType = type.getType();
-        while (raw != Object.class) {
-            Field[] fields = raw.getDeclaredFields();
-            for (Field field : fields) {
-                boolean serialize = excludeField(field, true);
-                boolean deserialize = excludeField(field, false);
-                if (!serialize && !deserialize) {
-                    continue;
-                }
-                field.setAccessible(true);
-                Type fieldType = $Gson$Types.resolve(type.getType(), raw, field.getGenericType());
-                List<String> fieldNames = getFieldNames(field);
-                BoundField previous = null;
-                for (int i = 0, size = fieldNames.size(); i < size; ++i) {
-                    String name = fieldNames.get(i);
-                    if (i != 0) serialize = false; // only serialize the default name
-                    BoundField boundField = createBoundField(context, field, name, TypeToken.get(fieldType), serialize, deserialize);
-                    BoundField replaced = result.put(name, boundField);
-                    if (previous == null) previous = replaced;
-                }
-                if (previous != null) {
+        List<Field> fields = new ArrayList<Field>();
+        List<TypeAdapter<?>> adapters = new ArrayList<TypeAdapter<?>>();
+        List<Tag> tags = new ArrayList<Tag>();
+        List<String> names = new ArrayList<String>();
+        List<Byte> flags = new ArrayList<Byte>();
+        Set<String> seenNames = new HashSet<String>();
+
+        for (Field field : raw.getDeclaredFields()) {
+            int exclusions = exclusions(field);
+            boolean serialize = (exclusions & Excluder.EXCLUDE_SERIALIZATION) == 0;
+            boolean deserialize = (exclusions & Excluder.EXCLUDE_DESERIALIZATION) == 0;
+            if (!serialize && !deserialize) {
+                continue;
+            }
+            field.setAccessible(true);
+            TypeToken<?> fieldType = TypeToken.get(typeResolver.resolve(declaredType, raw, field.getGenericType()));
+            Tag tag = field.getAnnotation(Tag.class);
+
+            JsonAdapter annotation = field.getAnnotation(JsonAdapter.class);
+            TypeAdapter<?> mapped = null;
+            if (annotation != null) {
+                mapped = jsonAdapterFactory.getTypeAdapter(constructorConstructor, context, fieldType, annotation);
+            }
+            boolean jsonAdapterPresent = mapped != null;
+            if (mapped == null) {
+                mapped = TypeAdapterRuntimeTypeWrapper.wrap(context, context.getAdapter(fieldType), fieldType.getType());
+            }
+
+            List<String> fieldNames = getFieldNames(field);
+            for (int i = 0, size = fieldNames.size(); i < size; ++i) {
+                String name = fieldNames.get(i);
+                if (!seenNames.add(name)) {
                     throw new IllegalArgumentException(declaredType
-                            + " declares multiple JSON fields named " + previous.name);
+                            + " declares multiple JSON fields named " + name);
                 }
+                fields.add(field);
+                adapters.add(mapped);
+                tags.add(tag);
+                names.add(name);
+                flags.add(BoundFields.flags(jsonAdapterPresent));
             }
-            type = TypeToken.get($Gson$Types.resolve(type.getType(), raw, raw.getGenericSuperclass()));
-            raw = type.getRawType();
         }
-        return result;
+
+        TypeToken<?> superType = TypeToken.get(typeResolver.resolve(declaredType, raw, raw.getGenericSuperclass()));
+        BoundFields parent = getPartialPlan(context, superType, superType.getRawType());
+        for (String inherited : parent.names) {
+            if (seenNames.contains(inherited)) {
+                throw new IllegalArgumentException(declaredType
+                        + " declares multiple JSON fields named " + inherited);
+            }
+        }
+
+        BoundFields plan = new BoundFields(fields, adapters, tags, names, flags, parent);
+        pending.put(type, plan);
+        return plan;
     }
 
-    static abstract class BoundField {
-        final Field field;
-        final String name;
-        final Tag tag;
-        final boolean serialized;
-        final boolean deserialized;
+    /**
+     * The bound fields of a class and its superclasses, as dense parallel arrays in the order the
+     * fields are visited: a class's own fields first, then those it inherits. Slot {@code i} of
+     * every array describes the same bound field; a field with alternate names takes one slot per
+     * name. Plans are immutable and shared between subclasses and adapters.
+     */
+    static final class BoundFields {
+        static final byte JSON_ADAPTER = 1;
+
+        static final BoundFields EMPTY = new BoundFields(
+                Collections.<Field>emptyList(), Collections.<TypeAdapter<?>>emptyList(), Collections.<Tag>emptyList(),
+                Collections.<String>emptyList(), Collections.<Byte>emptyList(), null);
 
-        protected BoundField(Field field, String name, Tag tag, boolean serialized, boolean deserialized) {
-            this.field = field;
-            this.name = name;
-            this.tag = tag;
-            this.serialized = serialized;
-            this.deserialized = deserialized;
-        }
+        final Field[] fields;
+        /**
+         * Adapters for field values, already wrapped for runtime type dispatch unless mapped by
+         * @JsonAdapter or the field's type is final.
+         */
+        final TypeAdapter<Object>[] adapters;
+        /** The field's tag, or null if the field is bound but never reported to the visitor. */
+        final Tag[] tags;
+        final String[] names;
+        final byte[] flags;
 
-        abstract boolean writeField(Object value) throws IOException, IllegalAccessException;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        BoundFields(List<Field> fields, List<TypeAdapter<?>> adapters, List<Tag> tags,
+                    List<String> names, List<Byte> flags, BoundFields parent) {
+            int own = fields.size();
+            int size = own + (parent == null ? 0 : parent.fields.length);
+            this.fields = new Field[size];
+            this.adapters = new TypeAdapter[size];
+            this.tags = new Tag[size];
+            this.names = new String[size];
+            this.flags = new byte[size];
+            for (int i = 0; i < own; i++) {
+                this.fields[i] = fields.get(i);
+                this.adapters[i] = (TypeAdapter<Object>) adapters.get(i);
+                this.tags[i] = tags.get(i);
+                this.names[i] = names.get(i);
+                this.flags[i] = flags.get(i);
+            }
+            if (parent != null) {
+                int inherited = parent.fields.length;
+                System.arraycopy(parent.fields, 0, this.fields, own, inherited);
+                System.arraycopy(parent.adapters, 0, this.adapters, own, inherited);
+                System.arraycopy(parent.tags, 0, this.tags, own, inherited);
+                System.arraycopy(parent.names, 0, this.names, own, inherited);
+                System.arraycopy(parent.flags, 0, this.flags, own, inherited);
+            }
+        }
 
-        abstract void write(Object value, Visitor visitor) throws IOException, IllegalAccessException;
+        static byte flags(boolean jsonAdapterPresent) {
+            return jsonAdapterPresent ? JSON_ADAPTER : 0;
+        }
     }
 
     public static final class Adapter<T> extends TypeAdapter<T> {
         private final ObjectConstructor<T> constructor;
-        private final Map<String, BoundField> boundFields;
+        private final BoundFields boundFields;
 
-        Adapter(ObjectConstructor<T> constructor, Map<String, BoundField> boundFields) {
+        Adapter(ObjectConstructor<T> constructor, BoundFields boundFields) {
             this.constructor = constructor;
             this.boundFields = boundFields;
         }
 
+        /**
+         * Returns the number of bound field slots; a field with alternate names has one per name.
+         */
+        public int getBoundFieldCount() {
+            return boundFields.fields.length;
+        }
+
+        public Field getBoundField(int slot) {
+            return boundFields.fields[slot];
+        }
+
+        public String getBoundName(int slot) {
+            return boundFields.names[slot];
+        }
+
+        /**
+         * Returns the slot's tag, or null if the field is bound but not visited.
+         */
+        public Tag getBoundTag(int slot) {
+            return boundFields.tags[slot];
+        }
+
+        /**
+         * Returns the adapter for the slot's value, wrapped for runtime type dispatch unless the
+         * field is annotated with {@code @JsonAdapter} or its type is final.
+         */
+        public TypeAdapter<?> getBoundAdapter(int slot) {
+            return boundFields.adapters[slot];
+        }
+
+        public boolean isBoundWithJsonAdapter(int slot) {
+            return (boundFields.flags[slot] & BoundFields.JSON_ADAPTER) != 0;
+        }
+
         @Override
         public void visit(T value, Visitor visitor) throws IOException {
             if (value == null) {
                 return;
             }
 
+            Field[] fields = boundFields.fields;
+            TypeAdapter<Object>[] adapters = boundFields.adapters;
+            Tag[] tags = boundFields.tags;
+            String[] names = boundFields.names;
             try {
-                for (BoundField boundField : boundFields.values()) {
-                    if (boundField.writeField(value)) {
-                        boundField.write(value, visitor);
+                for (int i = 0, size = fields.length; i < size; i++) {
+                    Tag tag = tags[i];
+                    if (tag == null) {
+                        continue; // only tagged fields are visited
+                    }
+                    Object fieldValue = fields[i].get(value);
+                    if (fieldValue != null) {
+                        adapters[i].visit(fieldValue, visitor);
                     }
+                    visitor.visit(value, fields[i], tag, names[i], fieldValue);
                 }
             } catch (IllegalAccessException e) {
                 throw new AssertionError(e);
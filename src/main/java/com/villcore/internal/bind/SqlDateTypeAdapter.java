@@ -29,8 +29,8 @@ import java.text.SimpleDateFormat;
 /**
  * Adapter for java.sql.Date. Although this class appears stateless, it is not.
  * DateFormat captures its time zone and locale when it is created, which gives
- * this class state. DateFormat isn't thread safe either, so this class has
- * to synchronize its read and write methods.
+ * this class state. DateFormat isn't thread safe either, but visiting never
+ * formats, so nothing needs to be synchronized.
  */
 public final class SqlDateTypeAdapter extends TypeAdapter<java.sql.Date> {
   public static final TypeAdapterFactory FACTORY = new TypeAdapterFactory() {
@@ -44,7 +44,7 @@ public final class SqlDateTypeAdapter extends TypeAdapter<java.sql.Date> {
   private final DateFormat format = new SimpleDateFormat("MMM d, yyyy");
 
   @Override
-  public synchronized void visit(java.sql.Date value, Visitor visitor) throws IOException {
+  public void visit(java.sql.Date value, Visitor visitor) throws IOException {
     // out.value(value == null ? null : format.format(value));
   }
 }
@@ -30,8 +30,8 @@ import java.text.SimpleDateFormat;
 /**
  * Adapter for Time. Although this class appears stateless, it is not.
  * DateFormat captures its time zone and locale when it is created, which gives
- * this class state. DateFormat isn't thread safe either, so this class has
- * to synchronize its read and write methods.
+ * this class state. DateFormat isn't thread safe either, but visiting never
+ * formats, so nothing needs to be synchronized.
  */
 public final class TimeTypeAdapter extends TypeAdapter<Time> {
     public static final TypeAdapterFactory FACTORY = new TypeAdapterFactory() {
@@ -45,7 +45,7 @@ public final class TimeTypeAdapter extends TypeAdapter<Time> {
     private final DateFormat format = new SimpleDateFormat("hh:mm:ss a");
 
     @Override
-    public synchronized void visit(Time value, Visitor visitor) throws IOException {
+    public void visit(Time value, Visitor visitor) throws IOException {
         // out.value(value == null ? null : format.format(value));
     }
 }
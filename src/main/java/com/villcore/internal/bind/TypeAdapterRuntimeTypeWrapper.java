@@ -21,10 +21,11 @@ import com.villcore.reflect.TypeToken;
 import com.villcore.visitor.Visitor;
 
 import java.io.IOException;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 
-final class TypeAdapterRuntimeTypeWrapper<T> extends TypeAdapter<T> {
+public final class TypeAdapterRuntimeTypeWrapper<T> extends TypeAdapter<T> {
     private final ObjectFieldHelper context;
     private final TypeAdapter<T> delegate;
     private final Type type;
@@ -35,6 +36,34 @@ final class TypeAdapterRuntimeTypeWrapper<T> extends TypeAdapter<T> {
         this.type = type;
     }
 
+    /**
+     * Returns {@code delegate} wrapped for runtime type dispatch, or {@code delegate} itself if
+     * every value of {@code type} has exactly that class, so dispatch would always choose it.
+     */
+    static <T> TypeAdapter<T> wrap(ObjectFieldHelper context, TypeAdapter<T> delegate, Type type) {
+        return isExactType(type) ? delegate : new TypeAdapterRuntimeTypeWrapper<T>(context, delegate, type);
+    }
+
+    /**
+     * Returns true if {@code type} is a primitive or a final class. Values of a primitive type are
+     * visited boxed, and boxes are final leaf types too.
+     */
+    static boolean isExactType(Type type) {
+        if (!(type instanceof Class)) {
+            return false;
+        }
+        Class<?> c = (Class<?>) type;
+        return c.isPrimitive() || !c.isArray() && Modifier.isFinal(c.getModifiers());
+    }
+
+    /**
+     * Returns true if a value declared as {@code type} may be visited with the adapter for its
+     * runtime class rather than the one for {@code type}.
+     */
+    public static boolean dispatchesOnRuntimeType(Type type) {
+        return (type instanceof Class || type instanceof TypeVariable) && !isExactType(type);
+    }
+
     @SuppressWarnings({"rawtypes", "unchecked"})
     @Override
     public void visit(T value, Visitor visitor) throws IOException {
@@ -67,8 +96,7 @@ final class TypeAdapterRuntimeTypeWrapper<T> extends TypeAdapter<T> {
      * Finds a compatible runtime type if it is more specific
      */
     private Type getRuntimeTypeIfMoreSpecific(Type type, Object value) {
-        if (value != null
-                && (type == Object.class || type instanceof TypeVariable<?> || type instanceof Class<?>)) {
+        if (value != null && dispatchesOnRuntimeType(type)) {
             type = value.getClass();
         }
         return type;
@@ -0,0 +1,72 @@
+package com.villcore.internal.bind.util;
+
+import java.text.DateFormat;
+import java.text.ParsePosition;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free pool of clones of one {@link DateFormat}, which isn't thread safe. Callers take a
+ * clone from a free slot, or make a new one if all slots are taken, and put it back afterwards,
+ * so formatting and parsing never block and rarely allocate a formatter.
+ */
+public final class DateFormatPool {
+    private static final int SLOTS = Math.max(2, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) * 2);
+
+    private final DateFormat prototype;
+    private final AtomicReferenceArray<DateFormat> free = new AtomicReferenceArray<DateFormat>(SLOTS);
+
+    /**
+     * Creates a pool of clones of {@code prototype}, which is copied and never used directly.
+     */
+    public DateFormatPool(DateFormat prototype) {
+        this.prototype = (DateFormat) prototype.clone();
+    }
+
+    public String format(Date date) {
+        int slot = slot();
+        DateFormat format = take(slot);
+        try {
+            return format.format(date);
+        } finally {
+            release(slot, format);
+        }
+    }
+
+    /**
+     * Parses a date starting at {@code pos}, returning null and setting the error index of {@code
+     * pos} if the text doesn't match. Unlike {@link DateFormat#parse(String)} this doesn't throw.
+     */
+    public Date parse(String text, ParsePosition pos) {
+        int slot = slot();
+        DateFormat format = take(slot);
+        try {
+            return format.parse(text, pos);
+        } finally {
+            release(slot, format);
+        }
+    }
+
+    /**
+     * Returns the simple class name of the pooled format.
+     */
+    public String describe() {
+        return prototype.getClass().getSimpleName();
+    }
+
+    private static int slot() {
+        // spreads threads over the slots so they rarely contend for the same clone
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) & (SLOTS - 1);
+    }
+
+    private DateFormat take(int slot) {
+        DateFormat format = free.getAndSet(slot, null);
+        return format != null ? format : (DateFormat) prototype.clone();
+    }
+
+    private void release(int slot, DateFormat format) {
+        // if another thread filled the slot meanwhile, drop this clone
+        free.compareAndSet(slot, null, format);
+    }
+}
@@ -29,6 +29,12 @@ public class ISO8601Utils
      */
     private static final TimeZone TIMEZONE_UTC = TimeZone.getTimeZone(UTC_ID);
 
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    /** 1583-01-01T00:00:00Z, the first full year of the Gregorian calendar. */
+    private static final long FIRST_FAST_MILLIS = -12212553600000L;
+    /** 10000-01-01T00:00:00Z, the first instant with a five digit year. */
+    private static final long END_FAST_MILLIS = 253402300800000L;
+
     /*
     /**********************************************************
     /* Formatting
@@ -65,6 +71,11 @@ public class ISO8601Utils
      * @return the date formatted as yyyy-MM-ddThh:mm:ss[.sss][Z|[+-]hh:mm]
      */
     public static String format(Date date, boolean millis, TimeZone tz) {
+        long time = date.getTime();
+        if (tz == TIMEZONE_UTC && time >= FIRST_FAST_MILLIS && time < END_FAST_MILLIS) {
+            return formatUtc(time, millis);
+        }
+
         Calendar calendar = new GregorianCalendar(tz, Locale.US);
         calendar.setTime(date);
 
@@ -105,6 +116,53 @@ public class ISO8601Utils
         return formatted.toString();
     }
 
+    /**
+     * Formats a UTC instant from its epoch millis without a {@link Calendar}. Only used between
+     * {@link #FIRST_FAST_MILLIS} and {@link #END_FAST_MILLIS}, where the proleptic Gregorian
+     * calendar agrees with {@link GregorianCalendar} and years have four digits.
+     */
+    private static String formatUtc(long time, boolean millis) {
+        long days = Math.floorDiv(time, MILLIS_PER_DAY);
+        int millisOfDay = (int) Math.floorMod(time, MILLIS_PER_DAY);
+
+        // civil-from-days, in eras of 400 years starting on March 1st
+        long z = days + 719468;
+        long era = Math.floorDiv(z, 146097);
+        int dayOfEra = (int) (z - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        char[] buffer = new char[millis ? 24 : 20];
+        writeDigits(buffer, 0, year, 4);
+        buffer[4] = '-';
+        writeDigits(buffer, 5, month, 2);
+        buffer[7] = '-';
+        writeDigits(buffer, 8, day, 2);
+        buffer[10] = 'T';
+        writeDigits(buffer, 11, millisOfDay / 3600000, 2);
+        buffer[13] = ':';
+        writeDigits(buffer, 14, millisOfDay / 60000 % 60, 2);
+        buffer[16] = ':';
+        writeDigits(buffer, 17, millisOfDay / 1000 % 60, 2);
+        if (millis) {
+            buffer[19] = '.';
+            writeDigits(buffer, 20, millisOfDay % 1000, 3);
+        }
+        buffer[buffer.length - 1] = 'Z';
+        return new String(buffer);
+    }
+
+    private static void writeDigits(char[] buffer, int offset, int value, int length) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
     /*
     /**********************************************************
     /* Parsing
@@ -121,6 +179,190 @@ public class ISO8601Utils
      * @throws ParseException if the date is not in the appropriate format
      */
     public static Date parse(String date, ParsePosition pos) throws ParseException {
+        if (date != null) {
+            Date parsed = tryParse(date, pos);
+            if (parsed != null) {
+                return parsed;
+            }
+        }
+        return parseWithDiagnostics(date, pos);
+    }
+
+    /**
+     * Parses a date like {@link #parse}, but returns null instead of throwing if {@code date}
+     * isn't in the expected format. Dates with a time and a 'Z' or numeric offset in years 1583
+     * to 9999 are converted without a {@link Calendar}; other dates take the slower path.
+     *
+     * @param date ISO string to parse in the appropriate format.
+     * @param pos The position to start parsing from, updated to where parsing stopped. Its error
+     *     index is set if parsing fails.
+     * @return the parsed date, or null
+     */
+    public static Date tryParse(String date, ParsePosition pos) {
+        int start = pos.getIndex();
+        int length = date.length();
+        int offset = start;
+
+        int year = digits(date, offset, 4);
+        offset += 4;
+        if (checkOffset(date, offset, '-')) {
+            offset += 1;
+        }
+        int month = digits(date, offset, 2);
+        offset += 2;
+        if (checkOffset(date, offset, '-')) {
+            offset += 1;
+        }
+        int day = digits(date, offset, 2);
+        offset += 2;
+        if (year < 0 || month < 0 || day < 0) {
+            pos.setErrorIndex(start);
+            return null;
+        }
+        if (!checkOffset(date, offset, 'T')) {
+            // dates without a time are rare enough to take the slow path
+            return slowParse(date, pos);
+        }
+
+        offset += 1;
+        int hour = digits(date, offset, 2);
+        offset += 2;
+        if (checkOffset(date, offset, ':')) {
+            offset += 1;
+        }
+        int minutes = digits(date, offset, 2);
+        offset += 2;
+        if (checkOffset(date, offset, ':')) {
+            offset += 1;
+        }
+        int seconds = 0;
+        int milliseconds = 0;
+        if (offset < length && !isZoneIndicator(date.charAt(offset))) {
+            seconds = digits(date, offset, 2);
+            offset += 2;
+            if (seconds > 59 && seconds < 63) seconds = 59; // truncate up to 3 leap seconds
+            if (checkOffset(date, offset, '.')) {
+                offset += 1;
+                int endOffset = indexOfNonDigit(date, offset + 1); // assume at least one digit
+                int digitCount = Math.min(endOffset, offset + 3) - offset;
+                milliseconds = digits(date, offset, digitCount);
+                for (int i = digitCount; i < 3; i++) {
+                    milliseconds *= 10;
+                }
+                offset = endOffset;
+            }
+        }
+        if (hour < 0 || minutes < 0 || seconds < 0 || milliseconds < 0 || offset >= length) {
+            pos.setErrorIndex(offset);
+            return null;
+        }
+
+        int offsetMinutes;
+        char timezoneIndicator = date.charAt(offset);
+        if (timezoneIndicator == 'Z') {
+            offsetMinutes = 0;
+            offset += 1;
+        } else if (timezoneIndicator == '+' || timezoneIndicator == '-') {
+            int zoneHours = digits(date, offset + 1, 2);
+            int zoneMinutes = 0;
+            int end = offset + 3;
+            if (end < length) {
+                if (date.charAt(end) == ':') {
+                    end += 1;
+                }
+                zoneMinutes = digits(date, end, 2);
+                end += 2;
+            }
+            if (zoneHours < 0 || zoneHours > 23 || zoneMinutes < 0 || zoneMinutes > 59 || end != length) {
+                // unusual offsets get the detailed checks of the slow path
+                return slowParse(date, pos);
+            }
+            offsetMinutes = zoneHours * 60 + zoneMinutes;
+            if (timezoneIndicator == '-') {
+                offsetMinutes = -offsetMinutes;
+            }
+            offset = end;
+        } else {
+            pos.setErrorIndex(offset);
+            return null;
+        }
+
+        if (year < 1583 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour > 23 || minutes > 59 || seconds > 59) {
+            // out of range fields are rejected by the non-lenient calendar; old dates use its Julian rules
+            return slowParse(date, pos);
+        }
+
+        long epochDay = epochDay(year, month, day);
+        long time = ((epochDay * 24 + hour) * 60 + minutes - offsetMinutes) * 60000L
+                + seconds * 1000L + milliseconds;
+        pos.setIndex(offset);
+        return new Date(time);
+    }
+
+    private static Date slowParse(String date, ParsePosition pos) {
+        try {
+            return parseWithDiagnostics(date, pos);
+        } catch (ParseException e) {
+            pos.setErrorIndex(e.getErrorOffset());
+            return null;
+        }
+    }
+
+    private static boolean isZoneIndicator(char c) {
+        return c == 'Z' || c == '+' || c == '-';
+    }
+
+    /**
+     * Returns the value of {@code count} decimal digits at {@code offset}, or -1 if there aren't
+     * that many digits there.
+     */
+    private static int digits(String value, int offset, int count) {
+        if (count <= 0 || offset < 0 || offset + count > value.length()) {
+            return -1;
+        }
+        int result = 0;
+        for (int i = offset, end = offset + count; i < end; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+        case 2:
+            return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        case 4:
+        case 6:
+        case 9:
+        case 11:
+            return 30;
+        default:
+            return 31;
+        }
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date.
+     */
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = y / 400; // y is positive
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    /**
+     * Parses {@code date} with a {@link Calendar}. {@link #parse} falls back to it for whatever
+     * {@link #tryParse} doesn't convert itself.
+     */
+    static Date parseWithDiagnostics(String date, ParsePosition pos) throws ParseException {
         Exception fail = null;
         try {
             int offset = pos.getIndex();
@@ -209,11 +451,11 @@ public class ISO8601Utils
                 offset += 1;
             } else if (timezoneIndicator == '+' || timezoneIndicator == '-') {
                 String timezoneOffset = date.substring(offset);
+                offset += timezoneOffset.length();
 
                 // When timezone has no minutes, we should append it, valid timezones are, for example: +00:00, +0000 and +00
                 timezoneOffset = timezoneOffset.length() >= 5 ? timezoneOffset : timezoneOffset + "00";
 
-                offset += timezoneOffset.length();
                 // 18-Jun-2015, tatu: Minor simplification, skip offset of "+0000"/"+00:00"
                 if ("+0000".equals(timezoneOffset) || "+00:00".equals(timezoneOffset)) {
                     timezone = TIMEZONE_UTC;
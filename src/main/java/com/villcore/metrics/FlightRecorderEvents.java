@@ -0,0 +1,150 @@
+package com.villcore.metrics;
+
+import com.villcore.annotations.Tag;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Switches and hooks for JDK Flight Recorder events. Three event types are available:
+ * <ul>
+ *   <li>{@code com.villcore.AdapterCreation}: type, chosen factory and duration of each adapter
+ *   created by {@code ObjectFieldHelper.getAdapter};</li>
+ *   <li>{@code com.villcore.Visit}: root type, node count and duration of each top-level visit;</li>
+ *   <li>{@code com.villcore.SlowVisitorCallback}: visitor callbacks slower than a threshold.</li>
+ * </ul>
+ *
+ * <p>Every event type is off until enabled here; while off, the hooks cost one volatile read. The
+ * switches are process-wide, like the recordings that consume the events: they apply to every
+ * {@code ObjectFieldHelper} in the JVM. Recordings can still tell helpers' traversals apart by
+ * their root types. For per-helper figures, use {@link TraversalMetrics} instead.
+ *
+ * <p>The event classes are compiled for Java 11 into {@code META-INF/versions/11} of the
+ * multi-release jar. On JVMs without {@code jdk.jfr} they are never loaded, and neither are they
+ * from a class directory such as {@code target/classes}, which isn't a multi-release root. Then
+ * enabling has no effect, and the first attempt logs a warning saying why.
+ */
+public final class FlightRecorderEvents {
+    private static final Logger logger = Logger.getLogger(FlightRecorderEvents.class.getName());
+
+    /** Why {@link #SINK} is null, or null if it isn't. */
+    private static final String UNAVAILABLE_REASON;
+    private static final Sink SINK;
+    static {
+        String reason = null;
+        Sink sink = null;
+        try {
+            Class.forName("jdk.jfr.Event");
+            sink = (Sink) Class.forName("com.villcore.metrics.JfrEventSink").getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            reason = e.getMessage().startsWith("jdk.jfr")
+                    ? "this JVM has no jdk.jfr module"
+                    : "JfrEventSink is only in META-INF/versions/11 of the multi-release jar, not on this class path";
+        } catch (ReflectiveOperationException e) {
+            reason = "JfrEventSink can't be created: " + e;
+        } catch (LinkageError e) {
+            reason = "JfrEventSink can't be linked: " + e;
+        }
+        UNAVAILABLE_REASON = reason;
+        SINK = sink;
+    }
+    private static final AtomicBoolean unavailableLogged = new AtomicBoolean();
+
+    private static volatile boolean adapterCreationEnabled;
+    private static volatile boolean visitEnabled;
+    private static volatile long slowCallbackThresholdNanos = -1;
+    private static volatile boolean traversalEnabled;
+
+    private FlightRecorderEvents() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns true if events can be emitted: this JVM has Flight Recorder and the event classes
+     * were loaded from the multi-release jar.
+     */
+    public static boolean isAvailable() {
+        return SINK != null;
+    }
+
+    public static void setAdapterCreationEnabled(boolean enabled) {
+        checkAvailable(enabled);
+        adapterCreationEnabled = enabled && SINK != null;
+    }
+
+    public static void setVisitEnabled(boolean enabled) {
+        checkAvailable(enabled);
+        visitEnabled = enabled && SINK != null;
+        traversalEnabled = visitEnabled || slowCallbackThresholdNanos >= 0;
+    }
+
+    /**
+     * Emits an event for every visitor callback taking longer than {@code thresholdNanos}. A
+     * negative threshold turns the event off.
+     */
+    public static void setSlowCallbackThreshold(long thresholdNanos) {
+        checkAvailable(thresholdNanos >= 0);
+        slowCallbackThresholdNanos = SINK != null ? thresholdNanos : -1;
+        traversalEnabled = visitEnabled || slowCallbackThresholdNanos >= 0;
+    }
+
+    private static void checkAvailable(boolean enabling) {
+        if (enabling && SINK == null && unavailableLogged.compareAndSet(false, true)) {
+            logger.warning("Flight Recorder events were enabled, but none will be emitted: " + UNAVAILABLE_REASON);
+        }
+    }
+
+    /**
+     * Returns true if visit or slow callback events are on, so traversal must be instrumented.
+     */
+    public static boolean isTraversalEnabled() {
+        return traversalEnabled;
+    }
+
+    public static long getSlowCallbackThreshold() {
+        return slowCallbackThresholdNanos;
+    }
+
+    /**
+     * Returns an event that has begun timing, or null if adapter creation events are off.
+     */
+    public static Object beginAdapterCreation() {
+        return adapterCreationEnabled ? SINK.beginAdapterCreation() : null;
+    }
+
+    public static void commitAdapterCreation(Object event, String type, String factory) {
+        SINK.commitAdapterCreation(event, type, factory);
+    }
+
+    /**
+     * Returns an event that has begun timing, or null if visit events are off.
+     */
+    public static Object beginVisit() {
+        return visitEnabled ? SINK.beginVisit() : null;
+    }
+
+    public static void commitVisit(Object event, Class<?> rootType, long nodes) {
+        SINK.commitVisit(event, rootType, nodes);
+    }
+
+    public static void commitSlowCallback(Object target, Field field, Tag tag, long nanos) {
+        SINK.commitSlowCallback(target == null ? null : target.getClass(), field, tag, nanos);
+    }
+
+    /**
+     * Creates and commits the events. Implemented against {@code jdk.jfr} by {@code JfrEventSink},
+     * which is only loaded when that package exists.
+     */
+    abstract static class Sink {
+        abstract Object beginAdapterCreation();
+
+        abstract void commitAdapterCreation(Object event, String type, String factory);
+
+        abstract Object beginVisit();
+
+        abstract void commitVisit(Object event, Class<?> rootType, long nodes);
+
+        abstract void commitSlowCallback(Class<?> targetType, Field field, Tag tag, long nanos);
+    }
+}
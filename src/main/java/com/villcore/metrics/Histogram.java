@@ -0,0 +1,127 @@
+package com.villcore.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram with fixed power-of-two buckets. Bucket {@code 0} counts the value zero and bucket
+ * {@code i} counts values in {@code [2^(i-1), 2^i)}. Recording never allocates.
+ */
+public final class Histogram {
+    static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder sum = new LongAdder();
+
+    public Histogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records {@code value}; negative values are counted as zero.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets[bucketOf(value)].increment();
+        sum.add(value);
+    }
+
+    static int bucketOf(long value) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+    /**
+     * Returns the exclusive upper bound of values counted by {@code bucket}.
+     */
+    public static long upperBound(int bucket) {
+        return bucket >= BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return new Snapshot(counts, sum.sum());
+    }
+
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        sum.reset();
+    }
+
+    /**
+     * A point-in-time copy of a histogram. Counts are read bucket by bucket while recording may
+     * continue, so totals are approximate under concurrent updates.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+
+        Snapshot(long[] counts, long sum) {
+            this.counts = counts;
+            long count = 0;
+            for (long c : counts) {
+                count += c;
+            }
+            this.count = count;
+            this.sum = sum;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Returns an upper bound of the value at {@code quantile}, which must be in {@code [0, 1]}.
+         */
+        public long getQuantile(double quantile) {
+            if (!(quantile >= 0 && quantile <= 1)) {
+                throw new IllegalArgumentException("quantile must be in [0, 1]: " + quantile);
+            }
+            long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return upperBound(i);
+                }
+            }
+            return 0;
+        }
+
+        public long getP50() {
+            return getQuantile(0.50);
+        }
+
+        public long getP99() {
+            return getQuantile(0.99);
+        }
+
+        /**
+         * Returns the count of each bucket, see {@link Histogram#upperBound(int)}.
+         */
+        public long[] getBucketCounts() {
+            return counts.clone();
+        }
+
+        @Override
+        public String toString() {
+            return "{count:" + count + ",mean:" + getMean() + ",p50<" + getP50() + ",p99<" + getP99() + "}";
+        }
+    }
+}
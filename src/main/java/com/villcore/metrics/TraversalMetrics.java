@@ -0,0 +1,210 @@
+package com.villcore.metrics;
+
+import com.villcore.annotations.Tag;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters describing where traversal time goes: visits, latency and nodes per root type, hits
+ * per tag, and sizes of the collections and maps found in tagged fields.
+ *
+ * <p>A node is one {@code Visitor.visit} callback, that is one tagged field reported during a
+ * visit, whatever its value. Objects, and elements of collections, maps and arrays, are not
+ * counted themselves; untagged fields are not counted at all.
+ *
+ * <p>Counters are striped {@link LongAdder}s and histograms have fixed buckets, so recording
+ * doesn't allocate once a root type or tag has been seen.
+ */
+public final class TraversalMetrics implements TraversalMetricsMXBean {
+    private final ConcurrentMap<Class<?>, RootTypeStats> rootTypes = new ConcurrentHashMap<Class<?>, RootTypeStats>();
+    private final ConcurrentMap<String, LongAdder> tagHits = new ConcurrentHashMap<String, LongAdder>();
+    private final Histogram collectionSizes = new Histogram();
+
+    /**
+     * Records one top-level visit of {@code rootType} that reported {@code nodes} tagged fields.
+     */
+    public void recordVisit(Class<?> rootType, long nanos, long nodes) {
+        RootTypeStats stats = rootTypes.get(rootType);
+        if (stats == null) {
+            RootTypeStats created = new RootTypeStats();
+            stats = rootTypes.putIfAbsent(rootType, created);
+            if (stats == null) {
+                stats = created;
+            }
+        }
+        stats.visits.increment();
+        stats.latency.record(nanos);
+        stats.nodes.record(nodes);
+    }
+
+    public void recordTag(Tag tag) {
+        String name = tag.name();
+        LongAdder hits = tagHits.get(name);
+        if (hits == null) {
+            LongAdder created = new LongAdder();
+            hits = tagHits.putIfAbsent(name, created);
+            if (hits == null) {
+                hits = created;
+            }
+        }
+        hits.increment();
+    }
+
+    public void recordCollectionSize(int size) {
+        collectionSizes.record(size);
+    }
+
+    @Override
+    public long getVisitCount() {
+        long count = 0;
+        for (RootTypeStats stats : rootTypes.values()) {
+            count += stats.visits.sum();
+        }
+        return count;
+    }
+
+    @Override
+    public long getNodeCount() {
+        long count = 0;
+        for (RootTypeStats stats : rootTypes.values()) {
+            count += stats.nodes.snapshot().getSum();
+        }
+        return count;
+    }
+
+    @Override
+    public List<RootTypeSnapshot> getRootTypes() {
+        List<RootTypeSnapshot> result = new ArrayList<RootTypeSnapshot>(rootTypes.size());
+        for (Map.Entry<Class<?>, RootTypeStats> entry : rootTypes.entrySet()) {
+            RootTypeStats stats = entry.getValue();
+            result.add(new RootTypeSnapshot(entry.getKey().getName(), stats.visits.sum(),
+                    stats.latency.snapshot(), stats.nodes.snapshot()));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getTagHits() {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for (Map.Entry<String, LongAdder> entry : tagHits.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().sum());
+        }
+        return result;
+    }
+
+    @Override
+    public Histogram.Snapshot getCollectionSizes() {
+        return collectionSizes.snapshot();
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(getRootTypes(), getTagHits(), getCollectionSizes());
+    }
+
+    @Override
+    public void reset() {
+        rootTypes.clear();
+        tagHits.clear();
+        collectionSizes.reset();
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server under {@code name}, for example
+     * {@code com.villcore:type=TraversalMetrics,name=orders}.
+     */
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName(name);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    public static void unregisterMBean(ObjectName objectName) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+    }
+
+    private static final class RootTypeStats {
+        final LongAdder visits = new LongAdder();
+        final Histogram latency = new Histogram();
+        final Histogram nodes = new Histogram();
+    }
+
+    public static final class RootTypeSnapshot {
+        private final String type;
+        private final long visits;
+        private final Histogram.Snapshot latencyNanos;
+        private final Histogram.Snapshot nodes;
+
+        RootTypeSnapshot(String type, long visits, Histogram.Snapshot latencyNanos, Histogram.Snapshot nodes) {
+            this.type = type;
+            this.visits = visits;
+            this.latencyNanos = latencyNanos;
+            this.nodes = nodes;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public long getVisits() {
+            return visits;
+        }
+
+        public Histogram.Snapshot getLatencyNanos() {
+            return latencyNanos;
+        }
+
+        /**
+         * Returns the number of tagged fields reported per visit.
+         */
+        public Histogram.Snapshot getNodes() {
+            return nodes;
+        }
+
+        @Override
+        public String toString() {
+            return type + "{visits:" + visits + ",latencyNanos:" + latencyNanos + ",nodes:" + nodes + "}";
+        }
+    }
+
+    /**
+     * A point-in-time copy of all metrics.
+     */
+    public static final class Snapshot {
+        private final List<RootTypeSnapshot> rootTypes;
+        private final Map<String, Long> tagHits;
+        private final Histogram.Snapshot collectionSizes;
+
+        Snapshot(List<RootTypeSnapshot> rootTypes, Map<String, Long> tagHits, Histogram.Snapshot collectionSizes) {
+            this.rootTypes = Collections.unmodifiableList(rootTypes);
+            this.tagHits = Collections.unmodifiableMap(tagHits);
+            this.collectionSizes = collectionSizes;
+        }
+
+        public List<RootTypeSnapshot> getRootTypes() {
+            return rootTypes;
+        }
+
+        public Map<String, Long> getTagHits() {
+            return tagHits;
+        }
+
+        public Histogram.Snapshot getCollectionSizes() {
+            return collectionSizes;
+        }
+
+        @Override
+        public String toString() {
+            return "{rootTypes:" + rootTypes + ",tagHits:" + tagHits + ",collectionSizes:" + collectionSizes + "}";
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.villcore.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMX view of {@link TraversalMetrics}. Latencies are in nanoseconds.
+ */
+public interface TraversalMetricsMXBean {
+    long getVisitCount();
+
+    /**
+     * Returns the number of tagged fields reported to visitors, over all visits.
+     */
+    long getNodeCount();
+
+    List<TraversalMetrics.RootTypeSnapshot> getRootTypes();
+
+    Map<String, Long> getTagHits();
+
+    Histogram.Snapshot getCollectionSizes();
+
+    void reset();
+}
@@ -18,6 +18,7 @@ package com.villcore.reflect;
 
 import com.villcore.internal.$Gson$Preconditions;
 import com.villcore.internal.$Gson$Types;
+import com.villcore.internal.WeakInterner;
 
 import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.ParameterizedType;
@@ -46,6 +47,20 @@ import java.util.Map;
  * @author Jesse Wilson
  */
 public class TypeToken<T> {
+  /**
+   * The canonical token of each generic type, held weakly so interning doesn't keep classes from
+   * being unloaded. Its types are {@link $Gson$Types#intern interned} too.
+   */
+  private static final WeakInterner<TypeToken<?>> INTERNED = new WeakInterner<TypeToken<?>>();
+
+  /** The token of each class, so {@link #get(Class)} doesn't allocate. */
+  private static final ClassValue<TypeToken<?>> CLASS_TOKENS = new ClassValue<TypeToken<?>>() {
+    @Override protected TypeToken<?> computeValue(Class<?> type) {
+      // array classes are generic array types once canonical; share the interned token
+      return type.isArray() ? intern(type) : new TypeToken<Object>(type);
+    }
+  };
+
   final Class<? super T> rawType;
   final Type type;
   final int hashCode;
@@ -282,8 +297,14 @@ public class TypeToken<T> {
   }
 
   @Override public final boolean equals(Object o) {
-    return o instanceof TypeToken<?>
-        && $Gson$Types.equals(type, ((TypeToken<?>) o).type);
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof TypeToken<?>)) {
+      return false;
+    }
+    TypeToken<?> other = (TypeToken<?>) o;
+    return hashCode == other.hashCode && $Gson$Types.equals(type, other.type);
   }
 
   @Override public final String toString() {
@@ -291,17 +312,27 @@ public class TypeToken<T> {
   }
 
   /**
-   * Gets type literal for the given {@code Type} instance.
+   * Gets type literal for the given {@code Type} instance. Equal types get the same token, so
+   * tokens returned by this method, {@link #getParameterized} and {@link #getArray} can be
+   * compared by identity.
    */
   public static TypeToken<?> get(Type type) {
-    return new TypeToken<Object>(type);
+    if (type instanceof Class) {
+      return CLASS_TOKENS.get((Class<?>) type);
+    }
+    return intern($Gson$Preconditions.checkNotNull(type));
+  }
+
+  private static TypeToken<?> intern(Type type) {
+    return INTERNED.intern(new TypeToken<Object>($Gson$Types.intern(type)));
   }
 
   /**
    * Gets type literal for the given {@code Class} instance.
    */
+  @SuppressWarnings("unchecked") // the token of a class represents that class
   public static <T> TypeToken<T> get(Class<T> type) {
-    return new TypeToken<T>(type);
+    return (TypeToken<T>) CLASS_TOKENS.get($Gson$Preconditions.checkNotNull(type));
   }
 
   /**
@@ -309,13 +340,13 @@ public class TypeToken<T> {
    * {@code rawType}.
    */
   public static TypeToken<?> getParameterized(Type rawType, Type... typeArguments) {
-    return new TypeToken<Object>($Gson$Types.newParameterizedTypeWithOwner(null, rawType, typeArguments));
+    return get($Gson$Types.newParameterizedTypeWithOwner(null, rawType, typeArguments));
   }
 
   /**
    * Gets type literal for the array type whose elements are all instances of {@code componentType}.
    */
   public static TypeToken<?> getArray(Type componentType) {
-    return new TypeToken<Object>($Gson$Types.arrayOf(componentType));
+    return get($Gson$Types.arrayOf(componentType));
   }
 }
@@ -0,0 +1,460 @@
+package com.villcore.stream;
+
+import java.math.BigInteger;
+
+/**
+ * Writes numbers as ASCII into byte arrays without creating strings. Doubles
+ * and floats get the shortest decimal that rounds back to the same value, and
+ * of those the closest, using Giulietti's Schubfach algorithm; see "The
+ * Schubfach way to render doubles" (2020). The layout is that of
+ * {@link Double#toString(double)} and {@link Float#toString(float)}, so the
+ * output only differs from theirs where older JDKs emit needless digits.
+ */
+final class DecimalFormatter {
+  /** The longest output of any method, {@code -2.2250738585072014E-308}. */
+  static final int MAX_LENGTH = 24;
+
+  private static final byte[] NAN = {'N', 'a', 'N'};
+  private static final byte[] POSITIVE_INFINITY = {'I', 'n', 'f', 'i', 'n', 'i', 't', 'y'};
+  private static final byte[] NEGATIVE_INFINITY = {'-', 'I', 'n', 'f', 'i', 'n', 'i', 't', 'y'};
+  private static final byte[] MIN_LONG = {
+      '-', '9', '2', '2', '3', '3', '7', '2', '0', '3', '6', '8', '5', '4', '7', '7', '5', '8', '0', '8'
+  };
+
+  /** Pairs of ASCII digits for 00 to 99. */
+  private static final byte[] DIGIT_PAIRS = digitPairs();
+
+  private static final long[] POWERS_OF_TEN = {
+      1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+      10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+      1000000000000000L, 10000000000000000L, 100000000000000000L, 1000000000000000000L
+  };
+
+  private static final long DOUBLE_C_MIN = 1L << 52;
+  private static final int DOUBLE_Q_MIN = -1074;
+  private static final int FLOAT_C_MIN = 1 << 23;
+  private static final int FLOAT_Q_MIN = -149;
+
+  private static final long MASK_63 = Long.MAX_VALUE;
+  private static final long MASK_32 = 0xffffffffL;
+  private static final int MASK_28 = (1 << 28) - 1;
+
+  private DecimalFormatter() {
+  }
+
+  /**
+   * Writes {@code value} at {@code pos} and returns the position after it.
+   */
+  static int formatLong(long value, byte[] out, int pos) {
+    if (value == Long.MIN_VALUE) {
+      System.arraycopy(MIN_LONG, 0, out, pos, MIN_LONG.length);
+      return pos + MIN_LONG.length;
+    }
+    if (value < 0) {
+      out[pos++] = '-';
+      value = -value;
+    }
+    int digits = 1;
+    while (digits < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[digits]) {
+      digits++;
+    }
+    int end = pos + digits;
+    int i = end;
+    while (value >= 100) {
+      int pair = (int) (value % 100) << 1;
+      value /= 100;
+      out[--i] = DIGIT_PAIRS[pair + 1];
+      out[--i] = DIGIT_PAIRS[pair];
+    }
+    if (value >= 10) {
+      int pair = (int) value << 1;
+      out[--i] = DIGIT_PAIRS[pair + 1];
+      out[--i] = DIGIT_PAIRS[pair];
+    } else {
+      out[--i] = (byte) ('0' + value);
+    }
+    return end;
+  }
+
+  /**
+   * Writes the shortest decimal that rounds to {@code value} at {@code pos}
+   * and returns the position after it.
+   */
+  static int formatDouble(double value, byte[] out, int pos) {
+    long bits = Double.doubleToRawLongBits(value);
+    long t = bits & DOUBLE_C_MIN - 1;
+    int bq = (int) (bits >>> 52) & 0x7ff;
+    if (bq == 0x7ff) {
+      return special(t != 0, bits < 0, out, pos);
+    }
+    if (bits < 0) {
+      out[pos++] = '-';
+    }
+    if (bq != 0) { // normal
+      int mq = -DOUBLE_Q_MIN + 1 - bq;
+      long c = DOUBLE_C_MIN | t;
+      if (0 < mq && mq < 53) {
+        long f = c >> mq;
+        if (f << mq == c) { // an integer
+          return doubleDigits(f, 0, out, pos);
+        }
+      }
+      return doubleToDecimal(-mq, c, 0, out, pos);
+    }
+    if (t != 0) { // subnormal
+      return t < 3
+          ? doubleToDecimal(DOUBLE_Q_MIN, 10 * t, -1, out, pos)
+          : doubleToDecimal(DOUBLE_Q_MIN, t, 0, out, pos);
+    }
+    return zero(out, pos);
+  }
+
+  /**
+   * Writes the shortest decimal that rounds to {@code value} at {@code pos}
+   * and returns the position after it.
+   */
+  static int formatFloat(float value, byte[] out, int pos) {
+    int bits = Float.floatToRawIntBits(value);
+    int t = bits & FLOAT_C_MIN - 1;
+    int bq = (bits >>> 23) & 0xff;
+    if (bq == 0xff) {
+      return special(t != 0, bits < 0, out, pos);
+    }
+    if (bits < 0) {
+      out[pos++] = '-';
+    }
+    if (bq != 0) { // normal
+      int mq = -FLOAT_Q_MIN + 1 - bq;
+      int c = FLOAT_C_MIN | t;
+      if (0 < mq && mq < 24) {
+        int f = c >> mq;
+        if (f << mq == c) { // an integer
+          return floatDigits(f, 0, out, pos);
+        }
+      }
+      return floatToDecimal(-mq, c, 0, out, pos);
+    }
+    if (t != 0) { // subnormal
+      return t < 8
+          ? floatToDecimal(FLOAT_Q_MIN, 10 * t, -1, out, pos)
+          : floatToDecimal(FLOAT_Q_MIN, t, 0, out, pos);
+    }
+    return zero(out, pos);
+  }
+
+  /**
+   * Writes the decimal for {@code c * 2^q}; the result is scaled by
+   * {@code 10^dk}.
+   */
+  private static int doubleToDecimal(int q, long c, int dk, byte[] out, int pos) {
+    int odd = (int) c & 1;
+    long cb = c << 2;
+    long cbr = cb + 2;
+    long cbl;
+    int k;
+    if (c != DOUBLE_C_MIN || q == DOUBLE_Q_MIN) {
+      cbl = cb - 2;
+      k = flog10pow2(q);
+    } else {
+      // The gap below a power of two is half the gap above it.
+      cbl = cb - 1;
+      k = flog10threeQuartersPow2(q);
+    }
+    int h = q + flog2pow10(-k) + 2;
+
+    long[] g = PowersOfTen.G;
+    long g1 = g[(k - PowersOfTen.K_MIN) << 1];
+    long g0 = g[(k - PowersOfTen.K_MIN) << 1 | 1];
+
+    long vb = roundToOdd(g1, g0, cb << h);
+    long vbl = roundToOdd(g1, g0, cbl << h);
+    long vbr = roundToOdd(g1, g0, cbr << h);
+
+    long s = vb >> 2;
+    if (s >= 100) {
+      // Try one digit less first: s' = floor(s / 10).
+      long sp10 = 10 * DoubleParser.multiplyHigh(s, 115292150460684698L << 4);
+      long tp10 = sp10 + 10;
+      boolean upin = vbl + odd <= sp10 << 2;
+      boolean wpin = (tp10 << 2) + odd <= vbr;
+      if (upin != wpin) {
+        return doubleDigits(upin ? sp10 : tp10, k, out, pos);
+      }
+    }
+
+    long t = s + 1;
+    boolean uin = vbl + odd <= s << 2;
+    boolean win = (t << 2) + odd <= vbr;
+    if (uin != win) {
+      return doubleDigits(uin ? s : t, k + dk, out, pos);
+    }
+    long cmp = vb - (s + t << 1);
+    return doubleDigits(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk, out, pos);
+  }
+
+  private static int floatToDecimal(int q, int c, int dk, byte[] out, int pos) {
+    int odd = c & 1;
+    long cb = (long) c << 2;
+    long cbr = cb + 2;
+    long cbl;
+    int k;
+    if (c != FLOAT_C_MIN || q == FLOAT_Q_MIN) {
+      cbl = cb - 2;
+      k = flog10pow2(q);
+    } else {
+      cbl = cb - 1;
+      k = flog10threeQuartersPow2(q);
+    }
+    int h = q + flog2pow10(-k) + 33;
+
+    long g = PowersOfTen.G[(k - PowersOfTen.K_MIN) << 1] + 1;
+
+    int vb = roundToOdd(g, cb << h);
+    int vbl = roundToOdd(g, cbl << h);
+    int vbr = roundToOdd(g, cbr << h);
+
+    int s = vb >> 2;
+    if (s >= 100) {
+      int sp10 = 10 * (int) (s * 1717986919L >>> 34);
+      int tp10 = sp10 + 10;
+      boolean upin = vbl + odd <= sp10 << 2;
+      boolean wpin = (tp10 << 2) + odd <= vbr;
+      if (upin != wpin) {
+        return floatDigits(upin ? sp10 : tp10, k, out, pos);
+      }
+    }
+
+    int t = s + 1;
+    boolean uin = vbl + odd <= s << 2;
+    boolean win = (t << 2) + odd <= vbr;
+    if (uin != win) {
+      return floatDigits(uin ? s : t, k + dk, out, pos);
+    }
+    int cmp = vb - (s + t << 1);
+    return floatDigits(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk, out, pos);
+  }
+
+  /**
+   * Returns {@code g * cp} scaled down by 2^127, rounded to odd.
+   */
+  private static long roundToOdd(long g1, long g0, long cp) {
+    long x1 = DoubleParser.multiplyHigh(g0, cp);
+    long y0 = g1 * cp;
+    long y1 = DoubleParser.multiplyHigh(g1, cp);
+    long z = (y0 >>> 1) + x1;
+    long vbp = y1 + (z >>> 63);
+    return vbp | (z & MASK_63) + MASK_63 >>> 63;
+  }
+
+  private static int roundToOdd(long g, long cp) {
+    long x1 = DoubleParser.multiplyHigh(g, cp);
+    long vbp = x1 >>> 31;
+    return (int) (vbp | (x1 & MASK_32) + MASK_32 >>> 32);
+  }
+
+  /**
+   * Writes {@code f * 10^e}, where {@code f} has at most 17 digits.
+   */
+  private static int doubleDigits(long f, int e, byte[] out, int pos) {
+    int length = flog10pow2(64 - Long.numberOfLeadingZeros(f));
+    if (f >= POWERS_OF_TEN[length]) {
+      length++;
+    }
+    // Scale to exactly 17 digits, so that the value is 0.f * 10^e.
+    f *= POWERS_OF_TEN[17 - length];
+    e += length;
+
+    long hm = DoubleParser.multiplyHigh(f, 193428131138340668L) >>> 20; // f / 10^8
+    int l = (int) (f - 100000000L * hm);
+    int h = (int) (hm * 1441151881L >>> 57); // hm / 10^8
+    int m = (int) (hm - 100000000 * h);
+    return digits(h, m, l, e, out, pos);
+  }
+
+  /**
+   * Writes {@code f * 10^e}, where {@code f} has at most 9 digits.
+   */
+  private static int floatDigits(int f, int e, byte[] out, int pos) {
+    int length = flog10pow2(32 - Integer.numberOfLeadingZeros(f));
+    if (f >= POWERS_OF_TEN[length]) {
+      length++;
+    }
+    f *= (int) POWERS_OF_TEN[9 - length];
+    e += length;
+
+    int h = (int) (f * 1441151881L >>> 57); // f / 10^8
+    int m = f - 100000000 * h;
+    return digits(h, m, 0, e, out, pos);
+  }
+
+  /**
+   * Writes {@code 0.hml * 10^e}, where {@code h} is one digit and {@code m}
+   * and {@code l} are eight each, without trailing zeros.
+   */
+  private static int digits(int h, int m, int l, int e, byte[] out, int pos) {
+    if (0 < e && e <= 7) {
+      // Plain, without leading zeros.
+      out[pos++] = (byte) ('0' + h);
+      int y = eightDigitsFraction(m);
+      int i = 1;
+      for (; i < e; i++) {
+        int t = 10 * y;
+        out[pos++] = (byte) ('0' + (t >>> 28));
+        y = t & MASK_28;
+      }
+      out[pos++] = '.';
+      for (; i <= 8; i++) {
+        int t = 10 * y;
+        out[pos++] = (byte) ('0' + (t >>> 28));
+        y = t & MASK_28;
+      }
+      pos = lowDigits(l, out, pos);
+    } else if (-3 < e && e <= 0) {
+      // Plain, with leading zeros.
+      out[pos++] = '0';
+      out[pos++] = '.';
+      for (; e < 0; e++) {
+        out[pos++] = '0';
+      }
+      out[pos++] = (byte) ('0' + h);
+      pos = eightDigits(m, out, pos);
+      pos = lowDigits(l, out, pos);
+    } else {
+      // Computerized scientific notation.
+      out[pos++] = (byte) ('0' + h);
+      out[pos++] = '.';
+      pos = eightDigits(m, out, pos);
+      pos = lowDigits(l, out, pos);
+      pos = exponent(e - 1, out, pos);
+    }
+    return pos;
+  }
+
+  private static int lowDigits(int l, byte[] out, int pos) {
+    if (l != 0) {
+      pos = eightDigits(l, out, pos);
+    }
+    // Remove trailing zeros, but keep the one directly after the '.'.
+    while (out[pos - 1] == '0') {
+      pos--;
+    }
+    if (out[pos - 1] == '.') {
+      pos++;
+    }
+    return pos;
+  }
+
+  private static int eightDigits(int m, byte[] out, int pos) {
+    int y = eightDigitsFraction(m);
+    for (int i = 0; i < 8; i++) {
+      int t = 10 * y;
+      out[pos++] = (byte) ('0' + (t >>> 28));
+      y = t & MASK_28;
+    }
+    return pos;
+  }
+
+  /**
+   * Returns {@code a / 10^8} as a 28-bit fixed-point fraction, so that the
+   * digits of {@code a} are extracted left to right by multiplying by 10.
+   */
+  private static int eightDigitsFraction(int a) {
+    return (int) (DoubleParser.multiplyHigh((long) (a + 1) << 28, 193428131138340668L) >>> 20) - 1;
+  }
+
+  private static int exponent(int e, byte[] out, int pos) {
+    out[pos++] = 'E';
+    if (e < 0) {
+      out[pos++] = '-';
+      e = -e;
+    }
+    if (e < 10) {
+      out[pos++] = (byte) ('0' + e);
+      return pos;
+    }
+    if (e >= 100) {
+      int d = e * 1311 >>> 17; // e / 100
+      out[pos++] = (byte) ('0' + d);
+      e -= 100 * d;
+    }
+    int d = e * 103 >>> 10; // e / 10
+    out[pos++] = (byte) ('0' + d);
+    out[pos++] = (byte) ('0' + e - 10 * d);
+    return pos;
+  }
+
+  private static int special(boolean nan, boolean negative, byte[] out, int pos) {
+    byte[] text = nan ? NAN : negative ? NEGATIVE_INFINITY : POSITIVE_INFINITY;
+    System.arraycopy(text, 0, out, pos, text.length);
+    return pos + text.length;
+  }
+
+  private static int zero(byte[] out, int pos) {
+    out[pos++] = '0';
+    out[pos++] = '.';
+    out[pos++] = '0';
+    return pos;
+  }
+
+  /** floor(log10(2^e)) */
+  private static int flog10pow2(int e) {
+    return (int) (e * 661971961083L >> 41);
+  }
+
+  /** floor(log10(3/4 * 2^e)) */
+  private static int flog10threeQuartersPow2(int e) {
+    return (int) (e * 661971961083L + -274743187321L >> 41);
+  }
+
+  /** floor(log2(10^e)) */
+  private static int flog2pow10(int e) {
+    return (int) (e * 913124641741L >> 38);
+  }
+
+  private static byte[] digitPairs() {
+    byte[] pairs = new byte[200];
+    for (int i = 0; i < 100; i++) {
+      pairs[i << 1] = (byte) ('0' + i / 10);
+      pairs[i << 1 | 1] = (byte) ('0' + i % 10);
+    }
+    return pairs;
+  }
+
+  /**
+   * The table used for doubles and floats, built on first use so that
+   * writing longs doesn't compute it.
+   */
+  private static final class PowersOfTen {
+    static final int K_MIN = -324;
+    static final int K_MAX = 292;
+
+    /**
+     * For each k, g = floor(10^-k * 2^-r) + 1 where r is chosen so that
+     * 2^125 <= 10^-k * 2^-r < 2^126, split into the high and low 63 bits.
+     */
+    static final long[] G = table();
+
+    private static long[] table() {
+      long[] table = new long[2 * (K_MAX - K_MIN + 1)];
+      BigInteger power = BigInteger.ONE;
+      for (int k = 0; k >= K_MIN; k--) {
+        int r = power.bitLength() - 126;
+        put(table, k, (r >= 0 ? power.shiftRight(r) : power.shiftLeft(-r)).add(BigInteger.ONE));
+        power = power.multiply(BigInteger.TEN);
+      }
+      power = BigInteger.TEN;
+      for (int k = 1; k <= K_MAX; k++) {
+        int s = 125 + power.bitLength();
+        put(table, k, BigInteger.ONE.shiftLeft(s).divide(power).add(BigInteger.ONE));
+        power = power.multiply(BigInteger.TEN);
+      }
+      return table;
+    }
+
+    private static void put(long[] table, int k, BigInteger g) {
+      int index = (k - K_MIN) << 1;
+      table[index] = g.shiftRight(63).longValue();
+      table[index + 1] = g.longValue() & MASK_63;
+    }
+  }
+}
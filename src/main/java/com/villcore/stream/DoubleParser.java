@@ -0,0 +1,248 @@
+package com.villcore.stream;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * Converts JSON number literals to doubles without creating a string, using
+ * the Eisel-Lemire algorithm: the decimal significand is multiplied by a
+ * 128-bit approximation of the power of ten, which is always enough to round
+ * correctly when the significand has at most 19 digits. See Lemire, "Number
+ * Parsing at a Gigabyte per Second" (2021) and Mushtak and Lemire, "Fast
+ * Number Parsing Without Fallback" (2023).
+ *
+ * <p>Methods return {@link Double#NaN} for the inputs they leave to
+ * {@link Double#parseDouble}: more than 19 significant digits, and values that
+ * overflow to infinity. Inputs must already be valid JSON numbers.
+ */
+final class DoubleParser {
+  private static final int MIN_EXPONENT = -342;
+  private static final int MAX_EXPONENT = 308;
+  private static final int MAX_DIGITS = 19;
+
+  private static final double[] SMALL_POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  /**
+   * The high and low words of 5^q for q in [MIN_EXPONENT, MAX_EXPONENT],
+   * normalized to 128 bits with the top bit set. Entries for q < 0 are
+   * reciprocals, rounded as the algorithm's error analysis requires.
+   */
+  private static final long[] POWERS_OF_FIVE = powersOfFive();
+
+  private DoubleParser() {
+  }
+
+  static double parse(char[] chars, int start, int length) {
+    int i = start;
+    int end = start + length;
+    boolean negative = chars[i] == '-';
+    if (negative) {
+      i++;
+    }
+
+    long significand = 0;
+    int digits = 0;
+    int exponent = 0;
+    char c = 0;
+    for (; i < end && (c = chars[i]) >= '0' && c <= '9'; i++) {
+      if (significand != 0 || c != '0') {
+        if (++digits > MAX_DIGITS) {
+          return Double.NaN;
+        }
+        significand = significand * 10 + (c - '0');
+      }
+    }
+    if (c == '.') {
+      for (i++; i < end && (c = chars[i]) >= '0' && c <= '9'; i++) {
+        if (significand != 0 || c != '0') {
+          if (++digits > MAX_DIGITS) {
+            return Double.NaN;
+          }
+          significand = significand * 10 + (c - '0');
+        }
+        exponent--;
+      }
+    }
+    if (i < end) { // 'e' or 'E'
+      c = chars[++i];
+      boolean negativeExponent = c == '-';
+      if (c == '-' || c == '+') {
+        i++;
+      }
+      int explicit = 0;
+      for (; i < end; i++) {
+        if (explicit < 100000) {
+          explicit = explicit * 10 + (chars[i] - '0');
+        }
+      }
+      exponent += negativeExponent ? -explicit : explicit;
+    }
+    return toDouble(negative, significand, exponent);
+  }
+
+  static double parse(ByteBuffer bytes, int start, int length) {
+    int i = start;
+    int end = start + length;
+    boolean negative = bytes.get(i) == '-';
+    if (negative) {
+      i++;
+    }
+
+    long significand = 0;
+    int digits = 0;
+    int exponent = 0;
+    byte c = 0;
+    for (; i < end && (c = bytes.get(i)) >= '0' && c <= '9'; i++) {
+      if (significand != 0 || c != '0') {
+        if (++digits > MAX_DIGITS) {
+          return Double.NaN;
+        }
+        significand = significand * 10 + (c - '0');
+      }
+    }
+    if (c == '.') {
+      for (i++; i < end && (c = bytes.get(i)) >= '0' && c <= '9'; i++) {
+        if (significand != 0 || c != '0') {
+          if (++digits > MAX_DIGITS) {
+            return Double.NaN;
+          }
+          significand = significand * 10 + (c - '0');
+        }
+        exponent--;
+      }
+    }
+    if (i < end) { // 'e' or 'E'
+      c = bytes.get(++i);
+      boolean negativeExponent = c == '-';
+      if (c == '-' || c == '+') {
+        i++;
+      }
+      int explicit = 0;
+      for (; i < end; i++) {
+        if (explicit < 100000) {
+          explicit = explicit * 10 + (bytes.get(i) - '0');
+        }
+      }
+      exponent += negativeExponent ? -explicit : explicit;
+    }
+    return toDouble(negative, significand, exponent);
+  }
+
+  /**
+   * Returns the double nearest to {@code significand * 10^exponent}, where the
+   * significand is unsigned, or NaN if it's out of range.
+   */
+  static double toDouble(boolean negative, long significand, int exponent) {
+    if (significand == 0 || exponent < MIN_EXPONENT) {
+      return negative ? -0.0 : 0.0;
+    }
+    if (exponent > MAX_EXPONENT) {
+      return Double.NaN;
+    }
+
+    // Both operands are exact doubles, so one IEEE operation rounds correctly.
+    if (exponent >= -22 && exponent <= 22 && significand >= 0 && significand <= 1L << 53) {
+      double value = significand;
+      value = exponent < 0 ? value / SMALL_POWERS_OF_TEN[-exponent] : value * SMALL_POWERS_OF_TEN[exponent];
+      return negative ? -value : value;
+    }
+
+    int leadingZeros = Long.numberOfLeadingZeros(significand);
+    long w = significand << leadingZeros;
+    int index = 2 * (exponent - MIN_EXPONENT);
+    long high = multiplyHigh(w, POWERS_OF_FIVE[index]);
+    long low = w * POWERS_OF_FIVE[index];
+    if ((high & 0x1ff) == 0x1ff) {
+      // The bits below the result's 55 might carry; widen the product with the next 64 bits.
+      long secondHigh = multiplyHigh(w, POWERS_OF_FIVE[index + 1]);
+      low += secondHigh;
+      if (Long.compareUnsigned(secondHigh, low) > 0) {
+        high++;
+      }
+    }
+
+    int upperBit = (int) (high >>> 63);
+    int shift = upperBit + 9;
+    long mantissa = high >>> shift;
+    int power2 = (((152170 + 65536) * exponent) >> 16) + 63 + upperBit - leadingZeros + 1023;
+
+    if (power2 <= 0) { // subnormal
+      if (-power2 + 1 >= 64) {
+        return negative ? -0.0 : 0.0;
+      }
+      mantissa >>>= -power2 + 1;
+      mantissa += mantissa & 1;
+      mantissa >>>= 1;
+      power2 = mantissa < 1L << 52 ? 0 : 1;
+      return bitsToDouble(negative, mantissa, power2);
+    }
+
+    // Round half to even. An exact tie is only possible for these exponents.
+    if (Long.compareUnsigned(low, 1) <= 0 && exponent >= -4 && exponent <= 23
+        && (mantissa & 3) == 1 && mantissa << shift == high) {
+      mantissa &= ~1L;
+    }
+    mantissa += mantissa & 1;
+    mantissa >>>= 1;
+    if (mantissa >= 2L << 52) {
+      mantissa = 1L << 52;
+      power2++;
+    }
+    mantissa &= ~(1L << 52);
+    if (power2 >= 0x7ff) {
+      return Double.NaN;
+    }
+    return bitsToDouble(negative, mantissa, power2);
+  }
+
+  private static double bitsToDouble(boolean negative, long mantissa, int power2) {
+    long bits = mantissa | (long) power2 << 52;
+    return Double.longBitsToDouble(negative ? bits | Long.MIN_VALUE : bits);
+  }
+
+  /**
+   * Returns the high 64 bits of the unsigned 128-bit product of {@code x} and {@code y}.
+   */
+  static long multiplyHigh(long x, long y) {
+    long x0 = x & 0xffffffffL;
+    long x1 = x >>> 32;
+    long y0 = y & 0xffffffffL;
+    long y1 = y >>> 32;
+    long p01 = x0 * y1;
+    long middle = x1 * y0 + ((x0 * y0) >>> 32) + (p01 & 0xffffffffL);
+    return x1 * y1 + (middle >>> 32) + (p01 >>> 32);
+  }
+
+  private static long[] powersOfFive() {
+    long[] table = new long[2 * (MAX_EXPONENT - MIN_EXPONENT + 1)];
+    BigInteger five = BigInteger.valueOf(5);
+    BigInteger power = BigInteger.ONE;
+    for (int q = 0; q <= MAX_EXPONENT; q++) {
+      put(table, q, power.bitLength() > 128
+          ? power.shiftRight(power.bitLength() - 128)
+          : power.shiftLeft(128 - power.bitLength()));
+      power = power.multiply(five);
+    }
+    power = five;
+    for (int q = -1; q >= MIN_EXPONENT; q--) {
+      int z = power.bitLength();
+      int b = q >= -27 ? z + 127 : 2 * z + 128;
+      BigInteger reciprocal = BigInteger.ONE.shiftLeft(b).divide(power).add(BigInteger.ONE);
+      if (reciprocal.bitLength() > 128) {
+        reciprocal = reciprocal.shiftRight(reciprocal.bitLength() - 128);
+      }
+      put(table, q, reciprocal);
+      power = power.multiply(five);
+    }
+    return table;
+  }
+
+  private static void put(long[] table, int q, BigInteger value) {
+    int index = 2 * (q - MIN_EXPONENT);
+    table[index] = value.shiftRight(64).longValue();
+    table[index + 1] = value.longValue();
+  }
+}
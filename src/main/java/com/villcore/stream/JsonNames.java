@@ -0,0 +1,131 @@
+package com.villcore.stream;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A fixed set of property names to match with {@link JsonReader#selectName}.
+ * Each name has a slot, its index in the list passed to {@link #of}. Readers
+ * match names straight from their buffers, so a matched name doesn't allocate.
+ */
+public final class JsonNames {
+  private final String[] names;
+  private final byte[][] utf8;
+  /** Open-addressed slot + 1 per hash of a name's chars, 0 for an empty bucket. */
+  private final int[] charTable;
+  /** Open-addressed slot + 1 per hash of a name's UTF-8 bytes, 0 for an empty bucket. */
+  private final int[] byteTable;
+  private final int mask;
+
+  private JsonNames(String[] names) {
+    this.names = names;
+    this.utf8 = new byte[names.length][];
+    int size = Integer.highestOneBit(Math.max(names.length, 1) * 2 + 1) << 1;
+    this.charTable = new int[size];
+    this.byteTable = new int[size];
+    this.mask = size - 1;
+    for (int slot = 0; slot < names.length; slot++) {
+      String name = names[slot];
+      if (name == null) {
+        throw new NullPointerException("names[" + slot + "] == null");
+      }
+      if (find(name) != -1) {
+        throw new IllegalArgumentException("duplicate name: " + name);
+      }
+      utf8[slot] = name.getBytes(StandardCharsets.UTF_8);
+      int i = JsonSymbolTable.spread(name.hashCode()) & mask;
+      while (charTable[i] != 0) {
+        i = (i + 1) & mask;
+      }
+      charTable[i] = slot + 1;
+      i = JsonSymbolTable.spread(hash(utf8[slot])) & mask;
+      while (byteTable[i] != 0) {
+        i = (i + 1) & mask;
+      }
+      byteTable[i] = slot + 1;
+    }
+  }
+
+  public static JsonNames of(String... names) {
+    return new JsonNames(names.clone());
+  }
+
+  public int size() {
+    return names.length;
+  }
+
+  /**
+   * Returns the name in {@code slot}.
+   */
+  public String get(int slot) {
+    return names[slot];
+  }
+
+  /**
+   * Returns the slot of {@code name}, or -1 if it isn't in this set.
+   */
+  public int find(String name) {
+    for (int i = JsonSymbolTable.spread(name.hashCode()) & mask; charTable[i] != 0; i = (i + 1) & mask) {
+      int slot = charTable[i] - 1;
+      if (names[slot].equals(name)) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  int find(char[] chars, int start, int length) {
+    int hash = 0;
+    for (int i = start, end = start + length; i < end; i++) {
+      hash = 31 * hash + chars[i];
+    }
+    for (int i = JsonSymbolTable.spread(hash) & mask; charTable[i] != 0; i = (i + 1) & mask) {
+      int slot = charTable[i] - 1;
+      String name = names[slot];
+      if (name.length() == length) {
+        int j = 0;
+        while (j < length && name.charAt(j) == chars[start + j]) {
+          j++;
+        }
+        if (j == length) {
+          return slot;
+        }
+      }
+    }
+    return -1;
+  }
+
+  int find(ByteBuffer bytes, int start, int length) {
+    int hash = 0;
+    for (int i = start, end = start + length; i < end; i++) {
+      hash = 31 * hash + bytes.get(i);
+    }
+    for (int i = JsonSymbolTable.spread(hash) & mask; byteTable[i] != 0; i = (i + 1) & mask) {
+      int slot = byteTable[i] - 1;
+      byte[] name = utf8[slot];
+      if (name.length == length) {
+        int j = 0;
+        while (j < length && name[j] == bytes.get(start + j)) {
+          j++;
+        }
+        if (j == length) {
+          return slot;
+        }
+      }
+    }
+    return -1;
+  }
+
+  private static int hash(byte[] bytes) {
+    int hash = 0;
+    for (byte b : bytes) {
+      hash = 31 * hash + b;
+    }
+    return hash;
+  }
+
+  @Override public String toString() {
+    return Arrays.toString(names);
+  }
+}
@@ -0,0 +1,312 @@
+package com.villcore.stream;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * A set of paths compiled into an automaton that pulls the values at those
+ * paths out of a document in one pass. Paths use the syntax of {@link
+ * JsonReader#getPath}, with {@code [*]} for any array element and {@code .*}
+ * for any property: {@code $.user.id}, {@code $.items[*].price} or {@code
+ * $.attributes.*.value}.
+ *
+ * <p>Each state of the automaton is a set of positions in the paths, so every
+ * property name is matched once, in place with {@link JsonReader#selectName},
+ * however many paths it continues. Values that no path can reach are passed
+ * over with {@link JsonReader#skipValueFast}, which doesn't parse numbers,
+ * allocate strings or track paths. A query is immutable and may be shared
+ * between threads.
+ */
+public final class JsonPathQuery {
+  private static final int DEAD = -1;
+
+  /**
+   * Receives the values that match a query.
+   */
+  public interface Callback {
+    /**
+     * Reads the next value from {@code in}, which matched the query's path
+     * at {@code index}. Exactly one value must be read; {@link
+     * JsonReader#getPath} locates it.
+     *
+     * @return true to keep extracting, false to stop, leaving {@code in}
+     *     just after this value.
+     */
+    boolean onMatch(int index, JsonReader in) throws IOException;
+  }
+
+  private final String[] paths;
+  private final State[] states;
+
+  private JsonPathQuery(String[] paths, State[] states) {
+    this.paths = paths;
+    this.states = states;
+  }
+
+  /**
+   * Compiles {@code paths}. When several paths match the same value it's
+   * reported once, under the lowest index, and a matched value isn't
+   * searched for longer paths.
+   *
+   * @throws IllegalArgumentException if a path is malformed.
+   */
+  public static JsonPathQuery compile(String... paths) {
+    paths = paths.clone();
+    Step root = new Step();
+    for (int i = 0; i < paths.length; i++) {
+      Step last = parse(paths[i], root);
+      if (last.match == DEAD) {
+        last.match = i;
+      }
+    }
+    return new JsonPathQuery(paths, new Compiler().compile(root));
+  }
+
+  /**
+   * Compiles {@code paths} and extracts them from the next value of {@code
+   * in}.
+   */
+  public static boolean extract(JsonReader in, Callback callback, String... paths) throws IOException {
+    return compile(paths).extract(in, callback);
+  }
+
+  public int size() {
+    return paths.length;
+  }
+
+  /**
+   * Returns the path at {@code index}.
+   */
+  public String getPath(int index) {
+    return paths[index];
+  }
+
+  /**
+   * Reads the next value from {@code in}, handing each value that matches a
+   * path to {@code callback}. To query a stream of several top-level values,
+   * call this until {@code in} peeks {@link JsonToken#END_DOCUMENT}.
+   *
+   * @return false if the callback stopped the extraction; {@code in} is then
+   *     positioned just after the last match.
+   */
+  public boolean extract(JsonReader in, Callback callback) throws IOException {
+    return value(0, in, callback);
+  }
+
+  private boolean value(int s, JsonReader in, Callback callback) throws IOException {
+    State state = states[s];
+    if (state.match != DEAD) {
+      return callback.onMatch(state.match, in);
+    }
+    switch (in.peek()) {
+    case BEGIN_OBJECT:
+      if (state.names.size() == 0 && state.other == DEAD) {
+        in.skipValueFast();
+        return true;
+      }
+      in.beginObject();
+      while (in.hasNext()) {
+        int slot = in.selectName(state.names);
+        int next;
+        if (slot >= 0) {
+          next = state.next[slot];
+        } else if (state.other != DEAD) {
+          in.nextName();
+          next = state.other;
+        } else {
+          // no path continues through this name: consume it, then pass over
+          // its value without parsing it
+          in.nextName();
+          in.skipValueFast();
+          continue;
+        }
+        if (!value(next, in, callback)) {
+          return false;
+        }
+      }
+      in.endObject();
+      return true;
+    case BEGIN_ARRAY:
+      if (state.element == DEAD) {
+        in.skipValueFast();
+        return true;
+      }
+      in.beginArray();
+      while (in.hasNext()) {
+        if (!value(state.element, in, callback)) {
+          return false;
+        }
+      }
+      in.endArray();
+      return true;
+    default:
+      in.skipValue();
+      return true;
+    }
+  }
+
+  /**
+   * Walks {@code path} from {@code root}, creating the steps it names, and
+   * returns its last step.
+   */
+  private static Step parse(String path, Step root) {
+    if (!path.startsWith("$")) {
+      throw new IllegalArgumentException("Path doesn't start with $: " + path);
+    }
+    Step step = root;
+    int i = 1;
+    while (i < path.length()) {
+      if (path.startsWith("[*]", i)) {
+        if (step.element == null) {
+          step.element = new Step();
+        }
+        step = step.element;
+        i += 3;
+      } else if (path.charAt(i) == '.') {
+        int end = i + 1;
+        while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+          end++;
+        }
+        if (end == i + 1) {
+          throw new IllegalArgumentException("Empty property name at " + i + " in " + path);
+        }
+        String name = path.substring(i + 1, end);
+        if (name.equals("*")) {
+          if (step.any == null) {
+            step.any = new Step();
+          }
+          step = step.any;
+        } else {
+          Step named = step.named.get(name);
+          if (named == null) {
+            named = new Step();
+            step.named.put(name, named);
+          }
+          step = named;
+        }
+        i = end;
+      } else {
+        throw new IllegalArgumentException("Expected '.' or '[*]' at " + i + " in " + path);
+      }
+    }
+    return step;
+  }
+
+  /** A position in the paths, shared by every path through it. */
+  private static final class Step {
+    final Map<String, Step> named = new LinkedHashMap<String, Step>();
+    Step any;
+    Step element;
+    /** The lowest index of the paths that end here, or {@link #DEAD}. */
+    int match = DEAD;
+    int id;
+  }
+
+  /** A state of the automaton: the steps a value's path has reached. */
+  private static final class State {
+    int match;
+    JsonNames names;
+    /** The state for each name in {@link #names}. */
+    int[] next;
+    /** The state for any other name. */
+    int other;
+    int element;
+  }
+
+  /**
+   * Builds the deterministic automaton by subset construction. Paths have no
+   * recursive descent, so the number of states is finite and small.
+   */
+  private static final class Compiler {
+    private final List<Step> steps = new ArrayList<Step>();
+    private final Map<TreeSet<Integer>, Integer> ids = new HashMap<TreeSet<Integer>, Integer>();
+    private final List<TreeSet<Integer>> pending = new ArrayList<TreeSet<Integer>>();
+
+    State[] compile(Step root) {
+      number(root);
+      TreeSet<Integer> start = new TreeSet<Integer>();
+      start.add(root.id);
+      state(start);
+      List<State> states = new ArrayList<State>();
+      while (states.size() < pending.size()) {
+        states.add(build(pending.get(states.size())));
+      }
+      return states.toArray(new State[0]);
+    }
+
+    private void number(Step step) {
+      step.id = steps.size();
+      steps.add(step);
+      for (Step named : step.named.values()) {
+        number(named);
+      }
+      if (step.any != null) {
+        number(step.any);
+      }
+      if (step.element != null) {
+        number(step.element);
+      }
+    }
+
+    private int state(TreeSet<Integer> set) {
+      if (set.isEmpty()) {
+        return DEAD;
+      }
+      Integer id = ids.get(set);
+      if (id == null) {
+        id = pending.size();
+        ids.put(set, id);
+        pending.add(set);
+      }
+      return id;
+    }
+
+    private State build(TreeSet<Integer> set) {
+      State state = new State();
+      state.match = DEAD;
+      Map<String, TreeSet<Integer>> byName = new LinkedHashMap<String, TreeSet<Integer>>();
+      TreeSet<Integer> other = new TreeSet<Integer>();
+      TreeSet<Integer> element = new TreeSet<Integer>();
+      for (int id : set) {
+        Step step = steps.get(id);
+        if (step.match != DEAD && (state.match == DEAD || step.match < state.match)) {
+          state.match = step.match;
+        }
+        for (String name : step.named.keySet()) {
+          byName.put(name, new TreeSet<Integer>());
+        }
+        if (step.any != null) {
+          other.add(step.any.id);
+        }
+        if (step.element != null) {
+          element.add(step.element.id);
+        }
+      }
+      for (int id : set) {
+        Step step = steps.get(id);
+        for (Map.Entry<String, TreeSet<Integer>> entry : byName.entrySet()) {
+          Step named = step.named.get(entry.getKey());
+          if (named != null) {
+            entry.getValue().add(named.id);
+          }
+        }
+      }
+      String[] names = byName.keySet().toArray(new String[0]);
+      state.names = JsonNames.of(names);
+      state.next = new int[names.length];
+      for (int slot = 0; slot < names.length; slot++) {
+        TreeSet<Integer> next = byName.get(names[slot]);
+        next.addAll(other);
+        state.next[slot] = state(next);
+      }
+      state.other = state(other);
+      state.element = state(element);
+      return state;
+    }
+  }
+}
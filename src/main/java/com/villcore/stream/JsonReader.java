@@ -190,39 +190,41 @@ import java.io.Reader;
  */
 public class JsonReader implements Closeable {
   /** The only non-execute prefix this parser permits */
-  private static final char[] NON_EXECUTE_PREFIX = ")]}'\n".toCharArray();
-  private static final long MIN_INCOMPLETE_INTEGER = Long.MIN_VALUE / 10;
-
-  private static final int PEEKED_NONE = 0;
-  private static final int PEEKED_BEGIN_OBJECT = 1;
-  private static final int PEEKED_END_OBJECT = 2;
-  private static final int PEEKED_BEGIN_ARRAY = 3;
-  private static final int PEEKED_END_ARRAY = 4;
-  private static final int PEEKED_TRUE = 5;
-  private static final int PEEKED_FALSE = 6;
-  private static final int PEEKED_NULL = 7;
-  private static final int PEEKED_SINGLE_QUOTED = 8;
-  private static final int PEEKED_DOUBLE_QUOTED = 9;
-  private static final int PEEKED_UNQUOTED = 10;
+  static final char[] NON_EXECUTE_PREFIX = ")]}'\n".toCharArray();
+  static final long MIN_INCOMPLETE_INTEGER = Long.MIN_VALUE / 10;
+
+  static final int PEEKED_NONE = 0;
+  static final int PEEKED_BEGIN_OBJECT = 1;
+  static final int PEEKED_END_OBJECT = 2;
+  static final int PEEKED_BEGIN_ARRAY = 3;
+  static final int PEEKED_END_ARRAY = 4;
+  static final int PEEKED_TRUE = 5;
+  static final int PEEKED_FALSE = 6;
+  static final int PEEKED_NULL = 7;
+  static final int PEEKED_SINGLE_QUOTED = 8;
+  static final int PEEKED_DOUBLE_QUOTED = 9;
+  static final int PEEKED_UNQUOTED = 10;
   /** When this is returned, the string value is stored in peekedString. */
-  private static final int PEEKED_BUFFERED = 11;
-  private static final int PEEKED_SINGLE_QUOTED_NAME = 12;
-  private static final int PEEKED_DOUBLE_QUOTED_NAME = 13;
-  private static final int PEEKED_UNQUOTED_NAME = 14;
+  static final int PEEKED_BUFFERED = 11;
+  static final int PEEKED_SINGLE_QUOTED_NAME = 12;
+  static final int PEEKED_DOUBLE_QUOTED_NAME = 13;
+  static final int PEEKED_UNQUOTED_NAME = 14;
   /** When this is returned, the integer value is stored in peekedLong. */
-  private static final int PEEKED_LONG = 15;
-  private static final int PEEKED_NUMBER = 16;
-  private static final int PEEKED_EOF = 17;
+  static final int PEEKED_LONG = 15;
+  static final int PEEKED_NUMBER = 16;
+  static final int PEEKED_EOF = 17;
+  /** When this is returned, the name is stored in peekedString. */
+  static final int PEEKED_BUFFERED_NAME = 18;
 
   /* State machine when parsing numbers */
-  private static final int NUMBER_CHAR_NONE = 0;
-  private static final int NUMBER_CHAR_SIGN = 1;
-  private static final int NUMBER_CHAR_DIGIT = 2;
-  private static final int NUMBER_CHAR_DECIMAL = 3;
-  private static final int NUMBER_CHAR_FRACTION_DIGIT = 4;
-  private static final int NUMBER_CHAR_EXP_E = 5;
-  private static final int NUMBER_CHAR_EXP_SIGN = 6;
-  private static final int NUMBER_CHAR_EXP_DIGIT = 7;
+  static final int NUMBER_CHAR_NONE = 0;
+  static final int NUMBER_CHAR_SIGN = 1;
+  static final int NUMBER_CHAR_DIGIT = 2;
+  static final int NUMBER_CHAR_DECIMAL = 3;
+  static final int NUMBER_CHAR_FRACTION_DIGIT = 4;
+  static final int NUMBER_CHAR_EXP_E = 5;
+  static final int NUMBER_CHAR_EXP_SIGN = 6;
+  static final int NUMBER_CHAR_EXP_DIGIT = 7;
 
   /** The input JSON. */
   private final Reader in;
@@ -230,18 +232,21 @@ public class JsonReader implements Closeable {
   /** True to accept non-spec compliant JSON */
   private boolean lenient = false;
 
+  /** Canonical instances of quoted names, or null to allocate every name. */
+  private JsonSymbolTable symbols;
+
   /**
    * Use a manual buffer to easily read and unread upcoming characters, and
    * also so we can create strings without an intermediate StringBuilder.
    * We decode literals directly out of this buffer, so it must be at least as
    * long as the longest token that can be reported as a number.
    */
-  private final char[] buffer = new char[1024];
-  private int pos = 0;
-  private int limit = 0;
+  private final char[] buffer;
+  int pos = 0;
+  int limit = 0;
 
-  private int lineNumber = 0;
-  private int lineStart = 0;
+  int lineNumber = 0;
+  int lineStart = 0;
 
   int peeked = PEEKED_NONE;
 
@@ -249,26 +254,26 @@ public class JsonReader implements Closeable {
    * A peeked value that was composed entirely of digits with an optional
    * leading dash. Positive values may not have a leading 0.
    */
-  private long peekedLong;
+  long peekedLong;
 
   /**
    * The number of characters in a peeked number literal. Increment 'pos' by
    * this after reading a number.
    */
-  private int peekedNumberLength;
+  int peekedNumberLength;
 
   /**
    * A peeked string that should be parsed on the next double, long or string.
    * This is populated before a numeric value is parsed and used if that parsing
    * fails.
    */
-  private String peekedString;
+  String peekedString;
 
   /*
    * The nesting stack. Using a manual array rather than an ArrayList saves 20%.
    */
-  private int[] stack = new int[32];
-  private int stackSize = 0;
+  int[] stack = new int[32];
+  int stackSize = 0;
   {
     stack[stackSize++] = JsonScope.EMPTY_DOCUMENT;
   }
@@ -281,8 +286,8 @@ public class JsonReader implements Closeable {
    * that array. Otherwise the value is undefined, and we take advantage of that
    * by incrementing pathIndices when doing so isn't useful.
    */
-  private String[] pathNames = new String[32];
-  private int[] pathIndices = new int[32];
+  String[] pathNames = new String[32];
+  int[] pathIndices = new int[32];
 
   /**
    * Creates a new instance that reads a JSON-encoded stream from {@code in}.
@@ -292,6 +297,17 @@ public class JsonReader implements Closeable {
       throw new NullPointerException("in == null");
     }
     this.in = in;
+    this.buffer = new char[1024];
+  }
+
+  /**
+   * For readers in this package that decode their own input. They override
+   * the methods that read {@code in} or the buffer, and share the token and
+   * number state machines, the stack and the path with this class.
+   */
+  JsonReader() {
+    this.in = null;
+    this.buffer = null;
   }
 
   /**
@@ -334,6 +350,19 @@ public class JsonReader implements Closeable {
     return lenient;
   }
 
+  /**
+   * Configure this parser to return names from {@code symbols}, so that a name
+   * read repeatedly is returned as the same string instead of a new copy each
+   * time. Null, the default, turns this off.
+   */
+  public final void setSymbolTable(JsonSymbolTable symbols) {
+    this.symbols = symbols;
+  }
+
+  public final JsonSymbolTable getSymbolTable() {
+    return symbols;
+  }
+
   /**
    * Consumes the next token from the JSON stream and asserts that it is the
    * beginning of a new array.
@@ -438,6 +467,7 @@ public class JsonReader implements Closeable {
     case PEEKED_SINGLE_QUOTED_NAME:
     case PEEKED_DOUBLE_QUOTED_NAME:
     case PEEKED_UNQUOTED_NAME:
+    case PEEKED_BUFFERED_NAME:
       return JsonToken.NAME;
     case PEEKED_TRUE:
     case PEEKED_FALSE:
@@ -508,7 +538,7 @@ public class JsonReader implements Closeable {
       default:
         checkLenient();
         pos--; // Don't consume the first character in an unquoted string.
-        if (isLiteral((char) c)) {
+        if (isLiteral(c)) {
           return peeked = PEEKED_UNQUOTED_NAME;
         } else {
           throw syntaxError("Expected name");
@@ -523,7 +553,7 @@ public class JsonReader implements Closeable {
         break;
       case '=':
         checkLenient();
-        if ((pos < limit || fillBuffer(1)) && buffer[pos] == '>') {
+        if ((pos < limit || fillBuffer(1)) && charAt(pos) == '>') {
           pos++;
         }
         break;
@@ -531,6 +561,7 @@ public class JsonReader implements Closeable {
         throw syntaxError("Expected ':'");
       }
     } else if (peekStack == JsonScope.EMPTY_DOCUMENT) {
+      consumeByteOrderMark();
       if (lenient) {
         consumeNonExecutePrefix();
       }
@@ -587,7 +618,7 @@ public class JsonReader implements Closeable {
       return result;
     }
 
-    if (!isLiteral(buffer[pos])) {
+    if (!isLiteral(charAt(pos))) {
       throw syntaxError("Expected value");
     }
 
@@ -597,7 +628,7 @@ public class JsonReader implements Closeable {
 
   private int peekKeyword() throws IOException {
     // Figure out which keyword we're matching against by its first character.
-    char c = buffer[pos];
+    int c = charAt(pos);
     String keyword;
     String keywordUpper;
     int peeking;
@@ -623,14 +654,14 @@ public class JsonReader implements Closeable {
       if (pos + i >= limit && !fillBuffer(i + 1)) {
         return PEEKED_NONE;
       }
-      c = buffer[pos + i];
+      c = charAt(pos + i);
       if (c != keyword.charAt(i) && c != keywordUpper.charAt(i)) {
         return PEEKED_NONE;
       }
     }
 
     if ((pos + length < limit || fillBuffer(length + 1))
-        && isLiteral(buffer[pos + length])) {
+        && isLiteral(charAt(pos + length))) {
       return PEEKED_NONE; // Don't match trues, falsey or nullsoft!
     }
 
@@ -641,7 +672,6 @@ public class JsonReader implements Closeable {
 
   private int peekNumber() throws IOException {
     // Like nextNonWhitespace, this uses locals 'p' and 'l' to save inner-loop field access.
-    char[] buffer = this.buffer;
     int p = pos;
     int l = limit;
 
@@ -655,7 +685,7 @@ public class JsonReader implements Closeable {
     charactersOfNumber:
     for (; true; i++) {
       if (p + i == l) {
-        if (i == buffer.length) {
+        if (i == maxTokenLength()) {
           // Though this looks like a well-formed number, it's too long to continue reading. Give up
           // and let the application handle this as an unquoted literal.
           return PEEKED_NONE;
@@ -667,7 +697,7 @@ public class JsonReader implements Closeable {
         l = limit;
       }
 
-      char c = buffer[p + i];
+      int c = charAt(p + i);
       switch (c) {
       case '-':
         if (last == NUMBER_CHAR_NONE) {
@@ -742,7 +772,7 @@ public class JsonReader implements Closeable {
     }
   }
 
-  private boolean isLiteral(char c) throws IOException {
+  private boolean isLiteral(int c) throws IOException {
     switch (c) {
     case '/':
     case '\\':
@@ -783,9 +813,12 @@ public class JsonReader implements Closeable {
     if (p == PEEKED_UNQUOTED_NAME) {
       result = nextUnquotedValue();
     } else if (p == PEEKED_SINGLE_QUOTED_NAME) {
-      result = nextQuotedValue('\'');
+      result = nextSymbol('\'');
     } else if (p == PEEKED_DOUBLE_QUOTED_NAME) {
-      result = nextQuotedValue('"');
+      result = nextSymbol('"');
+    } else if (p == PEEKED_BUFFERED_NAME) {
+      result = peekedString;
+      peekedString = null;
     } else {
       throw new IllegalStateException("Expected a name but was " + peek() + locationString());
     }
@@ -794,6 +827,47 @@ public class JsonReader implements Closeable {
     return result;
   }
 
+  /**
+   * If the next token is a {@link JsonToken#NAME property name} in {@code
+   * names}, consumes it and returns its slot. Otherwise this returns -1 and
+   * the name remains the next token, to be read with {@link #nextName} or
+   * skipped with {@link #skipValue}.
+   *
+   * <p>A quoted name without escapes is matched in place, so this doesn't
+   * allocate when the name is found.
+   *
+   * @throws IllegalStateException if the next token is not a property name.
+   */
+  public int selectName(JsonNames names) throws IOException {
+    int p = peeked;
+    if (p == PEEKED_NONE) {
+      p = doPeek();
+    }
+    if (p == PEEKED_DOUBLE_QUOTED_NAME || p == PEEKED_SINGLE_QUOTED_NAME) {
+      int end = findSymbolEnd(p == PEEKED_DOUBLE_QUOTED_NAME ? '"' : '\'');
+      if (end != -1) {
+        int slot = find(names, pos, end - pos);
+        if (slot != -1) {
+          pos = end + 1;
+          peeked = PEEKED_NONE;
+          pathNames[stackSize - 1] = names.get(slot);
+        }
+        return slot;
+      }
+    } else if (p != PEEKED_UNQUOTED_NAME && p != PEEKED_BUFFERED_NAME) {
+      throw new IllegalStateException("Expected a name but was " + peek() + locationString());
+    }
+
+    // Escaped and unquoted names are decoded, then kept for nextName() if they don't match.
+    String name = nextName();
+    int slot = names.find(name);
+    if (slot == -1) {
+      peekedString = name;
+      peeked = PEEKED_BUFFERED_NAME;
+    }
+    return slot;
+  }
+
   /**
    * Returns the {@link JsonToken#STRING string} value of the next token,
    * consuming it. If the next token is a number, this method will return its
@@ -820,7 +894,7 @@ public class JsonReader implements Closeable {
     } else if (p == PEEKED_LONG) {
       result = Long.toString(peekedLong);
     } else if (p == PEEKED_NUMBER) {
-      result = new String(buffer, pos, peekedNumberLength);
+      result = substring(pos, peekedNumberLength);
       pos += peekedNumberLength;
     } else {
       throw new IllegalStateException("Expected a string but was " + peek() + locationString());
@@ -896,7 +970,15 @@ public class JsonReader implements Closeable {
     }
 
     if (p == PEEKED_NUMBER) {
-      peekedString = new String(buffer, pos, peekedNumberLength);
+      // Parse in place; only long significands and overflows need a string.
+      double result = parseNumber(pos, peekedNumberLength);
+      if (!Double.isNaN(result)) {
+        pos += peekedNumberLength;
+        peeked = PEEKED_NONE;
+        pathIndices[stackSize - 1]++;
+        return result;
+      }
+      peekedString = substring(pos, peekedNumberLength);
       pos += peekedNumberLength;
     } else if (p == PEEKED_SINGLE_QUOTED || p == PEEKED_DOUBLE_QUOTED) {
       peekedString = nextQuotedValue(p == PEEKED_SINGLE_QUOTED ? '\'' : '"');
@@ -941,7 +1023,7 @@ public class JsonReader implements Closeable {
     }
 
     if (p == PEEKED_NUMBER) {
-      peekedString = new String(buffer, pos, peekedNumberLength);
+      peekedString = substring(pos, peekedNumberLength);
       pos += peekedNumberLength;
     } else if (p == PEEKED_SINGLE_QUOTED || p == PEEKED_DOUBLE_QUOTED || p == PEEKED_UNQUOTED) {
       if (p == PEEKED_UNQUOTED) {
@@ -983,7 +1065,7 @@ public class JsonReader implements Closeable {
    * @throws NumberFormatException if any unicode escape sequences are
    *     malformed.
    */
-  private String nextQuotedValue(char quote) throws IOException {
+  String nextQuotedValue(char quote) throws IOException {
     // Like nextNonWhitespace, this uses locals 'p' and 'l' to save inner-loop field access.
     char[] buffer = this.buffer;
     StringBuilder builder = null;
@@ -1034,11 +1116,56 @@ public class JsonReader implements Closeable {
     }
   }
 
+  /**
+   * Returns the quoted name that starts at {@code pos} from the symbol table,
+   * or decodes it with {@link #nextQuotedValue} if there is no table or the
+   * name can't be cached.
+   */
+  private String nextSymbol(char quote) throws IOException {
+    JsonSymbolTable symbols = this.symbols;
+    if (symbols == null) {
+      return nextQuotedValue(quote);
+    }
+    int end = findSymbolEnd(quote);
+    String result = end != -1 ? symbol(symbols, pos, end - pos) : null;
+    if (result == null) {
+      return nextQuotedValue(quote);
+    }
+    pos = end + 1;
+    return result;
+  }
+
+  /**
+   * Returns the index of the {@code quote} that closes the string starting at
+   * {@code pos}, filling the buffer as necessary. Returns -1 if the string
+   * has escapes or newlines, or doesn't fit in the buffer; {@code pos} may
+   * move when the buffer is filled but still starts the string.
+   */
+  int findSymbolEnd(char quote) throws IOException {
+    int p = pos;
+    while (true) {
+      if (p == limit) {
+        int length = p - pos;
+        if (length == buffer.length || !fillBuffer(length + 1)) {
+          return -1;
+        }
+        p = pos + length;
+      }
+      char c = buffer[p];
+      if (c == quote) {
+        return p;
+      } else if (c == '\\' || c == '\n') {
+        return -1;
+      }
+      p++;
+    }
+  }
+
   /**
    * Returns an unquoted value as a string.
    */
   @SuppressWarnings("fallthrough")
-  private String nextUnquotedValue() throws IOException {
+  String nextUnquotedValue() throws IOException {
     StringBuilder builder = null;
     int i = 0;
 
@@ -1093,7 +1220,7 @@ public class JsonReader implements Closeable {
     return result;
   }
 
-  private void skipQuotedValue(char quote) throws IOException {
+  void skipQuotedValue(char quote) throws IOException {
     // Like nextNonWhitespace, this uses locals 'p' and 'l' to save inner-loop field access.
     char[] buffer = this.buffer;
     do {
@@ -1120,7 +1247,7 @@ public class JsonReader implements Closeable {
     throw syntaxError("Unterminated string");
   }
 
-  private void skipUnquotedValue() throws IOException {
+  void skipUnquotedValue() throws IOException {
     do {
       int i = 0;
       for (; pos + i < limit; i++) {
@@ -1178,7 +1305,7 @@ public class JsonReader implements Closeable {
     }
 
     if (p == PEEKED_NUMBER) {
-      peekedString = new String(buffer, pos, peekedNumberLength);
+      peekedString = substring(pos, peekedNumberLength);
       pos += peekedNumberLength;
     } else if (p == PEEKED_SINGLE_QUOTED || p == PEEKED_DOUBLE_QUOTED || p == PEEKED_UNQUOTED) {
       if (p == PEEKED_UNQUOTED) {
@@ -1261,6 +1388,64 @@ public class JsonReader implements Closeable {
     pathNames[stackSize - 1] = "null";
   }
 
+  /**
+   * Skips the next value like {@link #skipValue}, but scans an array or
+   * object for its closing bracket instead of reading it token by token:
+   * only brackets, quotes and escapes are looked at, so numbers and literals
+   * aren't parsed and no path is tracked inside the value. Malformed JSON in
+   * the skipped value, such as a missing comma or a mismatched bracket, may
+   * go undetected. Lenient readers skip with {@link #skipValue}, since
+   * comments and unquoted strings need the tokenizer.
+   */
+  public void skipValueFast() throws IOException {
+    int p = peeked;
+    if (p == PEEKED_NONE) {
+      p = doPeek();
+    }
+    if (lenient || (p != PEEKED_BEGIN_ARRAY && p != PEEKED_BEGIN_OBJECT)) {
+      skipValue();
+      return;
+    }
+    peeked = PEEKED_NONE;
+    skipToClose();
+    pathIndices[stackSize - 1]++;
+    pathNames[stackSize - 1] = "null";
+  }
+
+  /**
+   * Advances past the bracket that closes the array or object whose opening
+   * bracket was just consumed.
+   */
+  void skipToClose() throws IOException {
+    char[] buffer = this.buffer;
+    int depth = 1;
+    do {
+      int p = pos;
+      int l = limit;
+      while (p < l) {
+        char c = buffer[p++];
+        if (c == '"') {
+          pos = p;
+          skipQuotedValue('"');
+          p = pos;
+          l = limit;
+        } else if (c == '[' || c == '{') {
+          depth++;
+        } else if (c == ']' || c == '}') {
+          if (--depth == 0) {
+            pos = p;
+            return;
+          }
+        } else if (c == '\n') {
+          lineNumber++;
+          lineStart = p;
+        }
+      }
+      pos = p;
+    } while (fillBuffer(1));
+    throw syntaxError("End of input");
+  }
+
   private void push(int newTop) {
     if (stackSize == stack.length) {
       int[] newStack = new int[stackSize * 2];
@@ -1281,7 +1466,7 @@ public class JsonReader implements Closeable {
    * exhausted before that many characters are available, this returns
    * false.
    */
-  private boolean fillBuffer(int minimum) throws IOException {
+  boolean fillBuffer(int minimum) throws IOException {
     char[] buffer = this.buffer;
     lineStart -= pos;
     if (limit != pos) {
@@ -1310,13 +1495,65 @@ public class JsonReader implements Closeable {
     return false;
   }
 
+  /**
+   * Returns the character at {@code index}, which is in {@code [pos, limit)}.
+   */
+  int charAt(int index) {
+    return buffer[index];
+  }
+
+  /**
+   * Returns the characters in {@code [start, start + length)}.
+   */
+  String substring(int start, int length) {
+    return new String(buffer, start, length);
+  }
+
+  /**
+   * Returns the longest token that {@link #fillBuffer} can make available at
+   * once.
+   */
+  int maxTokenLength() {
+    return buffer.length;
+  }
+
+  /**
+   * Parses the number in {@code [start, start + length)} like {@link
+   * DoubleParser}, returning NaN if it needs a string.
+   */
+  double parseNumber(int start, int length) {
+    return DoubleParser.parse(buffer, start, length);
+  }
+
+  /**
+   * Returns the slot of the name in {@code [start, start + length)}, or -1.
+   */
+  int find(JsonNames names, int start, int length) {
+    return names.find(buffer, start, length);
+  }
+
+  /**
+   * Returns the cached name in {@code [start, start + length)}, or null if it
+   * can't be cached.
+   */
+  String symbol(JsonSymbolTable symbols, int start, int length) {
+    return symbols.get(buffer, start, length);
+  }
+
+  /**
+   * Consumes a byte order mark at the start of the input. {@link #fillBuffer}
+   * already skips one as it reads.
+   */
+  void consumeByteOrderMark() throws IOException {
+  }
+
   /**
    * Returns the next character in the stream that is neither whitespace nor a
    * part of a comment. When this returns, the returned character is always at
    * {@code buffer[pos-1]}; this means the caller can always push back the
    * returned character by decrementing {@code pos}.
    */
-  private int nextNonWhitespace(boolean throwOnEof) throws IOException {
+  int nextNonWhitespace(boolean throwOnEof) throws IOException {
     /*
      * This code uses ugly local variables 'p' and 'l' representing the 'pos'
      * and 'limit' fields respectively. Using locals rather than fields saves
@@ -1347,56 +1584,13 @@ public class JsonReader implements Closeable {
         continue;
       }
 
-      if (c == '/') {
-        pos = p;
-        if (p == l) {
-          pos--; // push back '/' so it's still in the buffer when this method returns
-          boolean charsLoaded = fillBuffer(2);
-          pos++; // consume the '/' again
-          if (!charsLoaded) {
-            return c;
-          }
-        }
-
-        checkLenient();
-        char peek = buffer[pos];
-        switch (peek) {
-        case '*':
-          // skip a /* c-style comment */
-          pos++;
-          if (!skipTo("*/")) {
-            throw syntaxError("Unterminated comment");
-          }
-          p = pos + 2;
-          l = limit;
-          continue;
-
-        case '/':
-          // skip a // end-of-line comment
-          pos++;
-          skipToEndOfLine();
-          p = pos;
-          l = limit;
-          continue;
-
-        default:
-          return c;
-        }
-      } else if (c == '#') {
-        pos = p;
-        /*
-         * Skip a # hash end-of-line comment. The JSON RFC doesn't
-         * specify this behaviour, but it's required to parse
-         * existing documents. See http://b/2571423.
-         */
-        checkLenient();
-        skipToEndOfLine();
+      pos = p;
+      if ((c == '/' || c == '#') && skipComment(c)) {
         p = pos;
         l = limit;
-      } else {
-        pos = p;
-        return c;
+        continue;
       }
+      return c;
     }
     if (throwOnEof) {
       throw new EOFException("End of input" + locationString());
@@ -1405,7 +1599,55 @@ public class JsonReader implements Closeable {
     }
   }
 
-  private void checkLenient() throws IOException {
+  /**
+   * Skips the comment that starts with {@code c}, the character just before
+   * {@code pos}. Returns false, with {@code pos} still just after {@code c},
+   * if {@code c} doesn't start a comment.
+   */
+  final boolean skipComment(int c) throws IOException {
+    if (c == '#') {
+      /*
+       * Skip a # hash end-of-line comment. The JSON RFC doesn't
+       * specify this behaviour, but it's required to parse
+       * existing documents. See http://b/2571423.
+       */
+      checkLenient();
+      skipToEndOfLine();
+      return true;
+    }
+
+    if (pos == limit) {
+      pos--; // push back '/' so it's still in the buffer when this method returns
+      boolean charsLoaded = fillBuffer(2);
+      pos++; // consume the '/' again
+      if (!charsLoaded) {
+        return false;
+      }
+    }
+
+    checkLenient();
+    switch (charAt(pos)) {
+    case '*':
+      // skip a /* c-style comment */
+      pos++;
+      if (!skipTo("*/")) {
+        throw syntaxError("Unterminated comment");
+      }
+      pos += 2;
+      return true;
+
+    case '/':
+      // skip a // end-of-line comment
+      pos++;
+      skipToEndOfLine();
+      return true;
+
+    default:
+      return false;
+    }
+  }
+
+  final void checkLenient() throws IOException {
     if (!lenient) {
       throw syntaxError("Use JsonReader.setLenient(true) to accept malformed JSON");
     }
@@ -1418,7 +1660,7 @@ public class JsonReader implements Closeable {
    */
   private void skipToEndOfLine() throws IOException {
     while (pos < limit || fillBuffer(1)) {
-      char c = buffer[pos++];
+      int c = charAt(pos++);
       if (c == '\n') {
         lineNumber++;
         lineStart = pos;
@@ -1436,13 +1678,13 @@ public class JsonReader implements Closeable {
     int length = toFind.length();
     outer:
     for (; pos + length <= limit || fillBuffer(length); pos++) {
-      if (buffer[pos] == '\n') {
+      if (charAt(pos) == '\n') {
         lineNumber++;
         lineStart = pos + 1;
         continue;
       }
       for (int c = 0; c < length; c++) {
-        if (buffer[pos + c] != toFind.charAt(c)) {
+        if (charAt(pos + c) != toFind.charAt(c)) {
           continue outer;
         }
       }
@@ -1501,12 +1743,12 @@ public class JsonReader implements Closeable {
    * @throws NumberFormatException if any unicode escape sequences are
    *     malformed.
    */
-  private char readEscapeCharacter() throws IOException {
+  final char readEscapeCharacter() throws IOException {
     if (pos == limit && !fillBuffer(1)) {
       throw syntaxError("Unterminated escape sequence");
     }
 
-    char escaped = buffer[pos++];
+    int escaped = charAt(pos++);
     switch (escaped) {
     case 'u':
       if (pos + 4 > limit && !fillBuffer(4)) {
@@ -1515,7 +1757,7 @@ public class JsonReader implements Closeable {
       // Equivalent to Integer.parseInt(stringPool.get(buffer, pos, 4), 16);
       char result = 0;
       for (int i = pos, end = i + 4; i < end; i++) {
-        char c = buffer[i];
+        int c = charAt(i);
         result <<= 4;
         if (c >= '0' && c <= '9') {
           result += (c - '0');
@@ -1524,7 +1766,7 @@ public class JsonReader implements Closeable {
         } else if (c >= 'A' && c <= 'F') {
           result += (c - 'A' + 10);
         } else {
-          throw new NumberFormatException("\\u" + new String(buffer, pos, 4));
+          throw new NumberFormatException("\\u" + substring(pos, 4));
         }
       }
       pos += 4;
@@ -1553,11 +1795,11 @@ public class JsonReader implements Closeable {
     case '\'':
     case '"':
     case '\\':
-    case '/':	
-    	return escaped;
+    case '/':
+      return (char) escaped;
     default:
-    	// throw error when none of the above cases are matched
-    	throw syntaxError("Invalid escape sequence");
+      // throw error when none of the above cases are matched
+      throw syntaxError("Invalid escape sequence");
     }
   }
 
@@ -1565,7 +1807,7 @@ public class JsonReader implements Closeable {
    * Throws a new IO exception with the given message and a context snippet
    * with this reader's content.
    */
-  private IOException syntaxError(String message) throws IOException {
+  final IOException syntaxError(String message) throws IOException {
     throw new MalformedJsonException(message + locationString());
   }
 
@@ -1582,7 +1824,7 @@ public class JsonReader implements Closeable {
     }
 
     for (int i = 0; i < NON_EXECUTE_PREFIX.length; i++) {
-      if (buffer[pos + i] != NON_EXECUTE_PREFIX[i]) {
+      if (charAt(pos + i) != NON_EXECUTE_PREFIX[i]) {
         return; // not a security token!
       }
     }
@@ -1608,6 +1850,8 @@ public class JsonReader implements Closeable {
           reader.peeked = PEEKED_SINGLE_QUOTED;
         } else if (p == PEEKED_UNQUOTED_NAME) {
           reader.peeked = PEEKED_UNQUOTED;
+        } else if (p == PEEKED_BUFFERED_NAME) {
+          reader.peeked = PEEKED_BUFFERED;
         } else {
           throw new IllegalStateException(
               "Expected a name but was " + reader.peek() + reader.locationString());
@@ -0,0 +1,118 @@
+package com.villcore.stream;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A bounded cache of property names. A {@link JsonReader} with a symbol table
+ * returns the same {@code String} instance each time it reads a cached name,
+ * hashing the name straight from its buffer instead of allocating a copy.
+ *
+ * <p>The table has a fixed number of slots and each name hashes to exactly
+ * one of them; a name that misses replaces the slot's previous occupant.
+ * Colliding or unbounded sets of names therefore cost an allocation per name,
+ * as without a table, but never grow the table or slow down lookups. Names
+ * longer than {@value #MAX_NAME_LENGTH} characters and names with escapes are
+ * never cached.
+ *
+ * <p>A table may be shared by readers on different threads: each lookup
+ * compares the candidate's characters, so a racing replacement only causes a
+ * miss.
+ */
+public final class JsonSymbolTable {
+  public static final int MAX_NAME_LENGTH = 64;
+  private static final int DEFAULT_CAPACITY = 1024;
+  private static final int MAX_CAPACITY = 1 << 16;
+
+  private final String[] names;
+  private final int mask;
+
+  public JsonSymbolTable() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a table with {@code capacity} slots, rounded up to a power of two.
+   */
+  public JsonSymbolTable(int capacity) {
+    if (capacity <= 0 || capacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException("capacity must be between 1 and " + MAX_CAPACITY);
+    }
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity) {
+      size <<= 1;
+    }
+    this.names = new String[size];
+    this.mask = size - 1;
+  }
+
+  /**
+   * Returns the cached string equal to {@code chars[start, start + length)},
+   * caching a new one if there isn't one yet.
+   */
+  String get(char[] chars, int start, int length) {
+    if (length > MAX_NAME_LENGTH) {
+      return new String(chars, start, length);
+    }
+    int hash = 0;
+    for (int i = start, end = start + length; i < end; i++) {
+      hash = 31 * hash + chars[i];
+    }
+    int index = spread(hash) & mask;
+    String name = names[index];
+    if (name != null && name.length() == length) {
+      int i = 0;
+      while (i < length && name.charAt(i) == chars[start + i]) {
+        i++;
+      }
+      if (i == length) {
+        return name;
+      }
+    }
+    name = new String(chars, start, length);
+    names[index] = name;
+    return name;
+  }
+
+  /**
+   * Like {@link #get(char[], int, int)} for the UTF-8 bytes of a name. Only
+   * ASCII names are cached; this returns null for any other name.
+   */
+  String get(ByteBuffer bytes, int start, int length) {
+    if (length > MAX_NAME_LENGTH) {
+      return null;
+    }
+    int hash = 0;
+    for (int i = start, end = start + length; i < end; i++) {
+      byte b = bytes.get(i);
+      if (b < 0) {
+        return null;
+      }
+      hash = 31 * hash + b;
+    }
+    int index = spread(hash) & mask;
+    String name = names[index];
+    if (name != null && name.length() == length) {
+      int i = 0;
+      while (i < length && name.charAt(i) == bytes.get(start + i)) {
+        i++;
+      }
+      if (i == length) {
+        return name;
+      }
+    }
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = (char) bytes.get(start + i);
+    }
+    name = new String(chars);
+    names[index] = name;
+    return name;
+  }
+
+  /**
+   * Mixes the high bits of a string hash into the low bits used as an index.
+   */
+  static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+}
@@ -25,8 +25,8 @@ import static com.villcore.stream.JsonScope.*;
 
 public class JsonWriter implements Closeable, Flushable {
 
-  private static final String[] REPLACEMENT_CHARS;
-  private static final String[] HTML_SAFE_REPLACEMENT_CHARS;
+  static final String[] REPLACEMENT_CHARS;
+  static final String[] HTML_SAFE_REPLACEMENT_CHARS;
   static {
     REPLACEMENT_CHARS = new String[128];
     for (int i = 0; i <= 0x1f; i++) {
@@ -75,6 +75,10 @@ public class JsonWriter implements Closeable, Flushable {
 
   private boolean serializeNulls = true;
 
+  /** Scratch space for formatting numbers, allocated on first use. */
+  private byte[] numberBytes;
+  private char[] numberChars;
+
   /**
    * Creates a new instance that writes a JSON-encoded stream to {@code out}.
    * For best performance, ensure {@link Writer} is buffered; wrapping in
@@ -87,14 +91,22 @@ public class JsonWriter implements Closeable, Flushable {
     this.out = out;
   }
 
+  /**
+   * For writers in this package that encode their own output. They override
+   * every method that uses {@code out}.
+   */
+  JsonWriter() {
+    this.out = null;
+  }
+
   public final void setIndent(String indent) {
-//    if (indent.length() == 0) {
-//      this.indent = null;
-//      this.separator = ":";
-//    } else {
-//      this.indent = indent;
-//      this.separator = ": ";
-//    }
+    if (indent.length() == 0) {
+      this.indent = null;
+      this.separator = ":";
+    } else {
+      this.indent = indent;
+      this.separator = ": ";
+    }
   }
 
   public final void setLenient(boolean lenient) {
@@ -143,7 +155,8 @@ public class JsonWriter implements Closeable, Flushable {
    * @return this writer.
    */
   public JsonWriter beginArray() throws IOException {
-    return this;
+    writeDeferredName();
+    return open(EMPTY_ARRAY, "[");
   }
 
   /**
@@ -152,7 +165,7 @@ public class JsonWriter implements Closeable, Flushable {
    * @return this writer.
    */
   public JsonWriter endArray() throws IOException {
-    return this;
+    return close(EMPTY_ARRAY, NONEMPTY_ARRAY, "]");
   }
 
   /**
@@ -162,7 +175,8 @@ public class JsonWriter implements Closeable, Flushable {
    * @return this writer.
    */
   public JsonWriter beginObject() throws IOException {
-    return this;
+    writeDeferredName();
+    return open(EMPTY_OBJECT, "{");
   }
 
   /**
@@ -171,7 +185,7 @@ public class JsonWriter implements Closeable, Flushable {
    * @return this writer.
    */
   public JsonWriter endObject() throws IOException {
-    return this;
+    return close(EMPTY_OBJECT, NONEMPTY_OBJECT, "}");
   }
 
   /**
@@ -181,7 +195,7 @@ public class JsonWriter implements Closeable, Flushable {
   private JsonWriter open(int empty, String openBracket) throws IOException {
     beforeValue();
     push(empty);
-    out.write(openBracket);
+    write(openBracket);
     return this;
   }
 
@@ -191,23 +205,46 @@ public class JsonWriter implements Closeable, Flushable {
    */
   private JsonWriter close(int empty, int nonempty, String closeBracket)
       throws IOException {
+    int context = peek();
+    if (context != nonempty && context != empty) {
+      throw new IllegalStateException("Nesting problem.");
+    }
+    if (deferredName != null) {
+      throw new IllegalStateException("Dangling name: " + deferredName);
+    }
+
+    stackSize--;
+    if (context == nonempty) {
+      newline();
+    }
+    write(closeBracket);
     return this;
   }
 
   private void push(int newTop) {
+    if (stackSize == stack.length) {
+      int[] newStack = new int[stackSize * 2];
+      System.arraycopy(stack, 0, newStack, 0, stackSize);
+      stack = newStack;
+    }
+    stack[stackSize++] = newTop;
   }
 
   /**
    * Returns the value on the top of the stack.
    */
   private int peek() {
-    return 0;
+    if (stackSize == 0) {
+      throw new IllegalStateException("JsonWriter is closed.");
+    }
+    return stack[stackSize - 1];
   }
 
   /**
    * Replace the value on the top of the stack with the given value.
    */
   private void replaceTop(int topOfStack) {
+    stack[stackSize - 1] = topOfStack;
   }
 
   /**
@@ -217,10 +254,25 @@ public class JsonWriter implements Closeable, Flushable {
    * @return this writer.
    */
   public JsonWriter name(String name) throws IOException {
+    if (name == null) {
+      throw new NullPointerException("name == null");
+    }
+    if (deferredName != null) {
+      throw new IllegalStateException();
+    }
+    if (stackSize == 0) {
+      throw new IllegalStateException("JsonWriter is closed.");
+    }
+    deferredName = name;
     return this;
   }
 
   private void writeDeferredName() throws IOException {
+    if (deferredName != null) {
+      beforeName();
+      string(deferredName);
+      deferredName = null;
+    }
   }
 
   /**
@@ -230,6 +282,12 @@ public class JsonWriter implements Closeable, Flushable {
    * @return this writer.
    */
   public JsonWriter value(String value) throws IOException {
+    if (value == null) {
+      return nullValue();
+    }
+    writeDeferredName();
+    beforeValue();
+    string(value);
     return this;
   }
 
@@ -241,6 +299,12 @@ public class JsonWriter implements Closeable, Flushable {
    * @return this writer.
    */
   public JsonWriter jsonValue(String value) throws IOException {
+    if (value == null) {
+      return nullValue();
+    }
+    writeDeferredName();
+    beforeValue();
+    write(value);
     return this;
   }
 
@@ -250,6 +314,16 @@ public class JsonWriter implements Closeable, Flushable {
    * @return this writer.
    */
   public JsonWriter nullValue() throws IOException {
+    if (deferredName != null) {
+      if (serializeNulls) {
+        writeDeferredName();
+      } else {
+        deferredName = null;
+        return this; // skip the name and the value
+      }
+    }
+    beforeValue();
+    write("null");
     return this;
   }
 
@@ -259,9 +333,9 @@ public class JsonWriter implements Closeable, Flushable {
    * @return this writer.
    */
   public JsonWriter value(boolean value) throws IOException {
-//    writeDeferredName();
-//    beforeValue();
-//    out.write(value ? "true" : "false");
+    writeDeferredName();
+    beforeValue();
+    write(value ? "true" : "false");
     return this;
   }
 
@@ -271,6 +345,12 @@ public class JsonWriter implements Closeable, Flushable {
    * @return this writer.
    */
   public JsonWriter value(Boolean value) throws IOException {
+    if (value == null) {
+      return nullValue();
+    }
+    writeDeferredName();
+    beforeValue();
+    write(value ? "true" : "false");
     return this;
   }
 
@@ -282,6 +362,30 @@ public class JsonWriter implements Closeable, Flushable {
    * @return this writer.
    */
   public JsonWriter value(double value) throws IOException {
+    if (!lenient && (Double.isNaN(value) || Double.isInfinite(value))) {
+      throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+    }
+    writeDeferredName();
+    beforeValue();
+    writeDouble(value);
+    return this;
+  }
+
+  /**
+   * Encodes {@code value} with the fewest digits that read back as the same
+   * float, rather than as the double it widens to.
+   *
+   * @param value a finite value. May not be {@link Float#isNaN() NaNs} or
+   *     {@link Float#isInfinite() infinities}.
+   * @return this writer.
+   */
+  public JsonWriter value(float value) throws IOException {
+    if (!lenient && (Float.isNaN(value) || Float.isInfinite(value))) {
+      throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+    }
+    writeDeferredName();
+    beforeValue();
+    writeFloat(value);
     return this;
   }
 
@@ -291,6 +395,9 @@ public class JsonWriter implements Closeable, Flushable {
    * @return this writer.
    */
   public JsonWriter value(long value) throws IOException {
+    writeDeferredName();
+    beforeValue();
+    writeLong(value);
     return this;
   }
 
@@ -302,6 +409,26 @@ public class JsonWriter implements Closeable, Flushable {
    * @return this writer.
    */
   public JsonWriter value(Number value) throws IOException {
+    if (value == null) {
+      return nullValue();
+    }
+    if (value instanceof Double) {
+      return value(value.doubleValue());
+    } else if (value instanceof Float) {
+      return value(value.floatValue());
+    } else if (value instanceof Integer || value instanceof Long
+        || value instanceof Short || value instanceof Byte) {
+      return value(value.longValue());
+    }
+
+    writeDeferredName();
+    String string = value.toString();
+    if (!lenient
+        && (string.equals("-Infinity") || string.equals("Infinity") || string.equals("NaN"))) {
+      throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+    }
+    beforeValue();
+    write(string);
     return this;
   }
 
@@ -310,6 +437,10 @@ public class JsonWriter implements Closeable, Flushable {
    * and flushes that writer.
    */
   public void flush() throws IOException {
+    if (stackSize == 0) {
+      throw new IllegalStateException("JsonWriter is closed.");
+    }
+    flushOutput();
   }
 
   /**
@@ -318,49 +449,108 @@ public class JsonWriter implements Closeable, Flushable {
    * @throws IOException if the JSON document is incomplete.
    */
   public void close() throws IOException {
+    closeOutput();
+
+    int size = stackSize;
+    if (size > 1 || size == 1 && stack[size - 1] != NONEMPTY_DOCUMENT) {
+      throw new IOException("Incomplete document");
+    }
+    stackSize = 0;
   }
 
-  private void string(String value) throws IOException {
-//    String[] replacements = htmlSafe ? HTML_SAFE_REPLACEMENT_CHARS : REPLACEMENT_CHARS;
-//    out.write("\"");
-//    int last = 0;
-//    int length = value.length();
-//    for (int i = 0; i < length; i++) {
-//      char c = value.charAt(i);
-//      String replacement;
-//      if (c < 128) {
-//        replacement = replacements[c];
-//        if (replacement == null) {
-//          continue;
-//        }
-//      } else if (c == '\u2028') {
-//        replacement = "\\u2028";
-//      } else if (c == '\u2029') {
-//        replacement = "\\u2029";
-//      } else {
-//        continue;
-//      }
-//      if (last < i) {
-//        out.write(value, last, i - last);
-//      }
-//      out.write(replacement);
-//      last = i + 1;
-//    }
-//    if (last < length) {
-//      out.write(value, last, length - last);
-//    }
-//    out.write("\"");
+  /**
+   * Writes {@code s}, which is already valid JSON or whitespace, unescaped.
+   */
+  void write(String s) throws IOException {
+    out.write(s);
+  }
+
+  void write(char c) throws IOException {
+    out.write(c);
+  }
+
+  void writeLong(long value) throws IOException {
+    writeNumber(DecimalFormatter.formatLong(value, numberBytes(), 0));
+  }
+
+  void writeDouble(double value) throws IOException {
+    writeNumber(DecimalFormatter.formatDouble(value, numberBytes(), 0));
+  }
+
+  void writeFloat(float value) throws IOException {
+    writeNumber(DecimalFormatter.formatFloat(value, numberBytes(), 0));
+  }
+
+  private byte[] numberBytes() {
+    if (numberBytes == null) {
+      numberBytes = new byte[DecimalFormatter.MAX_LENGTH];
+      numberChars = new char[DecimalFormatter.MAX_LENGTH];
+    }
+    return numberBytes;
+  }
+
+  /**
+   * Writes the first {@code length} ASCII characters of {@link #numberBytes}.
+   */
+  private void writeNumber(int length) throws IOException {
+    for (int i = 0; i < length; i++) {
+      numberChars[i] = (char) numberBytes[i];
+    }
+    out.write(numberChars, 0, length);
+  }
+
+  void flushOutput() throws IOException {
+    out.flush();
+  }
+
+  void closeOutput() throws IOException {
+    out.close();
+  }
+
+  /**
+   * Writes {@code value} as a quoted, escaped JSON string.
+   */
+  void string(String value) throws IOException {
+    String[] replacements = htmlSafe ? HTML_SAFE_REPLACEMENT_CHARS : REPLACEMENT_CHARS;
+    out.write("\"");
+    int last = 0;
+    int length = value.length();
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      String replacement;
+      if (c < 128) {
+        replacement = replacements[c];
+        if (replacement == null) {
+          continue;
+        }
+      } else if (c == '\u2028') {
+        replacement = "\\u2028";
+      } else if (c == '\u2029') {
+        replacement = "\\u2029";
+      } else {
+        continue;
+      }
+      if (last < i) {
+        out.write(value, last, i - last);
+      }
+      out.write(replacement);
+      last = i + 1;
+    }
+    if (last < length) {
+      out.write(value, last, length - last);
+    }
+    out.write("\"");
   }
 
   private void newline() throws IOException {
-//    if (indent == null) {
-//      return;
-//    }
-//
-//    out.write("\n");
-//    for (int i = 1, size = stackSize; i < size; i++) {
-//      out.write(indent);
-//    }
+    if (indent == null) {
+      return;
+    }
+
+    write('\n');
+    for (int i = 1, size = stackSize; i < size; i++) {
+      write(indent);
+    }
   }
 
   /**
@@ -368,14 +558,14 @@ public class JsonWriter implements Closeable, Flushable {
    * adjusts the stack to expect the name's value.
    */
   private void beforeName() throws IOException {
-//    int context = peek();
-//    if (context == NONEMPTY_OBJECT) { // first in object
-//      out.write(',');
-//    } else if (context != EMPTY_OBJECT) { // not in an object!
-//      throw new IllegalStateException("Nesting problem.");
-//    }
-//    newline();
-//    replaceTop(DANGLING_NAME);
+    int context = peek();
+    if (context == NONEMPTY_OBJECT) { // first in object
+      write(',');
+    } else if (context != EMPTY_OBJECT) { // not in an object!
+      throw new IllegalStateException("Nesting problem.");
+    }
+    newline();
+    replaceTop(DANGLING_NAME);
   }
 
   /**
@@ -385,34 +575,34 @@ public class JsonWriter implements Closeable, Flushable {
    */
   @SuppressWarnings("fallthrough")
   private void beforeValue() throws IOException {
-//    switch (peek()) {
-//    case NONEMPTY_DOCUMENT:
-//      if (!lenient) {
-//        throw new IllegalStateException(
-//            "JSON must have only one top-level value.");
-//      }
-//      // fall-through
-//    case EMPTY_DOCUMENT: // first in document
-//      replaceTop(NONEMPTY_DOCUMENT);
-//      break;
-//
-//    case EMPTY_ARRAY: // first in array
-//      replaceTop(NONEMPTY_ARRAY);
-//      newline();
-//      break;
-//
-//    case NONEMPTY_ARRAY: // another in array
-//      out.append(',');
-//      newline();
-//      break;
-//
-//    case DANGLING_NAME: // value for name
-//      out.append(separator);
-//      replaceTop(NONEMPTY_OBJECT);
-//      break;
-//
-//    default:
-//      throw new IllegalStateException("Nesting problem.");
-//    }
+    switch (peek()) {
+    case NONEMPTY_DOCUMENT:
+      if (!lenient) {
+        throw new IllegalStateException(
+            "JSON must have only one top-level value.");
+      }
+      // fall-through
+    case EMPTY_DOCUMENT: // first in document
+      replaceTop(NONEMPTY_DOCUMENT);
+      break;
+
+    case EMPTY_ARRAY: // first in array
+      replaceTop(NONEMPTY_ARRAY);
+      newline();
+      break;
+
+    case NONEMPTY_ARRAY: // another in array
+      write(',');
+      newline();
+      break;
+
+    case DANGLING_NAME: // value for name
+      write(separator);
+      replaceTop(NONEMPTY_OBJECT);
+      break;
+
+    default:
+      throw new IllegalStateException("Nesting problem.");
+    }
   }
 }
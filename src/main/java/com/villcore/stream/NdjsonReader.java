@@ -0,0 +1,383 @@
+package com.villcore.stream;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reads newline-delimited JSON, one value per line, in parallel. The input, a
+ * buffer or a file mapped read-only, is cut into chunks that end on a
+ * newline, and each chunk is parsed by a task on a {@link ForkJoinPool} with a
+ * single {@link Utf8JsonReader} reset for every line.
+ *
+ * <p>The calling thread finds chunk boundaries and counts each chunk's lines,
+ * eight bytes at a time, so every record and error carries its 1-based line
+ * number. At most two chunks per pool thread are in flight, so memory doesn't
+ * grow with the input. A line that can't be parsed is reported to {@link
+ * Handler#malformed} and reading continues with the next line; blank lines
+ * are skipped.
+ *
+ * <p>In ordered mode, the default, records and errors are handed over on the
+ * calling thread in line order. In unordered mode they're handed over on the
+ * pool's threads as soon as they're parsed, concurrently and in no particular
+ * order. If the handler throws while receiving a record or an error, every
+ * other chunk stops at its next line, and the exception is rethrown once they
+ * all have, so the handler is never called after a read returns.
+ */
+public final class NdjsonReader {
+  private static final int DEFAULT_CHUNK_SIZE = 1 << 22;
+  private static final int MIN_CHUNK_SIZE = 1024;
+  private static final int MAX_CHUNK_SIZE = Integer.MAX_VALUE - 8;
+  private static final long NEWLINES = 0x0a0a0a0a0a0a0a0aL;
+  private static final long LOW_SEVEN_BITS = 0x7f7f7f7f7f7f7f7fL;
+
+  /**
+   * Parses and receives the records of one input.
+   */
+  public interface Handler<T> {
+    /**
+     * Reads the record on one line from {@code in}. Called on the pool's
+     * threads, concurrently. Any exception thrown here marks the line as
+     * malformed, as does input left on the line after the record.
+     */
+    T parse(JsonReader in) throws IOException;
+
+    /**
+     * Receives the record parsed from line {@code lineNumber}.
+     */
+    void record(long lineNumber, T record);
+
+    /**
+     * Receives the exception that made line {@code lineNumber} malformed.
+     */
+    void malformed(long lineNumber, Exception e);
+  }
+
+  private final ForkJoinPool pool;
+  private boolean ordered = true;
+  private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+  /**
+   * Creates a reader that parses on the common pool.
+   */
+  public NdjsonReader() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  public NdjsonReader(ForkJoinPool pool) {
+    if (pool == null) {
+      throw new NullPointerException("pool == null");
+    }
+    this.pool = pool;
+  }
+
+  /**
+   * Configures whether records are handed over in line order on the calling
+   * thread, or as they're parsed on the pool's threads.
+   */
+  public void setOrdered(boolean ordered) {
+    this.ordered = ordered;
+  }
+
+  public boolean isOrdered() {
+    return ordered;
+  }
+
+  /**
+   * Sets the number of bytes each task parses. A chunk is extended to the end
+   * of its last line, so a line longer than this still makes one chunk.
+   */
+  public void setChunkSize(int chunkSize) {
+    if (chunkSize < MIN_CHUNK_SIZE) {
+      throw new IllegalArgumentException("chunkSize < " + MIN_CHUNK_SIZE);
+    }
+    this.chunkSize = chunkSize;
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * Reads the records between {@code input}'s position and limit. The
+   * input's position isn't changed.
+   *
+   * @return the number of records read.
+   */
+  public <T> long read(ByteBuffer input, Handler<T> handler) throws IOException {
+    return read(input.slice(), null, input.remaining(), handler);
+  }
+
+  /**
+   * Reads the records of the whole of {@code channel}, mapping one chunk at a
+   * time.
+   *
+   * @return the number of records read.
+   */
+  public <T> long read(FileChannel channel, Handler<T> handler) throws IOException {
+    return read(null, channel, channel.size(), handler);
+  }
+
+  private <T> long read(ByteBuffer input, FileChannel channel, long size, Handler<T> handler)
+      throws IOException {
+    if (handler == null) {
+      throw new NullPointerException("handler == null");
+    }
+    int maxInFlight = pool.getParallelism() * 2;
+    ArrayDeque<Chunk<T>> inFlight = new ArrayDeque<Chunk<T>>(maxInFlight);
+    AtomicBoolean aborted = new AtomicBoolean();
+    long records = 0;
+    long offset = 0;
+    long lineNumber = 1;
+    try {
+      while (offset < size && !aborted.get()) {
+        int length = (int) Math.min(chunkSize, size - offset);
+        ByteBuffer window = window(input, channel, offset, length);
+        int end = lastNewline(window, length) + 1;
+        while (end == 0 && offset + length < size) {
+          if (length == MAX_CHUNK_SIZE) {
+            throw new MalformedJsonException("Line " + lineNumber + " is longer than " + MAX_CHUNK_SIZE + " bytes");
+          }
+          length = (int) Math.min(Math.min(2L * length, MAX_CHUNK_SIZE), size - offset);
+          window = window(input, channel, offset, length);
+          end = lastNewline(window, length) + 1;
+        }
+        if (offset + length == size) {
+          end = length;
+        }
+
+        Chunk<T> chunk = new Chunk<T>(handler, window, end, lineNumber, ordered, aborted);
+        pool.execute(chunk);
+        inFlight.add(chunk);
+        lineNumber += countNewlines(window, end);
+        offset += end;
+        while (inFlight.size() >= maxInFlight) {
+          records += finish(inFlight.remove(), handler);
+        }
+      }
+      while (!inFlight.isEmpty()) {
+        records += finish(inFlight.remove(), handler);
+      }
+    } finally {
+      if (!inFlight.isEmpty()) {
+        // something failed: stop the other chunks and wait for those already
+        // running, so no handler call or read of a mapped window outlives this
+        aborted.set(true);
+        for (Chunk<T> chunk : inFlight) {
+          chunk.cancel(false);
+        }
+        for (Chunk<T> chunk : inFlight) {
+          chunk.quietlyJoin();
+        }
+      }
+    }
+    return records;
+  }
+
+  private ByteBuffer window(ByteBuffer input, FileChannel channel, long offset, int length) throws IOException {
+    if (channel != null) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+    ByteBuffer window = input.duplicate();
+    ((Buffer) window).limit((int) offset + length);
+    ((Buffer) window).position((int) offset);
+    return window.slice();
+  }
+
+  /**
+   * Waits for {@code chunk} and, in ordered mode, hands its records over.
+   */
+  private <T> long finish(Chunk<T> chunk, Handler<T> handler) {
+    chunk.join();
+    if (chunk.ordered) {
+      chunk.deliver(handler);
+    }
+    return chunk.records;
+  }
+
+  /**
+   * Returns the index of the last newline in the first {@code length} bytes,
+   * or -1 if there is none.
+   */
+  private static int lastNewline(ByteBuffer buffer, int length) {
+    for (int i = length - 1; i >= 0; i--) {
+      if (buffer.get(i) == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Counts the newlines in the first {@code length} bytes. Each word is
+   * XORed with newlines so that they become zero bytes, then every zero byte
+   * gets its high bit set and nothing else does.
+   */
+  static long countNewlines(ByteBuffer buffer, int length) {
+    long count = 0;
+    int i = 0;
+    for (; i + 8 <= length; i += 8) {
+      long x = buffer.getLong(i) ^ NEWLINES;
+      long zeros = ~(((x & LOW_SEVEN_BITS) + LOW_SEVEN_BITS) | x | LOW_SEVEN_BITS);
+      count += Long.bitCount(zeros);
+    }
+    for (; i < length; i++) {
+      if (buffer.get(i) == '\n') {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the index of the first newline in {@code [from, end)}, or {@code
+   * end} if there is none, looking at eight bytes at a time like {@link
+   * #countNewlines}.
+   */
+  static int nextNewline(ByteBuffer buffer, int from, int end) {
+    int i = from;
+    for (; i + 8 <= end; i += 8) {
+      long x = buffer.getLong(i) ^ NEWLINES;
+      long zeros = ~(((x & LOW_SEVEN_BITS) + LOW_SEVEN_BITS) | x | LOW_SEVEN_BITS);
+      if (zeros != 0) {
+        return i + (Long.numberOfLeadingZeros(zeros) >>> 3);
+      }
+    }
+    for (; i < end; i++) {
+      if (buffer.get(i) == '\n') {
+        return i;
+      }
+    }
+    return end;
+  }
+
+  /**
+   * Parses the lines of one chunk. In ordered mode the results are kept, in
+   * line order, until the calling thread delivers them.
+   */
+  private static final class Chunk<T> extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final Handler<T> handler;
+    private final ByteBuffer buffer;
+    private final int end;
+    private final long firstLine;
+    final boolean ordered;
+    /** Set by the first chunk to fail, or by the calling thread. */
+    private final AtomicBoolean aborted;
+
+    long records;
+    private int size;
+    private long[] lineNumbers;
+    /** Records, or a {@link Malformed} for each malformed line. */
+    private Object[] values;
+
+    Chunk(Handler<T> handler, ByteBuffer buffer, int end, long firstLine, boolean ordered,
+        AtomicBoolean aborted) {
+      this.handler = handler;
+      this.buffer = buffer;
+      this.end = end;
+      this.firstLine = firstLine;
+      this.ordered = ordered;
+      this.aborted = aborted;
+    }
+
+    @Override protected void compute() {
+      try {
+        parseLines();
+      } catch (RuntimeException | Error e) {
+        aborted.set(true);
+        throw e;
+      }
+    }
+
+    private void parseLines() {
+      if (ordered) {
+        lineNumbers = new long[16];
+        values = new Object[16];
+      }
+      Utf8JsonReader reader = new Utf8JsonReader(buffer);
+      long lineNumber = firstLine;
+      for (int start = 0; start < end && !aborted.get(); lineNumber++) {
+        int lineEnd = nextNewline(buffer, start, end);
+        if (!isBlank(start, lineEnd)) {
+          T record;
+          try {
+            reader.reset(buffer, start, lineEnd);
+            record = handler.parse(reader);
+            JsonToken next = reader.peek();
+            if (next != JsonToken.END_DOCUMENT) {
+              throw new MalformedJsonException("Expected one value per line but was " + next);
+            }
+          } catch (Exception e) {
+            malformed(lineNumber, e);
+            start = lineEnd + 1;
+            continue;
+          }
+          records++;
+          if (ordered) {
+            add(lineNumber, record);
+          } else {
+            handler.record(lineNumber, record);
+          }
+        }
+        start = lineEnd + 1;
+      }
+    }
+
+    private boolean isBlank(int start, int end) {
+      for (int i = start; i < end; i++) {
+        byte c = buffer.get(i);
+        if (c != ' ' && c != '\t' && c != '\r') {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void malformed(long lineNumber, Exception e) {
+      if (ordered) {
+        add(lineNumber, new Malformed(e));
+      } else {
+        handler.malformed(lineNumber, e);
+      }
+    }
+
+    private void add(long lineNumber, Object value) {
+      if (size == values.length) {
+        lineNumbers = Arrays.copyOf(lineNumbers, size * 2);
+        values = Arrays.copyOf(values, size * 2);
+      }
+      lineNumbers[size] = lineNumber;
+      values[size++] = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    void deliver(Handler<T> handler) {
+      for (int i = 0; i < size; i++) {
+        Object value = values[i];
+        values[i] = null;
+        if (value instanceof Malformed) {
+          handler.malformed(lineNumbers[i], ((Malformed) value).exception);
+        } else {
+          handler.record(lineNumbers[i], (T) value);
+        }
+      }
+    }
+  }
+
+  /** Marks a malformed line among a chunk's records. */
+  private static final class Malformed {
+    final Exception exception;
+
+    Malformed(Exception exception) {
+      this.exception = exception;
+    }
+  }
+}
@@ -0,0 +1,483 @@
+package com.villcore.stream;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link JsonReader} that parses UTF-8 bytes directly from a {@link ByteBuffer} or from a
+ * memory-mapped region of a {@link FileChannel}, instead of decoding a {@link java.io.Reader}
+ * into a char buffer. Structure, numbers and literals are read as bytes; only the contents of
+ * strings and names are decoded, once, when they are returned.
+ *
+ * <p>A file region is mapped in windows of at most {@code windowSize} bytes, so regions larger
+ * than 2 GiB can be read; a window is remapped from the current token when the parser reaches
+ * its end. Tokens are reported exactly as by {@link JsonReader}, and columns in error messages
+ * count bytes.
+ *
+ * <p>The token and number state machines, the stack and the path are {@link JsonReader}'s; this
+ * class overrides only the methods that scan or decode the input.
+ */
+public final class Utf8JsonReader extends JsonReader {
+  private static final int DEFAULT_WINDOW_SIZE = 1 << 28;
+  private static final int MIN_WINDOW_SIZE = 1024;
+
+  /** The mapped file, or null if the whole input is in {@link #buffer}. */
+  private final FileChannel channel;
+  /** The offset in {@link #channel} just past the region being read. */
+  private final long end;
+  private final int windowSize;
+  /** The offset in {@link #channel} of {@code buffer.get(0)}. */
+  private long windowStart;
+
+  private ByteBuffer buffer;
+  /** A view of {@link #buffer} for bulk copies out of buffers without an array. */
+  private ByteBuffer view;
+  private byte[] scratch;
+
+  /**
+   * Creates a reader of the bytes between {@code input}'s position and limit. The input's
+   * position isn't changed.
+   */
+  public Utf8JsonReader(ByteBuffer input) {
+    this.channel = null;
+    this.end = 0;
+    this.windowSize = 0;
+    this.buffer = input.slice();
+    this.limit = buffer.limit();
+  }
+
+  /**
+   * Creates a reader of the whole of {@code channel}, which is mapped read-only.
+   */
+  public Utf8JsonReader(FileChannel channel) throws IOException {
+    this(channel, 0, channel.size(), DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * Creates a reader of the {@code size} bytes of {@code channel} starting at {@code position},
+   * mapped read-only in windows of at most {@code windowSize} bytes. A window must hold the
+   * longest number in the input.
+   */
+  public Utf8JsonReader(FileChannel channel, long position, long size, int windowSize) {
+    if (channel == null) {
+      throw new NullPointerException("channel == null");
+    }
+    if (position < 0 || size < 0) {
+      throw new IllegalArgumentException("position < 0 || size < 0");
+    }
+    if (windowSize < MIN_WINDOW_SIZE) {
+      throw new IllegalArgumentException("windowSize < " + MIN_WINDOW_SIZE);
+    }
+    this.channel = channel;
+    this.end = position + size;
+    this.windowSize = windowSize;
+    this.windowStart = position;
+    this.buffer = ByteBuffer.allocate(0);
+  }
+
+  /**
+   * Starts reading a new document from the bytes of {@code input} in {@code
+   * [start, end)}, keeping this reader's stack and symbol table, so that one
+   * reader can parse many small documents. Readers of a file can't be reset.
+   */
+  void reset(ByteBuffer input, int start, int end) {
+    if (channel != null) {
+      throw new IllegalStateException("Reader maps a file");
+    }
+    buffer = input;
+    view = null;
+    pos = start;
+    limit = end;
+    lineNumber = 0;
+    lineStart = start;
+    peeked = PEEKED_NONE;
+    peekedString = null;
+    stack[0] = JsonScope.EMPTY_DOCUMENT;
+    stackSize = 1;
+    pathNames[0] = null;
+    pathIndices[0] = 0;
+  }
+
+  /**
+   * Closes this reader and the file channel it reads, if any.
+   */
+  @Override public void close() throws IOException {
+    peeked = PEEKED_NONE;
+    stack[0] = JsonScope.CLOSED;
+    stackSize = 1;
+    if (channel != null) {
+      channel.close();
+    }
+  }
+
+  /**
+   * Like {@link JsonReader#nextQuotedValue}, decoding the UTF-8 bytes between
+   * escapes in bulk.
+   */
+  @Override String nextQuotedValue(char quote) throws IOException {
+    // Like nextNonWhitespace, this uses locals 'p' and 'l' to save inner-loop field access.
+    ByteBuffer buffer = this.buffer;
+    StringBuilder builder = null;
+    while (true) {
+      int p = pos;
+      int l = limit;
+      /* the index of the first byte not yet appended to the builder. */
+      int start = p;
+      while (p < l) {
+        byte c = buffer.get(p++);
+
+        if (c == quote) {
+          pos = p;
+          int len = p - start - 1;
+          if (builder == null) {
+            return decode(start, len, StandardCharsets.UTF_8);
+          } else {
+            builder.append(decode(start, len, StandardCharsets.UTF_8));
+            return builder.toString();
+          }
+        } else if (c == '\\') {
+          pos = p;
+          int len = p - start - 1;
+          if (builder == null) {
+            int estimatedLength = (len + 1) * 2;
+            builder = new StringBuilder(Math.max(estimatedLength, 16));
+          }
+          builder.append(decode(start, len, StandardCharsets.UTF_8));
+          builder.append(readEscapeCharacter());
+          buffer = this.buffer;
+          p = pos;
+          l = limit;
+          start = p;
+        } else if (c == '\n') {
+          lineNumber++;
+          lineStart = p;
+        }
+      }
+
+      // The window ends inside the string; keep a split UTF-8 sequence for the next window.
+      int complete = lastCharBoundary(start, p);
+      if (builder == null) {
+        int estimatedLength = (complete - start) * 2;
+        builder = new StringBuilder(Math.max(estimatedLength, 16));
+      }
+      builder.append(decode(start, complete - start, StandardCharsets.UTF_8));
+      pos = complete;
+      if (!fillBuffer(p - complete + 1)) {
+        throw syntaxError("Unterminated string");
+      }
+      buffer = this.buffer;
+    }
+  }
+
+  /**
+   * Returns the index of the {@code quote} that closes the string starting at
+   * {@code pos}, mapping the next window as necessary. Returns -1 if the
+   * string has escapes or newlines, or doesn't fit in a window; {@code pos}
+   * may move when a window is mapped but still starts the string.
+   */
+  @Override int findSymbolEnd(char quote) throws IOException {
+    int p = pos;
+    while (true) {
+      if (p == limit) {
+        int length = p - pos;
+        if (!fillBuffer(length + 1)) {
+          return -1;
+        }
+        p = pos + length;
+      }
+      byte c = buffer.get(p);
+      if (c == quote) {
+        return p;
+      } else if (c == '\\' || c == '\n') {
+        return -1;
+      }
+      p++;
+    }
+  }
+
+  /**
+   * Returns {@code end}, or the start of the UTF-8 sequence that {@code end} splits.
+   */
+  private int lastCharBoundary(int start, int end) {
+    int i = end - 1;
+    while (i >= start && end - i < 4 && (buffer.get(i) & 0xc0) == 0x80) {
+      i--;
+    }
+    if (i < start) {
+      return end;
+    }
+    int lead = buffer.get(i) & 0xff;
+    int length = lead >= 0xf0 ? 4 : lead >= 0xe0 ? 3 : lead >= 0xc0 ? 2 : 1;
+    return end - i < length ? i : end;
+  }
+
+  /**
+   * Returns an unquoted value as a string.
+   */
+  @SuppressWarnings("fallthrough")
+  @Override String nextUnquotedValue() throws IOException {
+    int i = 0;
+
+    findNonLiteralCharacter:
+    while (true) {
+      for (; pos + i < limit; i++) {
+        switch (buffer.get(pos + i)) {
+        case '/':
+        case '\\':
+        case ';':
+        case '#':
+        case '=':
+          checkLenient(); // fall-through
+        case '{':
+        case '}':
+        case '[':
+        case ']':
+        case ':':
+        case ',':
+        case ' ':
+        case '\t':
+        case '\f':
+        case '\r':
+        case '\n':
+          break findNonLiteralCharacter;
+        }
+      }
+
+      // Attempt to map the entire literal at once.
+      if (!fillBuffer(i + 1)) {
+        break;
+      }
+    }
+
+    String result = decode(pos, i, StandardCharsets.UTF_8);
+    pos += i;
+    return result;
+  }
+
+  @Override void skipQuotedValue(char quote) throws IOException {
+    // Like nextNonWhitespace, this uses locals 'p' and 'l' to save inner-loop field access.
+    do {
+      ByteBuffer buffer = this.buffer;
+      int p = pos;
+      int l = limit;
+      while (p < l) {
+        byte c = buffer.get(p++);
+        if (c == quote) {
+          pos = p;
+          return;
+        } else if (c == '\\') {
+          pos = p;
+          readEscapeCharacter();
+          buffer = this.buffer;
+          p = pos;
+          l = limit;
+        } else if (c == '\n') {
+          lineNumber++;
+          lineStart = p;
+        }
+      }
+      pos = p;
+    } while (fillBuffer(1));
+    throw syntaxError("Unterminated string");
+  }
+
+  @SuppressWarnings("fallthrough")
+  @Override void skipUnquotedValue() throws IOException {
+    do {
+      int i = 0;
+      for (; pos + i < limit; i++) {
+        switch (buffer.get(pos + i)) {
+        case '/':
+        case '\\':
+        case ';':
+        case '#':
+        case '=':
+          checkLenient(); // fall-through
+        case '{':
+        case '}':
+        case '[':
+        case ']':
+        case ':':
+        case ',':
+        case ' ':
+        case '\t':
+        case '\f':
+        case '\r':
+        case '\n':
+          pos += i;
+          return;
+        }
+      }
+      pos += i;
+    } while (fillBuffer(1));
+  }
+
+  /**
+   * Advances past the bracket that closes the array or object whose opening
+   * bracket was just consumed. Multi-byte sequences never contain ASCII bytes,
+   * so the scan needn't decode them.
+   */
+  @Override void skipToClose() throws IOException {
+    int depth = 1;
+    do {
+      ByteBuffer buffer = this.buffer;
+      int p = pos;
+      int l = limit;
+      while (p < l) {
+        byte c = buffer.get(p++);
+        if (c == '"') {
+          pos = p;
+          skipQuotedValue('"');
+          buffer = this.buffer;
+          p = pos;
+          l = limit;
+        } else if (c == '[' || c == '{') {
+          depth++;
+        } else if (c == ']' || c == '}') {
+          if (--depth == 0) {
+            pos = p;
+            return;
+          }
+        } else if (c == '\n') {
+          lineNumber++;
+          lineStart = p;
+        }
+      }
+      pos = p;
+    } while (fillBuffer(1));
+    throw syntaxError("End of input");
+  }
+
+  /**
+   * Returns true once {@code limit - pos >= minimum}. When reading a file, this
+   * maps the next window starting at {@code pos}, which becomes 0. If the
+   * input is exhausted before that many bytes are available, this returns
+   * false.
+   */
+  @Override boolean fillBuffer(int minimum) throws IOException {
+    if (channel == null || windowStart + limit >= end) {
+      return limit - pos >= minimum;
+    }
+    long start = windowStart + pos;
+    int size = (int) Math.min(windowSize, end - start);
+    buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+    view = null;
+    lineStart -= pos;
+    windowStart = start;
+    pos = 0;
+    limit = size;
+    return limit >= minimum;
+  }
+
+  /**
+   * Decodes {@code length} bytes starting at {@code start}.
+   */
+  private String decode(int start, int length, Charset charset) {
+    if (buffer.hasArray()) {
+      return new String(buffer.array(), buffer.arrayOffset() + start, length, charset);
+    }
+    if (scratch == null || scratch.length < length) {
+      scratch = new byte[Math.max(length, 64)];
+    }
+    if (view == null) {
+      view = buffer.duplicate();
+    }
+    // Buffer's methods return Buffer before Java 9.
+    ((Buffer) view).limit(start + length);
+    ((Buffer) view).position(start);
+    view.get(scratch, 0, length);
+    return new String(scratch, 0, length, charset);
+  }
+
+  /**
+   * Returns the next byte in the stream that is neither whitespace nor a
+   * part of a comment. When this returns, the returned byte is always at
+   * {@code buffer.get(pos - 1)}; this means the caller can always push back
+   * the returned byte by decrementing {@code pos}.
+   */
+  @Override int nextNonWhitespace(boolean throwOnEof) throws IOException {
+    // Locals 'p' and 'l' save field reads per whitespace byte; see JsonReader.
+    ByteBuffer buffer = this.buffer;
+    int p = pos;
+    int l = limit;
+    while (true) {
+      if (p == l) {
+        pos = p;
+        if (!fillBuffer(1)) {
+          break;
+        }
+        buffer = this.buffer;
+        p = pos;
+        l = limit;
+      }
+
+      int c = buffer.get(p++);
+      if (c == '\n') {
+        lineNumber++;
+        lineStart = p;
+        continue;
+      } else if (c == ' ' || c == '\r' || c == '\t') {
+        continue;
+      }
+
+      pos = p;
+      if ((c == '/' || c == '#') && skipComment(c)) {
+        buffer = this.buffer;
+        p = pos;
+        l = limit;
+        continue;
+      }
+      return c;
+    }
+    if (throwOnEof) {
+      throw new EOFException("End of input" + locationString());
+    } else {
+      return -1;
+    }
+  }
+
+  @Override int charAt(int index) {
+    return buffer.get(index);
+  }
+
+  @Override String substring(int start, int length) {
+    return decode(start, length, StandardCharsets.UTF_8);
+  }
+
+  @Override int maxTokenLength() {
+    return channel != null ? windowSize : Integer.MAX_VALUE;
+  }
+
+  @Override double parseNumber(int start, int length) {
+    return DoubleParser.parse(buffer, start, length);
+  }
+
+  @Override int find(JsonNames names, int start, int length) {
+    return names.find(buffer, start, length);
+  }
+
+  /**
+   * Returns the cached name in {@code [start, start + length)}, or null if it
+   * isn't short ASCII.
+   */
+  @Override String symbol(JsonSymbolTable symbols, int start, int length) {
+    return symbols.get(buffer, start, length);
+  }
+
+  /**
+   * Consumes a UTF-8 byte order mark at the start of the input.
+   */
+  @Override void consumeByteOrderMark() throws IOException {
+    if ((pos + 3 <= limit || fillBuffer(3))
+        && buffer.get(pos) == (byte) 0xef && buffer.get(pos + 1) == (byte) 0xbb
+        && buffer.get(pos + 2) == (byte) 0xbf) {
+      pos += 3;
+      lineStart = pos;
+    }
+  }
+}
@@ -0,0 +1,299 @@
+package com.villcore.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A {@link JsonWriter} that encodes UTF-8 directly into a byte buffer instead of writing chars
+ * to a {@link java.io.Writer}. The buffer is drained to an {@link OutputStream} or a {@link
+ * WritableByteChannel} whenever it fills and on {@link #flush}. Without a sink the buffer grows
+ * and holds the whole document, available from {@link #toByteArray} and {@link #asByteBuffer}.
+ *
+ * <p>Runs of ASCII that need no escaping are copied into the buffer in bulk, and escapes come
+ * from precomputed byte tables. Unpaired surrogates are written as {@code '?'}, as the JDK's
+ * UTF-8 encoder does. A buffer passed to a constructor may be reused by later writers once this
+ * one is closed.
+ */
+public final class Utf8JsonWriter extends JsonWriter {
+  private static final int DEFAULT_BUFFER_SIZE = 8192;
+  private static final int MIN_BUFFER_SIZE = 64;
+
+  private static final byte[][] ESCAPES = escapes(REPLACEMENT_CHARS);
+  private static final byte[][] HTML_SAFE_ESCAPES = escapes(HTML_SAFE_REPLACEMENT_CHARS);
+  private static final byte[] LINE_SEPARATOR_ESCAPE = "\\u2028".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] PARAGRAPH_SEPARATOR_ESCAPE = "\\u2029".getBytes(StandardCharsets.US_ASCII);
+
+  private final OutputStream out;
+  private final WritableByteChannel channel;
+  private byte[] buffer;
+  private int pos;
+
+  /**
+   * Creates a writer that keeps the whole document in memory.
+   */
+  public Utf8JsonWriter() {
+    this(null, null, new byte[DEFAULT_BUFFER_SIZE]);
+  }
+
+  public Utf8JsonWriter(OutputStream out) {
+    this(out, new byte[DEFAULT_BUFFER_SIZE]);
+  }
+
+  /**
+   * Creates a writer that encodes into {@code buffer} and drains it to {@code out}.
+   */
+  public Utf8JsonWriter(OutputStream out, byte[] buffer) {
+    this(checkNotNull(out, "out == null"), null, buffer);
+  }
+
+  public Utf8JsonWriter(WritableByteChannel channel) {
+    this(channel, new byte[DEFAULT_BUFFER_SIZE]);
+  }
+
+  /**
+   * Creates a writer that encodes into {@code buffer} and drains it to {@code channel}.
+   */
+  public Utf8JsonWriter(WritableByteChannel channel, byte[] buffer) {
+    this(null, checkNotNull(channel, "channel == null"), buffer);
+  }
+
+  private Utf8JsonWriter(OutputStream out, WritableByteChannel channel, byte[] buffer) {
+    if (buffer.length < MIN_BUFFER_SIZE) {
+      throw new IllegalArgumentException("buffer.length < " + MIN_BUFFER_SIZE);
+    }
+    this.out = out;
+    this.channel = channel;
+    this.buffer = buffer;
+  }
+
+  private static <T> T checkNotNull(T value, String message) {
+    if (value == null) {
+      throw new NullPointerException(message);
+    }
+    return value;
+  }
+
+  private static byte[][] escapes(String[] replacements) {
+    byte[][] result = new byte[replacements.length][];
+    for (int i = 0; i < replacements.length; i++) {
+      if (replacements[i] != null) {
+        result[i] = replacements[i].getBytes(StandardCharsets.US_ASCII);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of bytes written and not yet drained to the sink.
+   */
+  public int size() {
+    return pos;
+  }
+
+  /**
+   * Returns a copy of the bytes written by a writer without a sink.
+   */
+  public byte[] toByteArray() {
+    checkInMemory();
+    return Arrays.copyOf(buffer, pos);
+  }
+
+  /**
+   * Returns a read-only view of the bytes written by a writer without a sink. The view isn't
+   * copied and is only valid until the next write.
+   */
+  public ByteBuffer asByteBuffer() {
+    checkInMemory();
+    return ByteBuffer.wrap(buffer, 0, pos).asReadOnlyBuffer();
+  }
+
+  private void checkInMemory() {
+    if (out != null || channel != null) {
+      throw new IllegalStateException("Output is written to a sink");
+    }
+  }
+
+  @Override void write(String s) throws IOException {
+    int length = s.length();
+    int i = 0;
+    while (i < length) {
+      int run = i;
+      while (run < length && s.charAt(run) < 0x80) {
+        run++;
+      }
+      writeAscii(s, i, run);
+      i = run < length ? writeNonAscii(s, run, length) : run;
+    }
+  }
+
+  @Override void write(char c) throws IOException {
+    if (c < 0x80) {
+      require(1);
+      buffer[pos++] = (byte) c;
+    } else {
+      writeNonAscii(String.valueOf(c), 0, 1);
+    }
+  }
+
+  @Override void writeLong(long value) throws IOException {
+    require(DecimalFormatter.MAX_LENGTH);
+    pos = DecimalFormatter.formatLong(value, buffer, pos);
+  }
+
+  @Override void writeDouble(double value) throws IOException {
+    require(DecimalFormatter.MAX_LENGTH);
+    pos = DecimalFormatter.formatDouble(value, buffer, pos);
+  }
+
+  @Override void writeFloat(float value) throws IOException {
+    require(DecimalFormatter.MAX_LENGTH);
+    pos = DecimalFormatter.formatFloat(value, buffer, pos);
+  }
+
+  @Override void string(String value) throws IOException {
+    byte[][] escapes = isHtmlSafe() ? HTML_SAFE_ESCAPES : ESCAPES;
+    write('"');
+    int last = 0;
+    int length = value.length();
+    for (int i = 0; i < length; ) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        byte[] escape = escapes[c];
+        if (escape == null) {
+          i++;
+          continue;
+        }
+        writeAscii(value, last, i);
+        writeBytes(escape);
+        i++;
+      } else {
+        writeAscii(value, last, i);
+        if (c == '\u2028') {
+          writeBytes(LINE_SEPARATOR_ESCAPE);
+          i++;
+        } else if (c == '\u2029') {
+          writeBytes(PARAGRAPH_SEPARATOR_ESCAPE);
+          i++;
+        } else {
+          i = writeNonAscii(value, i, length);
+        }
+      }
+      last = i;
+    }
+    writeAscii(value, last, length);
+    write('"');
+  }
+
+  /**
+   * Copies the chars of {@code s} in {@code [from, to)}, which are all ASCII, in bulk.
+   */
+  @SuppressWarnings("deprecation") // String.getBytes(int, int, byte[], int) is exact for ASCII
+  private void writeAscii(String s, int from, int to) throws IOException {
+    while (from < to) {
+      int n = to - from;
+      if (pos + n > buffer.length) {
+        if (hasSink()) {
+          drain();
+          n = Math.min(n, buffer.length);
+        } else {
+          grow(pos + n);
+        }
+      }
+      s.getBytes(from, from + n, buffer, pos);
+      pos += n;
+      from += n;
+    }
+  }
+
+  /**
+   * Encodes the non-ASCII char at {@code i}, or the surrogate pair starting there, and returns
+   * the index after it.
+   */
+  private int writeNonAscii(String s, int i, int end) throws IOException {
+    require(4);
+    byte[] buffer = this.buffer;
+    char c = s.charAt(i);
+    if (c < 0x800) {
+      buffer[pos++] = (byte) (0xc0 | c >> 6);
+      buffer[pos++] = (byte) (0x80 | c & 0x3f);
+    } else if (!Character.isSurrogate(c)) {
+      buffer[pos++] = (byte) (0xe0 | c >> 12);
+      buffer[pos++] = (byte) (0x80 | c >> 6 & 0x3f);
+      buffer[pos++] = (byte) (0x80 | c & 0x3f);
+    } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(s.charAt(i + 1))) {
+      int codePoint = Character.toCodePoint(c, s.charAt(i + 1));
+      buffer[pos++] = (byte) (0xf0 | codePoint >> 18);
+      buffer[pos++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+      buffer[pos++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+      buffer[pos++] = (byte) (0x80 | codePoint & 0x3f);
+      return i + 2;
+    } else {
+      buffer[pos++] = '?';
+    }
+    return i + 1;
+  }
+
+  private void writeBytes(byte[] bytes) throws IOException {
+    require(bytes.length);
+    System.arraycopy(bytes, 0, buffer, pos, bytes.length);
+    pos += bytes.length;
+  }
+
+  /**
+   * Makes room for {@code n} more bytes, which must fit in the buffer.
+   */
+  private void require(int n) throws IOException {
+    if (pos + n > buffer.length) {
+      if (hasSink()) {
+        drain();
+      } else {
+        grow(pos + n);
+      }
+    }
+  }
+
+  private void grow(int minCapacity) {
+    buffer = Arrays.copyOf(buffer, Math.max(minCapacity, buffer.length * 2));
+  }
+
+  private boolean hasSink() {
+    return out != null || channel != null;
+  }
+
+  private void drain() throws IOException {
+    if (pos == 0) {
+      return;
+    }
+    if (out != null) {
+      out.write(buffer, 0, pos);
+    } else if (channel != null) {
+      ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, pos);
+      while (bytes.hasRemaining()) {
+        channel.write(bytes);
+      }
+    } else {
+      return;
+    }
+    pos = 0;
+  }
+
+  @Override void flushOutput() throws IOException {
+    drain();
+    if (out != null) {
+      out.flush();
+    }
+  }
+
+  @Override void closeOutput() throws IOException {
+    drain();
+    if (out != null) {
+      out.close();
+    } else if (channel != null) {
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package com.villcore.visitor;
+
+/**
+ * A {@link Visitor} that is also handed the arrays found while descending into tagged values. Each
+ * array is passed in one call, as a range of {@code length} elements starting at {@code offset},
+ * instead of one call per element. Primitive arrays are passed without boxing.
+ *
+ * <p>Every method does nothing by default; override the ones for the array types of interest. The
+ * arrays are the visited objects themselves, not copies.
+ */
+public interface ArrayVisitor extends Visitor {
+    default void visitArray(boolean[] values, int offset, int length) {
+    }
+
+    default void visitArray(byte[] values, int offset, int length) {
+    }
+
+    default void visitArray(short[] values, int offset, int length) {
+    }
+
+    default void visitArray(char[] values, int offset, int length) {
+    }
+
+    default void visitArray(int[] values, int offset, int length) {
+    }
+
+    default void visitArray(long[] values, int offset, int length) {
+    }
+
+    default void visitArray(float[] values, int offset, int length) {
+    }
+
+    default void visitArray(double[] values, int offset, int length) {
+    }
+
+    /**
+     * Called for arrays of references before their elements are descended into.
+     */
+    default void visitArray(Object[] values, int offset, int length) {
+    }
+}
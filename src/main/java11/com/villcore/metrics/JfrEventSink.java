@@ -0,0 +1,105 @@
+package com.villcore.metrics;
+
+import com.villcore.annotations.Tag;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.lang.reflect.Field;
+
+/**
+ * Flight Recorder implementation of {@link FlightRecorderEvents.Sink}. Loaded reflectively, so
+ * nothing here is linked on JVMs without {@code jdk.jfr}.
+ */
+final class JfrEventSink extends FlightRecorderEvents.Sink {
+
+    @Override
+    Object beginAdapterCreation() {
+        AdapterCreationEvent event = new AdapterCreationEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void commitAdapterCreation(Object event, String type, String factory) {
+        AdapterCreationEvent e = (AdapterCreationEvent) event;
+        e.end();
+        if (e.shouldCommit()) {
+            e.type = type;
+            e.factory = factory;
+            e.commit();
+        }
+    }
+
+    @Override
+    Object beginVisit() {
+        VisitEvent event = new VisitEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void commitVisit(Object event, Class<?> rootType, long nodes) {
+        VisitEvent e = (VisitEvent) event;
+        e.end();
+        if (e.shouldCommit()) {
+            e.rootType = rootType;
+            e.nodes = nodes;
+            e.commit();
+        }
+    }
+
+    @Override
+    void commitSlowCallback(Class<?> targetType, Field field, Tag tag, long nanos) {
+        SlowVisitorCallbackEvent e = new SlowVisitorCallbackEvent();
+        if (e.shouldCommit()) {
+            e.targetType = targetType;
+            e.field = field.getName();
+            e.tag = tag == null ? null : tag.name();
+            e.callbackDuration = nanos;
+            e.commit();
+        }
+    }
+
+    @Name("com.villcore.AdapterCreation")
+    @Label("Adapter Creation")
+    @Category("Object Field Visitor")
+    static final class AdapterCreationEvent extends Event {
+        @Label("Type")
+        String type;
+
+        @Label("Factory")
+        String factory;
+    }
+
+    @Name("com.villcore.Visit")
+    @Label("Visit")
+    @Category("Object Field Visitor")
+    static final class VisitEvent extends Event {
+        @Label("Root Type")
+        Class<?> rootType;
+
+        @Label("Nodes")
+        long nodes;
+    }
+
+    @Name("com.villcore.SlowVisitorCallback")
+    @Label("Slow Visitor Callback")
+    @Category("Object Field Visitor")
+    static final class SlowVisitorCallbackEvent extends Event {
+        @Label("Target Type")
+        Class<?> targetType;
+
+        @Label("Field")
+        String field;
+
+        @Label("Tag")
+        String tag;
+
+        @Label("Callback Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long callbackDuration;
+    }
+}
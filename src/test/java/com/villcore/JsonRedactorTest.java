@@ -0,0 +1,213 @@
+package com.villcore;
+
+import com.villcore.annotations.SerializedName;
+import com.villcore.annotations.Tag;
+import com.villcore.stream.JsonReader;
+import com.villcore.stream.JsonToken;
+import com.villcore.stream.JsonWriter;
+import com.villcore.stream.Utf8JsonReader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class JsonRedactorTest {
+    /** Replaces each tagged value with its tag and path. */
+    private static final JsonRedactor.ValueTransformer LABEL = new JsonRedactor.ValueTransformer() {
+        @Override
+        public void transform(String tag, JsonReader in, JsonWriter out) throws IOException {
+            String path = in.getPath();
+            in.skipValue();
+            out.value(tag + "@" + path);
+        }
+    };
+
+    private final ObjectFieldHelper helper = new ObjectFieldHelper();
+
+    @Test
+    public void nestedFields() throws IOException {
+        JsonRedactor redactor = JsonRedactor.forType(helper, User.class, LABEL);
+
+        assertRedacts(redactor,
+                "{'token':'t','payload':{'street_name':'s','city':'c'},'ssn':123,'name':'n',"
+                        + "'home':{'city':'x','street_name':{'deep':[1,2]}},'unknown':{'ssn':[true,null]}}",
+                "{'token':'secret@$.token','payload':{'street_name':'pii@$.payload.street_name','city':'c'},"
+                        + "'ssn':'pii@$.ssn','name':'n','home':{'city':'x','street_name':'pii@$.home.street_name'},"
+                        + "'unknown':{'ssn':[true,null]}}");
+    }
+
+    @Test
+    public void arraysCollectionsAndRecursion() throws IOException {
+        JsonRedactor redactor = JsonRedactor.forType(helper, User.class, LABEL);
+
+        assertRedacts(redactor,
+                "{'others':[{'street_name':'a'},{'city':'b'}],'arr':[{'street_name':'q'}],"
+                        + "'tree':{'label':'r','owner':'o','children':[{'owner':'o2','children':[{'owner':'o3'}]}]}}",
+                "{'others':[{'street_name':'pii@$.others[0].street_name'},{'city':'b'}],"
+                        + "'arr':[{'street_name':'pii@$.arr[0].street_name'}],"
+                        + "'tree':{'label':'r','owner':'pii@$.tree.owner','children':[{'owner':'pii@$.tree.children[0].owner',"
+                        + "'children':[{'owner':'pii@$.tree.children[0].children[0].owner'}]}]}}");
+    }
+
+    @Test
+    public void mapValues() throws IOException {
+        JsonRedactor redactor = JsonRedactor.forType(helper, User.class, LABEL);
+
+        assertRedacts(redactor,
+                "{'byKind':{'w':{'street_name':'k','city':'c'},'z':null,'street_name':{'street_name':1}}}",
+                "{'byKind':{'w':{'street_name':'pii@$.byKind.w.street_name','city':'c'},'z':null,"
+                        + "'street_name':{'street_name':'pii@$.byKind.street_name.street_name'}}}");
+    }
+
+    @Test
+    public void valuesDeclaredAsObjectOrUntaggedTypesAreCopied() throws IOException {
+        assertRedacts(JsonRedactor.forType(helper, User.class, LABEL),
+                "{'dyn':{'ssn':1,'n':1.50e3}}", "{'dyn':{'ssn':1,'n':1.50e3}}");
+        assertRedacts(JsonRedactor.forType(helper, String.class, LABEL),
+                "{'a':[1e5,-0,'s']}", "{'a':[1e5,-0,'s']}");
+    }
+
+    @Test
+    public void listedSubtypesAreMatchedByName() throws IOException {
+        String json = "{'pet':{'name':'rex','chip':'c1','owner':{'ssn':1}},"
+                + "'pets':[{'name':'tom','lives':{'ssn':2}},{'chip':'c2'}],'dyn':{'chip':'c3'}}";
+
+        // without the subtypes only Pet's own fields are known
+        assertRedacts(JsonRedactor.forType(helper, Household.class, LABEL), json,
+                "{'pet':{'name':'rex','chip':'c1','owner':{'ssn':1}},"
+                        + "'pets':[{'name':'tom','lives':{'ssn':2}},{'chip':'c2'}],'dyn':{'chip':'c3'}}");
+
+        assertRedacts(JsonRedactor.forType(helper, Household.class, LABEL, Dog.class, Cat.class), json,
+                "{'pet':{'name':'rex','chip':'chip@$.pet.chip','owner':{'ssn':'pii@$.pet.owner.ssn'}},"
+                        + "'pets':[{'name':'tom','lives':{'ssn':'pii@$.pets[0].lives.ssn'}},{'chip':'chip@$.pets[1].chip'}],"
+                        + "'dyn':{'chip':'chip@$.dyn.chip'}}");
+    }
+
+    @Test
+    public void forPaths() throws IOException {
+        Map<String, String> paths = new LinkedHashMap<String, String>();
+        // like a name over *, an index takes precedence over [*]: only c is redacted in a[1]
+        paths.put("$.a[*].b", "x");
+        paths.put("$.a[1].c", "i");
+        paths.put("$.m.*.s", "y");
+        paths.put("$.m.keep.t", "z");
+        paths.put("$.whole", "w");
+        paths.put("$.whole.inner", "ignored");
+        paths.put("$.list[2]", "e");
+        JsonRedactor redactor = JsonRedactor.forPaths(paths, JsonRedactor.mask("***"));
+
+        assertRedacts(redactor,
+                "{'a':[{'b':1,'c':2},{'b':{'x':1},'c':3}],'m':{'q':{'s':1,'t':2},'keep':{'s':1,'t':2}},"
+                        + "'whole':{'inner':1},'list':[1,[2],{},4],'other':'\\u2028\\''}",
+                "{'a':[{'b':'***','c':2},{'b':{'x':1},'c':'***'}],'m':{'q':{'s':'***','t':2},'keep':{'s':1,'t':'***'}},"
+                        + "'whole':'***','list':[1,[2],'***',4],'other':'\\u2028\\''}");
+        assertRedacts(JsonRedactor.forPaths(Collections.singletonMap("$", "all"), JsonRedactor.mask("-")),
+                "[1,2]", "'-'");
+    }
+
+    @Test
+    public void malformedPaths() {
+        for (String path : new String[] {"a.b", "$..a", "$.a[", "$.a[x]", "$.a[-1]", "$.a[]"}) {
+            try {
+                JsonRedactor.forPaths(Collections.singletonMap(path, "t"), LABEL);
+                fail(path);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void streamOfValues() throws IOException {
+        JsonRedactor redactor = JsonRedactor.forType(helper, User.class, LABEL);
+        JsonReader in = new JsonReader(new StringReader("{\"ssn\":1} {\"ssn\":2}"));
+        in.setLenient(true);
+        StringWriter written = new StringWriter();
+        JsonWriter out = new JsonWriter(written);
+        out.setLenient(true);
+        while (in.peek() != JsonToken.END_DOCUMENT) {
+            redactor.redact(in, out);
+        }
+        out.flush();
+        assertEquals("{\"ssn\":\"pii@$.ssn\"}{\"ssn\":\"pii@$.ssn\"}", written.toString());
+    }
+
+    /**
+     * Redacts {@code json} with both readers. Single quotes stand for double quotes.
+     */
+    private static void assertRedacts(JsonRedactor redactor, String json, String expected) throws IOException {
+        json = json.replace('\'', '"');
+        expected = expected.replace('\'', '"');
+        JsonReader[] readers = {
+                new JsonReader(new StringReader(json)),
+                new Utf8JsonReader(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8))),
+        };
+        for (JsonReader in : readers) {
+            StringWriter written = new StringWriter();
+            JsonWriter out = new JsonWriter(written);
+            redactor.redact(in, out);
+            out.flush();
+            assertEquals(JsonToken.END_DOCUMENT, in.peek());
+            assertEquals(expected, written.toString());
+        }
+    }
+
+    static class Base<T> {
+        @Tag(name = "secret", klass = String.class) String token;
+        T payload;
+    }
+
+    static class Address {
+        @Tag(name = "pii", klass = String.class) @SerializedName("street_name") String street;
+        String city;
+    }
+
+    static class TreeNode {
+        String label;
+        @Tag(name = "pii", klass = String.class) String owner;
+        List<TreeNode> children;
+    }
+
+    static class User extends Base<Address> {
+        @Tag(name = "pii", klass = String.class) String ssn;
+        String name;
+        Address home;
+        List<Address> others;
+        Address[] arr;
+        Map<String, Address> byKind;
+        TreeNode tree;
+        Object dyn;
+    }
+
+    static class Person {
+        @Tag(name = "pii", klass = String.class) String ssn;
+    }
+
+    static class Pet {
+        String name;
+    }
+
+    static class Dog extends Pet {
+        @Tag(name = "chip", klass = String.class) String chip;
+        Person owner;
+    }
+
+    static class Cat extends Pet {
+        Person lives;
+    }
+
+    static class Household {
+        Pet pet;
+        List<Pet> pets;
+        Object dyn;
+    }
+}
@@ -0,0 +1,215 @@
+package com.villcore;
+
+import com.villcore.PlanNode.Kind;
+import com.villcore.annotations.JsonAdapter;
+import com.villcore.annotations.Tag;
+import com.villcore.internal.Excluder;
+import com.villcore.reflect.TypeToken;
+import com.villcore.visitor.Visitor;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LeafTypesTest {
+
+    @Test
+    public void userFactoriesTakePrecedence() throws Exception {
+        final List<String> seen = new ArrayList<String>();
+        TypeAdapterFactory strings = new TypeAdapterFactory() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> TypeAdapter<T> create(ObjectFieldHelper context, TypeToken<T> type) {
+                if (type.getRawType() != String.class) {
+                    return null;
+                }
+                return (TypeAdapter<T>) new TypeAdapter<String>() {
+                    @Override
+                    public void visit(String value, Visitor visitor) throws IOException {
+                        seen.add(value);
+                    }
+                };
+            }
+        };
+        ObjectFieldHelper helper = newHelper(false, strings);
+
+        Names names = new Names();
+        names.first = "a";
+        names.others = Arrays.asList("b", "c");
+        helper.visit(names, NO_OP);
+
+        assertEquals(Arrays.asList("a", "b", "c"), seen);
+    }
+
+    @Test
+    public void jsonAdapterOnTheTypeTakesPrecedence() {
+        ObjectFieldHelper helper = new ObjectFieldHelper();
+
+        assertFalse(LeafTypes.isLeafAdapter(helper.getAdapter(Color.class)));
+        assertEquals(Kind.CUSTOM, helper.explain(Color.class).getKind());
+    }
+
+    @Test
+    public void specialFloatingPointValuesAreStillChecked() throws Exception {
+        Measurement measurement = new Measurement();
+        measurement.value = Double.NaN;
+        try {
+            new ObjectFieldHelper().visit(measurement, NO_OP);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+
+        measurement.value = 1.0;
+        measurement.samples = Arrays.asList(1.0, Double.POSITIVE_INFINITY);
+        try {
+            new ObjectFieldHelper().visit(measurement, NO_OP);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+
+        newHelper(true).visit(measurement, NO_OP);
+    }
+
+    @Test
+    public void explainNamesTheLeafFactory() {
+        PlanNode plan = new ObjectFieldHelper().explain(Thread.State.class);
+
+        assertEquals(Kind.LEAF, plan.getKind());
+        assertNotNull(plan.getFactory());
+    }
+
+    @Test
+    public void addedTypesApplyOnlyToHelpersConfiguredWithThem() throws Exception {
+        ObjectFieldHelper helper = new ObjectFieldHelper();
+        Wallet wallet = new Wallet();
+        wallet.money = new Money();
+        wallet.money.cents = 250L;
+        assertEquals(Arrays.asList("cents", "money"), visitedNames(helper, wallet));
+
+        ObjectFieldHelper leaves = helper.withLeafTypes(helper.getLeafTypes().withType(Money.class));
+        assertEquals(Collections.singletonList("money"), visitedNames(leaves, wallet));
+        assertTrue(LeafTypes.isLeafAdapter(leaves.getAdapter(Money.class)));
+
+        // neither the helper it was derived from nor helpers created afterwards see the addition
+        assertEquals(Arrays.asList("cents", "money"), visitedNames(helper, wallet));
+        assertEquals(Arrays.asList("cents", "money"), visitedNames(new ObjectFieldHelper(), wallet));
+        assertEquals(LeafTypes.DEFAULT, new ObjectFieldHelper().getLeafTypes());
+    }
+
+    @Test
+    public void hierarchiesAndPackages() {
+        LeafTypes hierarchy = LeafTypes.DEFAULT.withHierarchy(Money.class);
+        assertTrue(hierarchy.isLeaf(Money.class));
+        assertTrue(hierarchy.isLeaf(ForeignMoney.class));
+        assertFalse(LeafTypes.DEFAULT.withType(Money.class).isLeaf(ForeignMoney.class));
+
+        LeafTypes packages = LeafTypes.DEFAULT.withPackage("com.villcore");
+        assertTrue(packages.isLeaf(Money.class));
+        assertTrue(packages.isLeaf(Excluder.class));
+        assertFalse(packages.isLeaf(List.class));
+        assertFalse(LeafTypes.DEFAULT.withPackage("com.vill").isLeaf(Money.class));
+    }
+
+    @Test
+    public void leafTypesAreValues() {
+        assertEquals(LeafTypes.DEFAULT.withType(Money.class), LeafTypes.DEFAULT.withType(Money.class));
+        assertEquals(LeafTypes.DEFAULT.withType(Money.class).hashCode(),
+                LeafTypes.DEFAULT.withType(Money.class).hashCode());
+        assertEquals(LeafTypes.DEFAULT.withPackage("com.villcore"), LeafTypes.DEFAULT.withPackage("com.villcore."));
+        assertEquals(LeafTypes.DEFAULT.withType(Money.class).withHierarchy(Names.class),
+                LeafTypes.DEFAULT.withHierarchy(Names.class).withType(Money.class));
+        assertSame(LeafTypes.DEFAULT, LeafTypes.DEFAULT.withType(String.class));
+
+        assertNotEquals(LeafTypes.DEFAULT, LeafTypes.DEFAULT.withType(Money.class));
+        assertNotEquals(LeafTypes.DEFAULT.withType(Money.class), LeafTypes.DEFAULT.withHierarchy(Money.class));
+        assertFalse(LeafTypes.DEFAULT.isLeaf(Money.class));
+    }
+
+    private static List<String> visitedNames(ObjectFieldHelper helper, Object target) throws Exception {
+        final List<String> names = new ArrayList<String>();
+        helper.visit(target, new Visitor() {
+            @Override
+            public void startVisit(Object target) {
+            }
+
+            @Override
+            public void visit(Object target, Field field, Tag tag, String name, Object value) {
+                names.add(name);
+            }
+
+            @Override
+            public void completeVisit(Object target) {
+            }
+        });
+        return names;
+    }
+
+    private static ObjectFieldHelper newHelper(boolean serializeSpecialFloatingPointValues,
+                                               TypeAdapterFactory... factories) {
+        return new ObjectFieldHelper(Excluder.DEFAULT, FieldNamingPolicy.IDENTITY,
+                Collections.<Type, InstanceCreator<?>>emptyMap(), ObjectFieldHelper.DEFAULT_SERIALIZE_NULLS,
+                ObjectFieldHelper.DEFAULT_COMPLEX_MAP_KEYS, ObjectFieldHelper.DEFAULT_JSON_NON_EXECUTABLE,
+                ObjectFieldHelper.DEFAULT_ESCAPE_HTML, ObjectFieldHelper.DEFAULT_PRETTY_PRINT,
+                ObjectFieldHelper.DEFAULT_LENIENT, serializeSpecialFloatingPointValues,
+                LongSerializationPolicy.DEFAULT, Arrays.asList(factories));
+    }
+
+    private static final Visitor NO_OP = new Visitor() {
+        @Override
+        public void startVisit(Object target) {
+        }
+
+        @Override
+        public void visit(Object target, Field field, Tag tag, String name, Object value) {
+        }
+
+        @Override
+        public void completeVisit(Object target) {
+        }
+    };
+
+    static class Names {
+        @Tag(name = "first", klass = String.class) String first;
+        @Tag(name = "others", klass = List.class) List<String> others;
+    }
+
+    static class Measurement {
+        @Tag(name = "value", klass = Double.class) Double value;
+        @Tag(name = "samples", klass = List.class) List<Double> samples;
+    }
+
+    static class Wallet {
+        @Tag(name = "money", klass = Money.class) Money money;
+    }
+
+    static class Money {
+        @Tag(name = "cents", klass = Long.class) Long cents;
+    }
+
+    static class ForeignMoney extends Money {
+    }
+
+    @JsonAdapter(ColorAdapter.class)
+    enum Color {
+        RED, GREEN
+    }
+
+    public static class ColorAdapter extends TypeAdapter<Color> {
+        @Override
+        public void visit(Color value, Visitor visitor) throws IOException {
+        }
+    }
+}
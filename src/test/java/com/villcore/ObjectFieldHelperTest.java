@@ -0,0 +1,449 @@
+package com.villcore;
+
+import com.villcore.annotations.Tag;
+import com.villcore.internal.Excluder;
+import com.villcore.metrics.TraversalMetrics;
+import com.villcore.reflect.TypeToken;
+import com.villcore.visitor.Visitor;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ObjectFieldHelperTest {
+
+    @Test
+    public void concurrentResolutionOfCyclicTypes() throws Exception {
+        final CountDownLatch creatingParent = new CountDownLatch(1);
+        final CountDownLatch childResolved = new CountDownLatch(1);
+        TypeAdapterFactory pause = new TypeAdapterFactory() {
+            @Override
+            public <T> TypeAdapter<T> create(ObjectFieldHelper context, TypeToken<T> type) {
+                if (type.getRawType() == Parent.class && creatingParent.getCount() > 0) {
+                    creatingParent.countDown();
+                    await(childResolved);
+                }
+                return null;
+            }
+        };
+        final ObjectFieldHelper helper = newHelper(pause);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<TypeAdapter<Parent>> parent = executor.submit(new Callable<TypeAdapter<Parent>>() {
+                @Override
+                public TypeAdapter<Parent> call() {
+                    return helper.getAdapter(Parent.class);
+                }
+            });
+            assertTrue(creatingParent.await(10, TimeUnit.SECONDS));
+            // resolves Child, and Parent again, while the first thread is creating Parent
+            Future<TypeAdapter<Child>> child = executor.submit(new Callable<TypeAdapter<Child>>() {
+                @Override
+                public TypeAdapter<Child> call() {
+                    return helper.getAdapter(Child.class);
+                }
+            });
+            TypeAdapter<Child> childAdapter = child.get(10, TimeUnit.SECONDS);
+            childResolved.countDown();
+
+            assertSame(helper.getAdapter(Parent.class), parent.get(10, TimeUnit.SECONDS));
+            assertSame(helper.getAdapter(Child.class), childAdapter);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(3, countVisits(helper, newChild()));
+    }
+
+    @Test
+    public void unrelatedTypesResolveConcurrently() throws Exception {
+        final CountDownLatch creatingParent = new CountDownLatch(1);
+        final CountDownLatch petResolved = new CountDownLatch(1);
+        final ObjectFieldHelper helper = newHelper(new TypeAdapterFactory() {
+            @Override
+            public <T> TypeAdapter<T> create(ObjectFieldHelper context, TypeToken<T> type) {
+                if (type.getRawType() == Parent.class) {
+                    // a factory that waits for another thread's resolution
+                    creatingParent.countDown();
+                    await(petResolved);
+                }
+                return null;
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<TypeAdapter<Parent>> parent = executor.submit(new Callable<TypeAdapter<Parent>>() {
+                @Override
+                public TypeAdapter<Parent> call() {
+                    return helper.getAdapter(Parent.class);
+                }
+            });
+            assertTrue(creatingParent.await(10, TimeUnit.SECONDS));
+            Future<TypeAdapter<Pet>> pet = executor.submit(new Callable<TypeAdapter<Pet>>() {
+                @Override
+                public TypeAdapter<Pet> call() {
+                    return helper.getAdapter(Pet.class);
+                }
+            });
+            assertSame(helper.getAdapter(Pet.class), pet.get(10, TimeUnit.SECONDS));
+            petResolved.countDown();
+            assertSame(helper.getAdapter(Parent.class), parent.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void concurrentResolutionOfOneTypePublishesOneAdapter() throws Exception {
+        final CyclicBarrier bothCreating = new CyclicBarrier(2);
+        final ObjectFieldHelper helper = newHelper(new TypeAdapterFactory() {
+            @Override
+            public <T> TypeAdapter<T> create(ObjectFieldHelper context, TypeToken<T> type) {
+                if (type.getRawType() == Owner.class) {
+                    try {
+                        bothCreating.await(10, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        throw new AssertionError(e);
+                    }
+                }
+                return null;
+            }
+        });
+        Callable<TypeAdapter<Owner>> resolve = new Callable<TypeAdapter<Owner>>() {
+            @Override
+            public TypeAdapter<Owner> call() {
+                return helper.getAdapter(Owner.class);
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<TypeAdapter<Owner>> first = executor.submit(resolve);
+            Future<TypeAdapter<Owner>> second = executor.submit(resolve);
+            TypeAdapter<Owner> adapter = first.get(10, TimeUnit.SECONDS);
+            assertSame(adapter, second.get(10, TimeUnit.SECONDS));
+            assertSame(adapter, helper.getAdapter(Owner.class));
+        } finally {
+            executor.shutdownNow();
+        }
+        Owner owner = new Owner();
+        owner.pet = new Pet();
+        owner.pet.owner = new Owner();
+        assertEquals(3, countVisits(helper, owner));
+    }
+
+    @Test
+    public void failedResolutionPublishesNothing() throws Exception {
+        final CountDownLatch creatingBoom = new CountDownLatch(1);
+        final CountDownLatch listResolved = new CountDownLatch(1);
+        final AtomicBoolean failOnce = new AtomicBoolean(true);
+        TypeAdapterFactory boom = new TypeAdapterFactory() {
+            @Override
+            public <T> TypeAdapter<T> create(ObjectFieldHelper context, TypeToken<T> type) {
+                if (type.getRawType() == Boom.class && failOnce.getAndSet(false)) {
+                    // the adapter for List<Tree> and its placeholder for Tree exist by now
+                    creatingBoom.countDown();
+                    await(listResolved);
+                    throw new IllegalArgumentException("boom");
+                }
+                return null;
+            }
+        };
+        final ObjectFieldHelper helper = newHelper(boom);
+        final TypeToken<List<Tree>> listOfTrees = new TypeToken<List<Tree>>() {};
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<TypeAdapter<Tree>> tree = executor.submit(new Callable<TypeAdapter<Tree>>() {
+                @Override
+                public TypeAdapter<Tree> call() {
+                    return helper.getAdapter(Tree.class);
+                }
+            });
+            assertTrue(creatingBoom.await(10, TimeUnit.SECONDS));
+            // never sees the first thread's placeholder for Tree
+            Future<TypeAdapter<List<Tree>>> list = executor.submit(new Callable<TypeAdapter<List<Tree>>>() {
+                @Override
+                public TypeAdapter<List<Tree>> call() {
+                    return helper.getAdapter(listOfTrees);
+                }
+            });
+            assertNotNull(list.get(10, TimeUnit.SECONDS));
+            listResolved.countDown();
+
+            try {
+                tree.get(10, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException expected) {
+                assertEquals("boom", expected.getCause().getMessage());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        List<Tree> trees = new ArrayList<Tree>();
+        trees.add(new Tree());
+        trees.add(new Tree());
+        trees.get(0).children = new ArrayList<Tree>(trees.subList(1, 2));
+        assertEquals(3, countVisits(helper, trees, listOfTrees.getType()));
+        assertEquals(2, countVisits(helper, trees.get(0)));
+    }
+
+    @Test
+    public void failedResolutionDiscardsPartialPlans() throws Exception {
+        final AtomicBoolean failOnce = new AtomicBoolean(true);
+        ObjectFieldHelper helper = newHelper(new TypeAdapterFactory() {
+            @Override
+            public <T> TypeAdapter<T> create(ObjectFieldHelper context, TypeToken<T> type) {
+                if (type.getRawType() == Boom.class && failOnce.getAndSet(false)) {
+                    // the plan for Pet, holding a placeholder for Owner, is built by now
+                    throw new IllegalArgumentException("boom");
+                }
+                return null;
+            }
+        });
+
+        try {
+            helper.getAdapter(Owner.class);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertEquals("boom", expected.getMessage());
+        }
+        Pet pet = new Pet();
+        pet.owner = new Owner();
+        pet.owner.pet = new Pet();
+        assertEquals(3, countVisits(helper, pet));
+    }
+
+    @Test
+    public void recursiveResolutionOnOneThread() throws Exception {
+        ObjectFieldHelper helper = new ObjectFieldHelper();
+        assertSame(helper.getAdapter(Parent.class), helper.getAdapter(Parent.class));
+        assertEquals(3, countVisits(helper, newChild()));
+    }
+
+    @Test
+    public void withMapVisitingKeepsTheRestOfTheConfiguration() throws Exception {
+        final AtomicBoolean boomAsked = new AtomicBoolean();
+        ObjectFieldHelper helper = newHelper(new TypeAdapterFactory() {
+            @Override
+            public <T> TypeAdapter<T> create(ObjectFieldHelper context, TypeToken<T> type) {
+                if (type.getRawType() == Boom.class) {
+                    boomAsked.set(true);
+                }
+                return null;
+            }
+        });
+        TraversalMetrics metrics = new TraversalMetrics();
+        helper.setMetrics(metrics);
+
+        ObjectFieldHelper keys = helper.withMapVisiting(true, true);
+        assertSame(metrics, keys.getMetrics());
+        assertSame(metrics, helper.withUnsharedPlans().getMetrics());
+
+        keys.visit(new Owner(), NO_OP);
+        assertTrue(boomAsked.get());
+        assertEquals(1, metrics.getVisitCount());
+    }
+
+    @Test
+    public void equalConfigurationsShareAdapters() {
+        ObjectFieldHelper first = new ObjectFieldHelper();
+        ObjectFieldHelper second = new ObjectFieldHelper();
+        assertSame(first.getAdapter(Owner.class), second.getAdapter(Owner.class));
+
+        // equal, not identical, configuration objects
+        ObjectFieldHelper versioned = newHelper(Excluder.DEFAULT.withVersion(1.0), FieldNamingPolicy.IDENTITY,
+                false, LongSerializationPolicy.DEFAULT);
+        ObjectFieldHelper sameVersion = newHelper(Excluder.DEFAULT.withVersion(1.0), FieldNamingPolicy.IDENTITY,
+                false, LongSerializationPolicy.DEFAULT);
+        assertSame(versioned.getAdapter(Owner.class), sameVersion.getAdapter(Owner.class));
+
+        ObjectFieldHelper petLeaves = first.withLeafTypes(LeafTypes.DEFAULT.withType(Pet.class));
+        ObjectFieldHelper samePetLeaves = second.withLeafTypes(LeafTypes.DEFAULT.withType(Pet.class));
+        assertSame(petLeaves.getAdapter(Owner.class), samePetLeaves.getAdapter(Owner.class));
+    }
+
+    @Test
+    public void differingConfigurationsGetTheirOwnAdapters() {
+        ObjectFieldHelper helper = new ObjectFieldHelper();
+        TypeAdapter<Owner> shared = helper.getAdapter(Owner.class);
+
+        List<ObjectFieldHelper> others = new ArrayList<ObjectFieldHelper>();
+        others.add(newHelper(Excluder.DEFAULT, FieldNamingPolicy.UPPER_CAMEL_CASE,
+                false, LongSerializationPolicy.DEFAULT));
+        others.add(newHelper(Excluder.DEFAULT.withVersion(1.0), FieldNamingPolicy.IDENTITY,
+                false, LongSerializationPolicy.DEFAULT));
+        others.add(newHelper(Excluder.DEFAULT.withModifiers(Modifier.TRANSIENT), FieldNamingPolicy.IDENTITY,
+                false, LongSerializationPolicy.DEFAULT));
+        others.add(newHelper(Excluder.DEFAULT.disableInnerClassSerialization(), FieldNamingPolicy.IDENTITY,
+                false, LongSerializationPolicy.DEFAULT));
+        others.add(newHelper(Excluder.DEFAULT.excludeFieldsWithoutExposeAnnotation(), FieldNamingPolicy.IDENTITY,
+                false, LongSerializationPolicy.DEFAULT));
+        others.add(newHelper(Excluder.DEFAULT, FieldNamingPolicy.IDENTITY,
+                true, LongSerializationPolicy.DEFAULT));
+        others.add(newHelper(Excluder.DEFAULT, FieldNamingPolicy.IDENTITY,
+                false, LongSerializationPolicy.STRING));
+        others.add(newHelper(new TypeAdapterFactory() {
+            @Override
+            public <T> TypeAdapter<T> create(ObjectFieldHelper context, TypeToken<T> type) {
+                return null;
+            }
+        }));
+        others.add(new ObjectFieldHelper(Excluder.DEFAULT, FieldNamingPolicy.IDENTITY,
+                Collections.<Type, InstanceCreator<?>>singletonMap(Owner.class, new InstanceCreator<Owner>() {
+                    @Override
+                    public Owner createInstance(Type type) {
+                        return new Owner();
+                    }
+                }), ObjectFieldHelper.DEFAULT_SERIALIZE_NULLS,
+                ObjectFieldHelper.DEFAULT_COMPLEX_MAP_KEYS, ObjectFieldHelper.DEFAULT_JSON_NON_EXECUTABLE,
+                ObjectFieldHelper.DEFAULT_ESCAPE_HTML, ObjectFieldHelper.DEFAULT_PRETTY_PRINT,
+                ObjectFieldHelper.DEFAULT_LENIENT, ObjectFieldHelper.DEFAULT_SPECIALIZE_FLOAT_VALUES,
+                LongSerializationPolicy.DEFAULT, Collections.<TypeAdapterFactory>emptyList()));
+        others.add(helper.withMapVisiting(true, true));
+        others.add(helper.withLeafTypes(LeafTypes.DEFAULT.withType(Pet.class)));
+
+        for (int i = 0; i < others.size(); i++) {
+            TypeAdapter<Owner> adapter = others.get(i).getAdapter(Owner.class);
+            assertNotSame("helper " + i, shared, adapter);
+            for (int j = 0; j < i; j++) {
+                assertNotSame("helpers " + j + " and " + i, others.get(j).getAdapter(Owner.class), adapter);
+            }
+        }
+    }
+
+    @Test
+    public void unsharedPlansBypassTheCache() {
+        ObjectFieldHelper helper = new ObjectFieldHelper();
+        ObjectFieldHelper unshared = helper.withUnsharedPlans();
+        TypeAdapter<Owner> own = unshared.getAdapter(Owner.class);
+
+        assertNotSame(helper.getAdapter(Owner.class), own);
+        assertNotSame(own, helper.withUnsharedPlans().getAdapter(Owner.class));
+        assertSame(own, unshared.getAdapter(Owner.class));
+        // helpers created later share with the configuration's plans, not with the unshared ones
+        assertSame(helper.getAdapter(Owner.class), new ObjectFieldHelper().getAdapter(Owner.class));
+    }
+
+    private static ObjectFieldHelper newHelper(TypeAdapterFactory factory) {
+        List<TypeAdapterFactory> factories = new ArrayList<TypeAdapterFactory>();
+        factories.add(factory);
+        return new ObjectFieldHelper(Excluder.DEFAULT, FieldNamingPolicy.IDENTITY,
+                Collections.<Type, InstanceCreator<?>>emptyMap(), ObjectFieldHelper.DEFAULT_SERIALIZE_NULLS,
+                ObjectFieldHelper.DEFAULT_COMPLEX_MAP_KEYS, ObjectFieldHelper.DEFAULT_JSON_NON_EXECUTABLE,
+                ObjectFieldHelper.DEFAULT_ESCAPE_HTML, ObjectFieldHelper.DEFAULT_PRETTY_PRINT,
+                ObjectFieldHelper.DEFAULT_LENIENT, ObjectFieldHelper.DEFAULT_SPECIALIZE_FLOAT_VALUES,
+                LongSerializationPolicy.DEFAULT, factories);
+    }
+
+    private static ObjectFieldHelper newHelper(Excluder excluder, FieldNamingPolicy fieldNamingPolicy,
+                                               boolean serializeNulls,
+                                               LongSerializationPolicy longSerializationPolicy) {
+        return new ObjectFieldHelper(excluder, fieldNamingPolicy,
+                Collections.<Type, InstanceCreator<?>>emptyMap(), serializeNulls,
+                ObjectFieldHelper.DEFAULT_COMPLEX_MAP_KEYS, ObjectFieldHelper.DEFAULT_JSON_NON_EXECUTABLE,
+                ObjectFieldHelper.DEFAULT_ESCAPE_HTML, ObjectFieldHelper.DEFAULT_PRETTY_PRINT,
+                ObjectFieldHelper.DEFAULT_LENIENT, ObjectFieldHelper.DEFAULT_SPECIALIZE_FLOAT_VALUES,
+                longSerializationPolicy, Collections.<TypeAdapterFactory>emptyList());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new AssertionError("timed out");
+            }
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static Child newChild() {
+        Child child = new Child();
+        child.parent = new Parent();
+        child.parent.child = new Child();
+        return child;
+    }
+
+    private static int countVisits(ObjectFieldHelper helper, Object value) throws Exception {
+        return countVisits(helper, value, value.getClass());
+    }
+
+    private static int countVisits(ObjectFieldHelper helper, Object value, Type type) throws Exception {
+        final int[] count = new int[1];
+        helper.visit(value, type, new Visitor() {
+            @Override
+            public void startVisit(Object target) {
+            }
+
+            @Override
+            public void visit(Object target, Field field, Tag tag, String name, Object value) {
+                count[0]++;
+            }
+
+            @Override
+            public void completeVisit(Object target) {
+            }
+        });
+        return count[0];
+    }
+
+    private static final Visitor NO_OP = new Visitor() {
+        @Override
+        public void startVisit(Object target) {
+        }
+
+        @Override
+        public void visit(Object target, Field field, Tag tag, String name, Object value) {
+        }
+
+        @Override
+        public void completeVisit(Object target) {
+        }
+    };
+
+    static class Parent {
+        @Tag(name = "child", klass = Child.class) Child child;
+    }
+
+    static class Child {
+        @Tag(name = "parent", klass = Parent.class) Parent parent;
+    }
+
+    static class Tree {
+        @Tag(name = "children", klass = List.class) List<Tree> children;
+        Boom boom;
+    }
+
+    static class Owner {
+        @Tag(name = "pet", klass = Pet.class) Pet pet;
+        Boom boom;
+    }
+
+    static class Pet {
+        @Tag(name = "owner", klass = Owner.class) Owner owner;
+    }
+
+    static class Boom {
+    }
+}
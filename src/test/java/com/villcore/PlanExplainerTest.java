@@ -0,0 +1,84 @@
+package com.villcore;
+
+import com.villcore.PlanNode.Kind;
+import com.villcore.PlanNode.PlanField;
+import com.villcore.annotations.Tag;
+import com.villcore.internal.Excluder;
+import com.villcore.reflect.TypeToken;
+import com.villcore.visitor.Visitor;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PlanExplainerTest {
+
+    @Test
+    public void builtInAdaptersAreLeavesAndUserAdaptersAreCustom() {
+        TypeAdapterFactory money = new TypeAdapterFactory() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> TypeAdapter<T> create(ObjectFieldHelper context, TypeToken<T> type) {
+                if (type.getRawType() != Money.class) {
+                    return null;
+                }
+                return (TypeAdapter<T>) new TypeAdapter<Money>() {
+                    @Override
+                    public void visit(Money value, Visitor visitor) throws IOException {
+                    }
+                };
+            }
+        };
+        ObjectFieldHelper helper = new ObjectFieldHelper(Excluder.DEFAULT, FieldNamingPolicy.IDENTITY,
+                Collections.<Type, InstanceCreator<?>>emptyMap(), ObjectFieldHelper.DEFAULT_SERIALIZE_NULLS,
+                ObjectFieldHelper.DEFAULT_COMPLEX_MAP_KEYS, ObjectFieldHelper.DEFAULT_JSON_NON_EXECUTABLE,
+                ObjectFieldHelper.DEFAULT_ESCAPE_HTML, ObjectFieldHelper.DEFAULT_PRETTY_PRINT,
+                ObjectFieldHelper.DEFAULT_LENIENT, ObjectFieldHelper.DEFAULT_SPECIALIZE_FLOAT_VALUES,
+                LongSerializationPolicy.DEFAULT, Collections.singletonList(money));
+
+        PlanNode plan = helper.explain(Order.class);
+
+        assertEquals(Kind.REFLECTIVE, plan.getKind());
+        assertEquals(Kind.LEAF, field(plan, "id").getChild().getKind());
+        assertEquals(Kind.LEAF, field(plan, "created").getChild().getKind());
+        assertEquals(Kind.CUSTOM, field(plan, "total").getChild().getKind());
+    }
+
+    @Test
+    public void runtimeTypeDispatchMatchesTheWrapper() {
+        PlanNode plan = new ObjectFieldHelper().explain(Order.class);
+
+        assertFalse(field(plan, "id").isRuntimeTypeDispatch());
+        assertTrue(field(plan, "created").isRuntimeTypeDispatch());
+        assertTrue(field(plan, "lines").isRuntimeTypeDispatch());
+        assertFalse(field(plan, "notes").isRuntimeTypeDispatch());
+        assertFalse(field(plan, "notes").getChild().isElementRuntimeTypeDispatch());
+    }
+
+    private static PlanField field(PlanNode plan, String name) {
+        for (PlanField field : plan.getFields()) {
+            if (field.getName().equals(name)) {
+                return field;
+            }
+        }
+        throw new AssertionError("no field " + name);
+    }
+
+    static final class Money {
+    }
+
+    static class Order {
+        @Tag(name = "id", klass = String.class) String id;
+        @Tag(name = "created", klass = Date.class) Date created;
+        @Tag(name = "total", klass = Money.class) Money total;
+        @Tag(name = "lines", klass = Object[].class) Object[] lines;
+        @Tag(name = "notes", klass = List.class) List<String> notes;
+    }
+}
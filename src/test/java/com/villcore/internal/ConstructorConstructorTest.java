@@ -0,0 +1,144 @@
+package com.villcore.internal;
+
+import com.villcore.InstanceCreator;
+import com.villcore.reflect.TypeToken;
+import org.junit.Test;
+
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ConstructorConstructorTest {
+    private final ConstructorConstructor constructorConstructor =
+            new ConstructorConstructor(Collections.<Type, InstanceCreator<?>>emptyMap());
+
+    @Test
+    public void constructorsAreBuiltOncePerClass() {
+        assertSame(constructorConstructor.get(TypeToken.get(Public.class)),
+                constructorConstructor.get(TypeToken.get(Public.class)));
+        assertSame(constructorConstructor.get(TypeToken.get(Private.class)),
+                constructorConstructor.get(TypeToken.get(Private.class)));
+
+        assertEquals(Public.class, constructorConstructor.get(TypeToken.get(Public.class)).construct().getClass());
+        assertEquals(Private.class, constructorConstructor.get(TypeToken.get(Private.class)).construct().getClass());
+    }
+
+    @Test
+    public void exceptionsFromTheConstructorAreWrapped() {
+        for (Class<?> type : new Class<?>[] {ThrowsPublic.class, ThrowsPrivate.class}) {
+            try {
+                constructorConstructor.get(TypeToken.get(type)).construct();
+                fail();
+            } catch (RuntimeException expected) {
+                assertEquals(IllegalStateException.class, expected.getCause().getClass());
+            }
+        }
+    }
+
+    @Test
+    public void errorsFromTheConstructorAreNotWrapped() {
+        for (Class<?> type : new Class<?>[] {FailsPublic.class, FailsPrivate.class}) {
+            try {
+                constructorConstructor.get(TypeToken.get(type)).construct();
+                fail();
+            } catch (AssertionError expected) {
+                assertEquals("fails", expected.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void collectionsAndMapsTakeACapacityHint() {
+        Map<TypeToken<?>, Class<?>> expected = new LinkedHashMap<TypeToken<?>, Class<?>>();
+        expected.put(new TypeToken<List<Object>>() {}, ArrayList.class);
+        expected.put(new TypeToken<Set<Object>>() {}, LinkedHashSet.class);
+        expected.put(new TypeToken<Queue<Object>>() {}, ArrayDeque.class);
+        expected.put(new TypeToken<Map<Object, Object>>() {}, LinkedHashMap.class);
+        expected.put(new TypeToken<ConcurrentMap<Object, Object>>() {}, ConcurrentHashMap.class);
+        expected.put(new TypeToken<ArrayList<Object>>() {}, ArrayList.class);
+        expected.put(new TypeToken<HashSet<Object>>() {}, HashSet.class);
+        expected.put(new TypeToken<LinkedHashSet<Object>>() {}, LinkedHashSet.class);
+        expected.put(new TypeToken<ArrayDeque<Object>>() {}, ArrayDeque.class);
+        expected.put(new TypeToken<HashMap<Object, Object>>() {}, HashMap.class);
+        expected.put(new TypeToken<LinkedHashMap<Object, Object>>() {}, LinkedHashMap.class);
+        expected.put(new TypeToken<ConcurrentHashMap<Object, Object>>() {}, ConcurrentHashMap.class);
+
+        for (Map.Entry<TypeToken<?>, Class<?>> entry : expected.entrySet()) {
+            ObjectConstructor<?> constructor = constructorConstructor.get(entry.getKey());
+            for (int expectedSize : new int[] {-1, 0, 1, 1000}) {
+                Object instance = constructor.construct(expectedSize);
+                assertEquals(entry.getKey().toString(), entry.getValue(), instance.getClass());
+                assertEquals(entry.getKey().toString(), 0, instance instanceof Map
+                        ? ((Map<?, ?>) instance).size() : ((Collection<?>) instance).size());
+            }
+        }
+
+        // types that can't be presized ignore the hint
+        assertEquals(TreeSet.class, constructorConstructor.get(new TypeToken<SortedSet<Object>>() {})
+                .construct(10).getClass());
+        assertEquals(Public.class, constructorConstructor.get(TypeToken.get(Public.class)).construct(10).getClass());
+    }
+
+    @Test
+    public void hashCapacityAvoidsRehashing() {
+        assertEquals(1, ConstructorConstructor.hashCapacity(-1));
+        assertEquals(1, ConstructorConstructor.hashCapacity(0));
+        assertEquals(3, ConstructorConstructor.hashCapacity(2));
+        assertEquals(5, ConstructorConstructor.hashCapacity(3));
+        assertEquals(17, ConstructorConstructor.hashCapacity(12));
+        assertEquals(1366, ConstructorConstructor.hashCapacity(1024));
+        assertEquals(Integer.MAX_VALUE, ConstructorConstructor.hashCapacity(1 << 30));
+    }
+
+    public static class Public {
+        public Public() {
+        }
+    }
+
+    static class Private {
+        private Private() {
+        }
+    }
+
+    public static class ThrowsPublic {
+        public ThrowsPublic() {
+            throw new IllegalStateException();
+        }
+    }
+
+    static class ThrowsPrivate {
+        private ThrowsPrivate() {
+            throw new IllegalStateException();
+        }
+    }
+
+    public static class FailsPublic {
+        public FailsPublic() {
+            throw new AssertionError("fails");
+        }
+    }
+
+    static class FailsPrivate {
+        private FailsPrivate() {
+            throw new AssertionError("fails");
+        }
+    }
+}
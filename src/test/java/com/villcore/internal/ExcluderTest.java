@@ -0,0 +1,369 @@
+package com.villcore.internal;
+
+import com.villcore.ExclusionStrategy;
+import com.villcore.FieldAttributes;
+import com.villcore.annotations.Expose;
+import com.villcore.annotations.Since;
+import com.villcore.annotations.Until;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class ExcluderTest {
+    private static final ExclusionStrategy SKIP_NAMED = new ExclusionStrategy() {
+        @Override
+        public boolean shouldSkipField(FieldAttributes f) {
+            return f.getName().startsWith("skipped");
+        }
+
+        @Override
+        public boolean shouldSkipClass(Class<?> clazz) {
+            return clazz == Skipped.class;
+        }
+    };
+
+    private static final ExclusionStrategy SKIP_STRINGS = new ExclusionStrategy() {
+        @Override
+        public boolean shouldSkipField(FieldAttributes f) {
+            return f.getDeclaredClass() == String.class;
+        }
+
+        @Override
+        public boolean shouldSkipClass(Class<?> clazz) {
+            return clazz == String.class;
+        }
+    };
+
+    @Test
+    public void cachedDecisionsMatchUncachedOnes() {
+        Object anonymous = new Object() {
+        };
+        class Local {
+            int value;
+        }
+        List<Class<?>> classes = Arrays.asList(Fixture.class, Fixture.Inner.class, Fixture.Nested.class,
+                Old.class, New.class, Skipped.class, String.class, anonymous.getClass(), Local.class, Color.class,
+                Color.RED.getClass()); // the anonymous body of an enum constant
+
+        for (Config config : configs()) {
+            Excluder excluder = config.excluder();
+            // twice, so the second round is answered from the cache
+            for (int round = 0; round < 2; round++) {
+                for (Class<?> type : classes) {
+                    for (boolean serialize : new boolean[] {true, false}) {
+                        String message = config + " " + type + " serialize=" + serialize + " round " + round;
+                        assertEquals(message, config.excludeClass(type, serialize), excluder.excludeClass(type, serialize));
+                    }
+                    for (Field field : type.getDeclaredFields()) {
+                        for (boolean serialize : new boolean[] {true, false}) {
+                            String message = config + " " + field + " serialize=" + serialize + " round " + round;
+                            assertEquals(message, config.excludeField(field, serialize),
+                                    excluder.excludeField(field, serialize));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void strategiesSeeEachClassAndFieldOnce() throws Exception {
+        final Map<Object, Integer> asked = new HashMap<Object, Integer>();
+        ExclusionStrategy counting = new ExclusionStrategy() {
+            @Override
+            public boolean shouldSkipField(FieldAttributes f) {
+                count(f.getDeclaringClass().getName() + "." + f.getName());
+                return false;
+            }
+
+            @Override
+            public boolean shouldSkipClass(Class<?> clazz) {
+                count(clazz);
+                return false;
+            }
+
+            private void count(Object key) {
+                Integer count = asked.get(key);
+                asked.put(key, count == null ? 1 : count + 1);
+            }
+        };
+        Excluder excluder = Excluder.DEFAULT.withExclusionStrategy(counting, true, true);
+        Field field = Fixture.class.getDeclaredField("plain");
+        for (int i = 0; i < 3; i++) {
+            for (boolean serialize : new boolean[] {true, false}) {
+                excluder.excludeClass(Fixture.class, serialize);
+                excluder.excludeField(field, serialize);
+            }
+        }
+
+        assertEquals(Integer.valueOf(1), asked.get(Fixture.class));
+        assertEquals(Integer.valueOf(1), asked.get(Fixture.class.getName() + ".plain"));
+
+        // a derived excluder decides again
+        excluder.withVersion(1.0).excludeClass(Fixture.class, true);
+        assertEquals(Integer.valueOf(2), asked.get(Fixture.class));
+    }
+
+    @Test
+    public void equalConfigurationsAreEqual() {
+        assertEqualExcluders(Excluder.DEFAULT, Excluder.DEFAULT.withModifiers(Modifier.STATIC, Modifier.TRANSIENT));
+        assertEqualExcluders(Excluder.DEFAULT.withVersion(1.0), Excluder.DEFAULT.withVersion(1.0));
+        assertEqualExcluders(Excluder.DEFAULT.disableInnerClassSerialization(),
+                Excluder.DEFAULT.disableInnerClassSerialization());
+        assertEqualExcluders(Excluder.DEFAULT.excludeFieldsWithoutExposeAnnotation(),
+                Excluder.DEFAULT.excludeFieldsWithoutExposeAnnotation());
+        assertEqualExcluders(Excluder.DEFAULT.withExclusionStrategy(SKIP_NAMED, true, false),
+                Excluder.DEFAULT.withExclusionStrategy(SKIP_NAMED, true, false));
+        assertEqualExcluders(Excluder.DEFAULT.withVersion(2.0).withModifiers(Modifier.PROTECTED),
+                Excluder.DEFAULT.withModifiers(Modifier.PROTECTED).withVersion(2.0));
+
+        // decisions already cached don't take part
+        Excluder used = Excluder.DEFAULT.withVersion(1.0);
+        used.excludeClass(Fixture.class, true);
+        assertEqualExcluders(used, Excluder.DEFAULT.withVersion(1.0));
+    }
+
+    @Test
+    public void differingConfigurationsAreNotEqual() {
+        List<Excluder> excluders = new ArrayList<Excluder>();
+        excluders.add(Excluder.DEFAULT);
+        excluders.add(Excluder.DEFAULT.withVersion(1.0));
+        excluders.add(Excluder.DEFAULT.withVersion(2.0));
+        excluders.add(Excluder.DEFAULT.withModifiers(Modifier.TRANSIENT));
+        excluders.add(Excluder.DEFAULT.withModifiers());
+        excluders.add(Excluder.DEFAULT.disableInnerClassSerialization());
+        excluders.add(Excluder.DEFAULT.excludeFieldsWithoutExposeAnnotation());
+        excluders.add(Excluder.DEFAULT.withExclusionStrategy(SKIP_NAMED, true, false));
+        excluders.add(Excluder.DEFAULT.withExclusionStrategy(SKIP_NAMED, false, true));
+        excluders.add(Excluder.DEFAULT.withExclusionStrategy(SKIP_NAMED, true, true));
+        excluders.add(Excluder.DEFAULT.withExclusionStrategy(SKIP_STRINGS, true, true));
+        excluders.add(Excluder.DEFAULT.withExclusionStrategy(SKIP_NAMED, true, true)
+                .withExclusionStrategy(SKIP_STRINGS, true, true));
+        excluders.add(Excluder.DEFAULT.withExclusionStrategy(SKIP_STRINGS, true, true)
+                .withExclusionStrategy(SKIP_NAMED, true, true));
+
+        for (int i = 0; i < excluders.size(); i++) {
+            for (int j = 0; j < i; j++) {
+                assertNotEquals("excluders " + j + " and " + i, excluders.get(j), excluders.get(i));
+            }
+        }
+    }
+
+    private static void assertEqualExcluders(Excluder expected, Excluder actual) {
+        assertEquals(expected, actual);
+        assertEquals(expected.hashCode(), actual.hashCode());
+    }
+
+    private static List<Config> configs() {
+        List<Config> configs = new ArrayList<Config>();
+        configs.add(new Config());
+        configs.add(new Config().version(1.0));
+        configs.add(new Config().version(2.0));
+        configs.add(new Config().modifiers(Modifier.PROTECTED));
+        configs.add(new Config().modifiers());
+        configs.add(new Config().disableInnerClassSerialization());
+        configs.add(new Config().requireExpose());
+        configs.add(new Config().strategy(SKIP_NAMED, true, false));
+        configs.add(new Config().strategy(SKIP_NAMED, false, true));
+        configs.add(new Config().strategy(SKIP_NAMED, true, true));
+        configs.add(new Config().strategy(SKIP_NAMED, true, false).strategy(SKIP_STRINGS, false, true));
+        configs.add(new Config().version(1.0).requireExpose().disableInnerClassSerialization()
+                .strategy(SKIP_STRINGS, true, true));
+        return configs;
+    }
+
+    /**
+     * An excluder configuration, and the decisions an excluder with it made before decisions were
+     * cached, worked out again for every call.
+     */
+    private static final class Config {
+        private final List<String> description = new ArrayList<String>();
+        private Excluder excluder = Excluder.DEFAULT;
+        private double version = -1.0;
+        private int modifiers = Modifier.TRANSIENT | Modifier.STATIC;
+        private boolean serializeInnerClasses = true;
+        private boolean requireExpose;
+        private final List<ExclusionStrategy> serializationStrategies = new ArrayList<ExclusionStrategy>();
+        private final List<ExclusionStrategy> deserializationStrategies = new ArrayList<ExclusionStrategy>();
+
+        Config version(double version) {
+            this.version = version;
+            excluder = excluder.withVersion(version);
+            description.add("version " + version);
+            return this;
+        }
+
+        Config modifiers(int... modifiers) {
+            this.modifiers = 0;
+            for (int modifier : modifiers) {
+                this.modifiers |= modifier;
+            }
+            excluder = excluder.withModifiers(modifiers);
+            description.add("modifiers " + Modifier.toString(this.modifiers));
+            return this;
+        }
+
+        Config disableInnerClassSerialization() {
+            serializeInnerClasses = false;
+            excluder = excluder.disableInnerClassSerialization();
+            description.add("no inner classes");
+            return this;
+        }
+
+        Config requireExpose() {
+            requireExpose = true;
+            excluder = excluder.excludeFieldsWithoutExposeAnnotation();
+            description.add("expose");
+            return this;
+        }
+
+        Config strategy(ExclusionStrategy strategy, boolean serialization, boolean deserialization) {
+            if (serialization) {
+                serializationStrategies.add(strategy);
+            }
+            if (deserialization) {
+                deserializationStrategies.add(strategy);
+            }
+            excluder = excluder.withExclusionStrategy(strategy, serialization, deserialization);
+            description.add("strategy " + (strategy == SKIP_NAMED ? "named" : "strings")
+                    + " " + serialization + "/" + deserialization);
+            return this;
+        }
+
+        Excluder excluder() {
+            return excluder;
+        }
+
+        boolean excludeField(Field field, boolean serialize) {
+            if ((modifiers & field.getModifiers()) != 0) {
+                return true;
+            }
+            if (version != -1.0 && !isValidVersion(field.getAnnotation(Since.class), field.getAnnotation(Until.class))) {
+                return true;
+            }
+            if (field.isSynthetic()) {
+                return true;
+            }
+            if (requireExpose) {
+                Expose annotation = field.getAnnotation(Expose.class);
+                if (annotation == null || (serialize ? !annotation.serialize() : !annotation.deserialize())) {
+                    return true;
+                }
+            }
+            if (!serializeInnerClasses && isInnerClass(field.getType())) {
+                return true;
+            }
+            if (isAnonymousOrLocal(field.getType())) {
+                return true;
+            }
+            FieldAttributes fieldAttributes = new FieldAttributes(field);
+            for (ExclusionStrategy strategy : serialize ? serializationStrategies : deserializationStrategies) {
+                if (strategy.shouldSkipField(fieldAttributes)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean excludeClass(Class<?> clazz, boolean serialize) {
+            if (version != -1.0 && !isValidVersion(clazz.getAnnotation(Since.class), clazz.getAnnotation(Until.class))) {
+                return true;
+            }
+            if (!serializeInnerClasses && isInnerClass(clazz)) {
+                return true;
+            }
+            if (isAnonymousOrLocal(clazz)) {
+                return true;
+            }
+            for (ExclusionStrategy strategy : serialize ? serializationStrategies : deserializationStrategies) {
+                if (strategy.shouldSkipClass(clazz)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isValidVersion(Since since, Until until) {
+            return (since == null || since.value() <= version) && (until == null || until.value() > version);
+        }
+
+        private static boolean isAnonymousOrLocal(Class<?> clazz) {
+            return !Enum.class.isAssignableFrom(clazz) && (clazz.isAnonymousClass() || clazz.isLocalClass());
+        }
+
+        private static boolean isInnerClass(Class<?> clazz) {
+            return clazz.isMemberClass() && (clazz.getModifiers() & Modifier.STATIC) == 0;
+        }
+
+        @Override
+        public String toString() {
+            return description.isEmpty() ? "default" : description.toString();
+        }
+    }
+
+    @SuppressWarnings("unused")
+    static class Fixture {
+        int plain;
+        transient int transientField;
+        static int staticField;
+        protected int protectedField;
+        volatile int volatileField;
+        @Since(1.5) int since;
+        @Until(1.5) int until;
+        @Since(1.0) @Until(3.0) int range;
+        @Expose int exposed;
+        @Expose(serialize = false) int exposedForDeserialization;
+        @Expose(deserialize = false) int exposedForSerialization;
+        @Expose(serialize = false, deserialize = false) int exposedForNeither;
+        int skippedByName;
+        String text;
+        @Expose String exposedText;
+        Inner inner;
+        @Expose Inner exposedInner;
+        Nested nested;
+        Skipped skipped;
+        Old old;
+        Color color;
+        Runnable runnable;
+
+        class Inner {
+            int value;
+        }
+
+        static class Nested {
+            int value;
+        }
+    }
+
+    @Since(1.5)
+    static class New {
+        int value;
+    }
+
+    @Until(1.5)
+    static class Old {
+        int value;
+    }
+
+    static class Skipped {
+        int value;
+    }
+
+    enum Color {
+        RED {
+            @Override
+            public String toString() {
+                return "red";
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.villcore.internal;
+
+import com.villcore.reflect.TypeToken;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TypeResolverTest {
+
+    @Test
+    public void resolvesLikeTheUncachedResolve() {
+        Type[] contexts = {
+                Concrete.class, new TypeToken<Sub<Long>>() {}.getType(),
+                new TypeToken<Base<Integer, String[]>>() {}.getType(), Node.class
+        };
+        TypeResolver resolver = new TypeResolver();
+        for (Type context : contexts) {
+            Class<?> rawType = $Gson$Types.getRawType(context);
+            for (Class<?> declaring = rawType; declaring != Object.class; declaring = declaring.getSuperclass()) {
+                for (Field field : declaring.getDeclaredFields()) {
+                    Type toResolve = field.getGenericType();
+                    Type expected = $Gson$Types.resolve(context, rawType, toResolve);
+                    Type resolved = resolver.resolve(context, rawType, toResolve);
+
+                    String message = context + " " + field;
+                    assertTrue(message + ": " + resolved, $Gson$Types.equals(expected, resolved));
+                    assertEquals(message, expected.hashCode(), resolved.hashCode());
+                    assertSame(message, resolved, resolver.resolve(context, rawType, toResolve));
+                    assertSame(message, $Gson$Types.intern(expected), resolved);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void resolvesNestedVariablesWildcardsAndArrays() throws Exception {
+        TypeResolver resolver = new TypeResolver();
+
+        assertResolves(resolver, "values", new TypeToken<List<List<Integer>>>() {}.getType());
+        assertResolves(resolver, "nested", new TypeToken<Map<String, List<? extends List<Integer>>>>() {}.getType());
+        assertResolves(resolver, "lower", new TypeToken<List<? super String>>() {}.getType());
+        assertResolves(resolver, "array", new TypeToken<List<Integer>[]>() {}.getType());
+        assertResolves(resolver, "arrayOfMaps", new TypeToken<Map<String, List<Integer>[]>[]>() {}.getType());
+    }
+
+    @Test
+    public void unresolvableVariablesStayVariables() throws Exception {
+        TypeResolver resolver = new TypeResolver();
+        Type next = Node.class.getDeclaredField("next").getGenericType();
+
+        Type resolved = resolver.resolve(Node.class, Node.class, next);
+
+        assertTrue(resolved instanceof TypeVariable);
+        assertSame(resolved, resolver.resolve(Node.class, Node.class, next));
+    }
+
+    @Test
+    public void hashCodesMatchTheJdkTypes() throws Exception {
+        for (Field field : Base.class.getDeclaredFields()) {
+            Type type = field.getGenericType();
+            if (type instanceof Class) {
+                continue;
+            }
+            Type canonical = $Gson$Types.canonicalize(type);
+            assertTrue(field.toString(), $Gson$Types.equals(type, canonical));
+            assertEquals(field.toString(), type.hashCode(), canonical.hashCode());
+            assertEquals(field.toString(), type, canonical);
+            assertEquals(field.toString(), canonical, type);
+        }
+    }
+
+    private static void assertResolves(TypeResolver resolver, String fieldName, Type expected) throws Exception {
+        Type toResolve = Base.class.getDeclaredField(fieldName).getGenericType();
+        Type resolved = resolver.resolve(Concrete.class, Concrete.class, toResolve);
+        assertTrue(fieldName + ": " + resolved, $Gson$Types.equals(expected, resolved));
+        assertEquals(fieldName, expected.hashCode(), resolved.hashCode());
+    }
+
+    @SuppressWarnings("unused")
+    static class Base<K, V> {
+        K key;
+        List<V> values;
+        Map<K, List<? extends V>> nested;
+        List<? super K> lower;
+        V[] array;
+        Map<K, V[]>[] arrayOfMaps;
+        int plain;
+    }
+
+    static class Sub<T> extends Base<String, List<T>> {
+    }
+
+    static class Concrete extends Sub<Integer> {
+    }
+
+    @SuppressWarnings("unused")
+    static class Node<N extends Node<N>> {
+        N next;
+        List<N> children;
+    }
+}
@@ -0,0 +1,90 @@
+package com.villcore.internal;
+
+import com.villcore.reflect.TypeToken;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class WeakInternerTest {
+
+    @Test
+    public void equalValuesInternToTheFirstInstance() {
+        WeakInterner<Key> interner = new WeakInterner<Key>();
+        Key first = new Key("a");
+        Key second = new Key("a");
+        assertNotSame(first, second);
+
+        assertSame(first, interner.intern(first));
+        assertSame(first, interner.intern(second));
+        assertSame(first, interner.intern(first));
+        assertEquals(1, interner.size());
+
+        Key other = new Key("b");
+        assertSame(other, interner.intern(other));
+        assertEquals(2, interner.size());
+    }
+
+    @Test
+    public void internedTypesAreIdentical() {
+        Type listOfStrings = new TypeToken<List<String>>() {}.getType();
+        Type sameList = $Gson$Types.newParameterizedTypeWithOwner(null, List.class, String.class);
+        assertNotSame(listOfStrings, sameList);
+        assertSame($Gson$Types.intern(listOfStrings), $Gson$Types.intern(sameList));
+
+        Type array = new TypeToken<Map<String, Integer>[]>() {}.getType();
+        Type sameArray = $Gson$Types.arrayOf(new TypeToken<Map<String, Integer>>() {}.getType());
+        assertSame($Gson$Types.intern(array), $Gson$Types.intern(sameArray));
+
+        Type wildcard = $Gson$Types.subtypeOf(Number.class);
+        assertSame($Gson$Types.intern(wildcard), $Gson$Types.intern($Gson$Types.subtypeOf(Number.class)));
+
+        assertSame(String.class, $Gson$Types.intern(String.class));
+    }
+
+    @Test
+    public void unreachableEntriesAreCollected() throws Exception {
+        WeakInterner<Key> interner = new WeakInterner<Key>();
+        Key kept = interner.intern(new Key("kept"));
+        WeakReference<Key> dropped = new WeakReference<Key>(interner.intern(new Key("dropped")));
+        assertEquals(2, interner.size());
+
+        // the entry is expunged once the collector has queued its cleared reference
+        for (int i = 0; i < 100 && (dropped.get() != null || interner.size() != 1); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull("still reachable", dropped.get());
+        assertEquals(1, interner.size());
+        assertSame(kept, interner.intern(new Key("kept")));
+        Key replacement = new Key("dropped");
+        assertSame(replacement, interner.intern(replacement));
+        assertEquals(2, interner.size());
+    }
+
+    static final class Key {
+        final String name;
+
+        Key(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).name.equals(name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.villcore.internal.bind;
+
+import com.villcore.ObjectFieldHelper;
+import com.villcore.TypeAdapter;
+import com.villcore.annotations.Tag;
+import com.villcore.visitor.ArrayVisitor;
+import com.villcore.visitor.Visitor;
+import org.junit.Test;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ArrayTypeAdapterTest {
+    private final ObjectFieldHelper helper = new ObjectFieldHelper();
+
+    @Test
+    public void primitiveArraysAreHandedOverWhole() throws Exception {
+        Object[] arrays = {
+                new boolean[] {true, false}, new byte[] {1, 2, 3}, new short[] {4}, new char[] {'a', 'b'},
+                new int[] {5, 6, 7, 8}, new long[] {9L}, new float[] {1.5f, 2.5f}, new double[] {3.5}
+        };
+        for (Object array : arrays) {
+            Recorder recorder = new Recorder();
+            visit(array, recorder);
+
+            String name = array.getClass().getSimpleName();
+            assertEquals(name, Arrays.asList(name.replace("[]", "[" + Array.getLength(array) + "]")),
+                    recorder.events);
+            assertSame(name, array, recorder.arrays.get(0));
+        }
+    }
+
+    @Test
+    public void objectArraysAreHandedOverBeforeTheirElements() throws Exception {
+        Item[] items = {new Item("a"), new Item("b")};
+        Recorder recorder = new Recorder();
+        visit(items, recorder);
+
+        assertEquals(Arrays.asList("Object[2]", "visit a.id", "visit b.id"), recorder.events);
+        assertSame(items, recorder.arrays.get(0));
+    }
+
+    @Test
+    public void leafElementsAreNotDescendedInto() throws Exception {
+        Recorder recorder = new Recorder();
+        visit(new String[] {"x", "y", "z"}, recorder);
+
+        assertEquals(Arrays.asList("Object[3]"), recorder.events);
+    }
+
+    @Test
+    public void plainVisitorsOnlySeeTheElements() throws Exception {
+        Recorder recorder = new Recorder();
+        Visitor plain = recorder.plain();
+        visit(new int[] {1, 2, 3}, plain);
+        visit(new double[] {1.0}, plain);
+        visit(new String[] {"x"}, plain);
+        visit(new Item[] {new Item("a"), null}, plain);
+
+        assertEquals(Arrays.asList("visit a.id"), recorder.events);
+    }
+
+    @Test
+    public void arraysInTaggedFields() throws Exception {
+        Holder holder = new Holder();
+        holder.numbers = new int[] {1, 2};
+        holder.items = new Item[] {new Item("a")};
+        Recorder recorder = new Recorder();
+
+        helper.visit(holder, recorder);
+
+        assertEquals(Arrays.asList("start holder", "int[2]", "visit holder.numbers",
+                "Object[1]", "visit a.id", "visit holder.items", "complete holder"),
+                recorder.events);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void visit(Object array, Visitor visitor) throws Exception {
+        ((TypeAdapter<Object>) helper.getAdapter(array.getClass())).visit(array, visitor);
+    }
+
+    static class Holder {
+        @Tag(name = "numbers", klass = int[].class) int[] numbers;
+        @Tag(name = "items", klass = Item[].class) Item[] items;
+
+        @Override
+        public String toString() {
+            return "holder";
+        }
+    }
+
+    static class Item {
+        @Tag(name = "id", klass = String.class) String id;
+
+        Item(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public String toString() {
+            return id;
+        }
+    }
+
+    static final class Recorder implements ArrayVisitor {
+        final List<String> events = new ArrayList<String>();
+        final List<Object> arrays = new ArrayList<Object>();
+
+        /** A visitor that records like this one but isn't an ArrayVisitor. */
+        Visitor plain() {
+            return new Visitor() {
+                @Override
+                public void startVisit(Object target) {
+                    Recorder.this.startVisit(target);
+                }
+
+                @Override
+                public void visit(Object target, Field field, Tag tag, String name, Object value) {
+                    Recorder.this.visit(target, field, tag, name, value);
+                }
+
+                @Override
+                public void completeVisit(Object target) {
+                    Recorder.this.completeVisit(target);
+                }
+            };
+        }
+
+        @Override
+        public void startVisit(Object target) {
+            events.add("start " + target);
+        }
+
+        @Override
+        public void visit(Object target, Field field, Tag tag, String name, Object value) {
+            events.add("visit " + target + "." + name);
+        }
+
+        @Override
+        public void completeVisit(Object target) {
+            events.add("complete " + target);
+        }
+
+        private void record(Object array, String type, int offset, int length) {
+            assertEquals(0, offset);
+            arrays.add(array);
+            events.add(type + "[" + length + "]");
+        }
+
+        @Override
+        public void visitArray(boolean[] values, int offset, int length) {
+            record(values, "boolean", offset, length);
+        }
+
+        @Override
+        public void visitArray(byte[] values, int offset, int length) {
+            record(values, "byte", offset, length);
+        }
+
+        @Override
+        public void visitArray(short[] values, int offset, int length) {
+            record(values, "short", offset, length);
+        }
+
+        @Override
+        public void visitArray(char[] values, int offset, int length) {
+            record(values, "char", offset, length);
+        }
+
+        @Override
+        public void visitArray(int[] values, int offset, int length) {
+            record(values, "int", offset, length);
+        }
+
+        @Override
+        public void visitArray(long[] values, int offset, int length) {
+            record(values, "long", offset, length);
+        }
+
+        @Override
+        public void visitArray(float[] values, int offset, int length) {
+            record(values, "float", offset, length);
+        }
+
+        @Override
+        public void visitArray(double[] values, int offset, int length) {
+            record(values, "double", offset, length);
+        }
+
+        @Override
+        public void visitArray(Object[] values, int offset, int length) {
+            record(values, "Object", offset, length);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.villcore.internal.bind;
+
+import com.villcore.ObjectFieldHelper;
+import com.villcore.TypeAdapter;
+import com.villcore.annotations.Tag;
+import com.villcore.reflect.TypeToken;
+import com.villcore.visitor.Visitor;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CollectionTypeAdapterFactoryTest {
+    private final ObjectFieldHelper helper = new ObjectFieldHelper();
+
+    @Test
+    public void leafElementsAreNotTraversed() throws Exception {
+        assertNotTraversed(new TypeToken<List<String>>() {}, "a", "b");
+        assertNotTraversed(new TypeToken<List<Integer>>() {}, 1, 2);
+        assertNotTraversed(new TypeToken<Collection<UUID>>() {}, UUID.randomUUID());
+        assertNotTraversed(new TypeToken<List<Thread.State>>() {}, Thread.State.NEW);
+
+        assertTrue(hasLeafElements(new TypeToken<String>() {}));
+        assertTrue(hasLeafElements(new TypeToken<Long>() {}));
+    }
+
+    @Test
+    public void otherElementsAreVisited() throws Exception {
+        Recorder recorder = new Recorder();
+        adapter(new TypeToken<List<Object>>() {})
+                .visit(new CountingArrayList<Object>(Arrays.<Object>asList(new Item("a"), "text", new Item("b"))), recorder);
+        assertEquals(Arrays.asList("a.id", "b.id"), recorder.names);
+
+        recorder = new Recorder();
+        adapter(new TypeToken<List<Item>>() {})
+                .visit(new CountingArrayList<Object>(Arrays.<Object>asList(new Item("a"), new SpecialItem("b", "c"))),
+                        recorder);
+        assertEquals(Arrays.asList("a.id", "b.extra", "b.id"), recorder.names);
+
+        assertFalse(hasLeafElements(new TypeToken<Object>() {}));
+        assertFalse(hasLeafElements(new TypeToken<Number>() {}));
+        assertFalse(hasLeafElements(new TypeToken<Item>() {}));
+        // checked for NaN and infinities
+        assertFalse(hasLeafElements(new TypeToken<Double>() {}));
+        try {
+            adapter(new TypeToken<List<Double>>() {}).visit(Arrays.asList(1.0, Double.NaN), new Recorder());
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void randomAccessListsAreWalkedByIndex() throws Exception {
+        CountingArrayList<Object> list = new CountingArrayList<Object>(Arrays.<Object>asList(new Item("a"), new Item("b")));
+        Recorder recorder = new Recorder();
+        adapter(new TypeToken<List<Item>>() {}).visit(list, recorder);
+
+        assertEquals(Arrays.asList("a.id", "b.id"), recorder.names);
+        assertEquals(2, list.gets);
+        assertEquals(0, list.iterators);
+    }
+
+    @Test
+    public void otherCollectionsAreIterated() throws Exception {
+        CountingLinkedList<Object> list = new CountingLinkedList<Object>(Arrays.<Object>asList(new Item("a"), new Item("b")));
+        Recorder recorder = new Recorder();
+        adapter(new TypeToken<List<Item>>() {}).visit(list, recorder);
+
+        assertEquals(Arrays.asList("a.id", "b.id"), recorder.names);
+        assertEquals(0, list.gets);
+        assertEquals(1, list.iterators);
+    }
+
+    private void assertNotTraversed(TypeToken<? extends Collection<?>> type, Object... elements) throws Exception {
+        CountingArrayList<Object> randomAccess = new CountingArrayList<Object>(Arrays.asList(elements));
+        CountingLinkedList<Object> sequential = new CountingLinkedList<Object>(Arrays.asList(elements));
+        Recorder recorder = new Recorder();
+
+        adapter(type).visit(randomAccess, recorder);
+        adapter(type).visit(sequential, recorder);
+
+        assertEquals(type.toString(), 0, randomAccess.gets + randomAccess.iterators);
+        assertEquals(type.toString(), 0, sequential.gets + sequential.iterators);
+        assertTrue(recorder.names.isEmpty());
+    }
+
+    private boolean hasLeafElements(TypeToken<?> elementType) {
+        return CollectionTypeAdapterFactory.hasLeafElements(elementType.getType(), helper.getAdapter(elementType));
+    }
+
+    @SuppressWarnings("unchecked")
+    private TypeAdapter<Collection<?>> adapter(TypeToken<?> type) {
+        return (TypeAdapter<Collection<?>>) helper.getAdapter(type);
+    }
+
+    static class Item {
+        @Tag(name = "id", klass = String.class) String id;
+
+        Item(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public String toString() {
+            return id;
+        }
+    }
+
+    static class SpecialItem extends Item {
+        @Tag(name = "extra", klass = String.class) String extra;
+
+        SpecialItem(String id, String extra) {
+            super(id);
+            this.extra = extra;
+        }
+    }
+
+    static final class CountingArrayList<E> extends ArrayList<E> {
+        int gets;
+        int iterators;
+
+        CountingArrayList(Collection<? extends E> elements) {
+            super(elements);
+        }
+
+        @Override
+        public E get(int index) {
+            gets++;
+            return super.get(index);
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            iterators++;
+            return super.iterator();
+        }
+    }
+
+    static final class CountingLinkedList<E> extends LinkedList<E> {
+        int gets;
+        int iterators;
+
+        CountingLinkedList(Collection<? extends E> elements) {
+            super(elements);
+        }
+
+        @Override
+        public E get(int index) {
+            gets++;
+            return super.get(index);
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            iterators++;
+            return super.iterator();
+        }
+    }
+
+    static final class Recorder implements Visitor {
+        final List<String> names = new ArrayList<String>();
+
+        @Override
+        public void startVisit(Object target) {
+        }
+
+        @Override
+        public void visit(Object target, Field field, Tag tag, String name, Object value) {
+            names.add(target + "." + name);
+        }
+
+        @Override
+        public void completeVisit(Object target) {
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.villcore.internal.bind;
+
+import com.villcore.ObjectFieldHelper;
+import com.villcore.TypeAdapter;
+import com.villcore.annotations.Tag;
+import com.villcore.reflect.TypeToken;
+import com.villcore.visitor.Visitor;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class MapTypeAdapterFactoryTest {
+    private static final TypeToken<Map<Item, Item>> COMPLEX = new TypeToken<Map<Item, Item>>() {};
+
+    private final ObjectFieldHelper helper = new ObjectFieldHelper();
+
+    @Test
+    public void valuesOnlyByDefault() throws Exception {
+        assertEquals(Arrays.asList("v1.id", "v2.id"), visit(helper, COMPLEX, complexMap()));
+    }
+
+    @Test
+    public void keysOnly() throws Exception {
+        assertEquals(Arrays.asList("k1.id", "k2.id"), visit(helper.withMapVisiting(true, false), COMPLEX, complexMap()));
+    }
+
+    @Test
+    public void keysAndValuesAreInterleavedPerEntry() throws Exception {
+        assertEquals(Arrays.asList("k1.id", "v1.id", "k2.id", "v2.id"),
+                visit(helper.withMapVisiting(true, true), COMPLEX, complexMap()));
+    }
+
+    @Test
+    public void neither() throws Exception {
+        assertEquals(Collections.<String>emptyList(), visit(helper.withMapVisiting(false, false), COMPLEX, complexMap()));
+    }
+
+    @Test
+    public void leafKeysAndValuesAreSkipped() throws Exception {
+        ObjectFieldHelper both = helper.withMapVisiting(true, true);
+
+        Map<String, Item> stringKeys = new LinkedHashMap<String, Item>();
+        stringKeys.put("k1", new Item("v1"));
+        stringKeys.put("k2", new Item("v2"));
+        assertEquals(Arrays.asList("v1.id", "v2.id"), visit(both, new TypeToken<Map<String, Item>>() {}, stringKeys));
+
+        Map<Item, Integer> integerValues = new LinkedHashMap<Item, Integer>();
+        integerValues.put(new Item("k1"), 1);
+        integerValues.put(new Item("k2"), 2);
+        assertEquals(Arrays.asList("k1.id", "k2.id"), visit(both, new TypeToken<Map<Item, Integer>>() {}, integerValues));
+    }
+
+    @Test
+    public void mapsInTaggedFields() throws Exception {
+        Holder holder = new Holder();
+        holder.items = complexMap();
+        Recorder recorder = new Recorder();
+
+        helper.withMapVisiting(true, true).visit(holder, recorder);
+
+        assertEquals(Arrays.asList("k1.id", "v1.id", "k2.id", "v2.id", "holder.items"), recorder.names);
+    }
+
+    private static Map<Item, Item> complexMap() {
+        Map<Item, Item> map = new LinkedHashMap<Item, Item>();
+        map.put(new Item("k1"), new Item("v1"));
+        map.put(new Item("k2"), new Item("v2"));
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> visit(ObjectFieldHelper helper, TypeToken<?> type, Map<?, ?> map) throws Exception {
+        Recorder recorder = new Recorder();
+        ((TypeAdapter<Map<?, ?>>) helper.getAdapter(type)).visit(map, recorder);
+        return recorder.names;
+    }
+
+    static class Holder {
+        @Tag(name = "items", klass = Map.class) Map<Item, Item> items;
+
+        @Override
+        public String toString() {
+            return "holder";
+        }
+    }
+
+    static class Item {
+        @Tag(name = "id", klass = String.class) String id;
+
+        Item(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public String toString() {
+            return id;
+        }
+    }
+
+    static final class Recorder implements Visitor {
+        final List<String> names = new ArrayList<String>();
+
+        @Override
+        public void startVisit(Object target) {
+        }
+
+        @Override
+        public void visit(Object target, Field field, Tag tag, String name, Object value) {
+            names.add(target + "." + name);
+        }
+
+        @Override
+        public void completeVisit(Object target) {
+        }
+    }
+}
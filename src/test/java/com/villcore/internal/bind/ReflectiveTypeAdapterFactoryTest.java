@@ -0,0 +1,89 @@
+package com.villcore.internal.bind;
+
+import com.villcore.ObjectFieldHelper;
+import com.villcore.annotations.SerializedName;
+import com.villcore.annotations.Tag;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ReflectiveTypeAdapterFactoryTest {
+    private final ObjectFieldHelper helper = new ObjectFieldHelper();
+
+    @Test
+    public void ownFieldsComeBeforeInheritedFields() {
+        ReflectiveTypeAdapterFactory.Adapter<?> adapter = adapter(Derived.class);
+
+        assertEquals(4, adapter.getBoundFieldCount());
+        assertEquals("extra", adapter.getBoundName(0));
+        assertEquals("name", adapter.getBoundName(1));
+        assertEquals("date", adapter.getBoundName(2));
+        assertEquals("untagged", adapter.getBoundName(3));
+        assertEquals(Base.class, adapter.getBoundField(1).getDeclaringClass());
+        assertEquals("extra", adapter.getBoundTag(0).name());
+        assertNull(adapter.getBoundTag(3));
+    }
+
+    @Test
+    public void subclassesShareTheirSuperclassPlan() {
+        ReflectiveTypeAdapterFactory.Adapter<?> derived = adapter(Derived.class);
+        ReflectiveTypeAdapterFactory.Adapter<?> sibling = adapter(Sibling.class);
+
+        assertEquals(3, sibling.getBoundFieldCount());
+        for (int slot = 0; slot < 3; slot++) {
+            assertSame(derived.getBoundField(slot + 1), sibling.getBoundField(slot));
+            assertSame(derived.getBoundAdapter(slot + 1), sibling.getBoundAdapter(slot));
+        }
+    }
+
+    @Test
+    public void alternateNamesTakeOneSlotEach() {
+        ReflectiveTypeAdapterFactory.Adapter<?> adapter = adapter(Renamed.class);
+
+        assertEquals(3, adapter.getBoundFieldCount());
+        assertEquals("id", adapter.getBoundName(0));
+        assertEquals("key", adapter.getBoundName(1));
+        assertEquals("identifier", adapter.getBoundName(2));
+        for (int slot = 0; slot < 3; slot++) {
+            assertSame(adapter.getBoundField(0), adapter.getBoundField(slot));
+            assertSame(adapter.getBoundAdapter(0), adapter.getBoundAdapter(slot));
+            assertFalse(adapter.isBoundWithJsonAdapter(slot));
+        }
+    }
+
+    @Test
+    public void finalFieldTypesAreNotWrappedForRuntimeDispatch() {
+        ReflectiveTypeAdapterFactory.Adapter<?> adapter = adapter(Derived.class);
+
+        assertSame(helper.getAdapter(String.class), adapter.getBoundAdapter(0));
+        assertEquals(TypeAdapterRuntimeTypeWrapper.class, adapter.getBoundAdapter(2).getClass());
+    }
+
+    private ReflectiveTypeAdapterFactory.Adapter<?> adapter(Class<?> type) {
+        return (ReflectiveTypeAdapterFactory.Adapter<?>) helper.getAdapter(type);
+    }
+
+    static class Base {
+        @Tag(name = "name", klass = String.class) String name;
+        @Tag(name = "date", klass = Date.class) Date date;
+        List<String> untagged;
+    }
+
+    static class Derived extends Base {
+        @Tag(name = "extra", klass = String.class) String extra;
+    }
+
+    static class Sibling extends Base {
+    }
+
+    static class Renamed {
+        @SerializedName(value = "id", alternate = {"key", "identifier"})
+        @Tag(name = "id", klass = String.class) String id;
+    }
+}
@@ -0,0 +1,148 @@
+package com.villcore.internal.bind.util;
+
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ISO8601UtilsTest {
+    private static final long FIRST_FAST_MILLIS = -12212553600000L;
+    private static final long END_FAST_MILLIS = 253402300800000L;
+
+    @Test
+    public void monthAndYearBoundaries() {
+        int[] years = {1583, 1600, 1899, 1900, 1969, 1970, 1999, 2000, 2019, 2020, 2100, 9999};
+        int[] days = {1, 28, 29, 30, 31};
+        for (int year : years) {
+            for (int month = 1; month <= 12; month++) {
+                for (int day : days) {
+                    String date = String.format("%04d-%02d-%02d", year, month, day);
+                    assertMatchesCalendar(date + "T00:00:00Z");
+                    assertMatchesCalendar(date + "T23:59:59.999Z");
+                }
+            }
+        }
+        assertMatchesCalendar("1582-12-31T23:59:59Z");
+        assertMatchesCalendar("1582-10-10T12:00:00Z"); // dropped by the Gregorian cutover
+    }
+
+    @Test
+    public void leapYears() {
+        assertMatchesCalendar("2020-02-29T12:00:00Z");
+        assertMatchesCalendar("2000-02-29T12:00:00Z");
+        assertMatchesCalendar("2019-02-29T12:00:00Z");
+        assertMatchesCalendar("1900-02-29T12:00:00Z");
+        assertMatchesCalendar("2100-02-29T12:00:00Z");
+        assertMatchesCalendar("2020-02-30T12:00:00Z");
+    }
+
+    @Test
+    public void offsets() {
+        String[] offsets = {"Z", "+00:00", "+0000", "+00", "-00:00", "+05:30", "+0530", "+05", "-08:00",
+                "-0800", "+14:00", "-12:00", "+23:59", "+24:00", "+05:60", "+5:30", "+05:3", "+05:30:00"};
+        for (String offset : offsets) {
+            assertMatchesCalendar("2020-01-01T00:30:00" + offset);
+            assertMatchesCalendar("2019-12-31T23:30:00.5" + offset);
+            assertMatchesCalendar("2020-03-01T00:00" + offset);
+        }
+    }
+
+    @Test
+    public void fractionalSeconds() {
+        String[] fractions = {".1", ".12", ".123", ".1234", ".123456789", ".0", ".000", ".999", ".", ".a"};
+        for (String fraction : fractions) {
+            assertMatchesCalendar("2020-06-15T10:20:30" + fraction + "Z");
+            assertMatchesCalendar("20200615T102030" + fraction + "+0100");
+        }
+    }
+
+    @Test
+    public void outOfRangeFields() throws Exception {
+        String[] dates = {
+                "2020-13-01T00:00:00Z", "2020-00-10T00:00:00Z", "2020-04-31T00:00:00Z", "2020-01-00T00:00:00Z",
+                "2020-01-01T24:00:00Z", "2020-01-01T23:60:00Z", "2020-01-01T00:00:60Z", "2020-01-01T00:00:62Z",
+                "2020-01-01T00:00:63Z", "2020-01-01T00:00:75Z", "2020-01-01T00:00:99.999Z", "2020-01-01T0:00:00Z",
+                "2020-01-01T00:00:00", "2020-01-01T00:00:00X", "2020-1-01T00:00:00Z"
+        };
+        for (String date : dates) {
+            assertMatchesCalendar(date);
+        }
+
+        try {
+            ISO8601Utils.parse("2020-01-01T00:00:75Z", new ParsePosition(0));
+            fail();
+        } catch (ParseException expected) {
+        }
+        assertEquals(1577836859000L, ISO8601Utils.parse("2020-01-01T00:00:60Z", new ParsePosition(0)).getTime());
+    }
+
+    @Test
+    public void parsingStartsAtThePosition() {
+        ParsePosition pos = new ParsePosition(5);
+        Date parsed = ISO8601Utils.tryParse("date=2020-01-01T00:00:00Z", pos);
+        assertEquals(1577836800000L, parsed.getTime());
+        assertEquals(25, pos.getIndex());
+    }
+
+    @Test
+    public void formatUtcMatchesTheCalendar() {
+        // a TimeZone other than the cached UTC instance makes format use a Calendar
+        TimeZone utc = TimeZone.getTimeZone("UTC");
+        long[] instants = {
+                FIRST_FAST_MILLIS, FIRST_FAST_MILLIS + 1, END_FAST_MILLIS - 1, -1, 0, 1,
+                951782400000L /* 2000-02-29 */, 4107542400000L /* 2100-03-01 */, 1577836799999L
+        };
+        for (long instant : instants) {
+            assertFormatMatchesCalendar(instant, utc);
+        }
+        Random random = new Random(8601);
+        for (int i = 0; i < 10000; i++) {
+            long instant = FIRST_FAST_MILLIS + (long) (random.nextDouble() * (END_FAST_MILLIS - FIRST_FAST_MILLIS));
+            assertFormatMatchesCalendar(instant, utc);
+        }
+    }
+
+    @Test
+    public void formatOutsideTheFastRange() {
+        assertEquals("1582-12-31T23:59:59.999Z", ISO8601Utils.format(new Date(FIRST_FAST_MILLIS - 1), true));
+        assertEquals("10000-01-01T00:00:00Z", ISO8601Utils.format(new Date(END_FAST_MILLIS)));
+    }
+
+    private static void assertFormatMatchesCalendar(long instant, TimeZone utc) {
+        Date date = new Date(instant);
+        assertEquals(ISO8601Utils.format(date, true, utc), ISO8601Utils.format(date, true));
+        assertEquals(ISO8601Utils.format(date, false, utc), ISO8601Utils.format(date));
+    }
+
+    /**
+     * Asserts that {@link ISO8601Utils#tryParse} agrees with the Calendar path on the instant and
+     * the end position, or fails where it fails.
+     */
+    private static void assertMatchesCalendar(String date) {
+        ParsePosition slow = new ParsePosition(0);
+        Date expected;
+        try {
+            expected = ISO8601Utils.parseWithDiagnostics(date, slow);
+        } catch (ParseException e) {
+            expected = null;
+        }
+
+        ParsePosition fast = new ParsePosition(0);
+        Date parsed = ISO8601Utils.tryParse(date, fast);
+        if (expected == null) {
+            assertNull(date, parsed);
+            assertTrue(date, fast.getErrorIndex() >= 0);
+        } else {
+            assertEquals(date, expected, parsed);
+            assertEquals(date, slow.getIndex(), fast.getIndex());
+        }
+    }
+}
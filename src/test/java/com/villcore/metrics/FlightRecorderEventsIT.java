@@ -0,0 +1,101 @@
+package com.villcore.metrics;
+
+import com.villcore.ObjectFieldHelper;
+import com.villcore.annotations.Tag;
+import com.villcore.visitor.Visitor;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Records the events of a traversal. Runs against the packaged multi-release jar, where the
+ * Java 11 event classes are found.
+ */
+public class FlightRecorderEventsIT {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        FlightRecorderEvents.setAdapterCreationEnabled(false);
+        FlightRecorderEvents.setVisitEnabled(false);
+        FlightRecorderEvents.setSlowCallbackThreshold(-1);
+    }
+
+    @Test
+    public void eventsAreRecorded() throws Exception {
+        assertTrue(FlightRecorderEvents.isAvailable());
+        FlightRecorderEvents.setAdapterCreationEnabled(true);
+        FlightRecorderEvents.setVisitEnabled(true);
+        FlightRecorderEvents.setSlowCallbackThreshold(0);
+
+        Path file = folder.newFile("events.jfr").toPath();
+        Recording recording = new Recording();
+        try {
+            recording.enable("com.villcore.AdapterCreation").withoutThreshold();
+            recording.enable("com.villcore.Visit").withoutThreshold();
+            recording.enable("com.villcore.SlowVisitorCallback").withoutThreshold();
+            recording.start();
+
+            Order order = new Order();
+            order.id = "o-1";
+            new ObjectFieldHelper().withUnsharedPlans().visit(order, new SlowVisitor());
+
+            recording.stop();
+            recording.dump(file);
+        } finally {
+            recording.close();
+        }
+
+        Map<String, RecordedEvent> events = new HashMap<String, RecordedEvent>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            events.put(event.getEventType().getName(), event);
+        }
+        assertNotNull(events.get("com.villcore.AdapterCreation"));
+
+        RecordedEvent visit = events.get("com.villcore.Visit");
+        assertNotNull(visit);
+        assertEquals(Order.class.getName(), visit.getClass("rootType").getName());
+        assertEquals(1, visit.getLong("nodes"));
+
+        RecordedEvent slow = events.get("com.villcore.SlowVisitorCallback");
+        assertNotNull(slow);
+        assertEquals("id", slow.getString("field"));
+        assertEquals("order_id", slow.getString("tag"));
+    }
+
+    static class Order {
+        @Tag(name = "order_id", klass = String.class) String id;
+    }
+
+    private static final class SlowVisitor implements Visitor {
+        @Override
+        public void startVisit(Object target) {
+        }
+
+        @Override
+        public void visit(Object target, Field field, Tag tag, String name, Object value) {
+            long start = System.nanoTime();
+            while (System.nanoTime() == start) {
+                Thread.yield();
+            }
+        }
+
+        @Override
+        public void completeVisit(Object target) {
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.villcore.metrics;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs from {@code target/classes}, where the Java 11 event classes of the multi-release jar
+ * aren't found. {@code FlightRecorderEventsIT} covers the jar.
+ */
+public class FlightRecorderEventsTest {
+
+    @After
+    public void tearDown() {
+        FlightRecorderEvents.setAdapterCreationEnabled(false);
+        FlightRecorderEvents.setVisitEnabled(false);
+        FlightRecorderEvents.setSlowCallbackThreshold(-1);
+    }
+
+    @Test
+    public void enablingWithoutTheSinkLogsOnce() {
+        assertFalse(FlightRecorderEvents.isAvailable());
+        Logger logger = Logger.getLogger(FlightRecorderEvents.class.getName());
+        final List<LogRecord> records = new ArrayList<LogRecord>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        logger.addHandler(handler);
+        try {
+            FlightRecorderEvents.setVisitEnabled(false);
+            assertTrue(records.isEmpty());
+
+            FlightRecorderEvents.setVisitEnabled(true);
+            FlightRecorderEvents.setAdapterCreationEnabled(true);
+            FlightRecorderEvents.setSlowCallbackThreshold(0);
+        } finally {
+            logger.removeHandler(handler);
+        }
+
+        assertEquals(1, records.size());
+        assertEquals(Level.WARNING, records.get(0).getLevel());
+        assertTrue(records.get(0).getMessage(), records.get(0).getMessage().contains("multi-release jar"));
+        assertFalse(FlightRecorderEvents.isTraversalEnabled());
+        assertEquals(null, FlightRecorderEvents.beginVisit());
+    }
+}
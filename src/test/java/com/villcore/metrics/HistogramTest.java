@@ -0,0 +1,93 @@
+package com.villcore.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class HistogramTest {
+
+    @Test
+    public void buckets() {
+        assertEquals(0, Histogram.bucketOf(0));
+        assertEquals(1, Histogram.bucketOf(1));
+        assertEquals(2, Histogram.bucketOf(2));
+        assertEquals(2, Histogram.bucketOf(3));
+        assertEquals(3, Histogram.bucketOf(4));
+        assertEquals(10, Histogram.bucketOf(1023));
+        assertEquals(11, Histogram.bucketOf(1024));
+        assertEquals(Histogram.BUCKETS - 1, Histogram.bucketOf(Long.MAX_VALUE));
+
+        assertEquals(1, Histogram.upperBound(0));
+        assertEquals(2, Histogram.upperBound(1));
+        assertEquals(1024, Histogram.upperBound(10));
+        assertEquals(Long.MAX_VALUE, Histogram.upperBound(Histogram.BUCKETS - 1));
+    }
+
+    @Test
+    public void quantiles() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        Histogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(100, snapshot.getCount());
+        assertEquals(5050, snapshot.getSum());
+        assertEquals(50.5, snapshot.getMean(), 0);
+        // 63 values are below 64 and 100 below 128
+        assertEquals(2, snapshot.getQuantile(0));
+        assertEquals(2, snapshot.getQuantile(0.01));
+        assertEquals(64, snapshot.getQuantile(0.63));
+        assertEquals(128, snapshot.getQuantile(0.64));
+        assertEquals(64, snapshot.getP50());
+        assertEquals(128, snapshot.getP99());
+        assertEquals(128, snapshot.getQuantile(1));
+
+        long[] counts = snapshot.getBucketCounts();
+        assertEquals(Histogram.BUCKETS, counts.length);
+        assertEquals(0, counts[0]);
+        assertEquals(1, counts[1]);
+        assertEquals(2, counts[2]);
+        assertEquals(32, counts[6]);
+        assertEquals(37, counts[7]);
+    }
+
+    @Test
+    public void edgeValues() {
+        Histogram histogram = new Histogram();
+        Histogram.Snapshot empty = histogram.snapshot();
+        assertEquals(0, empty.getCount());
+        assertEquals(0, empty.getMean(), 0);
+        assertEquals(0, empty.getP50());
+
+        histogram.record(-5);
+        histogram.record(0);
+        histogram.record(Long.MAX_VALUE);
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getBucketCounts()[0]);
+        assertEquals(1, snapshot.getQuantile(0.5));
+        assertEquals(Long.MAX_VALUE, snapshot.getQuantile(1));
+
+        for (double quantile : new double[] {-0.1, 1.1, Double.NaN}) {
+            try {
+                snapshot.getQuantile(quantile);
+                fail(String.valueOf(quantile));
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void reset() {
+        Histogram histogram = new Histogram();
+        histogram.record(10);
+        Histogram.Snapshot before = histogram.snapshot();
+        histogram.reset();
+
+        assertEquals(0, histogram.snapshot().getCount());
+        assertEquals(0, histogram.snapshot().getSum());
+        // snapshots are copies
+        assertEquals(1, before.getCount());
+    }
+}
@@ -0,0 +1,153 @@
+package com.villcore.metrics;
+
+import com.villcore.ObjectFieldHelper;
+import com.villcore.annotations.Tag;
+import com.villcore.visitor.Visitor;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TraversalMetricsTest {
+
+    @Test
+    public void nodesAreTaggedFieldCallbacks() throws Exception {
+        TraversalMetrics metrics = new TraversalMetrics();
+        ObjectFieldHelper helper = new ObjectFieldHelper();
+        helper.setMetrics(metrics);
+
+        CountingVisitor visitor = new CountingVisitor();
+        helper.visit(newOrder(), visitor);
+        helper.visit(newOrder(), visitor);
+
+        // id, lines and the sku of each of the two lines; not the untagged note or the objects
+        assertEquals(8, visitor.callbacks);
+        assertEquals(2, metrics.getVisitCount());
+        assertEquals(8, metrics.getNodeCount());
+
+        List<TraversalMetrics.RootTypeSnapshot> rootTypes = metrics.getRootTypes();
+        assertEquals(1, rootTypes.size());
+        TraversalMetrics.RootTypeSnapshot order = rootTypes.get(0);
+        assertEquals(Order.class.getName(), order.getType());
+        assertEquals(2, order.getVisits());
+        assertEquals(2, order.getNodes().getCount());
+        assertEquals(8, order.getNodes().getSum());
+        assertEquals(2, order.getLatencyNanos().getCount());
+
+        Map<String, Long> tagHits = new HashMap<String, Long>();
+        tagHits.put("id", 2L);
+        tagHits.put("lines", 2L);
+        tagHits.put("sku", 4L);
+        assertEquals(tagHits, metrics.getTagHits());
+
+        Histogram.Snapshot collectionSizes = metrics.getCollectionSizes();
+        assertEquals(2, collectionSizes.getCount());
+        assertEquals(4, collectionSizes.getSum());
+        assertEquals(2, collectionSizes.getBucketCounts()[Histogram.bucketOf(2)]);
+    }
+
+    @Test
+    public void reset() throws Exception {
+        TraversalMetrics metrics = new TraversalMetrics();
+        ObjectFieldHelper helper = new ObjectFieldHelper();
+        helper.setMetrics(metrics);
+        helper.visit(newOrder(), new CountingVisitor());
+
+        TraversalMetrics.Snapshot before = metrics.snapshot();
+        metrics.reset();
+
+        assertEquals(0, metrics.getVisitCount());
+        assertEquals(0, metrics.getNodeCount());
+        assertTrue(metrics.getRootTypes().isEmpty());
+        assertTrue(metrics.getTagHits().isEmpty());
+        assertEquals(0, metrics.getCollectionSizes().getCount());
+        assertEquals(1, before.getRootTypes().size());
+        assertEquals(3, before.getTagHits().size());
+    }
+
+    @Test
+    public void mbeanAttributes() throws Exception {
+        TraversalMetrics metrics = new TraversalMetrics();
+        ObjectFieldHelper helper = new ObjectFieldHelper();
+        helper.setMetrics(metrics);
+        helper.visit(newOrder(), new CountingVisitor());
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = metrics.registerMBean("com.villcore:type=TraversalMetrics,name=test");
+        try {
+            assertTrue(server.isRegistered(name));
+            assertEquals(1L, server.getAttribute(name, "VisitCount"));
+            assertEquals(4L, server.getAttribute(name, "NodeCount"));
+
+            CompositeData[] rootTypes = (CompositeData[]) server.getAttribute(name, "RootTypes");
+            assertEquals(1, rootTypes.length);
+            assertEquals(Order.class.getName(), rootTypes[0].get("type"));
+            assertEquals(1L, rootTypes[0].get("visits"));
+            assertEquals(4L, ((CompositeData) rootTypes[0].get("nodes")).get("sum"));
+
+            TabularData tagHits = (TabularData) server.getAttribute(name, "TagHits");
+            assertEquals(2L, tagHits.get(new Object[] {"sku"}).get("value"));
+
+            CompositeData collectionSizes = (CompositeData) server.getAttribute(name, "CollectionSizes");
+            assertEquals(1L, collectionSizes.get("count"));
+            assertEquals(4L, collectionSizes.get("p50"));
+
+            server.invoke(name, "reset", new Object[0], new String[0]);
+            assertEquals(0L, server.getAttribute(name, "VisitCount"));
+        } finally {
+            TraversalMetrics.unregisterMBean(name);
+        }
+        assertFalse(server.isRegistered(name));
+    }
+
+    private static Order newOrder() {
+        Order order = new Order();
+        order.id = "o-1";
+        order.note = "untagged";
+        Line first = new Line();
+        first.sku = "a";
+        Line second = new Line();
+        second.sku = "b";
+        order.lines = Arrays.asList(first, second);
+        return order;
+    }
+
+    static class Order {
+        @Tag(name = "id", klass = String.class) String id;
+        @Tag(name = "lines", klass = List.class) List<Line> lines;
+        String note;
+    }
+
+    static class Line {
+        @Tag(name = "sku", klass = String.class) String sku;
+    }
+
+    private static final class CountingVisitor implements Visitor {
+        int callbacks;
+
+        @Override
+        public void startVisit(Object target) {
+        }
+
+        @Override
+        public void visit(Object target, Field field, Tag tag, String name, Object value) {
+            callbacks++;
+        }
+
+        @Override
+        public void completeVisit(Object target) {
+        }
+    }
+}
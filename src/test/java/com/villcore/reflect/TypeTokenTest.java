@@ -0,0 +1,82 @@
+package com.villcore.reflect;
+
+import com.villcore.internal.$Gson$Types;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TypeTokenTest {
+
+    @Test
+    public void equalTypesGetTheSameToken() {
+        Type listOfStrings = new TypeToken<List<String>>() {}.getType();
+        Type sameList = $Gson$Types.newParameterizedTypeWithOwner(null, List.class, String.class);
+        assertNotSame(listOfStrings, sameList);
+
+        TypeToken<?> token = TypeToken.get(listOfStrings);
+        assertSame(token, TypeToken.get(listOfStrings));
+        assertSame(token, TypeToken.get(sameList));
+        assertSame(token, TypeToken.getParameterized(List.class, String.class));
+        assertSame($Gson$Types.intern(listOfStrings), token.getType());
+
+        Type nested = new TypeToken<Map<String, List<? extends Number>>>() {}.getType();
+        assertSame(TypeToken.get(nested), TypeToken.get(new TypeToken<Map<String, List<? extends Number>>>() {}.getType()));
+        assertSame(TypeToken.get($Gson$Types.subtypeOf(Number.class)), TypeToken.get($Gson$Types.subtypeOf(Number.class)));
+    }
+
+    @Test
+    public void arrayTypesGetTheSameToken() {
+        TypeToken<?> token = TypeToken.get(String[].class);
+        assertSame(token, TypeToken.get((Type) String[].class));
+        assertSame(token, TypeToken.getArray(String.class));
+        assertSame(token, TypeToken.get($Gson$Types.arrayOf(String.class)));
+
+        Type genericArray = new TypeToken<List<String>[]>() {}.getType();
+        assertSame(TypeToken.get(genericArray), TypeToken.getArray(new TypeToken<List<String>>() {}.getType()));
+    }
+
+    @Test
+    public void anonymousTokensEqualTheCanonicalOne() {
+        TypeToken<List<String>> anonymous = new TypeToken<List<String>>() {};
+        TypeToken<?> canonical = TypeToken.get(anonymous.getType());
+
+        assertNotSame(canonical, anonymous);
+        assertEquals(canonical, anonymous);
+        assertEquals(canonical.hashCode(), anonymous.hashCode());
+        assertSame(TypeToken.get(String.class), TypeToken.get((Type) String.class));
+    }
+
+    @Test
+    public void unreachableTokensAreCollected() throws Exception {
+        // a type of a class nothing else refers to, so only the token keeps the type reachable
+        ClassLoader loader = new URLClassLoader(new URL[] {
+                TypeTokenTest.class.getProtectionDomain().getCodeSource().getLocation()}, null);
+        Class<?> isolated = Class.forName(Isolated.class.getName(), false, loader);
+        WeakReference<TypeToken<?>> token = new WeakReference<TypeToken<?>>(
+                TypeToken.getParameterized(List.class, isolated));
+        WeakReference<ClassLoader> loaderReference = new WeakReference<ClassLoader>(loader);
+        loader = null;
+        isolated = null;
+
+        for (int i = 0; i < 100 && (token.get() != null || loaderReference.get() != null); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull("token still reachable", token.get());
+        assertNull("class loader still reachable", loaderReference.get());
+    }
+
+    public static class Isolated {
+    }
+}
@@ -0,0 +1,165 @@
+package com.villcore.stream;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DecimalFormatterTest {
+
+    @Test
+    public void longs() {
+        long[] values = {0, 1, -1, 9, 10, 99, 100, Integer.MAX_VALUE, Integer.MIN_VALUE,
+                999999999999999999L, 1000000000000000000L, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long value : values) {
+            assertEquals(Long.toString(value), formatLong(value));
+        }
+        Random random = new Random(0);
+        for (int i = 0; i < 10000; i++) {
+            long value = random.nextLong() >> random.nextInt(64);
+            assertEquals(Long.toString(value), formatLong(value));
+        }
+    }
+
+    @Test
+    public void doubleEdgeCases() {
+        double[] values = {0.0, -0.0, 1.0, -1.0, 0.1, 0.001, 1e-3, 1e7, 9999999.0, 1e22, 1e23,
+                Double.MIN_VALUE, -Double.MIN_VALUE, Double.MIN_NORMAL, Math.nextDown(Double.MIN_NORMAL),
+                Double.MAX_VALUE, 2.0E-3, 1.0E23, 4.35, 5e-324, 9007199254740993.0};
+        for (double value : values) {
+            assertShortestDouble(value);
+        }
+        assertEquals("0.0", formatDouble(0.0));
+        assertEquals("-0.0", formatDouble(-0.0));
+        assertEquals("4.9E-324", formatDouble(Double.MIN_VALUE));
+        assertEquals("1.7976931348623157E308", formatDouble(Double.MAX_VALUE));
+        assertEquals("0.002", formatDouble(2.0E-3));
+        assertEquals("1.0E23", formatDouble(1.0E23));
+        assertEquals("1.0E7", formatDouble(1.0E7));
+        assertEquals("9999999.0", formatDouble(9999999.0));
+        assertEquals("0.001", formatDouble(0.001));
+    }
+
+    @Test
+    public void randomDoubles() {
+        Random random = new Random(1);
+        for (int i = 0; i < 20000; i++) {
+            double value = Double.longBitsToDouble(random.nextLong());
+            if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+                assertShortestDouble(value);
+            }
+            // subnormals, and small integers that are exact
+            assertShortestDouble(Double.longBitsToDouble(random.nextLong() & 0x000fffffffffffffL));
+            assertShortestDouble(random.nextInt());
+        }
+    }
+
+    @Test
+    public void floats() {
+        float[] values = {0.0f, -0.0f, 1.0f, 0.1f, 1e-3f, 1e7f, Float.MIN_VALUE, Float.MIN_NORMAL,
+                Float.MAX_VALUE, 3.4028235e38f, 1.0E-45f, 16777217.0f};
+        for (float value : values) {
+            assertShortestFloat(value);
+        }
+        assertEquals("1.4E-45", formatFloat(Float.MIN_VALUE));
+        assertEquals("3.4028235E38", formatFloat(Float.MAX_VALUE));
+        Random random = new Random(2);
+        for (int i = 0; i < 20000; i++) {
+            float value = Float.intBitsToFloat(random.nextInt());
+            if (!Float.isNaN(value) && !Float.isInfinite(value)) {
+                assertShortestFloat(value);
+            }
+        }
+    }
+
+    @Test
+    public void outputFitsMaxLength() {
+        byte[] out = new byte[DecimalFormatter.MAX_LENGTH];
+        DecimalFormatter.formatDouble(-2.2250738585072014E-308, out, 0);
+        DecimalFormatter.formatLong(Long.MIN_VALUE, out, 0);
+        DecimalFormatter.formatFloat(-1.17549435E-38f, out, 0);
+    }
+
+    /**
+     * Asserts that the output reads back as {@code value}, that no decimal with fewer digits does,
+     * and that of the decimals with as many digits it is the closest. Like {@link Double#toString},
+     * the output has at least two digits, so a one-digit decimal may also read back as the value.
+     */
+    private static void assertShortestDouble(double value) {
+        String formatted = formatDouble(value);
+        assertEquals(formatted, Double.doubleToRawLongBits(value),
+                Double.doubleToRawLongBits(Double.parseDouble(formatted)));
+        if (value == 0) {
+            return;
+        }
+        BigDecimal exact = new BigDecimal(value);
+        int digits = significantDigits(formatted);
+        if (digits > 2) {
+            MathContext shorter = new MathContext(digits - 1, RoundingMode.FLOOR);
+            assertTrue(formatted, Double.parseDouble(exact.round(shorter).toString()) != value);
+            shorter = new MathContext(digits - 1, RoundingMode.CEILING);
+            assertTrue(formatted, Double.parseDouble(exact.round(shorter).toString()) != value);
+        }
+        BigDecimal closest = exact.round(new MathContext(digits, RoundingMode.HALF_EVEN));
+        if (Double.parseDouble(closest.toString()) == value) {
+            assertEquals(formatted, 0, closest.compareTo(new BigDecimal(formatted)));
+        }
+        assertLayout(Double.toString(value), closest, formatted);
+    }
+
+    private static void assertShortestFloat(float value) {
+        String formatted = formatFloat(value);
+        assertEquals(formatted, Float.floatToRawIntBits(value), Float.floatToRawIntBits(Float.parseFloat(formatted)));
+        if (value == 0) {
+            return;
+        }
+        BigDecimal exact = new BigDecimal(value);
+        int digits = significantDigits(formatted);
+        if (digits > 2) {
+            MathContext shorter = new MathContext(digits - 1, RoundingMode.FLOOR);
+            assertTrue(formatted, Float.parseFloat(exact.round(shorter).toString()) != value);
+            shorter = new MathContext(digits - 1, RoundingMode.CEILING);
+            assertTrue(formatted, Float.parseFloat(exact.round(shorter).toString()) != value);
+        }
+        BigDecimal closest = exact.round(new MathContext(digits, RoundingMode.HALF_EVEN));
+        if (Float.parseFloat(closest.toString()) == value) {
+            assertEquals(formatted, 0, closest.compareTo(new BigDecimal(formatted)));
+        }
+        assertLayout(Float.toString(value), closest, formatted);
+    }
+
+    /**
+     * Asserts that {@code formatted} is laid out like the JDK's output {@code jdk} where that has
+     * the same digits. Older JDKs may pick other digits, or more of them.
+     */
+    private static void assertLayout(String jdk, BigDecimal closest, String formatted) {
+        if (new BigDecimal(jdk).compareTo(closest) == 0) {
+            assertEquals(jdk, formatted);
+        }
+    }
+
+    private static int significantDigits(String decimal) {
+        return new BigDecimal(decimal).stripTrailingZeros().precision();
+    }
+
+    private static String formatLong(long value) {
+        byte[] out = new byte[DecimalFormatter.MAX_LENGTH + 1];
+        return new String(out, 1, DecimalFormatter.formatLong(value, out, 1) - 1, StandardCharsets.US_ASCII);
+    }
+
+    private static String formatDouble(double value) {
+        byte[] out = new byte[DecimalFormatter.MAX_LENGTH + 1];
+        return new String(out, 1, DecimalFormatter.formatDouble(value, out, 1) - 1, StandardCharsets.US_ASCII);
+    }
+
+    private static String formatFloat(float value) {
+        byte[] out = new byte[DecimalFormatter.MAX_LENGTH + 1];
+        return new String(out, 1, DecimalFormatter.formatFloat(value, out, 1) - 1, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,127 @@
+package com.villcore.stream;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares {@link DoubleParser} and both readers' {@code nextDouble} with {@link Double#parseDouble}.
+ */
+public class DoubleParserTest {
+
+    @Test
+    public void zeros() throws IOException {
+        assertParses("0", "-0", "0.0", "-0.0", "0e0", "-0E-5", "0.000e+999999", "-0.0e-999999",
+                "0.00000000000000000000000000000000000001");
+    }
+
+    @Test
+    public void subnormals() throws IOException {
+        assertParses("4.9e-324", "-4.9e-324", "5e-324", "1e-323", "2.2250738585072009e-308",
+                "2.225073858507201e-308", "1.5e-323", "3.5e-323", "1e-310", "1234567e-320");
+        Random random = new Random(0);
+        for (int i = 0; i < 10000; i++) {
+            double value = Double.longBitsToDouble(random.nextLong() & 0x000fffffffffffffL);
+            assertParses(Double.toString(value), String.format(Locale.ROOT, "%.16e", value), String.format(Locale.ROOT, "%.18e", value));
+        }
+    }
+
+    @Test
+    public void halfwayRounding() throws IOException {
+        // 2^53 + 1 and 2^53 + 3 are halfway between doubles and round to the even neighbour
+        assertParses("9007199254740993", "9007199254740995", "-9007199254740993",
+                "2.4703282292062327e-324", "2.4703282292062328e-324",
+                "1.00000000000000011102230246251565404236316680908203125",
+                "1.00000000000000011102230246251565404236316680908203124",
+                "1.00000000000000011102230246251565404236316680908203126");
+        Random random = new Random(1);
+        for (int i = 0; i < 2000; i++) {
+            double value = Math.abs(Double.longBitsToDouble(random.nextLong()));
+            if (Double.isNaN(value) || Double.isInfinite(value) || value == Double.MAX_VALUE) {
+                continue;
+            }
+            BigDecimal halfway = new BigDecimal(value).add(new BigDecimal(Math.nextUp(value)))
+                    .divide(BigDecimal.valueOf(2));
+            assertParses(halfway.toString(), halfway.round(new MathContext(19)).toString(),
+                    halfway.round(new MathContext(17)).toString());
+        }
+    }
+
+    @Test
+    public void longSignificands() throws IOException {
+        assertParses("9999999999999999999", "18446744073709551615", "18446744073709551616",
+                "9223372036854775807", "9223372036854775808", "1234567890123456789.5",
+                "0.1234567890123456789", "1.2345678901234567890123456789e100",
+                "100000000000000000000000", "0.0000000000000000000000000000001234567890123456789");
+        Random random = new Random(2);
+        for (int i = 0; i < 10000; i++) {
+            StringBuilder digits = new StringBuilder();
+            digits.append(1 + random.nextInt(9));
+            int length = 17 + random.nextInt(8);
+            while (digits.length() < length) {
+                digits.append(random.nextInt(10));
+            }
+            assertParses(digits + "e" + (random.nextInt(640) - 340), "0." + digits + "E-" + random.nextInt(300));
+        }
+    }
+
+    @Test
+    public void exponentLimits() throws IOException {
+        assertParses("1.7976931348623157e308", "1.7976931348623158e308", "1.7976931348623159e308",
+                "1e308", "1e309", "-1e309", "1e-324", "1e-400", "1e-99999999", "1e99999999",
+                "2.2250738585072014E-308", "0.0000001e315", "100000e-329", "1e22", "1e23");
+        Random random = new Random(3);
+        for (int i = 0; i < 10000; i++) {
+            double value = Double.longBitsToDouble(random.nextLong());
+            if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+                assertParses(Double.toString(value), String.format(Locale.ROOT, "%.17e", value));
+            }
+        }
+    }
+
+    private static void assertParses(String... literals) throws IOException {
+        for (String literal : literals) {
+            assertParses(literal);
+        }
+    }
+
+    private static void assertParses(String literal) throws IOException {
+        double expected = Double.parseDouble(literal);
+        if (!Double.isInfinite(expected)) {
+            char[] chars = (" " + literal + " ").toCharArray();
+            assertSame(literal, expected, DoubleParser.parse(chars, 1, literal.length()));
+            ByteBuffer bytes = ByteBuffer.wrap((" " + literal + " ").getBytes(StandardCharsets.US_ASCII));
+            assertSame(literal, expected, DoubleParser.parse(bytes, 1, literal.length()));
+        }
+
+        String document = "[" + literal + "]";
+        JsonReader[] readers = {
+                new JsonReader(new StringReader(document)),
+                new Utf8JsonReader(ByteBuffer.wrap(document.getBytes(StandardCharsets.US_ASCII))),
+        };
+        for (JsonReader reader : readers) {
+            reader.setLenient(true);
+            reader.beginArray();
+            assertEquals(literal, Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(reader.nextDouble()));
+        }
+    }
+
+    /**
+     * Asserts that {@code actual} is {@code expected}, or NaN where the parser leaves it to
+     * {@link Double#parseDouble}.
+     */
+    private static void assertSame(String literal, double expected, double actual) {
+        if (!Double.isNaN(actual)) {
+            assertEquals(literal, Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual));
+        }
+    }
+}
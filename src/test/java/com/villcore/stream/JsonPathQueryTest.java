@@ -0,0 +1,251 @@
+package com.villcore.stream;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * Compares what queries extract with a plain walk of the document's tree.
+ */
+public class JsonPathQueryTest {
+    private static final String[] NAMES = {"a", "b", "c"};
+
+    @Test
+    public void matchesTreeWalk() throws IOException {
+        Random random = new Random(0);
+        for (int i = 0; i < 500; i++) {
+            Object document = randomValue(random, 4);
+            String json = toJson(document);
+            String[] paths = new String[1 + random.nextInt(4)];
+            for (int p = 0; p < paths.length; p++) {
+                paths[p] = randomPath(random);
+            }
+
+            List<String> expected = new ArrayList<String>();
+            walk(document, "$", paths, expected);
+            JsonPathQuery query = JsonPathQuery.compile(paths);
+            assertEquals(json + " " + Arrays.toString(paths), expected,
+                    extract(query, new JsonReader(new StringReader(json))));
+            assertEquals(json + " " + Arrays.toString(paths), expected,
+                    extract(query, new Utf8JsonReader(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)))));
+        }
+    }
+
+    @Test
+    public void stopsAfterTheCallbackReturnsFalse() throws IOException {
+        JsonReader in = new JsonReader(new StringReader("{\"a\":[1,2,3],\"b\":4}"));
+        final List<String> seen = new ArrayList<String>();
+        boolean completed = JsonPathQuery.extract(in, new JsonPathQuery.Callback() {
+            @Override
+            public boolean onMatch(int index, JsonReader in) throws IOException {
+                seen.add(in.getPath() + "=" + in.nextInt());
+                return seen.size() < 2;
+            }
+        }, "$.a[*]", "$.b");
+
+        assertFalse(completed);
+        assertEquals("[$.a[0]=1, $.a[1]=2]", seen.toString());
+        assertEquals(3, in.nextInt());
+    }
+
+    @Test
+    public void malformedPaths() {
+        for (String path : new String[] {"a", "$..a", "$.a[", "$.a[0]", "$a"}) {
+            try {
+                JsonPathQuery.compile(path);
+                fail(path);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    private static List<String> extract(JsonPathQuery query, JsonReader in) throws IOException {
+        final List<String> matches = new ArrayList<String>();
+        query.extract(in, new JsonPathQuery.Callback() {
+            @Override
+            public boolean onMatch(int index, JsonReader in) throws IOException {
+                String path = in.getPath();
+                matches.add(index + " " + path + " " + toJson(read(in)));
+                return true;
+            }
+        });
+        assertEquals(JsonToken.END_DOCUMENT, in.peek());
+        return matches;
+    }
+
+    /**
+     * Reports each value whose path matches one of {@code paths}, under the lowest index, without
+     * descending into it.
+     */
+    private static void walk(Object value, String path, String[] paths, List<String> matches) throws IOException {
+        for (int i = 0; i < paths.length; i++) {
+            if (matches(paths[i], path)) {
+                matches.add(i + " " + path + " " + toJson(value));
+                return;
+            }
+        }
+        if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                walk(entry.getValue(), path + "." + entry.getKey(), paths, matches);
+            }
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            for (int i = 0; i < list.size(); i++) {
+                walk(list.get(i), path + "[" + i + "]", paths, matches);
+            }
+        }
+    }
+
+    private static boolean matches(String pattern, String path) {
+        List<String> patternSteps = steps(pattern);
+        List<String> pathSteps = steps(path);
+        if (patternSteps.size() != pathSteps.size()) {
+            return false;
+        }
+        for (int i = 0; i < patternSteps.size(); i++) {
+            String step = patternSteps.get(i);
+            String actual = pathSteps.get(i);
+            boolean match = step.equals("[*]") ? actual.startsWith("[")
+                    : step.equals(".*") ? actual.startsWith(".")
+                    : step.equals(actual);
+            if (!match) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Splits {@code $.a[0].b} into {@code .a}, {@code [0]} and {@code .b}. */
+    private static List<String> steps(String path) {
+        List<String> steps = new ArrayList<String>();
+        int start = 1;
+        for (int i = 2; i <= path.length(); i++) {
+            if (i == path.length() || path.charAt(i) == '.' || path.charAt(i) == '[') {
+                steps.add(path.substring(start, i));
+                start = i;
+            }
+        }
+        return steps;
+    }
+
+    private static Object randomValue(Random random, int depth) {
+        int kind = random.nextInt(depth > 0 ? 6 : 3);
+        switch (kind) {
+        case 0:
+            return random.nextInt(100);
+        case 1:
+            return "s" + random.nextInt(10);
+        case 2:
+            return random.nextBoolean() ? Boolean.TRUE : null;
+        case 3:
+            List<Object> list = new ArrayList<Object>();
+            for (int i = random.nextInt(4); i > 0; i--) {
+                list.add(randomValue(random, depth - 1));
+            }
+            return list;
+        default:
+            Map<String, Object> map = new LinkedHashMap<String, Object>();
+            for (int i = random.nextInt(4); i > 0; i--) {
+                map.put(NAMES[random.nextInt(NAMES.length)] + (random.nextInt(4) == 0 ? "x" : ""),
+                        randomValue(random, depth - 1));
+            }
+            return map;
+        }
+    }
+
+    private static String randomPath(Random random) {
+        StringBuilder path = new StringBuilder("$");
+        for (int i = random.nextInt(4); i > 0; i--) {
+            switch (random.nextInt(4)) {
+            case 0:
+                path.append("[*]");
+                break;
+            case 1:
+                path.append(".*");
+                break;
+            default:
+                path.append('.').append(NAMES[random.nextInt(NAMES.length)]);
+                break;
+            }
+        }
+        return path.toString();
+    }
+
+    private static Object read(JsonReader in) throws IOException {
+        switch (in.peek()) {
+        case BEGIN_ARRAY:
+            List<Object> list = new ArrayList<Object>();
+            in.beginArray();
+            while (in.hasNext()) {
+                list.add(read(in));
+            }
+            in.endArray();
+            return list;
+        case BEGIN_OBJECT:
+            Map<String, Object> map = new LinkedHashMap<String, Object>();
+            in.beginObject();
+            while (in.hasNext()) {
+                map.put(in.nextName(), read(in));
+            }
+            in.endObject();
+            return map;
+        case NUMBER:
+            return in.nextInt();
+        case STRING:
+            return in.nextString();
+        case BOOLEAN:
+            return in.nextBoolean();
+        default:
+            in.nextNull();
+            return null;
+        }
+    }
+
+    private static String toJson(Object value) throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(out);
+        writer.setSerializeNulls(true);
+        write(value, writer);
+        writer.close();
+        return out.toString();
+    }
+
+    private static void write(Object value, JsonWriter writer) throws IOException {
+        if (value instanceof Map) {
+            writer.beginObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                writer.name((String) entry.getKey());
+                write(entry.getValue(), writer);
+            }
+            writer.endObject();
+        } else if (value instanceof List) {
+            writer.beginArray();
+            for (Object element : (List<?>) value) {
+                write(element, writer);
+            }
+            writer.endArray();
+        } else if (value instanceof Integer) {
+            writer.value((Integer) value);
+        } else if (value instanceof String) {
+            writer.value((String) value);
+        } else if (value instanceof Boolean) {
+            writer.value((Boolean) value);
+        } else {
+            writer.nullValue();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.villcore.stream;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class NdjsonReaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void linesSplitAcrossChunks() throws IOException {
+        Random random = new Random(0);
+        StringBuilder input = new StringBuilder();
+        List<String> expected = new ArrayList<String>();
+        for (int line = 1; line <= 5000; line++) {
+            int kind = random.nextInt(20);
+            if (kind == 0) {
+                input.append("{\"id\": ");
+                expected.add(line + " malformed");
+            } else if (kind == 1) {
+                input.append("  ");
+            } else {
+                // some lines are longer than a chunk, which then grows to hold them
+                int padding = kind == 2 ? 3000 : random.nextInt(200);
+                input.append("{\"id\": ").append(line).append(", \"s\": \"");
+                for (int i = 0; i < padding; i++) {
+                    input.append('\u00e9');
+                }
+                input.append("\"}");
+                expected.add(line + " " + line);
+            }
+            if (line < 5000) {
+                input.append('\n');
+            }
+        }
+        byte[] bytes = input.toString().getBytes(StandardCharsets.UTF_8);
+        File file = folder.newFile();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+
+        for (int chunkSize : new int[] {1024, 1500, 1 << 20}) {
+            for (boolean ordered : new boolean[] {true, false}) {
+                NdjsonReader reader = newReader(chunkSize, ordered);
+                String message = chunkSize + " " + ordered;
+
+                Recorder recorder = new Recorder();
+                assertEquals(message, expected.size() - countMalformed(expected),
+                        reader.read(ByteBuffer.wrap(bytes), recorder));
+                assertEquals(message, expected, recorder.lines(ordered));
+
+                recorder = new Recorder();
+                FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                try {
+                    reader.read(channel, recorder);
+                } finally {
+                    channel.close();
+                }
+                assertEquals(message, expected, recorder.lines(ordered));
+            }
+        }
+    }
+
+    @Test
+    public void crlfLineEndings() throws IOException {
+        String input = "{\"id\": 1}\r\n\r\n{\"id\": 3}\r\n[]\r\n";
+        for (boolean ordered : new boolean[] {true, false}) {
+            Recorder recorder = new Recorder();
+            newReader(1024, ordered).read(ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8)), recorder);
+            assertEquals(Arrays.asList("1 1", "3 3", "4 malformed"), recorder.lines(ordered));
+        }
+    }
+
+    @Test
+    public void blankFinalLine() throws IOException {
+        for (String input : new String[] {"{\"id\": 1}", "{\"id\": 1}\n", "{\"id\": 1}\n\n", "{\"id\": 1}\n \t"}) {
+            Recorder recorder = new Recorder();
+            assertEquals(1, newReader(1024, true).read(ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8)),
+                    recorder));
+            assertEquals(Collections.singletonList("1 1"), recorder.lines(true));
+        }
+    }
+
+    @Test
+    public void handlerErrorsStopTheRead() throws IOException {
+        StringBuilder input = new StringBuilder();
+        int lines = 20000;
+        for (int line = 1; line <= lines; line++) {
+            input.append("{\"id\": ").append(line).append("}\n");
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(input.toString().getBytes(StandardCharsets.UTF_8));
+
+        for (boolean ordered : new boolean[] {true, false}) {
+            final IllegalStateException boom = new IllegalStateException("boom");
+            final AtomicBoolean returned = new AtomicBoolean();
+            final AtomicBoolean calledAfterReturn = new AtomicBoolean();
+            final AtomicInteger calls = new AtomicInteger();
+            Recorder recorder = new Recorder() {
+                @Override
+                public Integer parse(JsonReader in) throws IOException {
+                    if (returned.get()) {
+                        calledAfterReturn.set(true);
+                    }
+                    calls.incrementAndGet();
+                    // slow enough that other chunks are still parsing when line 1000 fails
+                    LockSupport.parkNanos(20000);
+                    return super.parse(in);
+                }
+
+                @Override
+                public void record(long lineNumber, Integer record) {
+                    if (returned.get()) {
+                        calledAfterReturn.set(true);
+                    }
+                    if (lineNumber == 1000) {
+                        throw boom;
+                    }
+                }
+            };
+
+            try {
+                newReader(1024, ordered).read(bytes, recorder);
+                fail();
+            } catch (IllegalStateException e) {
+                // the pool may rethrow a copy with the original as its cause
+                assertTrue(e == boom || e.getCause() == boom);
+            }
+            returned.set(true);
+            assertTrue(pool.awaitQuiescence(10, TimeUnit.SECONDS));
+            assertFalse(calledAfterReturn.get());
+            assertTrue(calls.get() < lines / 2);
+        }
+    }
+
+    private NdjsonReader newReader(int chunkSize, boolean ordered) {
+        NdjsonReader reader = new NdjsonReader(pool);
+        reader.setChunkSize(chunkSize);
+        reader.setOrdered(ordered);
+        return reader;
+    }
+
+    private static int countMalformed(List<String> lines) {
+        int count = 0;
+        for (String line : lines) {
+            if (line.endsWith("malformed")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Parses each line's {@code id} and records "line id" or "line malformed".
+     */
+    private static class Recorder implements NdjsonReader.Handler<Integer> {
+        private final List<String> lines = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public Integer parse(JsonReader in) throws IOException {
+            int id = -1;
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("id")) {
+                    id = in.nextInt();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return id;
+        }
+
+        @Override
+        public void record(long lineNumber, Integer record) {
+            lines.add(lineNumber + " " + record);
+        }
+
+        @Override
+        public void malformed(long lineNumber, Exception e) {
+            lines.add(lineNumber + " malformed");
+        }
+
+        /** Returns the lines received, sorted by line number unless they arrived in order. */
+        List<String> lines(boolean ordered) {
+            List<String> result = new ArrayList<String>(lines);
+            if (!ordered) {
+                Collections.sort(result, new Comparator<String>() {
+                    @Override
+                    public int compare(String a, String b) {
+                        return Long.compare(lineNumber(a), lineNumber(b));
+                    }
+                });
+            }
+            return result;
+        }
+
+        private static long lineNumber(String line) {
+            return Long.parseLong(line.substring(0, line.indexOf(' ')));
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.villcore.stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class Utf8JsonReaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String[] DOCUMENTS = {
+            "{}",
+            "[]",
+            "[[], {}, [{}], {\"a\": []}]",
+            "{\"a\": 1, \"b\": [true, false, null], \"c\": {\"d\": \"e\"}}",
+            "[0, -0, 1, -1, 9223372036854775807, -9223372036854775808, 9223372036854775808]",
+            "[0.5, -0.0, 1e0, 1E+2, 1e-2, 2.5e-324, 1.7976931348623157e308, 123456789012345678901234567890]",
+            "[\"\", \"plain\", \"esc\\\"aped\\\\\\/\\b\\f\\n\\r\\t\", \"\\u00e9\\u20ac\\ud83d\\ude00\"]",
+            "[\"café\", \"€100\", \"😀 smile\", {\"über\": \"中文\"}]",
+            "{\"nested\": {\"deeper\": {\"deepest\": [1, [2, [3, [4]]]]}}}",
+    };
+
+    @Test
+    public void tokensMatchJsonReader() throws IOException {
+        for (String document : DOCUMENTS) {
+            assertEquals(document, transcript(new JsonReader(new StringReader(document))),
+                    transcript(new Utf8JsonReader(ByteBuffer.wrap(document.getBytes(StandardCharsets.UTF_8)))));
+        }
+    }
+
+    @Test
+    public void lenientTokensMatchJsonReader() throws IOException {
+        String[] documents = {
+                ")]}'\n{\"a\": 1}",
+                "\ufeff[1, 2]",
+                "{a: 'b', 'c' = 1; d => [true; TRUE, Null,, \"x\"]}",
+                "[1 /* block */, 2 // line\n, 3 # hash\n, /**/4]",
+                "[unquoted, 01, 1.5.5, NaN, -Infinity, truey]",
+                "/* leading */ {\"a\": \"b\"} // trailing",
+        };
+        for (String document : documents) {
+            JsonReader expected = new JsonReader(new StringReader(document));
+            JsonReader actual = new Utf8JsonReader(ByteBuffer.wrap(document.getBytes(StandardCharsets.UTF_8)));
+            expected.setLenient(true);
+            actual.setLenient(true);
+            assertEquals(document, transcript(expected), transcript(actual));
+        }
+    }
+
+    @Test
+    public void syntaxErrorsMatchJsonReader() throws IOException {
+        String[] documents = {"[1 2]", "{\"a\" 1}", "[\"unterminated", "[1, /* comment */ 2]", "{\"a\": tru}"};
+        for (String document : documents) {
+            assertEquals(document, error(new JsonReader(new StringReader(document))),
+                    error(new Utf8JsonReader(ByteBuffer.wrap(document.getBytes(StandardCharsets.UTF_8)))));
+        }
+    }
+
+    @Test
+    public void skipValueMatchesJsonReader() throws IOException {
+        for (String document : DOCUMENTS) {
+            String wrapped = "[" + document + ", \"after\"]";
+            for (boolean fast : new boolean[] {false, true}) {
+                JsonReader expected = new JsonReader(new StringReader(wrapped));
+                JsonReader actual = new Utf8JsonReader(ByteBuffer.wrap(wrapped.getBytes(StandardCharsets.UTF_8)));
+                for (JsonReader reader : new JsonReader[] {expected, actual}) {
+                    reader.beginArray();
+                    if (fast) {
+                        reader.skipValueFast();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                assertEquals(document, transcript(expected), transcript(actual));
+            }
+        }
+    }
+
+    @Test
+    public void tokensStraddlingMappedWindows() throws IOException {
+        StringBuilder document = new StringBuilder("[");
+        for (int i = 0; i < 40; i++) {
+            document.append("{\"nameé").append(i).append("\": \"value 😀 \\u00e9 \\n ")
+                    .append(i).append("\", \"n\": -1234567890.123456789e-12, \"l\": -9223372036854775808, ")
+                    .append("\"d\": 2.2250738585072014E-308, \"t\": true, \"f\": false, \"z\": null}, ");
+        }
+        document.append("\"end\"]");
+        byte[] bytes = document.toString().getBytes(StandardCharsets.UTF_8);
+        String expected = transcript(new JsonReader(new StringReader(document.toString())));
+
+        // leading whitespace of every length up to 128 moves each token across a window boundary
+        File file = folder.newFile();
+        byte[] prefix = new byte[128];
+        Arrays.fill(prefix, (byte) ' ');
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(prefix);
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            for (int offset = 0; offset < prefix.length; offset++) {
+                Utf8JsonReader reader = new Utf8JsonReader(channel, prefix.length - offset,
+                        bytes.length + offset, 1024);
+                assertEquals("offset " + offset, expected, transcript(reader));
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Returns the message of the exception reading the whole document throws, or null.
+     */
+    private static String error(JsonReader reader) {
+        try {
+            transcript(reader);
+            return null;
+        } catch (IOException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Reads the whole document, recording every token, its value and the path before it.
+     */
+    private static String transcript(JsonReader reader) throws IOException {
+        List<String> events = new ArrayList<String>();
+        int depth = 0;
+        do {
+            JsonToken token = reader.peek();
+            StringBuilder event = new StringBuilder(reader.getPath()).append(' ').append(token);
+            switch (token) {
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                depth++;
+                break;
+            case END_ARRAY:
+                reader.endArray();
+                depth--;
+                break;
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                depth++;
+                break;
+            case END_OBJECT:
+                reader.endObject();
+                depth--;
+                break;
+            case NAME:
+                event.append(' ').append(reader.nextName());
+                break;
+            case STRING:
+                event.append(' ').append(reader.nextString());
+                break;
+            case NUMBER:
+                event.append(' ').append(reader.nextString());
+                break;
+            case BOOLEAN:
+                event.append(' ').append(reader.nextBoolean());
+                break;
+            case NULL:
+                reader.nextNull();
+                break;
+            default:
+                throw new AssertionError(token);
+            }
+            events.add(event.toString());
+        } while (depth > 0);
+        events.add(String.valueOf(reader.peek()));
+        return events.toString();
+    }
+}
@@ -0,0 +1,98 @@
+package com.villcore.stream;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class Utf8JsonWriterTest {
+
+    @Test
+    public void bytesMatchJsonWriter() throws IOException {
+        for (boolean htmlSafe : new boolean[] {false, true}) {
+            for (String indent : new String[] {"", "  "}) {
+                StringWriter chars = new StringWriter();
+                JsonWriter expected = new JsonWriter(chars);
+                Utf8JsonWriter actual = new Utf8JsonWriter();
+                ByteArrayOutputStream drained = new ByteArrayOutputStream();
+                Utf8JsonWriter small = new Utf8JsonWriter(drained, new byte[64]);
+                for (JsonWriter writer : new JsonWriter[] {expected, actual, small}) {
+                    writer.setHtmlSafe(htmlSafe);
+                    writer.setIndent(indent);
+                    writeDocument(writer);
+                    writer.close();
+                }
+
+                byte[] expectedBytes = chars.toString().getBytes(StandardCharsets.UTF_8);
+                assertArrayEquals(expectedBytes, actual.toByteArray());
+                assertArrayEquals(expectedBytes, drained.toByteArray());
+            }
+        }
+    }
+
+    @Test
+    public void stringsRoundTrip() throws IOException {
+        Random random = new Random(0);
+        for (int i = 0; i < 200; i++) {
+            String value = randomString(random, random.nextInt(300));
+            Utf8JsonWriter writer = new Utf8JsonWriter();
+            writer.beginArray().value(value).endArray().close();
+
+            JsonReader reader = new Utf8JsonReader(ByteBuffer.wrap(writer.toByteArray()));
+            reader.beginArray();
+            assertEquals(value, reader.nextString());
+            reader.endArray();
+        }
+    }
+
+    @Test
+    public void unpairedSurrogatesBecomeQuestionMarks() throws IOException {
+        Utf8JsonWriter writer = new Utf8JsonWriter();
+        writer.beginArray().value("a\ud800b\udc00c\ud83d").endArray().close();
+        assertEquals("[\"a?b?c?\"]", new String(writer.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static void writeDocument(JsonWriter writer) throws IOException {
+        writer.beginObject();
+        writer.name("ascii").value("plain text that is longer than the smallest buffer, and then some more");
+        writer.name("escapes").value("\"\\/\b\f\n\r\t\u0000\u001f<>&='  ");
+        writer.name("multi-byte é €").value("café € 中文 😀 😀");
+        writer.name("numbers").beginArray()
+                .value(0).value(-1).value(Long.MIN_VALUE).value(Long.MAX_VALUE)
+                .value(0.0).value(-0.0).value(0.1).value(1e23).value(Double.MIN_VALUE).value(Double.MAX_VALUE)
+                .value(1.0f).value(Float.MIN_VALUE).value((Number) 12.5)
+                .endArray();
+        writer.name("literals").beginArray().value(true).value(false).nullValue().jsonValue("{\"raw\":1}").endArray();
+        writer.name("empty").beginObject().endObject();
+        writer.endObject();
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder result = new StringBuilder();
+        while (result.length() < length) {
+            switch (random.nextInt(4)) {
+            case 0:
+                result.append((char) random.nextInt(0x80));
+                break;
+            case 1:
+                result.append((char) (0x80 + random.nextInt(0x800 - 0x80)));
+                break;
+            case 2:
+                char c = (char) (0x800 + random.nextInt(0x10000 - 0x800));
+                result.append(Character.isSurrogate(c) ? 'x' : c);
+                break;
+            default:
+                result.appendCodePoint(0x10000 + random.nextInt(0x110000 - 0x10000));
+                break;
+            }
+        }
+        return result.toString();
+    }
+}